@@ -0,0 +1,383 @@
+package com.finansage.api;
+
+import com.finansage.model.CategoryReport;
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionFilter;
+import com.finansage.model.TransactionPage;
+import com.finansage.model.TransactionType;
+import com.finansage.service.LedgerConflictException;
+import com.finansage.service.LedgerSaveException;
+import com.finansage.service.TransactionService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP/JSON API over a single TransactionService, built on the JDK's embedded HTTP server.
+ * Every request runs on its own virtual thread, so thousands of concurrent (mostly blocking) requests
+ * are cheap; the service's read/write lock keeps them consistent. A change that another program's rewrite
+ * of the ledger file replaced is answered with 409, and one that could not be saved with 500.
+ * Totals are in the default currency, converted where needed; if the rate table cannot convert one of
+ * the ledger's currencies, they are added up unconverted and {@code currency} is null.
+ *
+ * <pre>
+ * GET    /api/transactions?offset=&amp;limit=&amp;from=&amp;to=&amp;category=&amp;type=   list with paging and filters
+ * GET    /api/transactions/{id}                                        get one
+ * POST   /api/transactions                                             add one
+ * POST   /api/transactions/bulk                                        add an array
+ * PUT    /api/transactions/{id}                                        replace one
+ * DELETE /api/transactions/{id}                                        delete one
+ * GET    /api/summary                                                  financial summary
+ * GET    /api/reports/categories                                       totals per category
+ * </pre>
+ */
+public class ApiServer implements AutoCloseable {
+
+    private static final String TRANSACTIONS_PATH = "/api/transactions";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BACKLOG = 4096;
+
+    private final TransactionService transactionService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server bound to the loopback interface. Use port 0 to pick any free port.
+     */
+    public ApiServer(TransactionService transactionService, int port) throws IOException {
+        this.transactionService = transactionService;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(TRANSACTIONS_PATH, exchange -> handle(exchange, this::routeTransactions));
+        server.createContext("/api/summary", exchange -> handle(exchange, this::summary));
+        server.createContext("/api/reports/categories", exchange -> handle(exchange, this::categoryReport));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    // --- Routing ---
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    /**
+     * Signals a client error that should be reported with the given HTTP status.
+     */
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (ApiException e) {
+            response = error(e.status, e.getMessage());
+        } catch (LedgerConflictException e) {
+            response = error(409, e.getMessage());
+        } catch (LedgerSaveException e) {
+            response = error(500, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException | ClassCastException e) {
+            response = error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            response = error(500, "Internal error: " + e.getMessage());
+        }
+        send(exchange, response);
+    }
+
+    private Response routeTransactions(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String rest = exchange.getRequestURI().getPath().substring(TRANSACTIONS_PATH.length());
+        if (rest.isEmpty() || rest.equals("/")) {
+            return switch (method) {
+                case "GET" -> list(exchange);
+                case "POST" -> add(exchange);
+                default -> throw new ApiException(405, "Method not allowed");
+            };
+        }
+        String id = rest.substring(1);
+        if (id.equals("bulk")) {
+            if (!method.equals("POST")) {
+                throw new ApiException(405, "Method not allowed");
+            }
+            return bulkAdd(exchange);
+        }
+        return switch (method) {
+            case "GET" -> get(id);
+            case "PUT" -> update(exchange, id);
+            case "DELETE" -> delete(id);
+            default -> throw new ApiException(405, "Method not allowed");
+        };
+    }
+
+    // --- Endpoints ---
+
+    private Response list(HttpExchange exchange) {
+        Map<String, String> query = queryParameters(exchange);
+        TransactionFilter filter = new TransactionFilter(
+                query.containsKey("from") ? LocalDate.parse(query.get("from")) : null,
+                query.containsKey("to") ? LocalDate.parse(query.get("to")) : null,
+                query.get("category"),
+                query.containsKey("type") ? TransactionType.valueOf(query.get("type").toUpperCase()) : null);
+        int offset = intParameter(query, "offset", 0);
+        int limit = Math.min(intParameter(query, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+
+        TransactionPage matches = transactionService.findTransactions(filter, offset, limit);
+        List<Object> items = new ArrayList<>(matches.transactions().size());
+        for (Transaction transaction : matches.transactions()) {
+            items.add(toJson(transaction));
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("total", matches.total());
+        page.put("offset", offset);
+        page.put("limit", limit);
+        page.put("items", items);
+        return new Response(200, page);
+    }
+
+    private Response get(String id) {
+        Transaction transaction = transactionService.findTransactionById(id)
+                .orElseThrow(() -> new ApiException(404, "Transaction not found: " + id));
+        return new Response(200, toJson(transaction));
+    }
+
+    private Response add(HttpExchange exchange) throws IOException {
+        Transaction transaction = fromJson(asObject(readBody(exchange)), null);
+        transactionService.addTransaction(transaction);
+        return new Response(201, toJson(transaction));
+    }
+
+    private Response bulkAdd(HttpExchange exchange) throws IOException {
+        if (!(readBody(exchange) instanceof List<?> rows)) {
+            throw new ApiException(400, "Expected a JSON array of transactions");
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        for (Object row : rows) {
+            transactions.add(fromJson(asObject(row), null));
+        }
+        transactionService.addTransactions(transactions);
+        return new Response(201, Map.of("added", transactions.size()));
+    }
+
+    private Response update(HttpExchange exchange, String id) throws IOException {
+        Transaction transaction = fromJson(asObject(readBody(exchange)), id);
+        if (!transactionService.updateTransaction(transaction)) {
+            throw new ApiException(404, "Transaction not found: " + id);
+        }
+        return new Response(200, toJson(transaction));
+    }
+
+    private Response delete(String id) {
+        if (!transactionService.deleteTransaction(id)) {
+            throw new ApiException(404, "Transaction not found: " + id);
+        }
+        return new Response(204, null);
+    }
+
+    private Response summary(HttpExchange exchange) {
+        requireGet(exchange);
+        Map<String, Object> body = new LinkedHashMap<>();
+        FinancialSummary summary;
+        try {
+            summary = transactionService.getFinancialSummaryInDefaultCurrency();
+            body.put("currency", Transaction.getDefaultCurrency().getCurrencyCode());
+        } catch (IllegalStateException e) {
+            summary = transactionService.getFinancialSummary();
+            putUnconverted(body, e);
+        }
+        body.put("totalIncome", summary.totalIncome());
+        body.put("totalExpenses", summary.totalExpenses());
+        body.put("netBalance", summary.netBalance());
+        return new Response(200, body);
+    }
+
+    private Response categoryReport(HttpExchange exchange) {
+        requireGet(exchange);
+        Map<String, Object> body = new LinkedHashMap<>();
+        CategoryReport report;
+        try {
+            report = transactionService.getCategoryReportInDefaultCurrency();
+            body.put("currency", Transaction.getDefaultCurrency().getCurrencyCode());
+        } catch (IllegalStateException e) {
+            report = transactionService.getCategoryReport();
+            putUnconverted(body, e);
+        }
+        body.put("incomeByCategory", report.incomeByCategory());
+        body.put("expensesByCategory", report.expensesByCategory());
+        return new Response(200, body);
+    }
+
+    /**
+     * Labels totals that add up several currencies because the rate table could not convert one of them.
+     */
+    private void putUnconverted(Map<String, Object> body, IllegalStateException e) {
+        body.put("currency", null);
+        body.put("unconvertedCurrencies", transactionService.getCurrencies().stream().map(Currency::getCurrencyCode).toList());
+        body.put("warning", e.getMessage() + "; amounts are added up unconverted");
+    }
+
+    // --- Mapping ---
+
+    static Map<String, Object> toJson(Transaction transaction) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", transaction.getId());
+        json.put("date", transaction.getDate());
+        json.put("description", transaction.getDescription());
+        json.put("amount", transaction.getAmount());
+        json.put("currency", transaction.getCurrency().getCurrencyCode());
+        json.put("type", transaction.getType());
+        json.put("category", transaction.getCategory());
+        return json;
+    }
+
+    /**
+     * The currency is optional and defaults to {@link Transaction#getDefaultCurrency()}.
+     * @param pathId The ID from the URL for updates; null for new transactions, which get a generated ID.
+     */
+    static Transaction fromJson(Map<String, Object> json, String pathId) {
+        LocalDate date = LocalDate.parse(requireString(json, "date"));
+        String description = requireString(json, "description").trim();
+        BigDecimal amount = json.get("amount") instanceof BigDecimal number
+                ? number
+                : new BigDecimal(requireString(json, "amount"));
+        if (amount.signum() < 0) {
+            throw new ApiException(400, "Amount cannot be negative");
+        }
+        TransactionType type = TransactionType.valueOf(requireString(json, "type").toUpperCase());
+        String category = requireString(json, "category").trim();
+        Currency currency = json.get("currency") == null
+                ? Transaction.getDefaultCurrency()
+                : Currency.getInstance(requireString(json, "currency").trim().toUpperCase());
+        if (!isStorable(description) || !isStorable(category)) {
+            throw new ApiException(400, "Description and category must be non-empty and must not contain commas or control characters");
+        }
+        return pathId == null
+                ? new Transaction(date, description, amount, type, category, currency)
+                : new Transaction(pathId, date, description, amount, type, category, currency);
+    }
+
+    /**
+     * @return True if the ledger file can hold the text in one field: a comma would split it and a line
+     * break (or any other control character) would end or corrupt the row.
+     */
+    private static boolean isStorable(String text) {
+        return !text.isEmpty() && text.indexOf(',') < 0 && text.chars().noneMatch(Character::isISOControl);
+    }
+
+    private static String requireString(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value == null) {
+            throw new ApiException(400, "Missing field: " + field);
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        if (!(value instanceof Map<?, ?>)) {
+            throw new ApiException(400, "Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    // --- HTTP plumbing ---
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static Object readBody(HttpExchange exchange) throws IOException {
+        return Json.parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        int value = Optional.ofNullable(query.get(name)).map(Integer::parseInt).orElse(defaultValue);
+        if (value < 0) {
+            throw new ApiException(400, name + " cannot be negative");
+        }
+        return value;
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Map.of("error", message == null ? "" : message));
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        try (exchange) {
+            if (response.body() == null) {
+                exchange.sendResponseHeaders(response.status(), -1);
+                return;
+            }
+            byte[] bytes = Json.write(response.body()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(bytes);
+            }
+        }
+    }
+}
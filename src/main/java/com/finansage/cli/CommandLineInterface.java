@@ -1,55 +1,147 @@
 package com.finansage.cli;
 
+import com.finansage.model.ArchiveSegment;
+import com.finansage.model.BalancePoint;
+import com.finansage.model.BatchReport;
+import com.finansage.model.Budget;
+import com.finansage.model.BudgetPeriod;
+import com.finansage.model.BudgetStatus;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.ExchangeRate;
+import com.finansage.model.ExportFormat;
 import com.finansage.model.FinancialSummary;
+import com.finansage.model.ImportMode;
+import com.finansage.model.ImportReport;
+import com.finansage.model.LoadReport;
+import com.finansage.model.MerchantCount;
+import com.finansage.model.QueryResult;
+import com.finansage.model.ReconciliationReport;
+import com.finansage.model.RecurrenceFrequency;
+import com.finansage.model.RecurringOccurrence;
+import com.finansage.model.RecurringRule;
+import com.finansage.model.SortKey;
 import com.finansage.model.Transaction;
+import com.finansage.model.TransactionFilter;
 import com.finansage.model.TransactionType;
+import com.finansage.service.LedgerRegistry;
+import com.finansage.service.LedgerSaveException;
 import com.finansage.service.TransactionService;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Currency;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.TreeMap;
 
 public class CommandLineInterface {
-    private final TransactionService transactionService;
+    private final LedgerRegistry ledgerRegistry;
+    private TransactionService transactionService;
+    private String activeLedger;
     private final Scanner scanner;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     public CommandLineInterface(TransactionService transactionService) {
+        this.ledgerRegistry = null;
         this.transactionService = transactionService;
         this.scanner = new Scanner(System.in);
     }
 
+    /**
+     * Creates a CLI over several ledgers. The first registered ledger starts out active.
+     */
+    public CommandLineInterface(LedgerRegistry ledgerRegistry) {
+        this.ledgerRegistry = ledgerRegistry;
+        this.activeLedger = ledgerRegistry.getLedgerNames().iterator().next();
+        this.transactionService = ledgerRegistry.getLedger(activeLedger);
+        this.scanner = new Scanner(System.in);
+    }
+
     public void start() {
+        transactionService.getLoadReport().ifPresent(this::printLoadReport);
         boolean running = true;
         while (running) {
             printMenu();
             int choice = readInt("Enter your choice: ");
-            switch (choice) {
-                case 1:
-                    addTransaction();
-                    break;
-                case 2:
-                    listTransactions();
-                    break;
-                case 3:
-                    deleteTransaction();
-                    break;
-                case 4:
-                    showSummary();
-                    break;
-                case 5: // New option
-                    editTransaction();
-                    break;
-                case 0:
-                    running = false;
-                    break;
-                default:
-                    System.out.println("Invalid option. Please try again.");
+            try {
+                switch (choice) {
+                    case 1:
+                        addTransaction();
+                        break;
+                    case 2:
+                        listTransactions();
+                        break;
+                    case 3:
+                        deleteTransaction();
+                        break;
+                    case 4:
+                        showSummary();
+                        break;
+                    case 5: // New option
+                        editTransaction();
+                        break;
+                    case 6:
+                        importTransactions();
+                        break;
+                    case 7:
+                        showBalanceHistory();
+                        break;
+                    case 8:
+                        manageBudgets();
+                        break;
+                    case 9:
+                        manageLedgers();
+                        break;
+                    case 10:
+                        System.out.println(transactionService.undo() ? "Last change undone." : "Nothing to undo.");
+                        break;
+                    case 11:
+                        System.out.println(transactionService.redo() ? "Change redone." : "Nothing to redo.");
+                        break;
+                    case 12:
+                        exportTransactions();
+                        break;
+                    case 13:
+                        bulkRecategorize();
+                        break;
+                    case 14:
+                        searchTransactions();
+                        break;
+                    case 15:
+                        showLargestExpenses();
+                        break;
+                    case 16:
+                        manageArchive();
+                        break;
+                    case 17:
+                        manageRecurring();
+                        break;
+                    case 18:
+                        manageExchangeRates();
+                        break;
+                    case 19:
+                        reconcileStatement();
+                        break;
+                    case 0:
+                        running = false;
+                        break;
+                    default:
+                        System.out.println("Invalid option. Please try again.");
+                }
+            } catch (LedgerSaveException e) {
+                // The change did not reach the ledger file; say so instead of reporting success
+                System.out.println("Error: " + e.getMessage());
             }
         }
         System.out.println("Thank you for using FinanSage. Goodbye!");
@@ -57,30 +149,62 @@ public class CommandLineInterface {
 
     private void printMenu() {
         System.out.println("\n--- FinanSage Menu ---");
+        if (activeLedger != null) {
+            System.out.println("Ledger: " + activeLedger);
+        }
         System.out.println("1. Add Transaction");
         System.out.println("2. List all Transactions");
         System.out.println("3. Delete Transaction");
         System.out.println("4. Show Financial Summary");
         System.out.println("5. Edit Transaction"); // New option
+        System.out.println("6. Import Transactions from CSV");
+        System.out.println("7. Balance History");
+        System.out.println("8. Manage Budgets");
+        System.out.println("9. Ledgers (switch / consolidated summary)");
+        System.out.println("10. Undo");
+        System.out.println("11. Redo");
+        System.out.println("12. Export Transactions");
+        System.out.println("13. Bulk Recategorize");
+        System.out.println("14. Search (query)");
+        System.out.println("15. Largest Expenses");
+        System.out.println("16. Archive (old years)");
+        System.out.println("17. Recurring Transactions");
+        System.out.println("18. Exchange Rates");
+        System.out.println("19. Reconcile with Bank Statement");
         System.out.println("0. Exit");
         System.out.println("----------------------");
     }
 
     private void listTransactions() {
-        List<Transaction> transactions = transactionService.getAllTransactions();
-        if (transactions.isEmpty()) {
+        if (transactionService.getAllTransactions().isEmpty()) {
             System.out.println("No transactions found.");
             return;
         }
+        String order = readString("Sort by: 1 as entered, 2 date, 3 amount, 4 category, 5 description (default 1): ", "1");
+        SortKey key = switch (order) {
+            case "2" -> SortKey.DATE;
+            case "3" -> SortKey.AMOUNT;
+            case "4" -> SortKey.CATEGORY;
+            case "5" -> SortKey.DESCRIPTION;
+            default -> null;
+        };
+        List<Transaction> transactions = key == null
+                ? transactionService.getAllTransactions()
+                : transactionService.getSortedTransactions(key, false);
         System.out.println("\n--- All Transactions ---");
-        System.out.printf("%-38s %-12s %-15s %-10s %-15s %-20s%n", "ID", "Date", "Description", "Amount", "Type", "Category");
-        System.out.println("-".repeat(120));
+        printTransactionTable(transactions);
+    }
+
+    private void printTransactionTable(List<Transaction> transactions) {
+        System.out.printf("%-38s %-12s %-15s %-10s %-4s %-15s %-20s%n", "ID", "Date", "Description", "Amount", "Cur", "Type", "Category");
+        System.out.println("-".repeat(125));
         for (Transaction tx : transactions) {
-            System.out.printf("%-38s %-12s %-15s %-10.2f %-15s %-20s%n",
+            System.out.printf("%-38s %-12s %-15s %-10.2f %-4s %-15s %-20s%n",
                     tx.getId(),
                     tx.getDate().format(DATE_FORMATTER),
                     tx.getDescription(),
                     tx.getAmount(),
+                    tx.getCurrency().getCurrencyCode(),
                     tx.getType(),
                     tx.getCategory());
         }
@@ -93,9 +217,12 @@ public class CommandLineInterface {
         BigDecimal amount = readBigDecimal("Enter amount: ", null);
         TransactionType type = readTransactionType("Enter type (1 for INCOME, 2 for EXPENSE): ", null);
         String category = readString("Enter category: ", null);
+        Currency currency = readCurrency("Enter currency (" + Transaction.getDefaultCurrency() + "): ", Transaction.getDefaultCurrency());
 
-        transactionService.addTransaction(date, description, amount, type, category);
+        Transaction transaction = new Transaction(date, description, amount, type, category, currency);
+        transactionService.addTransaction(transaction);
         System.out.println("Transaction added successfully!");
+        printBudgetWarnings(transaction);
     }
 
     private void deleteTransaction() {
@@ -116,11 +243,101 @@ public class CommandLineInterface {
     private void showSummary() {
         System.out.println("\n--- Financial Summary ---");
         FinancialSummary summary = transactionService.getFinancialSummary();
+        CategoryReport report = transactionService.getCategoryReport();
+        List<Currency> currencies = transactionService.getCurrencies();
+        if (currencies.size() > 1 || (currencies.size() == 1 && !currencies.getFirst().equals(Transaction.getDefaultCurrency()))) {
+            Currency target = readCurrency("The ledger has amounts in " + currencies + ". Show totals in ("
+                    + Transaction.getDefaultCurrency() + "): ", Transaction.getDefaultCurrency());
+            try {
+                summary = transactionService.getFinancialSummary(target);
+                report = transactionService.getCategoryReport(target);
+                System.out.println("Converted to " + target + " at each transaction's date (archived years not included).");
+            } catch (IllegalStateException e) {
+                System.out.println("Error: " + e.getMessage() + ". Amounts are added up unconverted; add the rate under Exchange Rates.");
+            }
+        }
         System.out.printf("Total Income:  %.2f%n", summary.totalIncome());
         System.out.printf("Total Expenses: %.2f%n", summary.totalExpenses());
         System.out.println("-------------------------");
         System.out.printf("Net Balance:   %.2f%n", summary.netBalance());
         System.out.println("-------------------------");
+        printCategoryReport(report);
+        printInsights(report);
+    }
+
+    private void printInsights(CategoryReport report) {
+        if (report.expensesByCategory().isEmpty()) {
+            return;
+        }
+        System.out.println("Typical expense size (approx.):");
+        System.out.printf("  %-20s %12s %12s%n", "Category", "Median", "p95");
+        for (String category : report.expensesByCategory().keySet()) {
+            transactionService.getExpenseQuantiles(category).ifPresent(quantiles ->
+                    System.out.printf("  %-20s %12.2f %12.2f%n", category, quantiles.median(), quantiles.p95()));
+        }
+        System.out.printf("Distinct merchants (approx.): %d%n", transactionService.getDistinctMerchantCount());
+        System.out.println("Most frequent merchants:");
+        for (MerchantCount merchant : transactionService.getTopMerchants(5)) {
+            System.out.printf("  %-30s %8d%n", merchant.merchant(), merchant.count());
+        }
+    }
+
+    private void printCategoryReport(CategoryReport report) {
+        if (!report.expensesByCategory().isEmpty()) {
+            System.out.println("Expenses by category:");
+            report.expensesByCategory().forEach((category, amount) -> System.out.printf("  %-20s %12.2f%n", category, amount));
+        }
+        if (!report.incomeByCategory().isEmpty()) {
+            System.out.println("Income by category:");
+            report.incomeByCategory().forEach((category, amount) -> System.out.printf("  %-20s %12.2f%n", category, amount));
+        }
+    }
+
+    private void manageLedgers() {
+        if (ledgerRegistry == null) {
+            System.out.println("Only one ledger is open.");
+            return;
+        }
+        System.out.println("\n--- Ledgers ---");
+        List<String> names = List.copyOf(ledgerRegistry.getLedgerNames());
+        try {
+            Map<String, FinancialSummary> summaries = ledgerRegistry.getSummaries();
+            System.out.printf("%-4s %-30s %12s %12s %12s%n", "#", "Ledger", "Income", "Expenses", "Net");
+            for (int i = 0; i < names.size(); i++) {
+                FinancialSummary summary = summaries.get(names.get(i));
+                System.out.printf("%-4d %-30s %12.2f %12.2f %12.2f%s%n", i + 1, names.get(i),
+                        summary.totalIncome(), summary.totalExpenses(), summary.netBalance(),
+                        names.get(i).equals(activeLedger) ? "  (active)" : "");
+            }
+            FinancialSummary consolidated = ledgerRegistry.getConsolidatedSummary();
+            System.out.printf("%-4s %-30s %12.2f %12.2f %12.2f%n", "", "All ledgers",
+                    consolidated.totalIncome(), consolidated.totalExpenses(), consolidated.netBalance());
+            System.out.println("Totals are in " + Transaction.getDefaultCurrency() + ".");
+            printCategoryReport(ledgerRegistry.getConsolidatedCategoryReport());
+        } catch (IllegalStateException e) {
+            // Adding up currencies unconverted would be meaningless, so list the ledgers without totals
+            System.out.println("Error: " + e.getMessage() + ". Totals are not shown; add the rate under Exchange Rates.");
+            for (int i = 0; i < names.size(); i++) {
+                System.out.printf("%-4d %-30s%s%n", i + 1, names.get(i), names.get(i).equals(activeLedger) ? "  (active)" : "");
+            }
+        }
+
+        String choice = readString("Enter a ledger number to switch to it, or press Enter to go back: ", "");
+        if (choice.isEmpty()) {
+            return;
+        }
+        try {
+            int index = Integer.parseInt(choice) - 1;
+            if (index < 0 || index >= names.size()) {
+                System.out.println("Error: No ledger with that number.");
+                return;
+            }
+            activeLedger = names.get(index);
+            transactionService = ledgerRegistry.getLedger(activeLedger);
+            System.out.println("Switched to " + activeLedger + ".");
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Please enter a number.");
+        }
     }
 
 
@@ -154,12 +371,459 @@ public class CommandLineInterface {
 
         if (updated) {
             System.out.println("Transaction updated successfully!");
+            transactionService.findTransactionById(id).ifPresent(this::printBudgetWarnings);
         } else {
             // This case should be rare since we already found the transaction
             System.out.println("Error: Failed to update the transaction.");
         }
     }
 
+    private void importTransactions() {
+        System.out.println("\n--- Import Transactions ---");
+        String fileName = readString("Enter the path of the CSV file to import: ", null);
+        if (!new File(fileName).exists()) {
+            System.out.println("Error: File not found.");
+            return;
+        }
+        ImportMode mode = readImportMode("Duplicates: 1 to SKIP, 2 to FLAG (import anyway), 3 to MERGE (default 1): ");
+
+        ImportReport report = transactionService.importFromFile(fileName, mode);
+        System.out.printf("Rows read: %d, imported: %d, duplicates detected: %d%n",
+                report.totalRows(), report.imported(), report.duplicates().size());
+        for (ImportReport.Duplicate duplicate : report.duplicates()) {
+            Transaction incoming = duplicate.incoming();
+            System.out.printf("  %s %-12s %-15s %-10.2f %-15s matches %s%n",
+                    mode,
+                    incoming.getDate().format(DATE_FORMATTER),
+                    incoming.getDescription(),
+                    incoming.getAmount(),
+                    incoming.getCategory(),
+                    duplicate.existing().getId());
+        }
+    }
+
+    private void showBalanceHistory() {
+        System.out.println("\n--- Balance History ---");
+        Optional<LocalDate> earliest = transactionService.getEarliestTransactionDate();
+        Optional<LocalDate> latest = transactionService.getLatestTransactionDate();
+        if (earliest.isEmpty() || latest.isEmpty()) {
+            System.out.println("No transactions found.");
+            return;
+        }
+
+        LocalDate from = readDate("Enter start date (" + earliest.get().format(DATE_FORMATTER) + "): ", earliest.get());
+        LocalDate to = readDate("Enter end date (" + latest.get().format(DATE_FORMATTER) + "): ", latest.get());
+        if (to.isBefore(from)) {
+            System.out.println("Error: End date is before start date.");
+            return;
+        }
+
+        if (transactionService.hasForeignCurrencies()) {
+            System.out.println("Balances add up amounts in " + transactionService.getCurrencies() + " unconverted.");
+        }
+        System.out.printf("Balance on %s: %.2f%n", from.format(DATE_FORMATTER), transactionService.getBalanceAt(from));
+        System.out.printf("Balance on %s: %.2f%n", to.format(DATE_FORMATTER), transactionService.getBalanceAt(to));
+        System.out.printf("Net change:          %.2f%n", transactionService.getBalanceChangeBetween(from.plusDays(1), to));
+
+        String showDaily = readString("Show daily balances? (y/N): ", "n");
+        if (showDaily.equalsIgnoreCase("y")) {
+            BigDecimal previous = null;
+            for (BalancePoint point : transactionService.getDailyBalances(from, to)) {
+                // Only print days where the balance moved, to keep long ranges readable
+                if (previous == null || point.balance().compareTo(previous) != 0) {
+                    System.out.printf("%-12s %12.2f%n", point.date().format(DATE_FORMATTER), point.balance());
+                }
+                previous = point.balance();
+            }
+        }
+    }
+
+    private void manageBudgets() {
+        System.out.println("\n--- Budgets (current period) ---");
+        List<BudgetStatus> statuses = transactionService.getBudgetStatuses(LocalDate.now());
+        if (statuses.isEmpty()) {
+            System.out.println("No budgets defined.");
+        } else {
+            System.out.printf("%-20s %-8s %12s %12s %12s%n", "Category", "Period", "Limit", "Spent", "Remaining");
+            for (BudgetStatus status : statuses) {
+                System.out.printf("%-20s %-8s %12.2f %12.2f %12.2f%s%s%n",
+                        status.budget().category(),
+                        status.budget().period(),
+                        status.budget().limit(),
+                        status.spent(),
+                        status.remaining(),
+                        status.isExceeded() ? "  OVER" : "",
+                        unconvertedNote(status));
+            }
+        }
+
+        String action = readString("Enter 1 to set a budget, 2 to remove one, or press Enter to go back: ", "");
+        if (action.equals("1")) {
+            String category = readString("Enter category: ", null);
+            BudgetPeriod period = readBudgetPeriod("Enter period (1=WEEKLY, 2=MONTHLY, 3=YEARLY) (MONTHLY): ");
+            BigDecimal limit = readBigDecimal("Enter limit: ", null);
+            transactionService.setBudget(new Budget(category, period, limit));
+            System.out.println("Budget saved.");
+        } else if (action.equals("2")) {
+            String category = readString("Enter category: ", null);
+            BudgetPeriod period = readBudgetPeriod("Enter period (1=WEEKLY, 2=MONTHLY, 3=YEARLY) (MONTHLY): ");
+            if (transactionService.removeBudget(category, period)) {
+                System.out.println("Budget removed.");
+            } else {
+                System.out.println("Error: No such budget.");
+            }
+        }
+    }
+
+    private void manageArchive() {
+        System.out.println("\n--- Archive ---");
+        List<ArchiveSegment> segments = transactionService.getArchiveSegments();
+        if (segments.isEmpty()) {
+            System.out.println("No archived years.");
+        } else {
+            System.out.printf("%-6s %12s %14s %14s%n", "Year", "Transactions", "Income", "Expenses");
+            for (ArchiveSegment segment : segments) {
+                System.out.printf("%-6d %12d %14.2f %14.2f%n", segment.year(), segment.transactionCount(),
+                        segment.totalIncome(), segment.totalExpenses());
+            }
+        }
+
+        String action = readString("Enter 1 to archive old years, 2 to view an archived year, or press Enter to go back: ", "");
+        if (action.equals("1")) {
+            int year = readInt("Archive every transaction dated before the year: ");
+            try {
+                List<ArchiveSegment> written = transactionService.archiveYearsBefore(year);
+                if (written.isEmpty()) {
+                    System.out.println("Nothing to archive before " + year + ".");
+                }
+                for (ArchiveSegment segment : written) {
+                    System.out.printf("Archived %d: %d transactions in %s%n", segment.year(), segment.transactionCount(), segment.file());
+                }
+            } catch (IllegalStateException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        } else if (action.equals("2")) {
+            int year = readInt("Enter year: ");
+            List<Transaction> archived = transactionService.getArchivedTransactions(year);
+            if (archived.isEmpty()) {
+                System.out.println("Year " + year + " is not archived.");
+            } else {
+                printTransactionTable(archived);
+            }
+        }
+    }
+
+    private void manageRecurring() {
+        System.out.println("\n--- Recurring Transactions ---");
+        List<RecurringRule> rules = transactionService.getRecurringRules();
+        if (rules.isEmpty()) {
+            System.out.println("No recurring rules.");
+        } else {
+            System.out.printf("%-10s %-20s %-15s %12s %-8s %-18s %-12s %-12s%n",
+                    "ID", "Description", "Category", "Amount", "Type", "Schedule", "Start", "End");
+            for (RecurringRule rule : rules) {
+                System.out.printf("%-10s %-20s %-15s %12.2f %-8s %-18s %-12s %-12s%n", rule.id(), rule.description(),
+                        rule.category(), rule.amount(), rule.type(), rule.describeSchedule(),
+                        rule.start().format(DATE_FORMATTER), rule.end() == null ? "-" : rule.end().format(DATE_FORMATTER));
+            }
+        }
+
+        String action = readString("Enter 1 to add a rule, 2 to remove one, 3 to list upcoming, 4 to confirm what is due, "
+                + "5 for a projected balance, or press Enter to go back: ", "");
+        switch (action) {
+            case "1" -> {
+                String description = readString("Enter description: ", null);
+                BigDecimal amount = readBigDecimal("Enter amount: ", null);
+                TransactionType type = readTransactionType("Enter type (1 for INCOME, 2 for EXPENSE): ", null);
+                String category = readString("Enter category: ", null);
+                RecurrenceFrequency frequency = readRecurrenceFrequency("Repeat (1=DAILY, 2=WEEKLY, 3=MONTHLY, 4=YEARLY) (MONTHLY): ");
+                int interval = readInt("Every how many " + frequency.unit().name().toLowerCase() + " (1 = every one): ");
+                LocalDate start = readDate("Enter first date (YYYY-MM-DD): ", null);
+                LocalDate end = readOptionalDate("Enter last date (YYYY-MM-DD) or press Enter for no end: ");
+                try {
+                    RecurringRule rule = RecurringRule.of(description, amount, type, category, frequency, interval, start, end);
+                    transactionService.addRecurringRule(rule);
+                    System.out.println("Rule " + rule.id() + " saved: " + rule.describeSchedule() + ".");
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Error: " + e.getMessage());
+                }
+            }
+            case "2" -> {
+                String id = readString("Enter rule ID: ", "");
+                System.out.println(transactionService.removeRecurringRule(id.trim())
+                        ? "Rule removed. Transactions already confirmed from it are kept." : "Error: No such rule.");
+            }
+            case "3" -> {
+                LocalDate to = readDate("Show pending occurrences up to (" + LocalDate.now().plusMonths(1).format(DATE_FORMATTER) + "): ",
+                        LocalDate.now().plusMonths(1));
+                List<RecurringOccurrence> pending = transactionService.getPendingOccurrences(LocalDate.MIN, to);
+                if (pending.isEmpty()) {
+                    System.out.println("Nothing pending.");
+                }
+                for (RecurringOccurrence occurrence : pending) {
+                    System.out.printf("%-12s %-10s %-20s %12.2f%s%n", occurrence.date().format(DATE_FORMATTER),
+                            occurrence.rule().id(), occurrence.rule().description(), occurrence.net(),
+                            occurrence.date().isAfter(LocalDate.now()) ? "" : "  DUE");
+                }
+            }
+            case "4" -> {
+                List<Transaction> confirmed = transactionService.confirmOccurrencesThrough(LocalDate.now());
+                if (confirmed.isEmpty()) {
+                    System.out.println("Nothing is due.");
+                } else {
+                    printTransactionTable(confirmed);
+                    System.out.printf("Confirmed %d transaction(s). Use Undo to take them back.%n", confirmed.size());
+                }
+            }
+            case "5" -> {
+                LocalDate date = readDate("Project the balance to (YYYY-MM-DD): ", null);
+                FinancialSummary window = transactionService.getProjectedSummary(LocalDate.now().plusDays(1), date);
+                if (transactionService.hasForeignCurrencies()) {
+                    System.out.println("Amounts in " + transactionService.getCurrencies() + " are added up unconverted.");
+                }
+                System.out.printf("Balance today:      %12.2f%n", transactionService.getBalanceAt(LocalDate.now()));
+                System.out.printf("Projected on %s: %12.2f%n", date.format(DATE_FORMATTER), transactionService.getProjectedBalanceAt(date));
+                System.out.printf("Income until then:  %12.2f%n", window.totalIncome());
+                System.out.printf("Expenses until then:%12.2f%n", window.totalExpenses());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void manageExchangeRates() {
+        System.out.println("\n--- Exchange Rates ---");
+        List<ExchangeRate> rates = transactionService.getExchangeRates();
+        if (rates.isEmpty()) {
+            System.out.println("No exchange rates.");
+        } else {
+            // The latest rate per currency; earlier ones still apply to older transactions
+            Map<Currency, ExchangeRate> latest = new TreeMap<>(Comparator.comparing(Currency::getCurrencyCode));
+            rates.forEach(rate -> latest.put(rate.quote(), rate));
+            System.out.printf("%d rate(s). Latest per currency:%n", rates.size());
+            for (ExchangeRate rate : latest.values()) {
+                System.out.printf("  %s  1 %s = %s %s%n", rate.date().format(DATE_FORMATTER), rate.base(), rate.rate().toPlainString(), rate.quote());
+            }
+        }
+
+        String action = readString("Enter 1 to add a rate, 2 to reload the rates file, or press Enter to go back: ", "");
+        if (action.equals("1")) {
+            Currency base = rates.isEmpty()
+                    ? readCurrency("Enter the base currency (" + Transaction.getDefaultCurrency() + "): ", Transaction.getDefaultCurrency())
+                    : rates.getFirst().base();
+            Currency quote = readCurrency("Enter the currency to price in " + base + ": ", null);
+            LocalDate date = readDate("Enter the date the rate applies from (YYYY-MM-DD): ", null);
+            BigDecimal rate = readBigDecimal("How many " + quote + " is 1 " + base + " worth: ", null);
+            try {
+                transactionService.addExchangeRates(List.of(new ExchangeRate(date, base, quote, rate)));
+                System.out.println("Rate saved.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        } else if (action.equals("2")) {
+            transactionService.reloadExchangeRates();
+            System.out.printf("Loaded %d rate(s).%n", transactionService.getExchangeRates().size());
+        }
+    }
+
+    private void reconcileStatement() {
+        System.out.println("\n--- Reconcile with Bank Statement ---");
+        System.out.println("The statement is a CSV file like the ledger; the ID column may be left out.");
+        String fileName = readString("Enter the path of the statement file: ", null);
+        if (!new File(fileName).exists()) {
+            System.out.println("Error: File not found.");
+            return;
+        }
+        String windowInput = readString("Allow dates to differ by how many days (default "
+                + TransactionService.DEFAULT_RECONCILE_WINDOW_DAYS + "): ", String.valueOf(TransactionService.DEFAULT_RECONCILE_WINDOW_DAYS));
+        String similarityInput = readString("Minimum description similarity, 0 to 1 (default "
+                + TransactionService.DEFAULT_RECONCILE_SIMILARITY + "): ", String.valueOf(TransactionService.DEFAULT_RECONCILE_SIMILARITY));
+        ReconciliationReport report;
+        try {
+            report = transactionService.reconcileWithFile(fileName, Integer.parseInt(windowInput.trim()),
+                    Double.parseDouble(similarityInput.trim()));
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        if (report.statementRows() == 0) {
+            System.out.println("The statement has no rows.");
+            return;
+        }
+
+        System.out.printf("Statement %s to %s: %d row(s), %d matched, %d missing from the ledger, %d not on the statement (%.1f ms).%n",
+                report.from().format(DATE_FORMATTER), report.to().format(DATE_FORMATTER), report.statementRows(),
+                report.matched().size(), report.missing().size(), report.extra().size(), report.elapsed().toNanos() / 1e6);
+        if (report.balanced()) {
+            System.out.println("The ledger agrees with the statement.");
+        }
+        if (!report.missing().isEmpty()) {
+            System.out.println("\nOn the statement but missing from the ledger:");
+            printTransactionTable(report.missing());
+        }
+        if (!report.extra().isEmpty()) {
+            System.out.println("\nIn the ledger but not on the statement:");
+            printTransactionTable(report.extra());
+        }
+        List<ReconciliationReport.Match> inexact = report.matched().stream()
+                .filter(match -> match.dayOffset() != 0 || match.similarity() < 1).toList();
+        if (!inexact.isEmpty() && readString("Show the " + inexact.size() + " matches with a different date or description? (y/N): ", "n").equalsIgnoreCase("y")) {
+            for (ReconciliationReport.Match match : inexact) {
+                System.out.printf("  %s %-25s matched %s %-25s (%+d days, %.0f%% alike)%n",
+                        match.statement().getDate().format(DATE_FORMATTER), match.statement().getDescription(),
+                        match.ledger().getDate().format(DATE_FORMATTER), match.ledger().getDescription(),
+                        match.dayOffset(), match.similarity() * 100);
+            }
+        }
+        if (!report.missing().isEmpty()
+                && readString("Add the " + report.missing().size() + " missing row(s) to the ledger? (y/N): ", "n").equalsIgnoreCase("y")) {
+            try {
+                transactionService.addTransactions(report.missing());
+                System.out.println("Added. Use Undo to take them out again.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error: " + e.getMessage() + ". Nothing was added.");
+            }
+        }
+    }
+
+    private void exportTransactions() {
+        System.out.println("\n--- Export Transactions ---");
+        TransactionFilter filter = readFilter();
+        ExportFormat format = readExportFormat("Format: 1 for CSV, 2 for JSON Lines, 3 for columnar (default 1): ");
+        String fileName = readString("Enter output file (export." + format.getExtension() + "): ",
+                "export." + format.getExtension());
+
+        try {
+            long written = transactionService.exportTransactions(filter, format, Path.of(fileName));
+            System.out.printf("Exported %d transactions to %s.%n", written, fileName);
+        } catch (IOException e) {
+            System.out.println("Error: Export failed: " + e.getMessage());
+        }
+    }
+
+    private void bulkRecategorize() {
+        System.out.println("\n--- Bulk Recategorize ---");
+        System.out.println("Select the transactions to move.");
+        TransactionFilter filter = readFilter();
+        int matching = transactionService.findTransactions(filter, 0, 0).total();
+        if (matching == 0) {
+            System.out.println("No transactions match.");
+            return;
+        }
+        String category = readString("Enter the new category for " + matching + " transaction(s): ", "");
+        if (category.isBlank()) {
+            System.out.println("Cancelled.");
+            return;
+        }
+
+        BatchReport report = transactionService.newBatch().recategorize(filter, category.trim()).commit();
+        System.out.printf("Moved %d transaction(s) to '%s'.%n", report.updated(), category.trim());
+    }
+
+    private void searchTransactions() {
+        System.out.println("\n--- Search ---");
+        System.out.println("Fields: date, amount, category, description, type, id. Operators: = != < <= > >= ~ (contains).");
+        System.out.println("Example: category=Food and amount>50 and date>=2025-01. Prefix with 'explain' to see the plan.");
+        String input = readString("Query: ", "").trim();
+        boolean explain = input.regionMatches(true, 0, "explain", 0, 7)
+                && (input.length() == 7 || Character.isWhitespace(input.charAt(7)));
+        if (explain) {
+            input = input.substring(7).trim();
+        }
+
+        QueryResult result;
+        try {
+            result = transactionService.query(input);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        if (result.transactions().isEmpty()) {
+            System.out.println("No transactions match.");
+        } else {
+            printTransactionTable(result.transactions());
+            System.out.printf("%d transaction(s) match.%n", result.transactions().size());
+        }
+        if (explain) {
+            System.out.println(result.explain());
+        }
+    }
+
+    private void showLargestExpenses() {
+        System.out.println("\n--- Largest Expenses ---");
+        String monthInput = readString("Enter month (YYYY-MM, default this month): ", YearMonth.now().toString());
+        YearMonth month;
+        try {
+            month = YearMonth.parse(monthInput.trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Error: Invalid month. Please use YYYY-MM.");
+            return;
+        }
+        String countInput = readString("How many (default 10): ", "10");
+        int limit;
+        try {
+            limit = Integer.parseInt(countInput.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Please enter a whole number.");
+            return;
+        }
+
+        List<Transaction> largest = transactionService.getLargestExpenses(month, limit);
+        if (largest.isEmpty()) {
+            System.out.println("No expenses in " + month + ".");
+            return;
+        }
+        printTransactionTable(largest);
+    }
+
+    private TransactionFilter readFilter() {
+        LocalDate from = readOptionalDate("Enter start date (YYYY-MM-DD) or press Enter for no limit: ");
+        LocalDate to = readOptionalDate("Enter end date (YYYY-MM-DD) or press Enter for no limit: ");
+        String category = readString("Enter category or press Enter for all: ", "");
+        String typeInput = readString("Enter type (1 for INCOME, 2 for EXPENSE) or press Enter for both: ", "");
+        TransactionType type = switch (typeInput) {
+            case "1" -> TransactionType.INCOME;
+            case "2" -> TransactionType.EXPENSE;
+            default -> null;
+        };
+        return new TransactionFilter(from, to, category.isEmpty() ? null : category, type);
+    }
+
+    private void printLoadReport(LoadReport report) {
+        if (!report.complete()) {
+            System.out.println("Warning: " + report.source() + " could not be read completely; it will not be saved over.");
+        }
+        if (report.quarantined() == 0) {
+            return;
+        }
+        System.out.printf("Warning: %d line(s) of %s could not be read and were skipped (loaded %d in %d ms).%n",
+                report.quarantined(), report.source(), report.loaded(), report.elapsed().toMillis());
+        report.rejected().stream().limit(5).forEach(rejected ->
+                System.out.printf("  Line %d: %s%n", rejected.lineNumber(), rejected.reason()));
+        System.out.println("The skipped lines were copied to " + report.quarantineFile() + ".");
+    }
+
+    private void printBudgetWarnings(Transaction transaction) {
+        for (BudgetStatus status : transactionService.getBudgetWarnings(transaction)) {
+            System.out.printf("Warning: %s %s budget exceeded! Spent %.2f of %.2f (over by %.2f).%s%n",
+                    status.budget().category(),
+                    status.budget().period().name().toLowerCase(),
+                    status.spent(),
+                    status.budget().limit(),
+                    status.remaining().negate(),
+                    unconvertedNote(status));
+        }
+    }
+
+    /**
+     * @return Spending the rate table could not convert to the budget's currency, or "" if there is none.
+     */
+    private static String unconvertedNote(BudgetStatus status) {
+        StringBuilder note = new StringBuilder();
+        status.unconverted().forEach((currency, amount) -> note.append(String.format(" + %.2f %s", amount, currency)));
+        return note.isEmpty() ? "" : note + " not converted (no exchange rate)";
+    }
+
 
     // --- Refactored Validation Helper Methods ---
 
@@ -213,6 +877,21 @@ public class CommandLineInterface {
         }
     }
 
+    private LocalDate readOptionalDate(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(input, DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please use YYYY-MM-DD.");
+            }
+        }
+    }
+
     private String readString(String prompt, String defaultValue) {
         while (true) {
             System.out.print(prompt);
@@ -228,6 +907,103 @@ public class CommandLineInterface {
         }
     }
 
+    private ImportMode readImportMode(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine();
+            if (input.isEmpty()) {
+                return ImportMode.SKIP;
+            }
+            switch (input.trim()) {
+                case "1":
+                    return ImportMode.SKIP;
+                case "2":
+                    return ImportMode.FLAG;
+                case "3":
+                    return ImportMode.MERGE;
+                default:
+                    System.out.println("Invalid choice. Please enter 1, 2 or 3.");
+            }
+        }
+    }
+
+    private ExportFormat readExportFormat(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine();
+            if (input.isEmpty()) {
+                return ExportFormat.CSV;
+            }
+            switch (input.trim()) {
+                case "1":
+                    return ExportFormat.CSV;
+                case "2":
+                    return ExportFormat.JSON_LINES;
+                case "3":
+                    return ExportFormat.COLUMNAR;
+                default:
+                    System.out.println("Invalid choice. Please enter 1, 2 or 3.");
+            }
+        }
+    }
+
+    private BudgetPeriod readBudgetPeriod(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine();
+            if (input.isEmpty()) {
+                return BudgetPeriod.MONTHLY;
+            }
+            switch (input.trim()) {
+                case "1":
+                    return BudgetPeriod.WEEKLY;
+                case "2":
+                    return BudgetPeriod.MONTHLY;
+                case "3":
+                    return BudgetPeriod.YEARLY;
+                default:
+                    System.out.println("Invalid choice. Please enter 1, 2 or 3.");
+            }
+        }
+    }
+
+    private Currency readCurrency(String prompt, Currency defaultValue) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty() && defaultValue != null) {
+                return defaultValue;
+            }
+            try {
+                return Currency.getInstance(input.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid currency. Please enter an ISO code such as EUR or USD.");
+            }
+        }
+    }
+
+    private RecurrenceFrequency readRecurrenceFrequency(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine();
+            if (input.isEmpty()) {
+                return RecurrenceFrequency.MONTHLY;
+            }
+            switch (input.trim()) {
+                case "1":
+                    return RecurrenceFrequency.DAILY;
+                case "2":
+                    return RecurrenceFrequency.WEEKLY;
+                case "3":
+                    return RecurrenceFrequency.MONTHLY;
+                case "4":
+                    return RecurrenceFrequency.YEARLY;
+                default:
+                    System.out.println("Invalid choice. Please enter 1, 2, 3 or 4.");
+            }
+        }
+    }
+
     private TransactionType readTransactionType(String prompt, TransactionType defaultValue) {
         while (true) {
             System.out.print(prompt);
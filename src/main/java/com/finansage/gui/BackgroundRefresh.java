@@ -0,0 +1,48 @@
+package com.finansage.gui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Recomputes a view's data on a background virtual thread and hands the result to the FX thread.
+ * Requests that arrive while a computation is still queued are coalesced into it, and computations
+ * run one at a time, so a burst of changes costs at most one extra pass and results never arrive
+ * out of order.
+ */
+class BackgroundRefresh<T> {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("view-refresh").factory());
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final Supplier<T> compute;
+    private final Consumer<T> render;
+
+    /**
+     * @param compute Loads the data; runs off the FX thread.
+     * @param render Displays the data; runs on the FX thread.
+     */
+    BackgroundRefresh(Supplier<T> compute, Consumer<T> render) {
+        this.compute = compute;
+        this.render = render;
+    }
+
+    void request() {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            // Clear the flag first so changes made while computing schedule another pass
+            pending.set(false);
+            try {
+                T data = compute.get();
+                Platform.runLater(() -> render.accept(data));
+            } catch (RuntimeException e) {
+                System.err.println("Error refreshing view: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.finansage.gui;
+
+import com.finansage.model.BalancePoint;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.MonthlyTotals;
+import com.finansage.model.Transaction;
+import com.finansage.service.TransactionService;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.RowConstraints;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The Dashboard screen: point-in-time balance lookup, monthly income/expense bars, an expense
+ * breakdown by category and a balance-over-time line.
+ * <p>
+ * All figures come from the service's incrementally maintained indexes, so refreshing never rescans
+ * the ledger, and they are loaded on a background thread so the FX thread only renders.
+ */
+public class DashboardView {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int MAX_CHART_POINTS = 400;
+    private static final int MAX_MONTHS = 24;
+    private static final int MAX_PIE_SLICES = 8;
+    private static final String MONTHLY_TITLE = "Monthly income and expenses";
+    private static final String CATEGORY_TITLE = "Expenses by category";
+    private static final String BALANCE_TITLE = "Balance over time";
+
+    /**
+     * Everything the dashboard displays, computed off the FX thread.
+     * @param totalsNote How the monthly and category totals treat other currencies; empty if there are none.
+     * @param mixedCurrencies Whether the balances add up amounts in different currencies unconverted.
+     */
+    private record DashboardData(
+            BigDecimal balanceOnDate,
+            List<MonthlyTotals> months,
+            List<PieChart.Data> expenseSlices,
+            List<BalancePoint> balancePoints,
+            String totalsNote,
+            boolean mixedCurrencies
+    ) {
+    }
+
+    private final TransactionService transactionService;
+    private final BorderPane view = new BorderPane();
+    private final DatePicker balanceDatePicker = new DatePicker(LocalDate.now());
+    private final Label balanceLabel = new Label();
+    private final BarChart<String, Number> monthlyChart;
+    private final PieChart categoryChart;
+    private final LineChart<String, Number> balanceChart;
+    private final BackgroundRefresh<DashboardData> refresher;
+    private volatile LocalDate balanceDate = balanceDatePicker.getValue();
+
+    public DashboardView(TransactionService transactionService) {
+        this.transactionService = transactionService;
+        this.monthlyChart = createMonthlyChart();
+        this.categoryChart = createCategoryChart();
+        this.balanceChart = createBalanceChart();
+        this.refresher = new BackgroundRefresh<>(this::loadData, this::render);
+
+        view.setPadding(new Insets(20));
+        view.setTop(createBalanceLookup());
+        view.setCenter(createChartGrid());
+    }
+
+    public BorderPane getView() {
+        return view;
+    }
+
+    /**
+     * Reloads the displayed figures in the background. Cheap to call often: overlapping requests
+     * are coalesced.
+     */
+    public void refresh() {
+        refresher.request();
+    }
+
+    private HBox createBalanceLookup() {
+        balanceDatePicker.valueProperty().addListener((obs, oldDate, newDate) -> {
+            balanceDate = newDate;
+            refresh();
+        });
+        HBox lookup = new HBox(10, new Label("Balance on"), balanceDatePicker, balanceLabel);
+        lookup.setAlignment(Pos.CENTER_LEFT);
+        return lookup;
+    }
+
+    private GridPane createChartGrid() {
+        GridPane grid = new GridPane();
+        grid.setHgap(20);
+        grid.setVgap(20);
+        grid.setPadding(new Insets(20, 0, 0, 0));
+
+        ColumnConstraints wide = new ColumnConstraints();
+        wide.setPercentWidth(60);
+        ColumnConstraints narrow = new ColumnConstraints();
+        narrow.setPercentWidth(40);
+        grid.getColumnConstraints().addAll(wide, narrow);
+        for (int i = 0; i < 2; i++) {
+            RowConstraints row = new RowConstraints();
+            row.setVgrow(Priority.ALWAYS);
+            grid.getRowConstraints().add(row);
+        }
+
+        grid.add(monthlyChart, 0, 0);
+        grid.add(categoryChart, 1, 0);
+        grid.add(balanceChart, 0, 1, 2, 1);
+        return grid;
+    }
+
+    private BarChart<String, Number> createMonthlyChart() {
+        CategoryAxis xAxis = new CategoryAxis();
+        xAxis.setLabel("Month");
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel("Amount");
+        BarChart<String, Number> chart = new BarChart<>(xAxis, yAxis);
+        chart.setTitle(MONTHLY_TITLE);
+        chart.setAnimated(false);
+        return chart;
+    }
+
+    private PieChart createCategoryChart() {
+        PieChart chart = new PieChart();
+        chart.setTitle(CATEGORY_TITLE);
+        chart.setLegendVisible(false);
+        chart.setAnimated(false);
+        return chart;
+    }
+
+    private LineChart<String, Number> createBalanceChart() {
+        CategoryAxis xAxis = new CategoryAxis();
+        xAxis.setLabel("Date");
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel("Balance");
+        LineChart<String, Number> chart = new LineChart<>(xAxis, yAxis);
+        chart.setTitle(BALANCE_TITLE);
+        chart.setLegendVisible(false);
+        chart.setCreateSymbols(false);
+        chart.setAnimated(false);
+        return chart;
+    }
+
+    // --- Background loading ---
+
+    private DashboardData loadData() {
+        LocalDate date = balanceDate;
+        BigDecimal balanceOnDate = date == null ? null : transactionService.getBalanceAt(date);
+
+        boolean mixedCurrencies = transactionService.hasForeignCurrencies();
+        List<MonthlyTotals> months;
+        CategoryReport report;
+        String totalsNote = mixedCurrencies ? " (in " + Transaction.getDefaultCurrency() + ")" : "";
+        try {
+            months = transactionService.getMonthlyTotalsInDefaultCurrency();
+            report = transactionService.getCategoryReportInDefaultCurrency();
+        } catch (IllegalStateException e) {
+            // No rate for one of the currencies: show the raw figures, but say so
+            months = transactionService.getMonthlyTotals();
+            report = transactionService.getCategoryReport();
+            totalsNote = " (currencies added up unconverted)";
+        }
+        if (months.size() > MAX_MONTHS) {
+            months = months.subList(months.size() - MAX_MONTHS, months.size());
+        }
+
+        return new DashboardData(balanceOnDate, months, loadExpenseSlices(report), loadBalancePoints(), totalsNote,
+                mixedCurrencies);
+    }
+
+    private List<PieChart.Data> loadExpenseSlices(CategoryReport report) {
+        List<Map.Entry<String, BigDecimal>> categories = new ArrayList<>(report.expensesByCategory().entrySet());
+        categories.sort(Map.Entry.<String, BigDecimal>comparingByValue(Comparator.reverseOrder()));
+
+        // Fold the long tail into one slice so the chart stays readable
+        List<PieChart.Data> slices = new ArrayList<>();
+        BigDecimal other = BigDecimal.ZERO;
+        for (int i = 0; i < categories.size(); i++) {
+            Map.Entry<String, BigDecimal> category = categories.get(i);
+            if (i < MAX_PIE_SLICES) {
+                slices.add(new PieChart.Data(category.getKey(), category.getValue().doubleValue()));
+            } else {
+                other = other.add(category.getValue());
+            }
+        }
+        if (other.signum() > 0) {
+            slices.add(new PieChart.Data("Other", other.doubleValue()));
+        }
+        return slices;
+    }
+
+    private List<BalancePoint> loadBalancePoints() {
+        Optional<LocalDate> earliest = transactionService.getEarliestTransactionDate();
+        Optional<LocalDate> latest = transactionService.getLatestTransactionDate();
+        if (earliest.isEmpty() || latest.isEmpty()) {
+            return List.of();
+        }
+        List<BalancePoint> points = transactionService.getDailyBalances(earliest.get(), latest.get());
+        // Thin long histories so the chart stays responsive; always keep the last day
+        long days = ChronoUnit.DAYS.between(earliest.get(), latest.get()) + 1;
+        int step = (int) Math.max(1, (days + MAX_CHART_POINTS - 1) / MAX_CHART_POINTS);
+        List<BalancePoint> thinned = new ArrayList<>();
+        for (int i = 0; i < points.size(); i += step) {
+            thinned.add(points.get(i));
+        }
+        if ((points.size() - 1) % step != 0) {
+            thinned.add(points.getLast());
+        }
+        return thinned;
+    }
+
+    // --- Rendering (FX thread) ---
+
+    private void render(DashboardData data) {
+        if (data.balanceOnDate() == null) {
+            balanceLabel.setText("");
+        } else if (data.mixedCurrencies()) {
+            // Balances are not converted, so a currency symbol would be wrong
+            balanceLabel.setText(NumberFormat.getNumberInstance().format(data.balanceOnDate()) + " (all currencies, unconverted)");
+        } else {
+            balanceLabel.setText(NumberFormat.getCurrencyInstance().format(data.balanceOnDate()));
+        }
+        monthlyChart.setTitle(MONTHLY_TITLE + data.totalsNote());
+        categoryChart.setTitle(CATEGORY_TITLE + data.totalsNote());
+        balanceChart.setTitle(BALANCE_TITLE + (data.mixedCurrencies() ? " (all currencies, unconverted)" : ""));
+
+        XYChart.Series<String, Number> income = new XYChart.Series<>();
+        income.setName("Income");
+        XYChart.Series<String, Number> expenses = new XYChart.Series<>();
+        expenses.setName("Expenses");
+        for (MonthlyTotals month : data.months()) {
+            income.getData().add(new XYChart.Data<>(month.month().toString(), month.income()));
+            expenses.getData().add(new XYChart.Data<>(month.month().toString(), month.expenses()));
+        }
+        monthlyChart.getData().setAll(List.of(income, expenses));
+
+        categoryChart.getData().setAll(data.expenseSlices());
+
+        XYChart.Series<String, Number> balance = new XYChart.Series<>();
+        for (BalancePoint point : data.balancePoints()) {
+            balance.getData().add(new XYChart.Data<>(point.date().format(DATE_FORMATTER), point.balance()));
+        }
+        balanceChart.getData().setAll(List.of(balance));
+    }
+}
@@ -0,0 +1,71 @@
+package com.finansage.gui;
+
+import com.finansage.model.ExportFormat;
+import com.finansage.model.TransactionFilter;
+import com.finansage.model.TransactionType;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+
+/**
+ * Asks which transactions to export and in which format. Every filter field is optional.
+ */
+public class ExportDialog extends Dialog<ExportDialog.Selection> {
+
+    /**
+     * What the user chose to export.
+     */
+    public record Selection(TransactionFilter filter, ExportFormat format) {
+    }
+
+    private final DatePicker fromPicker = new DatePicker();
+    private final DatePicker toPicker = new DatePicker();
+    private final TextField categoryField = new TextField();
+    private final ComboBox<TransactionType> typeComboBox = new ComboBox<>();
+    private final ComboBox<ExportFormat> formatComboBox = new ComboBox<>();
+
+    public ExportDialog() {
+        setTitle("Export Transactions");
+        setHeaderText("Choose which transactions to export. Leave a field empty to include everything.");
+
+        fromPicker.setPromptText("From (any)");
+        toPicker.setPromptText("To (any)");
+        categoryField.setPromptText("All categories");
+        typeComboBox.getItems().addAll(TransactionType.values());
+        typeComboBox.setPromptText("Both");
+        formatComboBox.getItems().addAll(ExportFormat.values());
+        formatComboBox.setValue(ExportFormat.CSV);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+
+        grid.add(new Label("From:"), 0, 0);
+        grid.add(fromPicker, 1, 0);
+        grid.add(new Label("To:"), 0, 1);
+        grid.add(toPicker, 1, 1);
+        grid.add(new Label("Category:"), 0, 2);
+        grid.add(categoryField, 1, 2);
+        grid.add(new Label("Type:"), 0, 3);
+        grid.add(typeComboBox, 1, 3);
+        grid.add(new Label("Format:"), 0, 4);
+        grid.add(formatComboBox, 1, 4);
+
+        getDialogPane().setContent(grid);
+        getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        setResultConverter(dialogButton -> {
+            if (dialogButton != ButtonType.OK) {
+                return null;
+            }
+            String category = categoryField.getText().trim();
+            TransactionFilter filter = new TransactionFilter(
+                    fromPicker.getValue(),
+                    toPicker.getValue(),
+                    category.isEmpty() ? null : category,
+                    typeComboBox.getValue());
+            return new Selection(filter, formatComboBox.getValue());
+        });
+    }
+}
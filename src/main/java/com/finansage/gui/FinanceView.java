@@ -0,0 +1,116 @@
+package com.finansage.gui;
+
+import com.finansage.model.BudgetStatus;
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.Transaction;
+import com.finansage.service.TransactionService;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The Finance screen: overall totals and how each budget stands in its current period.
+ * Like the dashboard, the figures come from incrementally maintained indexes and are loaded in
+ * the background.
+ */
+public class FinanceView {
+
+    /**
+     * @param unconverted Why the summary adds up currencies unconverted, or null if it does not.
+     */
+    private record FinanceData(FinancialSummary summary, String unconverted, List<BudgetStatus> budgets) {
+    }
+
+    private final TransactionService transactionService;
+    private final BorderPane view = new BorderPane();
+    private final Label summaryLabel = new Label();
+    private final TableView<BudgetStatus> budgetTable = new TableView<>();
+    private final BackgroundRefresh<FinanceData> refresher;
+
+    public FinanceView(TransactionService transactionService) {
+        this.transactionService = transactionService;
+        this.refresher = new BackgroundRefresh<>(this::loadData, this::render);
+
+        budgetTable.setPlaceholder(new Label("No budgets defined."));
+        budgetTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        budgetTable.getColumns().setAll(List.of(
+                column("Category", status -> status.budget().category()),
+                column("Period", status -> status.budget().period().name()),
+                column("Limit", status -> currency(status.budget().limit())),
+                column("Spent", status -> currency(status.spent()) + unconverted(status)),
+                column("Remaining", status -> currency(status.remaining()) + (status.isExceeded() ? "  OVER" : ""))));
+
+        view.setPadding(new Insets(20));
+        view.setTop(summaryLabel);
+        view.setCenter(budgetTable);
+        BorderPane.setMargin(budgetTable, new Insets(20, 0, 0, 0));
+    }
+
+    public BorderPane getView() {
+        return view;
+    }
+
+    public void refresh() {
+        refresher.request();
+    }
+
+    private FinanceData loadData() {
+        List<BudgetStatus> budgets = transactionService.getBudgetStatuses(LocalDate.now());
+        try {
+            return new FinanceData(transactionService.getFinancialSummaryInDefaultCurrency(), null, budgets);
+        } catch (IllegalStateException e) {
+            return new FinanceData(transactionService.getFinancialSummary(), e.getMessage(), budgets);
+        }
+    }
+
+    private void render(FinanceData data) {
+        if (data.unconverted() == null) {
+            summaryLabel.setText(String.format("Income: %s    Expenses: %s    Net: %s",
+                    currency(data.summary().totalIncome()),
+                    currency(data.summary().totalExpenses()),
+                    currency(data.summary().netBalance())));
+        } else {
+            // A currency symbol would pass the raw sum off as one currency
+            NumberFormat number = NumberFormat.getNumberInstance();
+            summaryLabel.setText(String.format("Income: %s    Expenses: %s    Net: %s    (currencies added up unconverted: %s)",
+                    number.format(data.summary().totalIncome()),
+                    number.format(data.summary().totalExpenses()),
+                    number.format(data.summary().netBalance()),
+                    data.unconverted()));
+        }
+        budgetTable.getItems().setAll(data.budgets());
+    }
+
+    private static TableColumn<BudgetStatus, String> column(String title, Function<BudgetStatus, String> value) {
+        TableColumn<BudgetStatus, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new SimpleStringProperty(value.apply(cellData.getValue())));
+        return column;
+    }
+
+    /**
+     * Formats an amount in the default currency, which converted totals and budget limits are in.
+     */
+    private static String currency(BigDecimal amount) {
+        NumberFormat format = NumberFormat.getCurrencyInstance();
+        format.setCurrency(Transaction.getDefaultCurrency());
+        return format.format(amount);
+    }
+
+    /**
+     * @return Spending the rate table could not convert to the budget's currency, or "" if there is none.
+     */
+    private static String unconverted(BudgetStatus status) {
+        StringBuilder note = new StringBuilder();
+        status.unconverted().forEach((currency, amount) -> note.append(" + ").append(amount.toPlainString()).append(' ').append(currency));
+        return note.isEmpty() ? "" : note + " (no rate)";
+    }
+}
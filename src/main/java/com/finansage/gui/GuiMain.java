@@ -1,34 +1,59 @@
 package com.finansage.gui;
 
+import com.finansage.model.Transaction;
+import com.finansage.repository.ArchiveRepository;
+import com.finansage.repository.BudgetRepository;
+import com.finansage.repository.ExchangeRateRepository;
+import com.finansage.repository.RecurringRuleRepository;
 import com.finansage.repository.TransactionRepository;
 import com.finansage.service.TransactionService;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The main entry point for the FinanSage GUI application.
+ * <p>
+ * The window opens straight away with a loading screen; the ledger is read on a background thread and the
+ * main view replaces the loading screen once it is ready.
  */
 public class GuiMain extends Application {
 
+    private static final String DATA_FILE = "transactions.csv";
+
+    private Optional<StallMonitor> stallMonitor = Optional.empty();
+
+    /**
+     * The service and a copy of its rows, both prepared off the FX thread.
+     */
+    private record Loaded(TransactionService service, List<Transaction> rows) {
+    }
+
     @Override
     public void start(Stage primaryStage) {
         System.out.println("FinanSage GUI is starting...");
+        stallMonitor = StallMonitor.startIfEnabled();
 
-        // --- Backend Initialization ---
-        final String DATA_FILE = "transactions.csv";
-        TransactionRepository transactionRepository = new TransactionRepository(DATA_FILE);
-        TransactionService transactionService = new TransactionService(transactionRepository);
-
-        // --- Frontend Initialization ---
-        MainViewController mainViewController = new MainViewController(transactionService);
-        BorderPane root = mainViewController.getView();
+        // --- Loading Screen ---
+        Label loadingLabel = new Label("Loading " + DATA_FILE + "...");
+        loadingLabel.getStyleClass().add("loading-label");
+        VBox loadingPane = new VBox(16, new ProgressIndicator(), loadingLabel);
+        loadingPane.setAlignment(Pos.CENTER);
 
         // --- Scene and Stage Setup ---
-        Scene scene = new Scene(root, 800, 600);
+        Scene scene = new Scene(loadingPane, 800, 600);
 
         // Load and apply the CSS stylesheet for our dark theme
         try {
@@ -38,14 +63,58 @@ public class GuiMain extends Application {
             System.err.println("Error: Could not find stylesheet. Make sure 'dark-theme.css' is in the 'src/main/resources/styles' folder.");
         }
 
-
         primaryStage.setTitle("FinanSage - Your Personal Finance Manager");
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        // --- Backend Initialization, off the FX thread ---
+        Thread.ofVirtual().name("ledger-load").start(() -> {
+            Loaded loaded;
+            try {
+                loaded = load();
+            } catch (RuntimeException e) {
+                System.err.println("Error: Could not load " + DATA_FILE + ": " + e.getMessage());
+                Platform.runLater(() -> loadingLabel.setText("Could not load " + DATA_FILE + ": " + e.getMessage()));
+                return;
+            }
+            Platform.runLater(() -> showMainView(scene, loaded));
+        });
+    }
+
+    private static Loaded load() {
+        TransactionRepository transactionRepository = new TransactionRepository(DATA_FILE);
+        TransactionService transactionService = new TransactionService(transactionRepository, BudgetRepository.forLedger(DATA_FILE),
+                ArchiveRepository.forLedger(DATA_FILE), RecurringRuleRepository.forLedger(DATA_FILE),
+                ExchangeRateRepository.forLedger(DATA_FILE));
+        // Copied here so the table can wrap the list on the FX thread without copying it again
+        return new Loaded(transactionService, new ArrayList<>(transactionService.getAllTransactions()));
+    }
+
+    private void showMainView(Scene scene, Loaded loaded) {
+        // --- Frontend Initialization ---
+        MainViewController mainViewController = new MainViewController(loaded.service(), loaded.rows());
+        BorderPane root = mainViewController.getView();
+        scene.setRoot(root);
+
+        // Tell the user about rows that could not be loaded (they are kept in the quarantine file)
+        loaded.service().getLoadReport().ifPresent(mainViewController::showLoadReport);
+
+        // Pick up rows other programs append to the ledger while the window is open
+        Thread.ofVirtual().name("ledger-watch").start(() -> {
+            try {
+                loaded.service().watchLedgerFile(change -> Platform.runLater(() -> mainViewController.showExternalChange(change)));
+            } catch (IOException e) {
+                System.err.println("Error: Could not watch " + DATA_FILE + " for external changes: " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        stallMonitor.ifPresent(monitor -> System.out.println(monitor.summary()));
     }
 
     public static void main(String[] args) {
         launch(args);
     }
 }
-
@@ -1,53 +1,216 @@
 package com.finansage.gui;
 
+import com.finansage.model.BudgetStatus;
+import com.finansage.model.ExportFormat;
+import com.finansage.model.ExternalChange;
 import com.finansage.model.FinancialSummary;
+import com.finansage.model.LoadReport;
+import com.finansage.model.SortKey;
 import com.finansage.model.Transaction;
+import com.finansage.model.TransactionEvent;
+import com.finansage.service.LedgerConflictException;
+import com.finansage.service.LedgerSaveException;
+import com.finansage.service.Query;
+import com.finansage.service.TransactionBatch;
 import com.finansage.service.TransactionService;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
+import javafx.util.Callback;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 public class MainViewController {
 
+    private static final KeyCombination UNDO_SHORTCUT = new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN);
+    private static final KeyCombination REDO_SHORTCUT = new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN);
+
     private final TransactionService transactionService;
     private final TableView<Transaction> transactionTable;
     private final ObservableList<Transaction> observableTransactions;
+    private final FilteredList<Transaction> visibleTransactions;
+    private final Label searchStatus = new Label();
+    private final DashboardView dashboardView;
+    private final FinanceView financeView;
+    private final BorderPane mainLayout = new BorderPane();
+    private final Map<Currency, NumberFormat> currencyFormats = new HashMap<>(); // used on the FX thread only
+    private final ServiceCalls serviceCalls = new ServiceCalls();
+    // Rows already shown before the service confirmed them; their events must not add them a second time
+    private final Set<Transaction> optimisticRows = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Counts changes to which rows the table holds, so a background sort can tell if its copy is still current
+    private int rowsVersion;
+    private boolean reordering;
+    // Only the latest header click's sort is applied
+    private int sortRequest;
+
+    /**
+     * Totals for the summary dialog, with a note when they could not be converted.
+     */
+    private record SummaryResult(FinancialSummary summary, String note) {
+    }
 
     public MainViewController(TransactionService transactionService) {
+        this(transactionService, new ArrayList<>(transactionService.getAllTransactions()));
+    }
+
+    /**
+     * @param rows The service's transactions, copied off the FX thread. The table takes ownership of the list.
+     */
+    public MainViewController(TransactionService transactionService, List<Transaction> rows) {
         this.transactionService = transactionService;
-        this.observableTransactions = FXCollections.observableArrayList(transactionService.getAllTransactions());
+        this.observableTransactions = FXCollections.observableList(rows);
+        this.visibleTransactions = new FilteredList<>(observableTransactions);
+        observableTransactions.addListener((ListChangeListener<Transaction>) change -> {
+            if (!reordering) {
+                rowsVersion++;
+            }
+        });
         this.transactionTable = createTransactionTable();
+        this.dashboardView = new DashboardView(transactionService);
+        this.financeView = new FinanceView(transactionService);
+        // Keep the table in sync from the service's change feed rather than patching it by hand
+        transactionService.subscribe(event -> Platform.runLater(() -> applyEvent(event)));
     }
 
-    public BorderPane getView() {
-        BorderPane mainLayout = new BorderPane();
+    private void applyEvent(TransactionEvent event) {
+        switch (event) {
+            case TransactionEvent.Added added -> {
+                if (!optimisticRows.remove(added.transaction())) {
+                    observableTransactions.add(added.transaction());
+                }
+            }
+            case TransactionEvent.Deleted deleted -> observableTransactions.remove(deleted.transaction());
+            case TransactionEvent.Updated updated -> {
+                if (optimisticRows.remove(updated.current())) {
+                    break;
+                }
+                int index = observableTransactions.indexOf(updated.previous());
+                if (index != -1) {
+                    observableTransactions.set(index, updated.current());
+                }
+            }
+            case TransactionEvent.Batch batch -> applyBatch(batch);
+        }
+        if (mainLayout.getCenter() == dashboardView.getView()) {
+            dashboardView.refresh();
+        } else if (mainLayout.getCenter() == financeView.getView()) {
+            financeView.refresh();
+        }
+    }
 
-        // Left Sidebar for navigation
-        VBox sidebar = createSidebar();
-        mainLayout.setLeft(sidebar);
+    /**
+     * Applies a bulk change in one pass over the table instead of one list search per event, and
+     * replaces the items in a single change so the table re-renders once.
+     */
+    private void applyBatch(TransactionEvent.Batch batch) {
+        // Follow chains like add -> update -> delete back to the row currently shown in the table
+        Map<Transaction, Transaction> rowOf = new IdentityHashMap<>();
+        Map<Transaction, Transaction> latest = new IdentityHashMap<>();
+        List<Transaction> added = new ArrayList<>();
+        for (TransactionEvent event : flatten(batch)) {
+            switch (event) {
+                case TransactionEvent.Added a -> {
+                    added.add(a.transaction());
+                    rowOf.put(a.transaction(), a.transaction());
+                    latest.put(a.transaction(), a.transaction());
+                }
+                case TransactionEvent.Updated u -> {
+                    Transaction row = rowOf.getOrDefault(u.previous(), u.previous());
+                    rowOf.remove(u.previous());
+                    rowOf.put(u.current(), row);
+                    latest.put(row, u.current());
+                }
+                case TransactionEvent.Deleted d -> latest.put(rowOf.getOrDefault(d.transaction(), d.transaction()), null);
+                case TransactionEvent.Batch ignored -> {
+                }
+            }
+        }
+
+        List<Transaction> rows = new ArrayList<>(observableTransactions.size() + added.size());
+        for (Transaction row : observableTransactions) {
+            Transaction shown = latest.containsKey(row) ? latest.get(row) : row;
+            if (shown != null) {
+                rows.add(shown);
+            }
+        }
+        for (Transaction row : added) {
+            Transaction shown = latest.get(row);
+            if (shown != null) {
+                rows.add(shown);
+            }
+        }
+        observableTransactions.setAll(rows);
+    }
+
+    private static List<TransactionEvent> flatten(TransactionEvent.Batch batch) {
+        List<TransactionEvent> events = new ArrayList<>();
+        for (TransactionEvent event : batch.events()) {
+            if (event instanceof TransactionEvent.Batch nested) {
+                events.addAll(flatten(nested));
+            } else {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    public BorderPane getView() {
+        // Keyboard shortcuts for undo/redo anywhere in the window
+        mainLayout.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (UNDO_SHORTCUT.match(event)) {
+                handleUndo();
+                event.consume();
+            } else if (REDO_SHORTCUT.match(event)) {
+                handleRedo();
+                event.consume();
+            }
+        });
 
         // Main content area
         BorderPane contentPane = createContentPane();
         mainLayout.setCenter(contentPane);
 
+        // Left Sidebar for navigation
+        VBox sidebar = createSidebar(contentPane);
+        mainLayout.setLeft(sidebar);
+
         return mainLayout;
     }
 
-    private VBox createSidebar() {
+    private VBox createSidebar(BorderPane transactionsPane) {
         VBox sidebar = new VBox(10);
         sidebar.getStyleClass().add("sidebar");
         sidebar.setPadding(new Insets(20, 10, 20, 10));
 
-        // Placeholder buttons inspired by the screenshot
         Button dashboardButton = new Button("Dashboard");
         Button transactionsButton = new Button("Transactions");
         Button financeButton = new Button("Finance");
@@ -59,18 +222,38 @@ public class MainViewController {
         financeButton.getStyleClass().add("sidebar-button");
         settingsButton.getStyleClass().add("sidebar-button");
 
+        dashboardButton.setOnAction(e -> {
+            dashboardView.refresh();
+            showPage(dashboardView.getView(), dashboardButton, transactionsButton, financeButton);
+        });
+        transactionsButton.setOnAction(e -> showPage(transactionsPane, transactionsButton, dashboardButton, financeButton));
+        financeButton.setOnAction(e -> {
+            financeView.refresh();
+            showPage(financeView.getView(), financeButton, dashboardButton, transactionsButton);
+        });
+
         sidebar.getChildren().addAll(dashboardButton, transactionsButton, financeButton, settingsButton);
 
         return sidebar;
     }
 
+    private void showPage(Region page, Button selectedButton, Button... otherButtons) {
+        mainLayout.setCenter(page);
+        for (Button other : otherButtons) {
+            other.getStyleClass().remove("sidebar-button-selected");
+        }
+        if (!selectedButton.getStyleClass().contains("sidebar-button-selected")) {
+            selectedButton.getStyleClass().add("sidebar-button-selected");
+        }
+    }
+
     private BorderPane createContentPane() {
         BorderPane contentPane = new BorderPane();
         contentPane.setPadding(new Insets(20));
 
-        // Top toolbar
-        HBox toolbar = createToolbar();
-        contentPane.setTop(toolbar);
+        // Top toolbar and search box
+        VBox top = new VBox(12, createToolbar(), createSearchBar());
+        contentPane.setTop(top);
 
         // Table in the center
         contentPane.setCenter(transactionTable);
@@ -85,33 +268,97 @@ public class MainViewController {
         Button addButton = new Button("Add Transaction");
         Button editButton = new Button("Edit");
         Button deleteButton = new Button("Delete");
+        Button recategorizeButton = new Button("Recategorize");
+        Button undoButton = new Button("Undo");
+        Button redoButton = new Button("Redo");
+        Button exportButton = new Button("Export");
+        Button reconcileButton = new Button("Reconcile");
         Button summaryButton = new Button("View Summary");
         summaryButton.setId("summary-button"); // Primary action button
 
         addButton.setOnAction(e -> handleAddTransaction());
         editButton.setOnAction(e -> handleEditTransaction());
         deleteButton.setOnAction(e -> handleDeleteTransaction());
+        recategorizeButton.setOnAction(e -> handleRecategorize());
+        recategorizeButton.setTooltip(new Tooltip("Move all selected transactions to another category"));
         summaryButton.setOnAction(e -> handleShowSummary());
+        undoButton.setOnAction(e -> handleUndo());
+        redoButton.setOnAction(e -> handleRedo());
+        exportButton.setOnAction(e -> handleExport());
+        reconcileButton.setOnAction(e -> handleReconcile());
+        reconcileButton.setTooltip(new Tooltip("Compare the ledger with a bank statement CSV file"));
+        undoButton.setTooltip(new Tooltip("Undo (Ctrl+Z)"));
+        redoButton.setTooltip(new Tooltip("Redo (Ctrl+Y)"));
 
 
         // --- Layout ---
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        HBox toolbar = new HBox(10, addButton, editButton, deleteButton, spacer, summaryButton);
+        HBox toolbar = new HBox(10, addButton, editButton, deleteButton, recategorizeButton, undoButton, redoButton, exportButton, reconcileButton, spacer, summaryButton);
         toolbar.setAlignment(Pos.CENTER_LEFT);
 
         return toolbar;
     }
 
+    private HBox createSearchBar() {
+        TextField searchField = new TextField();
+        searchField.setPromptText("Search, e.g. category=Food and amount>50 and date>=2025-01");
+        searchField.setOnAction(e -> applySearch(searchField));
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        searchStatus.getStyleClass().add("search-status");
+
+        HBox searchBar = new HBox(10, searchField, searchStatus);
+        searchBar.setAlignment(Pos.CENTER_LEFT);
+        return searchBar;
+    }
+
+    /**
+     * Filters the table with the query in the search box. The filter stays live, so rows added or changed
+     * later are shown or hidden as they match. The status shows the plan the service chose for the query,
+     * once the service has run it in the background.
+     */
+    private void applySearch(TextField searchField) {
+        searchField.getStyleClass().remove("search-error");
+        String text = searchField.getText();
+        Query query;
+        try {
+            query = Query.parse(text);
+        } catch (IllegalArgumentException e) {
+            searchField.getStyleClass().add("search-error");
+            searchStatus.setText(e.getMessage());
+            return;
+        }
+        if (query.isEmpty()) {
+            visibleTransactions.setPredicate(null);
+            searchStatus.setText("");
+            return;
+        }
+        visibleTransactions.setPredicate(query::matches);
+        searchStatus.setText("Searching...");
+        serviceCalls.run(() -> transactionService.query(query), result -> {
+            // A slower, older search must not overwrite the status of the one now in the box
+            if (searchField.getText().equals(text)) {
+                searchStatus.setText(String.format("%d match(es), %s, %.1f ms", result.transactions().size(),
+                        result.plan().lines().findFirst().orElse(""), result.elapsed().toNanos() / 1e6));
+            }
+        }, e -> searchStatus.setText(e.getMessage()));
+    }
+
     private TableView<Transaction> createTransactionTable() {
-        TableView<Transaction> table = new TableView<>(observableTransactions);
+        // Filtered by the search box; sorting by column header orders this view, sorted in the background
+        SortedList<Transaction> sortedTransactions = new SortedList<>(visibleTransactions);
+        TableView<Transaction> table = new TableView<>(sortedTransactions);
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
         table.setPlaceholder(new Label("No transactions found. Click 'Add Transaction' to get started."));
+        // Shift/Ctrl-click selects several rows for Delete and Recategorize
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // --- Columns ---
-        TableColumn<Transaction, String> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))));
+        // Date and amount cells hold the values themselves and only format them for display
+        TableColumn<Transaction, LocalDate> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getDate()));
+        dateCol.setCellFactory(formattedCells(DateTimeFormatter.ofPattern("yyyy-MM-dd")::format));
         dateCol.setPrefWidth(100);
         dateCol.setMinWidth(100);
 
@@ -120,10 +367,16 @@ public class MainViewController {
         descCol.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getDescription()));
         descCol.setPrefWidth(250);
 
-        TableColumn<Transaction, String> amountCol = new TableColumn<>("Amount");
-        amountCol.setCellValueFactory(cellData -> {
-            NumberFormat currencyFormat = NumberFormat.getCurrencyInstance();
-            return new SimpleStringProperty(currencyFormat.format(cellData.getValue().getAmount()));
+        TableColumn<Transaction, BigDecimal> amountCol = new TableColumn<>("Amount");
+        amountCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getAmount()));
+        amountCol.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(BigDecimal item, boolean empty) {
+                super.updateItem(item, empty);
+                Transaction row = empty ? null : getTableRow().getItem();
+                // Each amount is shown in its own currency
+                setText(row == null || item == null ? null : currencyFormat(row.getCurrency()).format(item));
+            }
         });
         amountCol.setStyle("-fx-alignment: CENTER-RIGHT;");
         amountCol.setPrefWidth(120);
@@ -141,18 +394,105 @@ public class MainViewController {
 
         table.getColumns().setAll(dateCol, descCol, amountCol, typeCol, categoryCol);
 
+        // Sort by comparing the transactions' fields directly, rather than cell values created per comparison
+        Map<TableColumn<Transaction, ?>, Comparator<Transaction>> comparators = Map.of(
+                dateCol, SortKey.DATE.comparator(),
+                descCol, SortKey.DESCRIPTION.comparator(),
+                amountCol, SortKey.AMOUNT.comparator(),
+                typeCol, Comparator.comparing(Transaction::getType),
+                categoryCol, SortKey.CATEGORY.comparator());
+        table.setSortPolicy(sortedTable -> {
+            Comparator<Transaction> order = null;
+            for (TableColumn<Transaction, ?> column : sortedTable.getSortOrder()) {
+                Comparator<Transaction> byColumn = comparators.get(column);
+                if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                    byColumn = byColumn.reversed();
+                }
+                order = order == null ? byColumn : order.thenComparing(byColumn);
+            }
+            sortInBackground(sortedTable, sortedTransactions, order);
+            return true;
+        });
+
         return table;
     }
 
-    // --- Action Handlers (Unchanged from previous version) ---
+    /**
+     * Sorts a copy of the rows off the FX thread, then puts the rows in that order before handing the
+     * comparator to the table's sorted view: on rows already in order its sort is a single linear pass.
+     * If rows were added or removed meanwhile, the view sorts them itself.
+     */
+    private void sortInBackground(TableView<Transaction> table, SortedList<Transaction> sortedTransactions,
+                                  Comparator<Transaction> order) {
+        int request = ++sortRequest;
+        if (order == null) {
+            sortedTransactions.setComparator(null);
+            return;
+        }
+        List<Transaction> rows = new ArrayList<>(observableTransactions);
+        int version = rowsVersion;
+        serviceCalls.run(() -> {
+            rows.sort(order);
+            return rows;
+        }, sorted -> {
+            if (request != sortRequest) {
+                return;
+            }
+            if (version == rowsVersion) {
+                // Replacing the rows clears the selection, so keep it
+                List<Transaction> selected = List.copyOf(table.getSelectionModel().getSelectedItems());
+                reordering = true;
+                try {
+                    sortedTransactions.setComparator(null);
+                    observableTransactions.setAll(sorted);
+                } finally {
+                    reordering = false;
+                }
+                sortedTransactions.setComparator(order);
+                selected.forEach(table.getSelectionModel()::select);
+                return;
+            }
+            sortedTransactions.setComparator(order);
+        }, e -> System.err.println("Error sorting transactions: " + e.getMessage()));
+    }
+
+    /**
+     * @return A format for amounts in the given currency, with the default locale's symbols and grouping.
+     */
+    private NumberFormat currencyFormat(Currency currency) {
+        return currencyFormats.computeIfAbsent(currency, c -> {
+            NumberFormat format = NumberFormat.getCurrencyInstance();
+            format.setCurrency(c);
+            format.setMinimumFractionDigits(Math.max(c.getDefaultFractionDigits(), 0));
+            format.setMaximumFractionDigits(Math.max(c.getDefaultFractionDigits(), 0));
+            return format;
+        });
+    }
+
+    private static <T> Callback<TableColumn<Transaction, T>, TableCell<Transaction, T>> formattedCells(Function<T, String> format) {
+        return column -> new TableCell<>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : format.apply(item));
+            }
+        };
+    }
+
+    // --- Action Handlers: service calls run on a background thread, see ServiceCalls ---
 
     private void handleAddTransaction() {
         TransactionDialog dialog = new TransactionDialog();
         Optional<Transaction> result = dialog.showAndWait();
 
         result.ifPresent(newTransaction -> {
-            transactionService.addTransaction(newTransaction);
+            // Shown straight away; taken out again if the service cannot add it
+            optimisticRows.add(newTransaction);
             observableTransactions.add(newTransaction);
+            serviceCalls.run(() -> {
+                transactionService.addTransaction(newTransaction);
+                return newTransaction;
+            }, this::checkBudgets, e -> changeFailed("Add Failed", "Could not add the transaction", e, List.of(newTransaction), List.of()));
         });
     }
 
@@ -167,51 +507,212 @@ public class MainViewController {
         Optional<Transaction> result = dialog.showAndWait();
 
         result.ifPresent(updatedTransaction -> {
-            if (transactionService.updateTransaction(updatedTransaction)) {
-                int index = observableTransactions.indexOf(selectedTransaction);
-                if (index != -1) {
-                    observableTransactions.set(index, updatedTransaction);
-                }
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not update the transaction.");
+            int index = observableTransactions.indexOf(selectedTransaction);
+            if (index != -1) {
+                optimisticRows.add(updatedTransaction);
+                observableTransactions.set(index, updatedTransaction);
             }
+            List<String> ids = List.of(updatedTransaction.getId());
+            serviceCalls.run(() -> transactionService.updateTransaction(updatedTransaction), updated -> {
+                if (updated) {
+                    checkBudgets(updatedTransaction);
+                } else {
+                    rollBack(List.of(updatedTransaction), ids);
+                    showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not update the transaction.");
+                }
+            }, e -> changeFailed("Update Failed", "Could not update the transaction", e, List.of(updatedTransaction), ids));
         });
     }
 
     private void handleDeleteTransaction() {
-        Transaction selectedTransaction = transactionTable.getSelectionModel().getSelectedItem();
-        if (selectedTransaction == null) {
+        List<Transaction> selected = List.copyOf(transactionTable.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
             showAlert(Alert.AlertType.WARNING, "No Selection", "Please select a transaction to delete.");
             return;
         }
 
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("Confirm Deletion");
-        confirmAlert.setHeaderText("Delete Transaction");
-        confirmAlert.setContentText("Are you sure you want to delete this transaction?\n" + selectedTransaction.getDescription());
+        if (selected.size() == 1) {
+            confirmAlert.setHeaderText("Delete Transaction");
+            confirmAlert.setContentText("Are you sure you want to delete this transaction?\n" + selected.getFirst().getDescription());
+        } else {
+            confirmAlert.setHeaderText("Delete Transactions");
+            confirmAlert.setContentText("Are you sure you want to delete the " + selected.size() + " selected transactions?");
+        }
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            if (transactionService.deleteTransaction(selectedTransaction.getId())) {
-                observableTransactions.remove(selectedTransaction);
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Delete Failed", "Could not delete the selected transaction.");
+            // Removed straight away; put back if the service cannot delete them
+            observableTransactions.removeAll(identitySet(selected));
+            List<String> ids = selected.stream().map(Transaction::getId).toList();
+            serviceCalls.run(() -> {
+                // One batch: a single save and a single undo step however many rows are selected
+                TransactionBatch batch = transactionService.newBatch();
+                ids.forEach(batch::delete);
+                return batch.commit().applied();
+            }, applied -> {
+                if (!applied) {
+                    rollBack(List.of(), ids);
+                    showAlert(Alert.AlertType.ERROR, "Delete Failed", "Could not delete the selected transactions.");
+                }
+            }, e -> changeFailed("Delete Failed", "Could not delete the selected transactions", e, List.of(), ids));
+        }
+    }
+
+    private void handleRecategorize() {
+        List<Transaction> selected = List.copyOf(transactionTable.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "No Selection", "Please select the transactions to recategorize.");
+            return;
+        }
+
+        TextInputDialog dialog = new TextInputDialog(selected.getFirst().getCategory());
+        dialog.setTitle("Recategorize");
+        dialog.setHeaderText("Move " + selected.size() + " transaction(s) to category:");
+        dialog.setContentText("Category:");
+        dialog.getDialogPane().getStylesheets().add(getClass().getResource("/styles/dark-theme.css").toExternalForm());
+        Optional<String> category = dialog.showAndWait().map(String::trim).filter(name -> !name.isEmpty());
+        if (category.isEmpty()) {
+            return;
+        }
+
+        // The table follows once the service publishes the new rows
+        serviceCalls.run(() -> {
+            TransactionBatch batch = transactionService.newBatch();
+            selected.forEach(transaction -> batch.recategorize(transaction.getId(), category.get()));
+            return batch.commit().applied();
+        }, applied -> {
+            if (!applied) {
+                showAlert(Alert.AlertType.ERROR, "Recategorize Failed",
+                        "Some of the selected transactions no longer exist. Nothing was changed.");
             }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Recategorize Failed", e.getMessage()));
+    }
+
+    private void handleUndo() {
+        serviceCalls.run(transactionService::undo, undone -> {
+        }, e -> changeFailed("Undo Failed", "Could not undo the last change", e, List.of(), List.of()));
+    }
+
+    private void handleRedo() {
+        serviceCalls.run(transactionService::redo, redone -> {
+        }, e -> changeFailed("Redo Failed", "Could not redo the change", e, List.of(), List.of()));
+    }
+
+    /**
+     * Reports a change the service did not complete. The rows shown ahead of it are rolled back only if the
+     * service never made the change: one it could not save stays in the ledger, and one that another
+     * program's rewrite of the file replaced is taken out by the events that loaded the file's version.
+     */
+    private void changeFailed(String title, String message, Exception e, List<Transaction> shown, List<String> ids) {
+        if (e instanceof LedgerConflictException) {
+            showAlert(Alert.AlertType.WARNING, "Ledger Changed on Disk", e.getMessage());
+        } else if (e instanceof LedgerSaveException) {
+            showAlert(Alert.AlertType.WARNING, "Change Not Saved", e.getMessage());
+        } else {
+            rollBack(shown, ids);
+            showAlert(Alert.AlertType.ERROR, title, message + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Undoes an optimistic change the service did not make: takes out the rows shown for it and puts back
+     * the service's own version of the given transactions, looked up after every earlier call has finished.
+     */
+    private void rollBack(List<Transaction> shown, List<String> ids) {
+        Set<Transaction> stale = identitySet(shown);
+        optimisticRows.removeAll(stale);
+        observableTransactions.removeAll(stale);
+        if (ids.isEmpty()) {
+            return;
         }
+        serviceCalls.run(() -> ids.stream().map(transactionService::findTransactionById).flatMap(Optional::stream).toList(),
+                observableTransactions::addAll,
+                e -> System.err.println("Error restoring transactions: " + e.getMessage()));
+    }
+
+    private static Set<Transaction> identitySet(List<Transaction> transactions) {
+        Set<Transaction> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(transactions);
+        return set;
+    }
+
+    private void handleExport() {
+        Optional<ExportDialog.Selection> selection = new ExportDialog().showAndWait();
+        if (selection.isEmpty()) {
+            return;
+        }
+        ExportFormat format = selection.get().format();
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Transactions");
+        fileChooser.setInitialFileName("transactions." + format.getExtension());
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter(format.name(), "*." + format.getExtension()));
+        File target = fileChooser.showSaveDialog(mainLayout.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+
+        serviceCalls.run(() -> transactionService.exportTransactions(selection.get().filter(), format, target.toPath()),
+                written -> showAlert(Alert.AlertType.INFORMATION, "Export Complete",
+                        String.format("Exported %d transactions to %s.", written, target.getName())),
+                e -> showAlert(Alert.AlertType.ERROR, "Export Failed", e.getMessage()));
+    }
+
+    private void handleReconcile() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Bank Statement");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File statement = fileChooser.showOpenDialog(mainLayout.getScene().getWindow());
+        if (statement == null) {
+            return;
+        }
+
+        searchStatus.setText("Reconciling " + statement.getName() + "...");
+        serviceCalls.run(() -> transactionService.reconcileWithFile(statement.getPath(),
+                TransactionService.DEFAULT_RECONCILE_WINDOW_DAYS, TransactionService.DEFAULT_RECONCILE_SIMILARITY), report -> {
+            searchStatus.setText(String.format("Reconciled %s in %.1f ms", statement.getName(), report.elapsed().toNanos() / 1e6));
+            new ReconciliationDialog(report, statement.getName()).showAndWait().ifPresent(missing ->
+                    // The table follows once the service publishes the new rows
+                    serviceCalls.run(() -> {
+                        transactionService.addTransactions(missing);
+                        return null;
+                    }, added -> {
+                    }, e -> showAlert(Alert.AlertType.ERROR, "Add Failed", e.getMessage())));
+        }, e -> {
+            searchStatus.setText("");
+            showAlert(Alert.AlertType.ERROR, "Reconcile Failed", e.getMessage());
+        });
     }
 
     private void handleShowSummary() {
-        FinancialSummary summary = transactionService.getFinancialSummary();
+        // Amounts in other currencies are converted to the default one at each transaction's date
+        Currency displayCurrency = Transaction.getDefaultCurrency();
+        serviceCalls.run(() -> {
+            try {
+                return new SummaryResult(transactionService.getFinancialSummaryInDefaultCurrency(), "");
+            } catch (IllegalStateException e) {
+                return new SummaryResult(transactionService.getFinancialSummary(),
+                        "\n\n" + e.getMessage() + ", so amounts were added up unconverted. Add the rate to the rates file.");
+            }
+        }, result -> showSummary(displayCurrency, result.summary(), result.note()),
+                e -> showAlert(Alert.AlertType.ERROR, "Summary Failed", e.getMessage()));
+    }
+
+    private void showSummary(Currency displayCurrency, FinancialSummary summary, String note) {
         Alert summaryAlert = new Alert(Alert.AlertType.INFORMATION);
         summaryAlert.setTitle("Financial Summary");
         summaryAlert.setHeaderText("Your Current Financial Overview");
 
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance();
+        NumberFormat currencyFormat = currencyFormat(displayCurrency);
         String content = String.format(
-                "Total Income: \t%s\nTotal Expenses: \t%s\n\nNet Balance: \t%s",
+                "Total Income: \t%s\nTotal Expenses: \t%s\n\nNet Balance: \t%s%s",
                 currencyFormat.format(summary.totalIncome()),
                 currencyFormat.format(summary.totalExpenses()),
-                currencyFormat.format(summary.netBalance())
+                currencyFormat.format(summary.netBalance()),
+                note
         );
 
         summaryAlert.setContentText(content);
@@ -223,6 +724,63 @@ public class MainViewController {
         summaryAlert.showAndWait();
     }
 
+    /**
+     * Tells the user when another program's changes to the ledger file replaced unsaved local changes.
+     * Plain appends need no message: the table already shows the new rows.
+     */
+    public void showExternalChange(ExternalChange change) {
+        if (change.conflict()) {
+            showAlert(Alert.AlertType.WARNING, "Ledger Changed on Disk",
+                    "Another program rewrote the ledger file before your latest changes could be saved.\n"
+                            + "The file's version has been loaded. Use Undo to bring your changes back.");
+        }
+    }
+
+    /**
+     * Warns about ledger lines that were skipped while loading; they were saved to the quarantine file.
+     */
+    public void showLoadReport(LoadReport report) {
+        if (report.quarantined() == 0 && report.complete()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        if (!report.complete()) {
+            message.append("The ledger file could not be read completely, so it will not be saved over.\n\n");
+        }
+        if (report.quarantined() > 0) {
+            message.append(String.format("%d line(s) could not be read and were skipped. They were copied to:%n%s%n%n",
+                    report.quarantined(), report.quarantineFile()));
+            report.rejected().stream().limit(5).forEach(rejected ->
+                    message.append(String.format("Line %d: %s%n", rejected.lineNumber(), rejected.reason())));
+        }
+        showAlert(Alert.AlertType.WARNING, "Problems Loading Ledger", message.toString().trim());
+    }
+
+    private void checkBudgets(Transaction transaction) {
+        serviceCalls.run(() -> transactionService.getBudgetWarnings(transaction), this::showBudgetWarnings,
+                e -> System.err.println("Error checking budgets: " + e.getMessage()));
+    }
+
+    private void showBudgetWarnings(List<BudgetStatus> warnings) {
+        if (warnings.isEmpty()) {
+            return;
+        }
+        // Limits are in the default currency, and spending is converted to it
+        NumberFormat currencyFormat = currencyFormat(Transaction.getDefaultCurrency());
+        StringBuilder message = new StringBuilder();
+        for (BudgetStatus status : warnings) {
+            message.append(String.format("%s %s budget: spent %s of %s (over by %s)%n",
+                    status.budget().category(),
+                    status.budget().period().name().toLowerCase(),
+                    currencyFormat.format(status.spent()),
+                    currencyFormat.format(status.budget().limit()),
+                    currencyFormat.format(status.remaining().negate())));
+            status.unconverted().forEach((currency, amount) -> message.append(String.format(
+                    "  plus %s not converted (no exchange rate)%n", currencyFormat(currency).format(amount))));
+        }
+        showAlert(Alert.AlertType.WARNING, "Budget Exceeded", message.toString().trim());
+    }
+
     private void showAlert(Alert.AlertType alertType, String title, String message) {
         Alert alert = new Alert(alertType);
         alert.setTitle(title);
@@ -0,0 +1,113 @@
+package com.finansage.gui;
+
+import com.finansage.model.ReconciliationReport;
+import com.finansage.model.Transaction;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.*;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shows the outcome of reconciling a bank statement: the statement rows missing from the ledger, the ledger
+ * transactions that are not on the statement and the pairs that matched, one tab each. The result is the
+ * missing rows if the user chose to add them to the ledger, otherwise null.
+ */
+public class ReconciliationDialog extends Dialog<List<Transaction>> {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final ButtonType ADD_MISSING = new ButtonType("Add Missing to Ledger", ButtonBar.ButtonData.APPLY);
+
+    public ReconciliationDialog(ReconciliationReport report, String statementName) {
+        setTitle("Reconcile " + statementName);
+        setResizable(true);
+        if (report.statementRows() == 0) {
+            setHeaderText("The statement has no rows.");
+        } else {
+            setHeaderText(String.format("Statement %s to %s: %d row(s), %d matched, %d missing from the ledger, %d not on the statement.%s",
+                    report.from().format(DATE_FORMATTER), report.to().format(DATE_FORMATTER), report.statementRows(),
+                    report.matched().size(), report.missing().size(), report.extra().size(),
+                    report.balanced() ? "\nThe ledger agrees with the statement." : ""));
+        }
+
+        TabPane tabs = new TabPane(
+                tab("Missing from Ledger", transactionTable(report.missing()), report.missing().size()),
+                tab("Not on Statement", transactionTable(report.extra()), report.extra().size()),
+                tab("Matched", matchTable(report.matched()), report.matched().size()));
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        tabs.setPrefSize(760, 420);
+
+        getDialogPane().setContent(tabs);
+        getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        if (!report.missing().isEmpty()) {
+            getDialogPane().getButtonTypes().addFirst(ADD_MISSING);
+        }
+        getDialogPane().getStylesheets().add(getClass().getResource("/styles/dark-theme.css").toExternalForm());
+        getDialogPane().getStyleClass().add("dialog-pane");
+
+        setResultConverter(dialogButton -> dialogButton == ADD_MISSING ? report.missing() : null);
+    }
+
+    private static Tab tab(String title, TableView<?> table, int rows) {
+        return new Tab(title + " (" + rows + ")", table);
+    }
+
+    private static TableView<Transaction> transactionTable(List<Transaction> transactions) {
+        TableView<Transaction> table = sortableTable(transactions);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPlaceholder(new Label("None."));
+        table.getColumns().setAll(List.of(
+                column("Date", transaction -> transaction.getDate().format(DATE_FORMATTER)),
+                column("Description", Transaction::getDescription),
+                valueColumn("Amount", Transaction::getAmount),
+                column("Currency", transaction -> transaction.getCurrency().getCurrencyCode()),
+                column("Type", transaction -> transaction.getType().toString()),
+                column("Category", Transaction::getCategory)));
+        return table;
+    }
+
+    private static TableView<ReconciliationReport.Match> matchTable(List<ReconciliationReport.Match> matches) {
+        TableView<ReconciliationReport.Match> table = sortableTable(matches);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPlaceholder(new Label("None."));
+        table.getColumns().setAll(List.of(
+                column("Statement Date", match -> match.statement().getDate().format(DATE_FORMATTER)),
+                column("Statement Description", match -> match.statement().getDescription()),
+                column("Ledger Description", match -> match.ledger().getDescription()),
+                valueColumn("Amount", match -> match.ledger().getAmount()),
+                column("Currency", match -> match.ledger().getCurrency().getCurrencyCode()),
+                valueColumn("Days Apart", ReconciliationReport.Match::dayOffset),
+                column("Alike", match -> String.format("%3.0f%%", match.similarity() * 100))));
+        return table;
+    }
+
+    /**
+     * A table over the report's list that sorts a view of it, since the report's lists cannot be changed.
+     */
+    private static <S> TableView<S> sortableTable(List<S> rows) {
+        SortedList<S> sorted = new SortedList<>(FXCollections.observableList(rows));
+        TableView<S> table = new TableView<>(sorted);
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        return table;
+    }
+
+    private static <S> TableColumn<S, ?> column(String title, Function<S, String> value) {
+        TableColumn<S, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new SimpleStringProperty(value.apply(cellData.getValue())));
+        return column;
+    }
+
+    /**
+     * A column holding the value itself, so it sorts by value rather than by its text.
+     */
+    private static <S, T> TableColumn<S, ?> valueColumn(String title, Function<S, T> value) {
+        TableColumn<S, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(value.apply(cellData.getValue())));
+        column.setStyle("-fx-alignment: CENTER-RIGHT;");
+        return column;
+    }
+}
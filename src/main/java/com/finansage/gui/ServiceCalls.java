@@ -0,0 +1,42 @@
+package com.finansage.gui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs service calls on a background virtual thread and hands their outcome to the FX thread, so loading,
+ * saving and O(n) work never hold up the UI. Calls run one at a time in the order they were made, so a
+ * change and the undo that follows it reach the service in the order the user made them.
+ */
+class ServiceCalls {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("service-call").factory());
+
+    /**
+     * @param work Calls the service; runs off the FX thread.
+     * @param onSuccess Receives the result on the FX thread.
+     * @param onFailure Receives whatever {@code work} threw, on the FX thread.
+     */
+    <T> void run(Callable<T> work, Consumer<? super T> onSuccess, Consumer<? super Exception> onFailure) {
+        executor.execute(() -> {
+            try {
+                T result = work.call();
+                Platform.runLater(() -> onSuccess.accept(result));
+            } catch (Exception e) {
+                Platform.runLater(() -> onFailure.accept(e));
+            }
+        });
+    }
+
+    /**
+     * Runs a call whose result the UI does not need; a failure is only reported on the console.
+     */
+    void run(Callable<?> work) {
+        run(work, result -> {
+        }, e -> System.err.println("Error calling the service: " + e.getMessage()));
+    }
+}
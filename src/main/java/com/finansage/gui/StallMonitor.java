@@ -0,0 +1,96 @@
+package com.finansage.gui;
+
+import javafx.application.Platform;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures how long the FX thread is kept from running queued work. A virtual thread posts a probe to the
+ * FX thread, waits for it to run and sleeps a few milliseconds before posting the next one; how long each
+ * probe waited is how long the UI could not respond. Waits longer than the threshold are logged as stalls
+ * and added up for the summary printed when the window closes.
+ * <p>
+ * Off by default. Start the GUI with {@code -Dfinansage.stallMonitor=true} for the default threshold of one
+ * 60 Hz frame, or with a threshold in milliseconds, e.g. {@code -Dfinansage.stallMonitor=50}.
+ */
+final class StallMonitor {
+    static final String PROPERTY = "finansage.stallMonitor";
+    private static final Duration DEFAULT_THRESHOLD = Duration.ofMillis(16);
+    private static final Duration PROBE_INTERVAL = Duration.ofMillis(5);
+
+    private final long thresholdNanos;
+    private final long startedNanos = System.nanoTime();
+    // Written and read on the FX thread only
+    private long probes;
+    private long stalls;
+    private long stalledNanos;
+    private long longestNanos;
+
+    private StallMonitor(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    /**
+     * @return A running monitor if {@value #PROPERTY} asks for one, otherwise empty.
+     * @throws IllegalArgumentException If the property is neither true, false nor a number of milliseconds.
+     */
+    static Optional<StallMonitor> startIfEnabled() {
+        String setting = System.getProperty(PROPERTY, "false").trim();
+        Duration threshold;
+        if (setting.equalsIgnoreCase("false")) {
+            return Optional.empty();
+        } else if (setting.equalsIgnoreCase("true") || setting.isEmpty()) {
+            threshold = DEFAULT_THRESHOLD;
+        } else {
+            try {
+                threshold = Duration.ofMillis(Long.parseLong(setting));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + PROPERTY + ": '" + setting + "'");
+            }
+        }
+        StallMonitor monitor = new StallMonitor(threshold);
+        Thread.ofVirtual().name("stall-monitor").start(monitor::probe);
+        return Optional.of(monitor);
+    }
+
+    private void probe() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long posted = System.nanoTime();
+                CompletableFuture<Void> ran = new CompletableFuture<>();
+                Platform.runLater(() -> {
+                    record(System.nanoTime() - posted);
+                    ran.complete(null);
+                });
+                // One probe at a time, so a long stall is counted once rather than once per queued probe
+                ran.join();
+                Thread.sleep(PROBE_INTERVAL);
+            }
+        } catch (InterruptedException | IllegalStateException e) {
+            // The toolkit has shut down
+        }
+    }
+
+    private void record(long waitedNanos) {
+        probes++;
+        if (waitedNanos < thresholdNanos) {
+            return;
+        }
+        stalls++;
+        stalledNanos += waitedNanos;
+        longestNanos = Math.max(longestNanos, waitedNanos);
+        System.err.printf("UI thread stalled for %.1f ms%n", waitedNanos / 1e6);
+    }
+
+    /**
+     * @return One line with the probe count, how many stalls there were, their total and the longest.
+     * Call on the FX thread.
+     */
+    String summary() {
+        return String.format("UI thread over %.1f s: %,d probes, %d stall(s) of %d ms or more, %.1f ms stalled in total, longest %.1f ms",
+                (System.nanoTime() - startedNanos) / 1e9, probes, stalls, thresholdNanos / 1_000_000,
+                stalledNanos / 1e6, longestNanos / 1e6);
+    }
+}
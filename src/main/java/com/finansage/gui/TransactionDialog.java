@@ -13,6 +13,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Currency;
 import java.util.Optional;
 
 /**
@@ -27,6 +29,7 @@ public class TransactionDialog extends Dialog<Transaction> {
     private final TextField amountField = new TextField();
     private final ComboBox<TransactionType> typeComboBox = new ComboBox<>();
     private final TextField categoryField = new TextField();
+    private final ComboBox<Currency> currencyComboBox = new ComboBox<>();
     private final Transaction originalTransaction; // Used for editing
 
     /**
@@ -58,6 +61,7 @@ public class TransactionDialog extends Dialog<Transaction> {
             // Set default values for a better user experience in Add mode
             datePicker.setValue(LocalDate.now());
             typeComboBox.setValue(TransactionType.EXPENSE);
+            currencyComboBox.setValue(Transaction.getDefaultCurrency());
         }
 
         // Request focus on the first input field
@@ -87,6 +91,20 @@ public class TransactionDialog extends Dialog<Transaction> {
         amountField.setPromptText("e.g., 50.99");
         typeComboBox.getItems().addAll(TransactionType.values());
         categoryField.setPromptText("e.g., Food, Work");
+        currencyComboBox.getItems().addAll(Currency.getAvailableCurrencies().stream()
+                .sorted(Comparator.comparing(Currency::getCurrencyCode))
+                .toList());
+        currencyComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Currency currency) {
+                return currency == null ? "" : currency.getCurrencyCode() + " - " + currency.getDisplayName();
+            }
+
+            @Override
+            public Currency fromString(String string) {
+                return null; // Not editable
+            }
+        });
     }
 
     private void setupLayout() {
@@ -105,6 +123,8 @@ public class TransactionDialog extends Dialog<Transaction> {
         grid.add(typeComboBox, 1, 3);
         grid.add(new Label("Category:"), 0, 4);
         grid.add(categoryField, 1, 4);
+        grid.add(new Label("Currency:"), 0, 5);
+        grid.add(currencyComboBox, 1, 5);
 
         getDialogPane().setContent(grid);
 
@@ -129,14 +149,17 @@ public class TransactionDialog extends Dialog<Transaction> {
                             }
                             boolean isTypeNotSelected = typeComboBox.getValue() == null;
                             boolean isCategoryEmpty = categoryField.getText().trim().isEmpty();
+                            boolean isCurrencyNotSelected = currencyComboBox.getValue() == null;
 
-                            return isDateInvalid || isDescriptionEmpty || isAmountInvalid || isTypeNotSelected || isCategoryEmpty;
+                            return isDateInvalid || isDescriptionEmpty || isAmountInvalid || isTypeNotSelected || isCategoryEmpty
+                                    || isCurrencyNotSelected;
                         },
                         datePicker.valueProperty(),
                         descriptionField.textProperty(),
                         amountField.textProperty(),
                         typeComboBox.valueProperty(),
-                        categoryField.textProperty())
+                        categoryField.textProperty(),
+                        currencyComboBox.valueProperty())
         );
     }
 
@@ -146,6 +169,7 @@ public class TransactionDialog extends Dialog<Transaction> {
         amountField.setText(originalTransaction.getAmount().toPlainString());
         typeComboBox.setValue(originalTransaction.getType());
         categoryField.setText(originalTransaction.getCategory());
+        currencyComboBox.setValue(originalTransaction.getCurrency());
     }
 
     private void setupResultConverter() {
@@ -156,12 +180,13 @@ public class TransactionDialog extends Dialog<Transaction> {
                 BigDecimal amount = new BigDecimal(amountField.getText());
                 TransactionType type = typeComboBox.getValue();
                 String category = categoryField.getText().trim();
+                Currency currency = currencyComboBox.getValue();
 
                 // If we are editing, use the original ID. Otherwise, it's a new transaction.
                 if (originalTransaction != null) {
-                    return new Transaction(originalTransaction.getId(), date, description, amount, type, category);
+                    return Transaction.withId(originalTransaction.getTransactionId(), date, description, amount, type, category, currency);
                 } else {
-                    return new Transaction(date, description, amount, type, category);
+                    return new Transaction(date, description, amount, type, category, currency);
                 }
             }
             return null;
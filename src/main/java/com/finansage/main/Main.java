@@ -1,27 +1,98 @@
 package com.finansage.main;
 
+import com.finansage.api.ApiServer;
 import com.finansage.cli.CommandLineInterface;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.FinancialSummary;
 import com.finansage.repository.TransactionRepository;
-import com.finansage.service.TransactionService;
+import com.finansage.service.LedgerRegistry;
+import com.finansage.service.OffHeapLedger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 public class Main {
+    private static final int DEFAULT_API_PORT = 8080;
+
     public static void main(String[] args) {
         System.out.println("Welcome to FinanSage - Your Personal Finance Manager!");
 
-        // Define the path for our data file.
-        final String DATA_FILE = "transactions.csv";
+        // "--serve [port]" starts the local HTTP/JSON API instead of the interactive menu.
+        // "--off-heap" prints a report for ledgers too large for the heap, keeping their rows off-heap.
+        List<String> arguments = new ArrayList<>(List.of(args));
+        boolean offHeap = arguments.remove("--off-heap");
+        Integer apiPort = null;
+        if (!arguments.isEmpty() && arguments.getFirst().equals("--serve")) {
+            arguments.removeFirst();
+            apiPort = DEFAULT_API_PORT;
+            if (!arguments.isEmpty() && arguments.getFirst().matches("\\d+")) {
+                apiPort = Integer.parseInt(arguments.removeFirst());
+            }
+        }
+
+        // Define the paths for our data files. Each argument is one ledger (e.g. one per account).
+        final String DEFAULT_DATA_FILE = "transactions.csv";
+        List<String> dataFiles = arguments.isEmpty() ? List.of(DEFAULT_DATA_FILE) : arguments;
 
-        // 1. Initialize the Repository Layer (the "hands")
-        TransactionRepository transactionRepository = new TransactionRepository(DATA_FILE);
+        if (offHeap) {
+            dataFiles.forEach(Main::reportOffHeap);
+            return;
+        }
 
-        // 2. Initialize the Service Layer (the "brain"), injecting the repository.
-        TransactionService transactionService = new TransactionService(transactionRepository);
+        // 1. Initialize the Repository and Service Layers (the "hands" and the "brain") for every ledger.
+        //    Each ledger gets its own TransactionRepository, budget file and TransactionService, loaded in parallel.
+        try (LedgerRegistry ledgerRegistry = new LedgerRegistry()) {
+            ledgerRegistry.openAll(dataFiles);
 
-        // 3. Initialize the UI Layer (the "face"), injecting the service.
-        CommandLineInterface cli = new CommandLineInterface(transactionService);
+            if (apiPort != null) {
+                serve(ledgerRegistry, dataFiles.getFirst(), apiPort);
+                return;
+            }
 
-        // 4. Start the application
-        cli.start();
+            // 2. Initialize the UI Layer (the "face"), injecting the ledgers.
+            CommandLineInterface cli = new CommandLineInterface(ledgerRegistry);
+
+            // 3. Start the application
+            cli.start();
+        }
     }
-}
 
+    private static void reportOffHeap(String dataFile) {
+        try (OffHeapLedger ledger = OffHeapLedger.open(new TransactionRepository(dataFile))) {
+            Map<Currency, FinancialSummary> summaries = ledger.getFinancialSummariesByCurrency();
+            System.out.printf("%n--- %s (%d transactions, stored off-heap) ---%n", dataFile, ledger.size());
+            // There is no rate table in this mode, so each currency gets its own totals
+            summaries.forEach((currency, summary) -> {
+                System.out.printf("Total Income:   %.2f %s%n", summary.totalIncome(), currency);
+                System.out.printf("Total Expenses: %.2f %s%n", summary.totalExpenses(), currency);
+                System.out.printf("Net Balance:    %.2f %s%n", summary.netBalance(), currency);
+            });
+            CategoryReport report = ledger.getCategoryReport();
+            if (summaries.size() > 1) {
+                System.out.println("Category totals add up " + summaries.keySet() + " unconverted.");
+            }
+            System.out.println("Expenses by category:");
+            report.expensesByCategory().forEach((category, amount) -> System.out.printf("  %-20s %12.2f%n", category, amount));
+            System.out.println("Income by category:");
+            report.incomeByCategory().forEach((category, amount) -> System.out.printf("  %-20s %12.2f%n", category, amount));
+        } catch (IOException e) {
+            System.err.println("Error reading " + dataFile + ": " + e.getMessage());
+        }
+    }
+
+    private static void serve(LedgerRegistry ledgerRegistry, String ledger, int port) {
+        try (ApiServer server = new ApiServer(ledgerRegistry.getLedger(ledger), port)) {
+            server.start();
+            System.out.println("Serving " + ledger + " at http://localhost:" + server.getPort() + "/api (Ctrl+C to stop)");
+            new CountDownLatch(1).await(); // Run until the process is terminated
+        } catch (IOException e) {
+            System.err.println("Error starting API server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
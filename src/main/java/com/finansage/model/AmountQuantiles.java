@@ -0,0 +1,20 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Estimated transaction-size percentiles for one category.
+ * @param category The category the estimates cover.
+ * @param count The exact number of transactions behind the estimates.
+ * @param median The estimated median amount.
+ * @param p95 The estimated 95th percentile amount.
+ * @param relativeError The most each estimate may differ from the true value, relative to that value.
+ */
+public record AmountQuantiles(
+        String category,
+        long count,
+        BigDecimal median,
+        BigDecimal p95,
+        double relativeError
+) {
+}
@@ -0,0 +1,53 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * One archived year of transactions: a compressed, read-only file holding its rows together with
+ * totals computed when it was written, so reports can include the year without reading the rows.
+ * @param year The calendar year the segment covers.
+ * @param file The archive file.
+ * @param transactionCount The number of transactions in the segment.
+ * @param months Totals per month, category and type.
+ * @param days The number of transactions and their net amount (income minus expenses) per day.
+ */
+public record ArchiveSegment(
+        int year,
+        Path file,
+        int transactionCount,
+        List<MonthTotal> months,
+        List<DayTotal> days
+) {
+
+    /**
+     * @param count The number of transactions the total adds up.
+     * @param total The sum of their amounts.
+     */
+    public record MonthTotal(YearMonth month, String category, TransactionType type, int count, BigDecimal total) {
+    }
+
+    public record DayTotal(LocalDate date, int count, BigDecimal net) {
+    }
+
+    public BigDecimal totalIncome() {
+        return total(TransactionType.INCOME);
+    }
+
+    public BigDecimal totalExpenses() {
+        return total(TransactionType.EXPENSE);
+    }
+
+    private BigDecimal total(TransactionType type) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (MonthTotal month : months) {
+            if (month.type() == type) {
+                sum = sum.add(month.total());
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,15 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The running balance at the end of a given day.
+ * @param date The day.
+ * @param balance The net of all income minus expenses dated on or before that day.
+ */
+public record BalancePoint(
+        LocalDate date,
+        BigDecimal balance
+) {
+}
@@ -0,0 +1,23 @@
+package com.finansage.model;
+
+import java.util.List;
+
+/**
+ * The outcome of committing a batch of changes. A batch is all-or-nothing: if any operation refers to a
+ * transaction that does not exist, or adds one under an ID that is already taken, nothing is applied.
+ * @param applied true if every operation was applied, false if the batch was rejected.
+ * @param added The number of transactions added.
+ * @param updated The number of update and recategorize operations that changed a transaction.
+ * @param deleted The number of transactions deleted.
+ * @param missingIds The IDs that operations referred to but that did not exist at that point.
+ * @param duplicateIds The IDs that add operations used but that already existed at that point.
+ */
+public record BatchReport(
+        boolean applied,
+        int added,
+        int updated,
+        int deleted,
+        List<String> missingIds,
+        List<String> duplicateIds
+) {
+}
@@ -0,0 +1,16 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+
+/**
+ * A spending limit for one category over a recurring period.
+ * @param category The expense category the limit applies to (matched case-insensitively).
+ * @param period The period the limit resets on.
+ * @param limit The maximum total expenses allowed per period, in the {@link Transaction#getDefaultCurrency() default currency}.
+ */
+public record Budget(
+        String category,
+        BudgetPeriod period,
+        BigDecimal limit
+) {
+}
@@ -0,0 +1,25 @@
+package com.finansage.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The length of the window a budget limit applies to.
+ */
+public enum BudgetPeriod {
+    WEEKLY,
+    MONTHLY,
+    YEARLY;
+
+    /**
+     * @return The first day of the period that contains {@code date} (weeks start on Monday).
+     */
+    public LocalDate startOf(LocalDate date) {
+        return switch (this) {
+            case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHLY -> date.withDayOfMonth(1);
+            case YEARLY -> date.withDayOfYear(1);
+        };
+    }
+}
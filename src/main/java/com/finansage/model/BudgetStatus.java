@@ -0,0 +1,30 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Map;
+
+/**
+ * How much of a budget has been used in one specific period.
+ * @param budget The budget definition.
+ * @param periodStart The first day of the period this status describes.
+ * @param spent The total expenses in the category during the period, in the currency of the limit.
+ * @param unconverted Expenses in currencies the rate table could not convert, per currency. They are not
+ * included in {@code spent}.
+ */
+public record BudgetStatus(
+        Budget budget,
+        LocalDate periodStart,
+        BigDecimal spent,
+        Map<Currency, BigDecimal> unconverted
+) {
+
+    public BigDecimal remaining() {
+        return budget.limit().subtract(spent);
+    }
+
+    public boolean isExceeded() {
+        return spent.compareTo(budget.limit()) > 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.finansage.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every distinct category name a small integer ID, so a transaction stores an int instead of
+ * its own copy of the name. A ledger only has a few dozen categories, so the dictionary stays tiny and
+ * IDs are never reused. Lookups by ID are a plain array read.
+ * <p>
+ * The dictionary is shared by every ledger in the process and names are never evicted, since transactions,
+ * indexes and off-heap rows refer to them by ID. It is therefore bounded at {@link #MAX_CATEGORIES} names,
+ * which no real ledger comes near, so a stream of made-up categories (from API clients or a corrupt file)
+ * cannot grow it for as long as the process runs. Past that, new names get {@link #UNLISTED} and a
+ * transaction keeps its own copy of the name instead.
+ */
+public final class CategoryDictionary {
+    /** The ID used for a missing (null) category. */
+    public static final int NONE = -1;
+    /** The ID of a category the full dictionary has no room for; its name is kept by whoever holds it. */
+    public static final int UNLISTED = -2;
+    /** The most distinct category names the dictionary holds. */
+    public static final int MAX_CATEGORIES = 1 << 16;
+
+    private static final int MAX_SCANNED = 64;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[16];
+    private static int size; // guarded by the class lock
+
+    private CategoryDictionary() {
+    }
+
+    /**
+     * @return The ID of the category, assigning a new one on first use, or {@link #UNLISTED} if the category
+     * is new and the dictionary already holds {@link #MAX_CATEGORIES} names.
+     */
+    public static int idOf(String category) {
+        if (category == null) {
+            return NONE;
+        }
+        Integer id = ids.get(category);
+        return id != null ? id : register(category);
+    }
+
+    /**
+     * Looks up {@code source[start, end)} without creating a string when it is one of the first few dozen
+     * categories, which in practice covers every row.
+     */
+    public static int idOf(CharSequence source, int start, int end) {
+        String[] known = names;
+        for (int id = 0; id < Math.min(known.length, MAX_SCANNED) && known[id] != null; id++) {
+            String name = known[id];
+            if (name.length() == end - start && regionEquals(name, source, start)) {
+                return id;
+            }
+        }
+        return idOf(source.subSequence(start, end).toString());
+    }
+
+    /**
+     * @return The category name for an ID, or null for {@link #NONE} and {@link #UNLISTED}.
+     */
+    public static String nameOf(int id) {
+        return id < 0 ? null : names[id];
+    }
+
+    private static synchronized int register(String category) {
+        Integer existing = ids.get(category);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == MAX_CATEGORIES) {
+            return UNLISTED;
+        }
+        int id = size++;
+        String[] grown = id < names.length ? names : Arrays.copyOf(names, names.length * 2);
+        grown[id] = category;
+        names = grown; // volatile write publishes the new name before the ID becomes visible
+        ids.put(category, id);
+        return id;
+    }
+
+    private static boolean regionEquals(String name, CharSequence source, int start) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
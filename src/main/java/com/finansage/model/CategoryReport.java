@@ -0,0 +1,31 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Income and expense totals broken down by category.
+ * @param incomeByCategory Total INCOME per category, sorted by category name.
+ * @param expensesByCategory Total EXPENSE per category, sorted by category name.
+ */
+public record CategoryReport(
+        Map<String, BigDecimal> incomeByCategory,
+        Map<String, BigDecimal> expensesByCategory
+) {
+
+    public static CategoryReport empty() {
+        return new CategoryReport(new TreeMap<>(), new TreeMap<>());
+    }
+
+    /**
+     * @return A new report whose totals are the sums of both reports' totals.
+     */
+    public CategoryReport merge(CategoryReport other) {
+        Map<String, BigDecimal> income = new TreeMap<>(incomeByCategory);
+        other.incomeByCategory().forEach((category, amount) -> income.merge(category, amount, BigDecimal::add));
+        Map<String, BigDecimal> expenses = new TreeMap<>(expensesByCategory);
+        other.expensesByCategory().forEach((category, amount) -> expenses.merge(category, amount, BigDecimal::add));
+        return new CategoryReport(income, expenses);
+    }
+}
@@ -0,0 +1,29 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+/**
+ * The price of one currency in another on a given day, e.g. 1 EUR = 1.0835 USD.
+ * @param date The day the rate applies from; it stays in effect until the next rate for the same pair.
+ * @param base The currency being priced.
+ * @param quote The currency the price is expressed in.
+ * @param rate How many units of {@code quote} one unit of {@code base} is worth. Must be positive.
+ */
+public record ExchangeRate(
+        LocalDate date,
+        Currency base,
+        Currency quote,
+        BigDecimal rate
+) {
+
+    public ExchangeRate {
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("An exchange rate must be positive: " + rate);
+        }
+        if (base.equals(quote)) {
+            throw new IllegalArgumentException("An exchange rate needs two different currencies: " + base);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.finansage.model;
+
+/**
+ * File formats supported by the transaction export.
+ */
+public enum ExportFormat {
+    /** The ledger's own CSV layout (ID,Date,Description,Amount,Type,Category). */
+    CSV("csv"),
+    /** One JSON object per line. */
+    JSON_LINES("jsonl"),
+    /** A compact column-oriented binary layout, see {@code TransactionExporter}. */
+    COLUMNAR("fscol");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,30 @@
+package com.finansage.model;
+
+/**
+ * The outcome of reconciling the in-memory ledger with changes another program made to its file.
+ * @param kind How the file was changed.
+ * @param added Transactions that appeared in the file.
+ * @param updated Transactions whose fields changed in the file.
+ * @param removed Transactions that disappeared from the file (rewrites only).
+ * @param conflict True if the file was rewritten while local changes were not yet saved. The file's
+ *                 version wins; the local changes remain available through undo.
+ */
+public record ExternalChange(
+        Kind kind,
+        int added,
+        int updated,
+        int removed,
+        boolean conflict
+) {
+
+    public enum Kind {
+        /** The file is as this program last read or wrote it. */
+        NONE,
+        /** Rows were added to the end of the file; only they were read. */
+        APPENDED,
+        /** The file was replaced or edited in place and was read again in full. */
+        REWRITTEN
+    }
+
+    public static final ExternalChange NONE = new ExternalChange(Kind.NONE, 0, 0, 0, false);
+}
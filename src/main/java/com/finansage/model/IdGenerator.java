@@ -0,0 +1,41 @@
+package com.finansage.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Produces IDs for new transactions. The default is {@link #uuidV7()}; install another with
+ * {@link Transaction#setIdGenerator(IdGenerator)} (e.g. a deterministic one in tests).
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    TransactionId nextId();
+
+    /**
+     * Time-ordered UUIDv7-style IDs: a 48-bit millisecond timestamp, then a 12-bit counter that keeps IDs
+     * strictly increasing within a millisecond, then 62 random bits. Randomness comes from
+     * {@link ThreadLocalRandom}, so there is no shared SecureRandom to contend on during bulk inserts.
+     */
+    static IdGenerator uuidV7() {
+        AtomicLong lastTick = new AtomicLong(); // (millis << 12) | counter
+        return () -> {
+            long now = System.currentTimeMillis() << 12;
+            long tick = lastTick.updateAndGet(previous -> Math.max(now, previous + 1));
+            long msb = ((tick >>> 12) << 16) | 0x7000L | (tick & 0xFFFL);
+            long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+            return new TransactionId(msb, lsb);
+        };
+    }
+
+    /**
+     * The previous behaviour: random (version 4) UUIDs from {@link UUID#randomUUID()}.
+     */
+    static IdGenerator randomUuid() {
+        return () -> {
+            UUID uuid = UUID.randomUUID();
+            return new TransactionId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.finansage.model;
+
+/**
+ * How an import treats incoming rows that duplicate a transaction already in the ledger
+ * (or an earlier row of the same import).
+ */
+public enum ImportMode {
+    /** Drop the duplicate row. */
+    SKIP,
+    /** Import the duplicate row anyway, but list it in the report for review. A row that reuses an ID is given a new one. */
+    FLAG,
+    /** Overwrite the existing transaction with the incoming row's values, keeping the existing ID. */
+    MERGE
+}
@@ -0,0 +1,25 @@
+package com.finansage.model;
+
+import java.util.List;
+
+/**
+ * The outcome of importing a batch of transactions.
+ * @param mode The duplicate handling mode that was applied.
+ * @param totalRows The number of rows offered for import.
+ * @param imported The number of rows added to the ledger as new transactions.
+ * @param duplicates Every row detected as a duplicate, paired with the transaction it matched.
+ */
+public record ImportReport(
+        ImportMode mode,
+        int totalRows,
+        int imported,
+        List<Duplicate> duplicates
+) {
+
+    /**
+     * @param incoming The row from the import.
+     * @param existing The transaction it duplicates (already in the ledger or earlier in the import).
+     */
+    public record Duplicate(Transaction incoming, Transaction existing) {
+    }
+}
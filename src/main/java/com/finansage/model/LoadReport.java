@@ -0,0 +1,46 @@
+package com.finansage.model;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The outcome of loading a ledger file. Rows that cannot be parsed are skipped and written to a
+ * quarantine file instead of stopping the load.
+ * @param source The file that was read.
+ * @param linesRead The number of lines read, including the header and blank lines.
+ * @param loaded The number of transactions loaded.
+ * @param quarantined The number of lines that were rejected.
+ * @param rejected The first rejected lines (at most {@link #MAX_LISTED}); the quarantine file has them all.
+ * @param quarantineFile Where rejected lines were appended, or null if there were none.
+ * @param complete False if reading the file failed part-way. The ledger then refuses to save over it.
+ * @param elapsed How long the load took.
+ */
+public record LoadReport(
+        Path source,
+        long linesRead,
+        int loaded,
+        int quarantined,
+        List<RejectedLine> rejected,
+        Path quarantineFile,
+        boolean complete,
+        Duration elapsed
+) {
+
+    public static final int MAX_LISTED = 100;
+
+    /**
+     * @param lineNumber The 1-based line number in the source file.
+     * @param reason Why the line was rejected.
+     * @param line The line as it appeared in the file.
+     */
+    public record RejectedLine(long lineNumber, String reason, String line) {
+    }
+
+    /**
+     * @return Transactions loaded per second.
+     */
+    public double rowsPerSecond() {
+        return elapsed.isZero() ? 0 : loaded * 1e9 / elapsed.toNanos();
+    }
+}
@@ -0,0 +1,14 @@
+package com.finansage.model;
+
+/**
+ * An estimated transaction count for one merchant (a normalized description).
+ * @param merchant The normalized description.
+ * @param count The estimated number of transactions; never below the true count.
+ * @param maxError The most {@code count} may exceed the true count.
+ */
+public record MerchantCount(
+        String merchant,
+        long count,
+        long maxError
+) {
+}
@@ -0,0 +1,21 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Income and expense totals for one calendar month.
+ * @param month The month the totals cover.
+ * @param income The sum of INCOME transactions dated in the month.
+ * @param expenses The sum of EXPENSE transactions dated in the month.
+ */
+public record MonthlyTotals(
+        YearMonth month,
+        BigDecimal income,
+        BigDecimal expenses
+) {
+
+    public BigDecimal net() {
+        return income.subtract(expenses);
+    }
+}
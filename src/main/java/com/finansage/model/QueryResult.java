@@ -0,0 +1,27 @@
+package com.finansage.model;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The outcome of running a ledger query.
+ * @param transactions The matching transactions, in date order.
+ * @param plan How the query was executed: the access path chosen and the filter applied to its rows.
+ * @param examined The number of transactions the access path produced and the filter was evaluated on.
+ * @param elapsed How long planning and execution took.
+ */
+public record QueryResult(
+        List<Transaction> transactions,
+        String plan,
+        int examined,
+        Duration elapsed
+) {
+
+    /**
+     * @return A human-readable description of the plan and its cost, as shown by {@code explain}.
+     */
+    public String explain() {
+        return String.format("%s%nExamined %d, matched %d in %.3f ms",
+                plan, examined, transactions.size(), elapsed.toNanos() / 1e6);
+    }
+}
@@ -0,0 +1,43 @@
+package com.finansage.model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The outcome of reconciling a bank statement against the ledger.
+ * @param from The earliest date on the statement, or null if it had no rows.
+ * @param to The latest date on the statement, or null if it had no rows.
+ * @param statementRows The number of rows on the statement.
+ * @param matched Each statement row that was paired with a ledger transaction, in statement order.
+ * @param missing Statement rows with no ledger transaction: they are missing from the ledger.
+ * @param extra Ledger transactions dated within the statement's period, in one of its currencies,
+ *              that no statement row was paired with, in date order.
+ * @param elapsed How long the matching took.
+ */
+public record ReconciliationReport(
+        LocalDate from,
+        LocalDate to,
+        int statementRows,
+        List<Match> matched,
+        List<Transaction> missing,
+        List<Transaction> extra,
+        Duration elapsed
+) {
+
+    /**
+     * @param statement The row from the statement.
+     * @param ledger The ledger transaction it was paired with: same type, currency and amount.
+     * @param similarity How alike the two descriptions are, from 0 (nothing in common) to 1 (the same).
+     * @param dayOffset The ledger date minus the statement date, in days.
+     */
+    public record Match(Transaction statement, Transaction ledger, double similarity, int dayOffset) {
+    }
+
+    /**
+     * @return True if every statement row was matched and the ledger has nothing extra for the period.
+     */
+    public boolean balanced() {
+        return missing.isEmpty() && extra.isEmpty();
+    }
+}
@@ -0,0 +1,23 @@
+package com.finansage.model;
+
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The unit a recurring rule repeats in; the rule's interval says how many units lie between occurrences.
+ */
+public enum RecurrenceFrequency {
+    DAILY(ChronoUnit.DAYS),
+    WEEKLY(ChronoUnit.WEEKS),
+    MONTHLY(ChronoUnit.MONTHS),
+    YEARLY(ChronoUnit.YEARS);
+
+    private final ChronoUnit unit;
+
+    RecurrenceFrequency(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+}
@@ -0,0 +1,22 @@
+package com.finansage.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One date on which a recurring rule falls due and that has not been confirmed yet.
+ * @param rule The rule the occurrence comes from.
+ * @param date The date the occurrence falls on.
+ */
+public record RecurringOccurrence(
+        RecurringRule rule,
+        LocalDate date
+) {
+
+    /**
+     * @return The amount as it affects the balance: positive for income, negative for expenses.
+     */
+    public BigDecimal net() {
+        return rule.type() == TransactionType.INCOME ? rule.amount() : rule.amount().negate();
+    }
+}
@@ -0,0 +1,114 @@
+package com.finansage.model;
+
+import com.finansage.util.Hashing;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * A transaction that repeats on a schedule, such as rent on the 1st of every month or a salary every two
+ * weeks. Occurrences are computed from the rule when asked for and are not stored; one becomes a real
+ * transaction only when it is confirmed.
+ * <p>
+ * The n-th occurrence is {@code start} plus n times {@code interval} units, always counted from the start,
+ * so a monthly rule starting on the 31st falls on the last day of shorter months and returns to the 31st.
+ * @param id Identifies the rule.
+ * @param frequency The unit the rule repeats in.
+ * @param interval How many units lie between occurrences (1 for every month, 2 for every other week, ...).
+ * @param start The date of the first occurrence.
+ * @param end The last date an occurrence may fall on, or null if the rule never ends.
+ */
+public record RecurringRule(
+        String id,
+        String description,
+        BigDecimal amount,
+        TransactionType type,
+        String category,
+        RecurrenceFrequency frequency,
+        int interval,
+        LocalDate start,
+        LocalDate end
+) {
+
+    public RecurringRule {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1.");
+        }
+        if (end != null && end.isBefore(start)) {
+            throw new IllegalArgumentException("A rule cannot end before it starts.");
+        }
+    }
+
+    /**
+     * Creates a rule with a new ID.
+     */
+    public static RecurringRule of(String description, BigDecimal amount, TransactionType type, String category,
+                                   RecurrenceFrequency frequency, int interval, LocalDate start, LocalDate end) {
+        String id = UUID.randomUUID().toString().substring(0, 8);
+        return new RecurringRule(id, description, amount, type, category, frequency, interval, start, end);
+    }
+
+    /**
+     * @return The occurrence dates in {@code from..to} inclusive, in order. Costs O(1) to find the first
+     * one, then O(1) per occurrence returned, however far the window is from the start.
+     */
+    public List<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate first = from.isBefore(start) ? start : from;
+        LocalDate last = end != null && end.isBefore(to) ? end : to;
+        if (last.isBefore(first)) {
+            return dates;
+        }
+        long n = frequency.unit().between(start, first) / interval;
+        while (n > 0 && !occurrence(n - 1).isBefore(first)) {
+            n--;
+        }
+        while (occurrence(n).isBefore(first)) {
+            n++;
+        }
+        for (LocalDate date = occurrence(n); !date.isAfter(last); date = occurrence(++n)) {
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    /**
+     * @return The n-th occurrence (the first is n = 0), ignoring the end date.
+     */
+    public LocalDate occurrence(long n) {
+        return start.plus(n * interval, frequency.unit());
+    }
+
+    /**
+     * The ID the transaction confirmed for an occurrence gets. It is derived from the rule and the date, so
+     * the ledger itself records which occurrences have been confirmed. Like new IDs it is time-ordered,
+     * stamped with the occurrence date.
+     */
+    public TransactionId occurrenceId(LocalDate date) {
+        long hash = Hashing.hash64(id + "@" + date);
+        long millis = date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long msb = (millis << 16) | 0x7000L | (hash >>> 52);
+        long lsb = (Hashing.mix64(hash) & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new TransactionId(msb, lsb);
+    }
+
+    /**
+     * @return The transaction an occurrence becomes when it is confirmed.
+     */
+    public Transaction toTransaction(LocalDate date) {
+        return new Transaction(occurrenceId(date).toString(), date, description, amount, type, category);
+    }
+
+    /**
+     * @return The schedule in words, e.g. "every month" or "every 2 weeks".
+     */
+    public String describeSchedule() {
+        String unit = frequency.unit().name().toLowerCase(Locale.ROOT);
+        return interval == 1 ? "every " + unit.substring(0, unit.length() - 1) : "every " + interval + " " + unit;
+    }
+}
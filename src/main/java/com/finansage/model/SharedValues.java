@@ -0,0 +1,92 @@
+package com.finansage.model;
+
+import com.finansage.util.StringPool;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Shared instances of the values that repeat across many transactions: descriptions (merchants recur
+ * constantly) and dates (a ledger spans a few thousand days but holds far more rows). Transactions keep
+ * the shared instance instead of their own copy.
+ */
+public final class SharedValues {
+    private static final int DESCRIPTION_POOL_SIZE = 1 << 16;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+    private static final long FIRST_CACHED_DAY = LocalDate.of(1970, 1, 1).toEpochDay();
+    private static final long LAST_CACHED_DAY = LocalDate.of(2169, 12, 31).toEpochDay();
+
+    private static final StringPool descriptions = new StringPool(DESCRIPTION_POOL_SIZE);
+    // Filled lazily; racy writes are harmless because LocalDate is immutable
+    private static final LocalDate[] dates = new LocalDate[(int) (LAST_CACHED_DAY - FIRST_CACHED_DAY + 1)];
+
+    private SharedValues() {
+    }
+
+    public static String description(String description) {
+        return descriptions.intern(description);
+    }
+
+    public static String description(CharSequence source, int start, int end) {
+        return descriptions.intern(source, start, end);
+    }
+
+    public static LocalDate date(LocalDate date) {
+        if (date == null || date.toEpochDay() < FIRST_CACHED_DAY || date.toEpochDay() > LAST_CACHED_DAY) {
+            return date;
+        }
+        int index = (int) (date.toEpochDay() - FIRST_CACHED_DAY);
+        LocalDate cached = dates[index];
+        if (cached == null) {
+            dates[index] = date;
+            return date;
+        }
+        return cached;
+    }
+
+    /**
+     * The shared date for a calendar day, without creating a LocalDate when it is already cached.
+     * @throws java.time.DateTimeException If the day does not exist.
+     */
+    public static LocalDate date(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return LocalDate.of(year, month, day); // throws with the usual message
+        }
+        return dateOfEpochDay(epochDay(year, month, day));
+    }
+
+    public static LocalDate dateOfEpochDay(long epochDay) {
+        if (epochDay < FIRST_CACHED_DAY || epochDay > LAST_CACHED_DAY) {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+        int index = (int) (epochDay - FIRST_CACHED_DAY);
+        LocalDate cached = dates[index];
+        if (cached == null) {
+            cached = LocalDate.ofEpochDay(epochDay);
+            dates[index] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Days since 1970-01-01 for a valid date (the same arithmetic as {@link LocalDate#toEpochDay()}).
+     */
+    private static long epochDay(long year, long month, int day) {
+        long total = 365 * year;
+        if (year >= 0) {
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        } else {
+            total -= year / -4 - year / -100 + year / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!Year.isLeap(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,28 @@
+package com.finansage.model;
+
+import java.util.Comparator;
+
+/**
+ * The orders transactions can be listed in. Ties keep ledger (insertion) order.
+ */
+public enum SortKey {
+    DATE(Comparator.comparing(Transaction::getDate)),
+    AMOUNT(Comparator.comparing(Transaction::getAmount)),
+    /** Case-insensitive, missing categories first. */
+    CATEGORY(Comparator.comparing(Transaction::getCategory, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+    /** Case-insensitive, missing descriptions first. */
+    DESCRIPTION(Comparator.comparing(Transaction::getDescription, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+
+    private final Comparator<Transaction> comparator;
+
+    SortKey(Comparator<Transaction> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * @return The ascending order, comparing the transactions' fields directly.
+     */
+    public Comparator<Transaction> comparator() {
+        return comparator;
+    }
+}
@@ -2,41 +2,117 @@ package com.finansage.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.UUID;
+import java.util.Currency;
+import java.util.Locale;
 
 /**
  * Represents a single financial transaction. This is an immutable data class.
  */
 public final class Transaction {
-    private final String id;
+    private static volatile IdGenerator idGenerator = IdGenerator.uuidV7();
+    private static volatile Currency defaultCurrency = localeCurrency();
+
+    private final TransactionId id;
     private final LocalDate date;
     private final String description;
     private final BigDecimal amount;
     private final TransactionType type;
-    private final String category;
+    private final int categoryId;
+    private final String unlistedCategory; // Only for categories the full dictionary has no room for
+    private final Currency currency;
 
     /**
-     * Constructor for creating a brand new transaction. Generates a unique ID.
+     * Constructor for creating a brand new transaction in the {@link #getDefaultCurrency() default currency}.
+     * Generates a unique ID.
      */
     public Transaction(LocalDate date, String description, BigDecimal amount, TransactionType type, String category) {
-        this(UUID.randomUUID().toString(), date, description, amount, type, category);
+        this(date, description, amount, type, category, defaultCurrency);
     }
 
     /**
-     * Constructor for recreating a transaction from a data source (e.g., a file).
+     * Constructor for creating a brand new transaction in the given currency. Generates a unique ID.
+     */
+    public Transaction(LocalDate date, String description, BigDecimal amount, TransactionType type, String category, Currency currency) {
+        this(idGenerator.nextId(), date, description, amount, type, category, currency);
+    }
+
+    /**
+     * Constructor for recreating a transaction from a data source (e.g., a file) that has no currency.
      */
     public Transaction(String id, LocalDate date, String description, BigDecimal amount, TransactionType type, String category) {
+        this(id, date, description, amount, type, category, defaultCurrency);
+    }
+
+    /**
+     * Constructor for recreating a transaction from a data source (e.g., a file).
+     */
+    public Transaction(String id, LocalDate date, String description, BigDecimal amount, TransactionType type, String category,
+                       Currency currency) {
+        this(TransactionId.of(id), date, description, amount, type, category, currency);
+    }
+
+    private Transaction(TransactionId id, LocalDate date, String description, BigDecimal amount, TransactionType type, String category,
+                        Currency currency) {
         this.id = id;
-        this.date = date;
-        this.description = description;
+        // Repeated values are shared rather than copied per transaction; the category is stored as its dictionary ID
+        this.date = SharedValues.date(date);
+        this.description = SharedValues.description(description);
         this.amount = amount;
         this.type = type;
-        this.category = category;
+        this.categoryId = CategoryDictionary.idOf(category);
+        this.unlistedCategory = categoryId == CategoryDictionary.UNLISTED ? category : null;
+        this.currency = currency == null ? defaultCurrency : currency; // Currency instances are shared by the JDK
+    }
+
+    /**
+     * Creates a new version of an existing transaction, reusing its compact ID without a string round trip.
+     */
+    public static Transaction withId(TransactionId id, LocalDate date, String description, BigDecimal amount, TransactionType type,
+                                     String category, Currency currency) {
+        return new Transaction(id, date, description, amount, type, category, currency);
+    }
+
+    /**
+     * Replaces the generator used for the IDs of new transactions.
+     */
+    public static void setIdGenerator(IdGenerator generator) {
+        idGenerator = generator;
+    }
+
+    /**
+     * @return The currency of transactions created or read without one: the currency of the default
+     * locale, or US dollars if the locale has none.
+     */
+    public static Currency getDefaultCurrency() {
+        return defaultCurrency;
+    }
+
+    public static void setDefaultCurrency(Currency currency) {
+        defaultCurrency = currency;
+    }
+
+    private static Currency localeCurrency() {
+        try {
+            Currency currency = Currency.getInstance(Locale.getDefault());
+            if (currency != null) {
+                return currency;
+            }
+        } catch (IllegalArgumentException e) {
+            // The locale has no country, e.g. Locale.ROOT
+        }
+        return Currency.getInstance("USD");
     }
 
     // --- Public Getter Methods ---
 
+    /**
+     * @return The ID in its string form (built on demand from the compact representation).
+     */
     public String getId() {
+        return id == null ? null : id.toString();
+    }
+
+    public TransactionId getTransactionId() {
         return id;
     }
 
@@ -57,7 +133,19 @@ public final class Transaction {
     }
 
     public String getCategory() {
-        return category;
+        return categoryId == CategoryDictionary.UNLISTED ? unlistedCategory : CategoryDictionary.nameOf(categoryId);
+    }
+
+    /**
+     * @return The category's small integer ID in the {@link CategoryDictionary}, or
+     * {@link CategoryDictionary#UNLISTED} if the dictionary was full.
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public Currency getCurrency() {
+        return currency;
     }
 }
 
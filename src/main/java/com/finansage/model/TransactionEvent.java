@@ -0,0 +1,34 @@
+package com.finansage.model;
+
+import java.util.List;
+
+/**
+ * A change to a ledger, published by the TransactionService after the change has been applied.
+ * Subscribers can use these to update derived views incrementally instead of re-reading the ledger.
+ */
+public sealed interface TransactionEvent {
+
+    /**
+     * A transaction was added.
+     */
+    record Added(Transaction transaction) implements TransactionEvent {
+    }
+
+    /**
+     * A transaction was replaced by a new version with the same ID.
+     */
+    record Updated(Transaction previous, Transaction current) implements TransactionEvent {
+    }
+
+    /**
+     * A transaction was removed.
+     */
+    record Deleted(Transaction transaction) implements TransactionEvent {
+    }
+
+    /**
+     * Several changes applied by one bulk operation (bulk add, import), delivered together.
+     */
+    record Batch(List<TransactionEvent> events) implements TransactionEvent {
+    }
+}
@@ -0,0 +1,30 @@
+package com.finansage.model;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria for selecting transactions. Every criterion is optional; a null value matches anything.
+ * @param from The earliest date to include (inclusive).
+ * @param to The latest date to include (inclusive).
+ * @param category The category to match (case-insensitive).
+ * @param type The transaction type to match.
+ */
+public record TransactionFilter(
+        LocalDate from,
+        LocalDate to,
+        String category,
+        TransactionType type
+) {
+
+    /**
+     * A filter that matches every transaction.
+     */
+    public static final TransactionFilter ALL = new TransactionFilter(null, null, null, null);
+
+    public boolean matches(Transaction transaction) {
+        return (from == null || !transaction.getDate().isBefore(from))
+                && (to == null || !transaction.getDate().isAfter(to))
+                && (category == null || category.equalsIgnoreCase(transaction.getCategory()))
+                && (type == null || type == transaction.getType());
+    }
+}
@@ -0,0 +1,57 @@
+package com.finansage.model;
+
+import com.finansage.util.Hashing;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * A normalized identity for a transaction that ignores its ID, used to spot the same
+ * real-world transaction arriving twice (e.g. from overlapping bank exports).
+ * Two transactions have equal fingerprints when they share the date, the amount (ignoring scale) and
+ * currency, and the description and category after trimming, case folding and whitespace collapsing.
+ * @param epochDay The transaction date as days since 1970-01-01.
+ * @param amount The amount with trailing zeros stripped, so 80.00 and 80 compare equal.
+ * @param description The normalized description.
+ * @param category The normalized category.
+ * @param currency The ISO 4217 currency code.
+ */
+public record TransactionFingerprint(
+        long epochDay,
+        BigDecimal amount,
+        String description,
+        String category,
+        String currency
+) {
+
+    public static TransactionFingerprint of(Transaction transaction) {
+        return new TransactionFingerprint(
+                transaction.getDate().toEpochDay(),
+                transaction.getAmount().stripTrailingZeros(),
+                normalize(transaction.getDescription()),
+                normalize(transaction.getCategory()),
+                transaction.getCurrency().getCurrencyCode()
+        );
+    }
+
+    /**
+     * A well-mixed 64-bit hash of the fingerprint, suitable for probabilistic filters.
+     */
+    public long hash64() {
+        long h = Hashing.mix64(epochDay);
+        h = Hashing.combine(h, Hashing.hash64(amount.toPlainString()));
+        h = Hashing.combine(h, Hashing.hash64(description));
+        h = Hashing.combine(h, Hashing.hash64(category));
+        return Hashing.combine(h, Hashing.hash64(currency));
+    }
+
+    /**
+     * Trims, case-folds and collapses whitespace, so "  Coffee  SHOP" and "coffee shop" are equal.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,156 @@
+package com.finansage.model;
+
+/**
+ * A compact transaction identifier held as two longs (128 bits, UUID layout) instead of a 36-char string.
+ * IDs from the default generator are UUIDv7-style, so they sort in creation order. The familiar
+ * {@code xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx} string form is only produced when asked for.
+ * <p>
+ * IDs that are not UUIDs (e.g. hand-written IDs in older files) are still accepted and kept verbatim.
+ */
+public final class TransactionId implements Comparable<TransactionId> {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long mostSignificantBits;
+    private final long leastSignificantBits;
+    private final String legacy; // Non-UUID IDs only; null otherwise
+
+    public TransactionId(long mostSignificantBits, long leastSignificantBits) {
+        this(mostSignificantBits, leastSignificantBits, null);
+    }
+
+    private TransactionId(long mostSignificantBits, long leastSignificantBits, String legacy) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        this.legacy = legacy;
+    }
+
+    /**
+     * Parses the string form of an ID. UUID strings (any version) are packed into two longs;
+     * anything else is kept as-is so existing files always stay readable.
+     * @return The ID, or null if {@code text} is null.
+     */
+    public static TransactionId of(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == 36 && text.charAt(8) == '-' && text.charAt(13) == '-'
+                && text.charAt(18) == '-' && text.charAt(23) == '-') {
+            long msb = parseHex(text, 0, 8);
+            long mid = parseHex(text, 9, 13);
+            long ver = parseHex(text, 14, 18);
+            long var = parseHex(text, 19, 23);
+            long low = parseHex(text, 24, 36);
+            if (msb >= 0 && mid >= 0 && ver >= 0 && var >= 0 && low >= 0) {
+                return new TransactionId((msb << 32) | (mid << 16) | ver, (var << 48) | low);
+            }
+        }
+        return new TransactionId(0, 0, text);
+    }
+
+    /**
+     * @return true for IDs that are not UUIDs and are only kept in their original string form.
+     */
+    public boolean isLegacy() {
+        return legacy != null;
+    }
+
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    /**
+     * @return The creation time in epoch milliseconds for UUIDv7 IDs, or -1 for other IDs.
+     */
+    public long timestampMillis() {
+        if (legacy != null || ((mostSignificantBits >>> 12) & 0xF) != 7) {
+            return -1;
+        }
+        return mostSignificantBits >>> 16;
+    }
+
+    /**
+     * Orders IDs by their unsigned 128-bit value, which for UUIDv7 IDs is creation order.
+     * Legacy (non-UUID) IDs sort after all UUIDs, by their text.
+     */
+    @Override
+    public int compareTo(TransactionId other) {
+        if (legacy != null || other.legacy != null) {
+            if (legacy == null) {
+                return -1;
+            }
+            return other.legacy == null ? 1 : legacy.compareTo(other.legacy);
+        }
+        int cmp = Long.compareUnsigned(mostSignificantBits, other.mostSignificantBits);
+        return cmp != 0 ? cmp : Long.compareUnsigned(leastSignificantBits, other.leastSignificantBits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransactionId other)) {
+            return false;
+        }
+        return mostSignificantBits == other.mostSignificantBits
+                && leastSignificantBits == other.leastSignificantBits
+                && (legacy == null ? other.legacy == null : legacy.equals(other.legacy));
+    }
+
+    @Override
+    public int hashCode() {
+        if (legacy != null) {
+            return legacy.hashCode();
+        }
+        long h = mostSignificantBits ^ leastSignificantBits;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Builds the string form on demand; it is not cached, so IDs held in memory stay at two longs.
+     */
+    @Override
+    public String toString() {
+        if (legacy != null) {
+            return legacy;
+        }
+        char[] out = new char[36];
+        writeHex(out, 0, mostSignificantBits >>> 32, 8);
+        out[8] = '-';
+        writeHex(out, 9, mostSignificantBits >>> 16, 4);
+        out[13] = '-';
+        writeHex(out, 14, mostSignificantBits, 4);
+        out[18] = '-';
+        writeHex(out, 19, leastSignificantBits >>> 48, 4);
+        out[23] = '-';
+        writeHex(out, 24, leastSignificantBits, 12);
+        return new String(out);
+    }
+
+    private static void writeHex(char[] out, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            out[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * @return The parsed value, or -1 if the range contains a non-hex character.
+     */
+    private static long parseHex(String text, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+}
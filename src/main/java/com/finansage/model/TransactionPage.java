@@ -0,0 +1,14 @@
+package com.finansage.model;
+
+import java.util.List;
+
+/**
+ * One page of the transactions matching a filter.
+ * @param transactions The transactions on the page, in ledger order.
+ * @param total How many transactions match the filter in all.
+ */
+public record TransactionPage(
+        List<Transaction> transactions,
+        int total
+) {
+}
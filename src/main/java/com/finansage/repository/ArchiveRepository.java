@@ -0,0 +1,262 @@
+package com.finansage.repository;
+
+import com.finansage.model.ArchiveSegment;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Stores closed years of a ledger as compressed, read-only segments in a directory next to it, one zip
+ * file per year (e.g. {@code transactions.archive/2019.zip}).
+ * <p>
+ * Each segment holds three entries: the year's totals per month, category and type, its count and net
+ * amount per day, and its rows in the ledger's CSV format. Zip entries are compressed separately, so
+ * {@link #loadSegments()} inflates only the two small totals entries and the rows are read only when
+ * asked for.
+ */
+public class ArchiveRepository {
+    private static final String MONTHS_ENTRY = "months.csv";
+    private static final String DAYS_ENTRY = "days.csv";
+    private static final String TRANSACTIONS_ENTRY = "transactions.csv";
+    private static final String SEGMENT_SUFFIX = ".zip";
+
+    /**
+     * A running count and sum while a segment's totals are computed.
+     */
+    private static final class Totals {
+        private int count;
+        private BigDecimal sum = BigDecimal.ZERO;
+
+        void add(BigDecimal amount) {
+            count++;
+            sum = sum.add(amount);
+        }
+    }
+
+    private final Path directory;
+
+    public ArchiveRepository(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return A repository for the archive belonging to the given ledger,
+     * e.g. the {@code transactions.archive} directory for {@code transactions.csv}.
+     */
+    public static ArchiveRepository forLedger(String ledgerFileName) {
+        Path ledger = Path.of(ledgerFileName);
+        String name = ledger.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return new ArchiveRepository(ledger.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".archive"));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Reads the totals of every segment, oldest year first, without reading their rows.
+     * A segment that cannot be read is reported and left out.
+     */
+    public List<ArchiveSegment> loadSegments() {
+        List<ArchiveSegment> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        Map<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "[0-9][0-9][0-9][0-9]" + SEGMENT_SUFFIX)) {
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                files.put(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing archive: " + e.getMessage());
+            return segments;
+        }
+        files.forEach((year, file) -> {
+            try {
+                segments.add(readSegment(year, file));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error reading archive " + file + ": " + e.getMessage());
+            }
+        });
+        return segments;
+    }
+
+    /**
+     * Decompresses the rows of one archived year.
+     * @return The year's transactions in ledger order, or an empty list if the year is not archived.
+     */
+    public List<Transaction> readTransactions(int year) {
+        Path file = segmentFile(year);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            return readRows(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading archive " + file + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Adds rows to the segment for their year, creating it if needed. The new segment is written to a
+     * temporary file and moved over the old one, so a failure leaves the old segment as it was.
+     * @param rows Transactions dated in {@code year}.
+     * @return The segment as written, or empty if it could not be written.
+     */
+    public Optional<ArchiveSegment> append(int year, List<Transaction> rows) {
+        Path file = segmentFile(year);
+        Path temporary = directory.resolve(year + SEGMENT_SUFFIX + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            List<Transaction> all = new ArrayList<>();
+            if (Files.exists(file)) {
+                all.addAll(readRows(file));
+            }
+            all.addAll(rows);
+            writeSegment(temporary, all);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Optional.of(readSegment(year, file));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing archive " + file + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // Only a leftover temporary file; the segment itself is untouched
+            }
+            return Optional.empty();
+        }
+    }
+
+    private Path segmentFile(int year) {
+        return directory.resolve(year + SEGMENT_SUFFIX);
+    }
+
+    private static void writeSegment(Path file, List<Transaction> rows) throws IOException {
+        Map<String, Totals> months = new TreeMap<>(); // "month,type,category" -> count and total
+        Map<LocalDate, Totals> days = new TreeMap<>(); // count and net
+        for (Transaction transaction : rows) {
+            String key = YearMonth.from(transaction.getDate()) + "," + transaction.getType().name() + "," + transaction.getCategory();
+            months.computeIfAbsent(key, k -> new Totals()).add(transaction.getAmount());
+            days.computeIfAbsent(transaction.getDate(), d -> new Totals()).add(
+                    transaction.getType() == TransactionType.INCOME ? transaction.getAmount() : transaction.getAmount().negate());
+        }
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8))) {
+            zip.putNextEntry(new ZipEntry(MONTHS_ENTRY));
+            writer.write("Month,Type,Count,Total,Category");
+            writer.newLine();
+            for (Map.Entry<String, Totals> month : months.entrySet()) {
+                // The category goes last, so it is the only column that may contain a comma
+                String[] key = month.getKey().split(",", 3);
+                writer.write(String.join(",", key[0], key[1], String.valueOf(month.getValue().count),
+                        month.getValue().sum.toPlainString(), key[2]));
+                writer.newLine();
+            }
+            writer.flush();
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry(DAYS_ENTRY));
+            writer.write("Date,Count,Net");
+            writer.newLine();
+            for (Map.Entry<LocalDate, Totals> day : days.entrySet()) {
+                writer.write(String.join(",", day.getKey().toString(), String.valueOf(day.getValue().count),
+                        day.getValue().sum.toPlainString()));
+                writer.newLine();
+            }
+            writer.flush();
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry(TRANSACTIONS_ENTRY));
+            writer.write(TransactionRepository.HEADER);
+            writer.newLine();
+            for (Transaction transaction : rows) {
+                writer.write(TransactionRepository.toCsvLine(transaction));
+                writer.newLine();
+            }
+            writer.flush();
+            zip.closeEntry();
+        }
+    }
+
+    private static ArchiveSegment readSegment(int year, Path file) throws IOException {
+        List<ArchiveSegment.MonthTotal> months = new ArrayList<>();
+        List<ArchiveSegment.DayTotal> days = new ArrayList<>();
+        int count = 0;
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            for (String[] values : readEntry(zip, MONTHS_ENTRY, 5)) {
+                ArchiveSegment.MonthTotal month = new ArchiveSegment.MonthTotal(YearMonth.parse(values[0]),
+                        values[4], TransactionType.valueOf(values[1]), Integer.parseInt(values[2]), new BigDecimal(values[3]));
+                months.add(month);
+                count += month.count();
+            }
+            for (String[] values : readEntry(zip, DAYS_ENTRY, 3)) {
+                days.add(new ArchiveSegment.DayTotal(LocalDate.parse(values[0]), Integer.parseInt(values[1]), new BigDecimal(values[2])));
+            }
+        }
+        return new ArchiveSegment(year, file, count, List.copyOf(months), List.copyOf(days));
+    }
+
+    private static List<String[]> readEntry(ZipFile zip, String name, int columns) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            throw new IOException("Missing entry " + name);
+        }
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    rows.add(line.split(",", columns));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<Transaction> readRows(Path file) throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry entry = zip.getEntry(TRANSACTIONS_ENTRY);
+            if (entry == null) {
+                throw new IOException("Missing entry " + TRANSACTIONS_ENTRY);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+                reader.readLine(); // Skip header
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        rows.add(TransactionRepository.parseLine(line));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,86 @@
+package com.finansage.repository;
+
+import com.finansage.model.Budget;
+import com.finansage.model.BudgetPeriod;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists budget definitions in a small CSV file stored next to the ledger.
+ */
+public class BudgetRepository {
+    private final String fileName;
+
+    public BudgetRepository(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return A repository for the budget file belonging to the given ledger,
+     * e.g. {@code transactions.budgets.csv} for {@code transactions.csv}.
+     */
+    public static BudgetRepository forLedger(String ledgerFileName) {
+        return new BudgetRepository(siblingFile(ledgerFileName, "budgets"));
+    }
+
+    /**
+     * Derives the name of a companion file stored next to a ledger file.
+     */
+    public static String siblingFile(String ledgerFileName, String suffix) {
+        int dot = ledgerFileName.lastIndexOf('.');
+        int separator = Math.max(ledgerFileName.lastIndexOf('/'), ledgerFileName.lastIndexOf(File.separatorChar));
+        if (dot > separator + 1) {
+            return ledgerFileName.substring(0, dot) + "." + suffix + ledgerFileName.substring(dot);
+        }
+        return ledgerFileName + "." + suffix + ".csv";
+    }
+
+    public List<Budget> loadBudgets() {
+        List<Budget> budgets = new ArrayList<>();
+        File file = new File(fileName);
+
+        if (!file.exists()) {
+            return budgets;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String header = reader.readLine();
+            if (header == null) {
+                return budgets;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length == 3) {
+                    budgets.add(new Budget(values[0], BudgetPeriod.valueOf(values[1]), new BigDecimal(values[2])));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error loading budgets: " + e.getMessage());
+        }
+        return budgets;
+    }
+
+    public void saveBudgets(List<Budget> budgets) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write("Category,Period,Limit");
+            writer.newLine();
+
+            for (Budget budget : budgets) {
+                writer.write(String.join(",", budget.category(), budget.period().name(), budget.limit().toPlainString()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving budgets: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.finansage.repository;
+
+import com.finansage.model.ExchangeRate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Persists the exchange-rate table in a CSV file stored next to the ledger, one rate per line
+ * ({@code Date,Base,Quote,Rate}, e.g. {@code 2025-01-02,EUR,USD,1.0321}). All rates share one base
+ * currency, the way central banks publish them; lines with another base are reported and skipped.
+ */
+public class ExchangeRateRepository {
+    private final String fileName;
+
+    public ExchangeRateRepository(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return A repository for the rate file belonging to the given ledger,
+     * e.g. {@code transactions.rates.csv} for {@code transactions.csv}.
+     */
+    public static ExchangeRateRepository forLedger(String ledgerFileName) {
+        return new ExchangeRateRepository(BudgetRepository.siblingFile(ledgerFileName, "rates"));
+    }
+
+    public List<ExchangeRate> loadRates() {
+        List<ExchangeRate> rates = new ArrayList<>();
+        File file = new File(fileName);
+
+        if (!file.exists()) {
+            return rates;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String header = reader.readLine();
+            if (header == null) {
+                return rates;
+            }
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] values = line.split(",");
+                if (values.length != 4) {
+                    continue;
+                }
+                try {
+                    ExchangeRate rate = new ExchangeRate(LocalDate.parse(values[0].trim()), Currency.getInstance(values[1].trim()),
+                            Currency.getInstance(values[2].trim()), new BigDecimal(values[3].trim()));
+                    if (!rates.isEmpty() && !rates.getFirst().base().equals(rate.base())) {
+                        System.err.println("Skipping exchange rate on line " + lineNumber + ": the base must be "
+                                + rates.getFirst().base() + " like the rest of the table");
+                        continue;
+                    }
+                    rates.add(rate);
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    System.err.println("Skipping exchange rate on line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading exchange rates: " + e.getMessage());
+        }
+        return rates;
+    }
+
+    public void saveRates(List<ExchangeRate> rates) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write("Date,Base,Quote,Rate");
+            writer.newLine();
+
+            for (ExchangeRate rate : rates) {
+                writer.write(String.join(",", rate.date().toString(), rate.base().getCurrencyCode(),
+                        rate.quote().getCurrencyCode(), rate.rate().toPlainString()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving exchange rates: " + e.getMessage());
+        }
+    }
+}
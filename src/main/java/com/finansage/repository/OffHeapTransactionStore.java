@@ -0,0 +1,358 @@
+package com.finansage.repository;
+
+import com.finansage.model.CategoryDictionary;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionId;
+import com.finansage.util.Hashing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Stores transactions outside the garbage-collected heap, as fixed-width binary records in direct or
+ * memory-mapped buffers, so even ledgers with tens of millions of rows need only a small heap and cause
+ * no GC pressure. Records are read through {@link TransactionView} flyweights rather than as objects.
+ * <p>
+ * Each record is {@value #RECORD_BYTES} bytes (all offsets in bytes):
+ * <pre>
+ *  0 int   epoch day          16 int  category ID (see CategoryDictionary)
+ *  4 byte  type ordinal       20 int  description length (UTF-8 bytes)
+ *  5 byte  flags              24 long description offset in the arena
+ *  6 byte  amount scale       32 long ID most significant bits (legacy IDs: arena offset)
+ *  7 byte  currency number    40 long ID least significant bits (legacy IDs: length)
+ *  8 long  unscaled amount
+ * </pre>
+ * Descriptions live in a separate append-only arena; recently seen descriptions are written once and
+ * shared. Deleting a row only marks it, and updating one rewrites it in place, so row numbers are
+ * stable. IDs are found through an open-addressing hash index that is also kept off-heap.
+ * <p>
+ * Amounts must fit in a long at their scale, which covers any realistic currency value. Currencies are
+ * numbered per store in the order they are first seen, so a store holds at most 256 of them.
+ * Not thread-safe; callers synchronize.
+ */
+public final class OffHeapTransactionStore implements AutoCloseable {
+
+    static final int RECORD_BYTES = 48;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final int ARENA_SEGMENT_BYTES = 1 << 22;
+    private static final int DESCRIPTION_CACHE_SLOTS = 1 << 14;
+    private static final int INITIAL_INDEX_SLOTS = 1 << 12;
+
+    static final int EPOCH_DAY = 0;
+    static final int TYPE = 4;
+    static final int FLAGS = 5;
+    static final int SCALE = 6;
+    static final int CURRENCY = 7;
+    static final int AMOUNT = 8;
+    static final int CATEGORY = 16;
+    static final int DESCRIPTION_LENGTH = 20;
+    static final int DESCRIPTION_OFFSET = 24;
+    static final int ID_HIGH = 32;
+    static final int ID_LOW = 40;
+
+    static final byte DELETED = 1;
+    static final byte LEGACY_ID = 2;
+
+    private final SegmentedBuffer records;
+    private final SegmentedBuffer arena;
+    private final List<Currency> currencies = new ArrayList<>(); // indexed by the record's currency number
+    private long arenaSize;
+    private int rowCount;
+    private int liveCount;
+
+    // Row numbers plus one, 0 meaning empty; sized to stay at most half full
+    private ByteBuffer index = ByteBuffer.allocateDirect(INITIAL_INDEX_SLOTS * Integer.BYTES);
+    private int indexSlots = INITIAL_INDEX_SLOTS;
+    private int indexedCount; // deleted rows stay indexed until the next resize
+
+    // A small, fixed-size cache of recently written descriptions, so repeated merchants share arena bytes
+    private final String[] cachedDescriptions = new String[DESCRIPTION_CACHE_SLOTS];
+    private final long[] cachedOffsets = new long[DESCRIPTION_CACHE_SLOTS];
+
+    /**
+     * Creates a store backed by direct memory.
+     */
+    public OffHeapTransactionStore() {
+        this.records = new SegmentedBuffer(null, RECORDS_PER_SEGMENT * RECORD_BYTES);
+        this.arena = new SegmentedBuffer(null, ARENA_SEGMENT_BYTES);
+    }
+
+    /**
+     * Creates a store backed by memory-mapped files in {@code directory}, so the operating system pages
+     * records in and out and the ledger may even exceed physical memory. Existing files are overwritten.
+     */
+    public OffHeapTransactionStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.records = new SegmentedBuffer(open(directory.resolve("records.bin")), RECORDS_PER_SEGMENT * RECORD_BYTES);
+        this.arena = new SegmentedBuffer(open(directory.resolve("descriptions.bin")), ARENA_SEGMENT_BYTES);
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return The number of rows ever appended, including deleted ones. Valid row numbers are below this.
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return The number of rows that are not deleted.
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * @return A new flyweight over this store; move it between rows with {@link TransactionView#moveTo(int)}.
+     */
+    public TransactionView view() {
+        return new TransactionView(this);
+    }
+
+    /**
+     * @return The row number the transaction was stored at.
+     * @throws IllegalArgumentException If the amount does not fit the record format.
+     */
+    public int append(Transaction transaction) {
+        int row = rowCount;
+        write(row, transaction, (byte) 0);
+        rowCount++;
+        liveCount++;
+        if (transaction.getTransactionId() != null) {
+            if ((long) (indexedCount + 1) * 2 > indexSlots) {
+                growIndex();
+            }
+            indexInsert(row);
+        }
+        return row;
+    }
+
+    /**
+     * Overwrites a row in place. The transaction must keep the row's ID. A deleted row stays deleted.
+     */
+    public void update(int row, Transaction transaction) {
+        byte deleted = (byte) (recordSegment(row).get(recordBase(row) + FLAGS) & DELETED);
+        write(row, transaction, deleted);
+    }
+
+    public void delete(int row) {
+        ByteBuffer segment = records.segment(row / RECORDS_PER_SEGMENT);
+        int base = (row % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+        byte flags = segment.get(base + FLAGS);
+        if ((flags & DELETED) == 0) {
+            segment.put(base + FLAGS, (byte) (flags | DELETED));
+            liveCount--;
+        }
+    }
+
+    /**
+     * @return The live row holding the ID, or -1.
+     */
+    public int findRow(TransactionId id) {
+        if (id == null) {
+            return -1;
+        }
+        TransactionView view = view();
+        int mask = indexSlots - 1;
+        for (int slot = (int) hash(id) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index.getInt(slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            view.moveTo(entry - 1);
+            if (!view.isDeleted() && view.hasId(id)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+        arena.close();
+    }
+
+    // --- Access for TransactionView ---
+
+    ByteBuffer recordSegment(int row) {
+        return records.segment(row / RECORDS_PER_SEGMENT);
+    }
+
+    static int recordBase(int row) {
+        return (row % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+    }
+
+    Currency currencyOf(byte number) {
+        return currencies.get(Byte.toUnsignedInt(number));
+    }
+
+    String readString(long offset, int length) {
+        byte[] bytes = new byte[length];
+        arena.segment((int) (offset / ARENA_SEGMENT_BYTES)).get((int) (offset % ARENA_SEGMENT_BYTES), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // --- Writing ---
+
+    /**
+     * @param flags Flags the row keeps, on top of those the transaction sets.
+     */
+    private void write(int row, Transaction transaction, byte flags) {
+        BigDecimal amount = transaction.getAmount();
+        if (amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE || amount.unscaledValue().bitLength() > 63) {
+            throw new IllegalArgumentException("Amount does not fit the off-heap record format: " + amount);
+        }
+        int currency = currencies.indexOf(transaction.getCurrency()); // a handful at most, so a scan is cheapest
+        if (currency < 0) {
+            if (currencies.size() == 256) {
+                throw new IllegalArgumentException("Too many currencies for the off-heap record format: " + transaction.getCurrency());
+            }
+            currency = currencies.size();
+            currencies.add(transaction.getCurrency());
+        }
+        if (transaction.getCategoryId() == CategoryDictionary.UNLISTED) {
+            throw new IllegalArgumentException("Category not in the full category dictionary: " + transaction.getCategory());
+        }
+        byte[] description = transaction.getDescription().getBytes(StandardCharsets.UTF_8);
+        long descriptionOffset = storeDescription(transaction.getDescription(), description);
+
+        long idHigh = 0;
+        long idLow = 0;
+        TransactionId id = transaction.getTransactionId();
+        if (id != null && id.isLegacy()) {
+            byte[] legacy = id.toString().getBytes(StandardCharsets.UTF_8);
+            flags |= LEGACY_ID;
+            idHigh = storeBytes(legacy);
+            idLow = legacy.length;
+        } else if (id != null) {
+            idHigh = id.getMostSignificantBits();
+            idLow = id.getLeastSignificantBits();
+        }
+
+        ByteBuffer segment = records.segment(row / RECORDS_PER_SEGMENT);
+        int base = recordBase(row);
+        segment.putInt(base + EPOCH_DAY, (int) transaction.getDate().toEpochDay());
+        segment.put(base + TYPE, (byte) transaction.getType().ordinal());
+        segment.put(base + FLAGS, flags);
+        segment.put(base + SCALE, (byte) amount.scale());
+        segment.put(base + CURRENCY, (byte) currency);
+        segment.putLong(base + AMOUNT, amount.unscaledValue().longValue());
+        segment.putInt(base + CATEGORY, transaction.getCategoryId());
+        segment.putInt(base + DESCRIPTION_LENGTH, description.length);
+        segment.putLong(base + DESCRIPTION_OFFSET, descriptionOffset);
+        segment.putLong(base + ID_HIGH, idHigh);
+        segment.putLong(base + ID_LOW, idLow);
+    }
+
+    private long storeDescription(String description, byte[] bytes) {
+        int slot = description.hashCode() & (DESCRIPTION_CACHE_SLOTS - 1);
+        if (description.equals(cachedDescriptions[slot])) {
+            return cachedOffsets[slot];
+        }
+        long offset = storeBytes(bytes);
+        cachedDescriptions[slot] = description;
+        cachedOffsets[slot] = offset;
+        return offset;
+    }
+
+    private long storeBytes(byte[] bytes) {
+        if (bytes.length > ARENA_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Text too long for the off-heap store: " + bytes.length + " bytes");
+        }
+        // Never split a value across segments
+        long used = arenaSize % ARENA_SEGMENT_BYTES;
+        if (used + bytes.length > ARENA_SEGMENT_BYTES) {
+            arenaSize += ARENA_SEGMENT_BYTES - used;
+        }
+        long offset = arenaSize;
+        arena.segment((int) (offset / ARENA_SEGMENT_BYTES)).put((int) (offset % ARENA_SEGMENT_BYTES), bytes);
+        arenaSize += bytes.length;
+        return offset;
+    }
+
+    // --- ID index ---
+
+    private long hash(TransactionId id) {
+        return id.isLegacy() ? Hashing.hash64(id.toString()) : Hashing.mix64(id.getMostSignificantBits() * 31 + id.getLeastSignificantBits());
+    }
+
+    private void indexInsert(int row) {
+        TransactionView view = view();
+        view.moveTo(row);
+        int mask = indexSlots - 1;
+        int slot = (int) hash(view.transactionId()) & mask;
+        while (index.getInt(slot * Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slot * Integer.BYTES, row + 1);
+        indexedCount++;
+    }
+
+    private void growIndex() {
+        // Deleted rows are dropped from the new index, so it only doubles when live rows need the room
+        if ((long) (liveCount + 1) * 4 > indexSlots) {
+            indexSlots *= 2;
+        }
+        indexedCount = 0;
+        index = ByteBuffer.allocateDirect(Math.multiplyExact(indexSlots, Integer.BYTES));
+        TransactionView view = view();
+        for (int row = 0; row < rowCount; row++) {
+            view.moveTo(row);
+            if (!view.isDeleted() && view.transactionId() != null) {
+                indexInsert(row);
+            }
+        }
+    }
+
+    /**
+     * A growable sequence of equally sized buffers, either direct or mapped from one file.
+     */
+    private static final class SegmentedBuffer {
+        private final FileChannel channel;
+        private final int segmentBytes;
+        private final List<ByteBuffer> segments = new ArrayList<>();
+
+        SegmentedBuffer(FileChannel channel, int segmentBytes) {
+            this.channel = channel;
+            this.segmentBytes = segmentBytes;
+        }
+
+        ByteBuffer segment(int number) {
+            while (segments.size() <= number) {
+                segments.add(allocate(segments.size()));
+            }
+            return segments.get(number);
+        }
+
+        private ByteBuffer allocate(int number) {
+            if (channel == null) {
+                return ByteBuffer.allocateDirect(segmentBytes);
+            }
+            try {
+                return channel.map(FileChannel.MapMode.READ_WRITE, (long) number * segmentBytes, segmentBytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map off-heap storage: " + e.getMessage(), e);
+            }
+        }
+
+        void close() throws IOException {
+            segments.clear();
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.finansage.repository;
+
+import com.finansage.model.LoadReport;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends rejected ledger lines to a quarantine file, opening it only when the first line is rejected.
+ * The file is never truncated: once the ledger is saved, a rejected line exists nowhere else.
+ */
+class QuarantineWriter implements AutoCloseable {
+    private final Path file;
+    private final Path source;
+    private final List<LoadReport.RejectedLine> listed = new ArrayList<>();
+    private BufferedWriter writer;
+    private int count;
+    private boolean failed;
+
+    QuarantineWriter(Path file, Path source) {
+        this.file = file;
+        this.source = source;
+    }
+
+    void reject(LoadReport.RejectedLine rejected) {
+        count++;
+        if (listed.size() < LoadReport.MAX_LISTED) {
+            listed.add(rejected);
+        }
+        if (failed) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                writer.write("# Rejected from " + source + " on "
+                        + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                writer.newLine();
+                writer.write("Line,Reason,Content");
+                writer.newLine();
+            }
+            // The content goes last and verbatim, so the row can be fixed and pasted back into the ledger
+            writer.write(rejected.lineNumber() + "," + rejected.reason().replace(',', ';') + "," + rejected.line());
+            writer.newLine();
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("Error writing quarantine file: " + e.getMessage());
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    List<LoadReport.RejectedLine> listed() {
+        return List.copyOf(listed);
+    }
+
+    /**
+     * @return The quarantine file, or null if nothing was written to it.
+     */
+    Path file() {
+        return writer == null ? null : file;
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error writing quarantine file: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.finansage.repository;
+
+import com.finansage.model.RecurrenceFrequency;
+import com.finansage.model.RecurringRule;
+import com.finansage.model.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists recurring transaction rules in a small CSV file stored next to the ledger.
+ */
+public class RecurringRuleRepository {
+    private final String fileName;
+
+    public RecurringRuleRepository(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return A repository for the rules file belonging to the given ledger,
+     * e.g. {@code transactions.recurring.csv} for {@code transactions.csv}.
+     */
+    public static RecurringRuleRepository forLedger(String ledgerFileName) {
+        return new RecurringRuleRepository(BudgetRepository.siblingFile(ledgerFileName, "recurring"));
+    }
+
+    public List<RecurringRule> loadRules() {
+        List<RecurringRule> rules = new ArrayList<>();
+        File file = new File(fileName);
+
+        if (!file.exists()) {
+            return rules;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String header = reader.readLine();
+            if (header == null) {
+                return rules;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // The description goes last, so it is the only column that may contain a comma
+                String[] values = line.split(",", 9);
+                if (values.length == 9) {
+                    rules.add(new RecurringRule(values[0], values[8], new BigDecimal(values[5]),
+                            TransactionType.valueOf(values[6]), values[7], RecurrenceFrequency.valueOf(values[1]),
+                            Integer.parseInt(values[2]), LocalDate.parse(values[3]),
+                            values[4].isEmpty() ? null : LocalDate.parse(values[4])));
+                }
+            }
+        } catch (IOException | IllegalArgumentException | DateTimeException e) {
+            System.err.println("Error loading recurring rules: " + e.getMessage());
+        }
+        return rules;
+    }
+
+    public void saveRules(List<RecurringRule> rules) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write("ID,Frequency,Interval,Start,End,Amount,Type,Category,Description");
+            writer.newLine();
+
+            for (RecurringRule rule : rules) {
+                writer.write(String.join(",", rule.id(), rule.frequency().name(), String.valueOf(rule.interval()),
+                        rule.start().toString(), rule.end() == null ? "" : rule.end().toString(),
+                        rule.amount().toPlainString(), rule.type().name(), rule.category(), rule.description()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving recurring rules: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.finansage.repository;
+
+import com.finansage.model.ExportFormat;
+import com.finansage.model.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams transactions to a file in one of the {@link ExportFormat}s. Rows are pulled from the source
+ * one at a time and encoded directly into a buffered {@link FileChannel}; no intermediate lists are built.
+ * CSV fields are quoted as RFC 4180 requires, so descriptions with commas or quotes survive the trip.
+ * <p>
+ * The COLUMNAR layout (all numbers big-endian) is:
+ * <pre>
+ * "FSCOL" magic, version byte (2)
+ * int rowCount
+ * int categoryCount, then categoryCount length-prefixed UTF-8 category names
+ * epochDay column      int  per row
+ * amount scale column  byte per row
+ * amount column        long per row (unscaled value)
+ * type column          byte per row (TransactionType ordinal)
+ * category column      int  per row (index into the category dictionary)
+ * currency column      3 ASCII bytes per row (ISO 4217 code)
+ * id column            length-prefixed UTF-8 per row
+ * description column   length-prefixed UTF-8 per row
+ * </pre>
+ * Fixed-width columns come first so a reader can seek straight to any of them.
+ */
+public class TransactionExporter {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final byte[] COLUMNAR_MAGIC = {'F', 'S', 'C', 'O', 'L'};
+    private static final int COLUMNAR_VERSION = 2;
+
+    /**
+     * @param rows Supplies the rows to export. The columnar format makes one pass per column, so the
+     *             supplier must return the same rows each time (e.g. a stream over an immutable snapshot).
+     * @return The number of rows written.
+     */
+    public long export(Supplier<Stream<Transaction>> rows, ExportFormat format, Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             ChannelWriter writer = new ChannelWriter(channel)) {
+            return switch (format) {
+                case CSV -> writeCsv(rows, writer);
+                case JSON_LINES -> writeJsonLines(rows, writer);
+                case COLUMNAR -> writeColumnar(rows, writer);
+            };
+        }
+    }
+
+    private long writeCsv(Supplier<Stream<Transaction>> rows, ChannelWriter writer) throws IOException {
+        writer.putText(TransactionRepository.HEADER + "\n");
+        StringBuilder line = new StringBuilder(128);
+        long count = 0;
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); count++) {
+            Transaction tx = it.next();
+            line.setLength(0);
+            appendCsvField(line, tx.getId());
+            line.append(',').append(tx.getDate().format(DATE_FORMATTER)).append(',');
+            appendCsvField(line, tx.getDescription());
+            line.append(',').append(tx.getAmount().toPlainString())
+                    .append(',').append(tx.getType().name()).append(',');
+            appendCsvField(line, tx.getCategory());
+            line.append(',').append(tx.getCurrency().getCurrencyCode()).append('\n');
+            writer.putText(line);
+        }
+        return count;
+    }
+
+    private long writeJsonLines(Supplier<Stream<Transaction>> rows, ChannelWriter writer) throws IOException {
+        StringBuilder line = new StringBuilder(160);
+        long count = 0;
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); count++) {
+            Transaction tx = it.next();
+            line.setLength(0);
+            line.append("{\"id\":");
+            appendJsonString(line, tx.getId());
+            line.append(",\"date\":\"").append(tx.getDate().format(DATE_FORMATTER)).append('"');
+            line.append(",\"description\":");
+            appendJsonString(line, tx.getDescription());
+            line.append(",\"amount\":").append(tx.getAmount().toPlainString());
+            line.append(",\"currency\":\"").append(tx.getCurrency().getCurrencyCode()).append('"');
+            line.append(",\"type\":\"").append(tx.getType().name()).append('"');
+            line.append(",\"category\":");
+            appendJsonString(line, tx.getCategory());
+            line.append("}\n");
+            writer.putText(line);
+        }
+        return count;
+    }
+
+    private long writeColumnar(Supplier<Stream<Transaction>> rows, ChannelWriter writer) throws IOException {
+        // Pass 1: row count and category dictionary
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        long rowCount = 0;
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); rowCount++) {
+            categories.putIfAbsent(it.next().getCategory(), categories.size());
+        }
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new IOException("Too many rows for the columnar format: " + rowCount);
+        }
+
+        for (byte b : COLUMNAR_MAGIC) {
+            writer.putByte(b);
+        }
+        writer.putByte(COLUMNAR_VERSION);
+        writer.putInt((int) rowCount);
+        writer.putInt(categories.size());
+        for (String category : categories.keySet()) {
+            writer.putString(category);
+        }
+
+        // One pass per column
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putInt((int) it.next().getDate().toEpochDay());
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putByte(it.next().getAmount().scale());
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putLong(unscaledLong(it.next().getAmount()));
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putByte(it.next().getType().ordinal());
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putInt(categories.get(it.next().getCategory()));
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            String code = it.next().getCurrency().getCurrencyCode();
+            for (int i = 0; i < code.length(); i++) {
+                writer.putByte(code.charAt(i));
+            }
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putString(it.next().getId());
+        }
+        for (Iterator<Transaction> it = rows.get().iterator(); it.hasNext(); ) {
+            writer.putString(it.next().getDescription());
+        }
+        return rowCount;
+    }
+
+    private static long unscaledLong(BigDecimal amount) throws IOException {
+        if (amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE) {
+            throw new IOException("Amount scale out of range for the columnar format: " + amount);
+        }
+        try {
+            return amount.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IOException("Amount too large for the columnar format: " + amount);
+        }
+    }
+
+    /**
+     * Appends a field as RFC 4180 has it: quoted if it holds a comma, quote or line break, with each quote
+     * doubled, and as it is otherwise.
+     */
+    private static void appendCsvField(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -1,7 +1,12 @@
 package com.finansage.repository;
 
+import com.finansage.model.CategoryDictionary;
+import com.finansage.model.LoadReport;
+import com.finansage.model.SharedValues;
 import com.finansage.model.Transaction;
+import com.finansage.model.TransactionId;
 import com.finansage.model.TransactionType;
+import com.finansage.util.Hashing;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -9,77 +14,582 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
+/**
+ * Reads and writes the ledger CSV file.
+ * <p>
+ * The repository remembers the state of the file as it last read or wrote it (size, modification time
+ * and a hash of the trailing bytes), so it can tell when another program changed the file, whether that
+ * change was a plain append, and it refuses to overwrite such changes.
+ */
 public class TransactionRepository {
     private final String fileName;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int TAIL_WINDOW = 4096;
+    static final String HEADER = "ID,Date,Description,Amount,Type,Category,Currency";
+    private static final int MAX_COLUMNS = 7;
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+    private static final int CHUNK_LINES = 8192;
+    private static final boolean PARALLEL = ForkJoinPool.getCommonPoolParallelism() > 1;
+    private static final int MAX_CHUNKS_IN_FLIGHT = Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism());
+
+    /**
+     * The file as this repository last saw it. A size of -1 means the file did not exist.
+     */
+    private record FileState(long size, long modifiedMillis, long tailHash) {
+        static final FileState ABSENT = new FileState(-1, 0, 0);
+        /** The file could not be read completely; never matches, so saves are refused. */
+        static final FileState UNREADABLE = new FileState(-2, 0, 0);
+    }
+
+    private FileState knownState; // null until the file is first loaded or saved
+    private long knownLines; // lines in the file as last read or written, header included
+    private LoadReport lastLoadReport;
 
     public TransactionRepository(String fileName) {
         this.fileName = fileName;
     }
 
-    public List<Transaction> loadTransactions() {
+    public Path getFilePath() {
+        return Path.of(fileName);
+    }
+
+    /**
+     * Reads every row. A row whose ID an earlier row already used gets a new ID, so the ledger never holds
+     * two transactions under one ID and both rows can still be found, edited and deleted. The new ID is
+     * derived from the row and how many times its ID was used before, so the same file always loads with
+     * the same IDs. The file keeps the repeated ID until the ledger is next saved.
+     */
+    public synchronized List<Transaction> loadTransactions() {
+        List<Transaction> transactions = new ArrayList<>();
+        Map<TransactionId, Integer> seen = new HashMap<>();
+        int[] renamed = {0};
+        readRows(transaction -> {
+            Transaction unique = withUniqueId(transaction, seen);
+            transactions.add(unique);
+            if (unique != transaction) {
+                renamed[0]++;
+            }
+        });
+        if (renamed[0] > 0) {
+            System.err.printf("Gave %d row(s) in %s whose ID was already used a new ID%n", renamed[0], fileName);
+        }
+        return transactions;
+    }
+
+    /**
+     * Reads a file in the ledger's format, such as a bank statement, without any of the side effects of
+     * {@link #loadTransactions()}: nothing is quarantined or printed, and no repository remembers the file.
+     * Blank and invalid lines are left out; repeated IDs are replaced the same way.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    public static List<Transaction> readTransactions(Path file) {
         List<Transaction> transactions = new ArrayList<>();
+        Map<TransactionId, Integer> seen = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line = reader.readLine(); // the header
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Transaction row;
+                try {
+                    row = parseLine(line);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                transactions.add(withUniqueId(row, seen));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file + ": " + e.getMessage(), e);
+        }
+        return transactions;
+    }
+
+    /**
+     * @param seen How many times each ID was used so far; updated.
+     * @return The transaction itself the first time its ID is used, otherwise a copy under an ID derived
+     * from the row and how many times its ID was used before.
+     */
+    private static Transaction withUniqueId(Transaction transaction, Map<TransactionId, Integer> seen) {
+        int uses = seen.merge(transaction.getTransactionId(), 1, Integer::sum);
+        if (uses == 1) {
+            return transaction;
+        }
+        String row = toCsvLine(transaction);
+        TransactionId id = derivedId(transaction.getDate(), row, uses - 1);
+        for (int n = uses; seen.containsKey(id); n++) {
+            id = derivedId(transaction.getDate(), row, n);
+        }
+        seen.put(id, 1);
+        return Transaction.withId(id, transaction.getDate(), transaction.getDescription(),
+                transaction.getAmount(), transaction.getType(), transaction.getCategory(), transaction.getCurrency());
+    }
+
+    /**
+     * Streams the ledger into off-heap storage, one row at a time, without ever holding it on the heap.
+     * @return The number of rows loaded.
+     */
+    public synchronized int loadInto(OffHeapTransactionStore store) {
+        return readRows(store::append).loaded();
+    }
+
+    /**
+     * @return The report of the most recent full load, or null if the file has not been loaded yet.
+     */
+    public synchronized LoadReport getLastLoadReport() {
+        return lastLoadReport;
+    }
+
+    /**
+     * Where rejected lines are appended: the ledger file name with {@code .quarantine} added.
+     */
+    public Path getQuarantinePath() {
+        return Path.of(fileName + ".quarantine");
+    }
+
+    /**
+     * Reads the file in chunks of lines that are parsed in parallel and handed to {@code sink} in file
+     * order on the calling thread. A line that fails to parse, or that the sink rejects, is quarantined
+     * and the load carries on; only an I/O error stops it early.
+     */
+    private LoadReport readRows(Consumer<Transaction> sink) {
+        long started = System.nanoTime();
         File file = new File(fileName);
 
         if (!file.exists()) {
-            return transactions; // Return empty list if file doesn't exist yet
+            knownState = FileState.ABSENT;
+            knownLines = 0;
+            lastLoadReport = new LoadReport(getFilePath(), 0, 0, 0, List.of(), null, true, Duration.ZERO);
+            return lastLoadReport; // Nothing to load if the file doesn't exist yet
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            // THE FIX: Read and discard the header line before the loop.
-            String header = reader.readLine();
-            if (header == null) {
-                return transactions; // File is empty or only has a header.
-            }
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
-                if (values.length == 6) {
-                    // Re-create the transaction object using the full constructor
-                    Transaction transaction = new Transaction(
-                            values[0], // ID
-                            LocalDate.parse(values[1], DATE_FORMATTER),
-                            values[2], // Description
-                            new BigDecimal(values[3]),
-                            TransactionType.valueOf(values[4]),
-                            values[5] // Category
-                    );
-                    transactions.add(transaction);
+        long lines = 0;
+        int loaded = 0;
+        boolean complete = false;
+        try (QuarantineWriter quarantine = new QuarantineWriter(getQuarantinePath(), getFilePath());
+             BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            try {
+                // Read and discard the header line before the loop.
+                String header = reader.readLine();
+                if (header != null) {
+                    lines = 1;
+                    Deque<CompletableFuture<ParsedChunk>> inFlight = new ArrayDeque<>();
+                    List<String> chunk = new ArrayList<>(CHUNK_LINES);
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        chunk.add(line);
+                        if (chunk.size() == CHUNK_LINES) {
+                            inFlight.add(parseAsync(chunk, lines + 1));
+                            lines += chunk.size();
+                            chunk = new ArrayList<>(CHUNK_LINES);
+                            if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+                                loaded += deliver(inFlight.poll().join(), sink, quarantine);
+                            }
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        inFlight.add(parseAsync(chunk, lines + 1));
+                        lines += chunk.size();
+                    }
+                    while (!inFlight.isEmpty()) {
+                        loaded += deliver(inFlight.poll().join(), sink, quarantine);
+                    }
                 }
+                knownState = captureState();
+                knownLines = lines;
+                complete = true;
+            } catch (IOException e) {
+                System.err.println("Error loading transactions: " + e.getMessage());
+                // Only part of the file was read: saving now would drop the rest, so treat it as changed
+                knownState = FileState.UNREADABLE;
             }
-        } catch (IOException | IllegalArgumentException e) {
+            lastLoadReport = new LoadReport(getFilePath(), lines, loaded, quarantine.count(), quarantine.listed(),
+                    quarantine.file(), complete, Duration.ofNanos(System.nanoTime() - started));
+        } catch (IOException e) {
             System.err.println("Error loading transactions: " + e.getMessage());
+            knownState = FileState.UNREADABLE;
+            lastLoadReport = new LoadReport(getFilePath(), 0, 0, 0, List.of(), null, false,
+                    Duration.ofNanos(System.nanoTime() - started));
         }
-        return transactions;
+        if (lastLoadReport.quarantined() > 0) {
+            System.err.printf("Skipped %d invalid line(s) in %s; see %s%n",
+                    lastLoadReport.quarantined(), fileName, getQuarantinePath());
+        }
+        return lastLoadReport;
+    }
+
+    /**
+     * The parsed rows of one chunk: {@code rows[i]} is null where line {@code i} was blank or rejected.
+     */
+    private record ParsedChunk(List<String> lines, long firstLineNumber, Transaction[] rows,
+                               List<LoadReport.RejectedLine> rejected) {
+    }
+
+    private static CompletableFuture<ParsedChunk> parseAsync(List<String> lines, long firstLineNumber) {
+        if (!PARALLEL) {
+            return CompletableFuture.completedFuture(parseChunk(lines, firstLineNumber));
+        }
+        return CompletableFuture.supplyAsync(() -> parseChunk(lines, firstLineNumber));
+    }
+
+    private static ParsedChunk parseChunk(List<String> lines, long firstLineNumber) {
+        Transaction[] rows = new Transaction[lines.size()];
+        List<LoadReport.RejectedLine> rejected = new ArrayList<>(0);
+        for (int i = 0; i < rows.length; i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                rows[i] = parseLine(line);
+            } catch (RuntimeException e) {
+                rejected.add(new LoadReport.RejectedLine(firstLineNumber + i, reasonOf(e), line));
+            }
+        }
+        return new ParsedChunk(lines, firstLineNumber, rows, rejected);
     }
 
-    public void saveTransactions(List<Transaction> transactions) {
+    private static int deliver(ParsedChunk chunk, Consumer<Transaction> sink, QuarantineWriter quarantine) {
+        chunk.rejected().forEach(quarantine::reject);
+        int delivered = 0;
+        Transaction[] rows = chunk.rows();
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == null) {
+                continue;
+            }
+            try {
+                sink.accept(rows[i]);
+                delivered++;
+            } catch (IllegalArgumentException e) {
+                // e.g. an amount the off-heap layout cannot hold; keep the row rather than lose it
+                quarantine.reject(new LoadReport.RejectedLine(chunk.firstLineNumber() + i, reasonOf(e), chunk.lines().get(i)));
+            }
+        }
+        return delivered;
+    }
+
+    private static String reasonOf(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Writes the whole ledger, unless another program changed the file since this repository last read
+     * or wrote it. In that case nothing is written, so the external change is never lost.
+     * @return true if the ledger was written.
+     */
+    public synchronized boolean saveTransactions(Iterable<Transaction> transactions) {
+        if (hasExternalChanges()) {
+            System.err.println("Not saving: " + fileName + " was changed by another program. Reload it first.");
+            return false;
+        }
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            writer.write("ID,Date,Description,Amount,Type,Category");
+            writer.write(HEADER);
             writer.newLine();
 
+            long lines = 1;
             for (Transaction tx : transactions) {
-                String line = String.join(",",
-                        tx.getId(),
-                        tx.getDate().format(DATE_FORMATTER),
-                        tx.getDescription(),
-                        tx.getAmount().toPlainString(),
-                        tx.getType().name(),
-                        tx.getCategory()
-                );
-                writer.write(line);
+                writer.write(toCsvLine(tx));
                 writer.newLine();
+                lines++;
             }
+            knownLines = lines;
         } catch (IOException e) {
             System.err.println("Error saving transactions: " + e.getMessage());
+            return false;
         }
+        try {
+            knownState = captureState();
+        } catch (IOException e) {
+            System.err.println("Error saving transactions: " + e.getMessage());
+        }
+        return true;
     }
-}
 
+    static String toCsvLine(Transaction tx) {
+        return String.join(",",
+                tx.getId(),
+                tx.getDate().format(DATE_FORMATTER),
+                tx.getDescription(),
+                tx.getAmount().toPlainString(),
+                tx.getType().name(),
+                tx.getCategory(),
+                tx.getCurrency().getCurrencyCode()
+        );
+    }
+
+    /**
+     * @return true if the file's size or modification time differs from when this repository last read
+     * or wrote it. Always false before the first load or save.
+     */
+    public synchronized boolean hasExternalChanges() {
+        if (knownState == null) {
+            return false;
+        }
+        try {
+            return !sameSizeAndTime(captureStat(), knownState);
+        } catch (IOException e) {
+            System.err.println("Error checking transactions file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads only the rows another program appended since this repository last read or wrote the file.
+     * An append is recognized when the file grew and the last bytes this repository knew are unchanged.
+     * A trailing row without its line break yet is left for the next call.
+     * @return The appended rows, or empty if the file was changed in some other way and must be reloaded.
+     */
+    public synchronized Optional<List<Transaction>> readAppendedTransactions() {
+        if (knownState == null || knownState.size() <= 0) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(getFilePath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < knownState.size() || tailHash(channel, knownState.size()) != knownState.tailHash()
+                    || !endsWithLineBreak(channel, knownState.size())) {
+                return Optional.empty();
+            }
+            ByteBuffer tail = ByteBuffer.allocate(Math.toIntExact(size - knownState.size()));
+            while (tail.hasRemaining() && channel.read(tail, knownState.size() + tail.position()) >= 0) {
+                // keep reading until the buffer is full
+            }
+            byte[] bytes = tail.array();
+            int complete = bytes.length;
+            while (complete > 0 && bytes[complete - 1] != '\n') {
+                complete--;
+            }
+
+            List<String> lines = complete == 0 ? List.of()
+                    : List.of(new String(bytes, 0, complete, StandardCharsets.UTF_8).split("\r?\n", -1));
+            lines = lines.isEmpty() ? lines : lines.subList(0, lines.size() - 1); // text after the last line break
+            ParsedChunk parsed = parseChunk(lines, knownLines + 1);
+            List<Transaction> appended = new ArrayList<>();
+            try (QuarantineWriter quarantine = new QuarantineWriter(getQuarantinePath(), getFilePath())) {
+                deliver(parsed, appended::add, quarantine);
+            }
+            knownLines += lines.size();
+            long knownSize = knownState.size() + complete;
+            long modified = complete == bytes.length ? Files.getLastModifiedTime(getFilePath()).toMillis() : knownState.modifiedMillis();
+            knownState = new FileState(knownSize, modified, tailHash(channel, knownSize));
+            return Optional.of(appended);
+        } catch (IOException | ArithmeticException e) {
+            System.err.println("Error reading appended transactions: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses one CSV row (7 columns with an ID and a currency, 6 with either an ID or a currency, or 5 with
+     * neither; rows without a currency are in the {@link Transaction#getDefaultCurrency() default currency})
+     * by scanning for commas rather than splitting. A 6-column row has no ID when it starts with the date. Descriptions, dates and categories are resolved straight from the line to their shared
+     * instances, so a row only allocates what is unique to it. Safe to call from several threads.
+     * @throws IllegalArgumentException If the row is invalid; the message says which column and why.
+     */
+    static Transaction parseLine(String line) {
+        int[] ends = new int[MAX_COLUMNS];
+        int columns = 0;
+        int from = 0;
+        while (true) {
+            if (columns == MAX_COLUMNS) {
+                throw new IllegalArgumentException("Too many columns (expected 5 to 7)");
+            }
+            int comma = line.indexOf(',', from);
+            ends[columns++] = comma < 0 ? line.length() : comma;
+            if (comma < 0) {
+                break;
+            }
+            from = comma + 1;
+        }
+        if (columns < MAX_COLUMNS - 2) {
+            throw new IllegalArgumentException("Expected 5 to 7 columns but found " + columns);
+        }
+
+        // Rows without an ID column (e.g. bank exports) start with the date; with six columns that is
+        // the only way to tell an ID from a trailing currency
+        boolean sixWithoutId = columns == MAX_COLUMNS - 1
+                && looksLikeDate(line, 0, ends[0]) && !looksLikeDate(line, start(ends, 1), ends[1]);
+        int first = columns >= MAX_COLUMNS - 1 && !sixWithoutId ? 1 : 0;
+        LocalDate date;
+        try {
+            date = parseDate(line, start(ends, first), ends[first]);
+        } catch (DateTimeException e) {
+            throw invalid("date", line, start(ends, first), ends[first]);
+        }
+        String description = SharedValues.description(line, start(ends, first + 1), ends[first + 1]);
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(line.substring(start(ends, first + 2), ends[first + 2]));
+        } catch (NumberFormatException e) {
+            throw invalid("amount", line, start(ends, first + 2), ends[first + 2]);
+        }
+        TransactionType type;
+        try {
+            type = parseType(line, start(ends, first + 3), ends[first + 3]);
+        } catch (IllegalArgumentException e) {
+            throw invalid("type", line, start(ends, first + 3), ends[first + 3]);
+        }
+        int categoryId = CategoryDictionary.idOf(line, start(ends, first + 4), ends[first + 4]);
+        String category = categoryId == CategoryDictionary.UNLISTED
+                ? line.substring(start(ends, first + 4), ends[first + 4]) : CategoryDictionary.nameOf(categoryId);
+        Currency currency = Transaction.getDefaultCurrency();
+        if (columns == first + 6) {
+            int last = columns - 1;
+            try {
+                currency = parseCurrency(line, start(ends, last), ends[last], currency);
+            } catch (IllegalArgumentException e) {
+                throw invalid("currency", line, start(ends, last), ends[last]);
+            }
+        }
+
+        if (first == 1 && !line.substring(0, ends[0]).isBlank()) {
+            // Re-create the transaction object using the full constructor
+            return new Transaction(line.substring(0, ends[0]), date, description, amount, type, category, currency);
+        }
+        // Rows without an ID get one derived from the row, so reading the file again gives them the same ID
+        return Transaction.withId(derivedId(date, line, 0), date, description, amount, type, category, currency);
+    }
+
+    /**
+     * A time-ordered ID stamped with the row's date, like new IDs, with the rest taken from a hash of the
+     * row's text and {@code occurrence} (how many identical rows came before it).
+     */
+    private static TransactionId derivedId(LocalDate date, String row, int occurrence) {
+        long hash = Hashing.combine(Hashing.hash64(row), occurrence);
+        long millis = date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long msb = (millis << 16) | 0x7000L | (hash >>> 52);
+        long lsb = (Hashing.mix64(hash) & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new TransactionId(msb, lsb);
+    }
+
+    private static IllegalArgumentException invalid(String column, String line, int start, int end) {
+        return new IllegalArgumentException("Invalid " + column + " '" + line.substring(start, end) + "'");
+    }
+
+    private static int start(int[] ends, int column) {
+        return column == 0 ? 0 : ends[column - 1] + 1;
+    }
+
+    /**
+     * Reads an ISO 4217 code, without allocating when it is the usual one.
+     */
+    private static Currency parseCurrency(String line, int start, int end, Currency usual) {
+        String code = usual.getCurrencyCode();
+        if (end - start == code.length() && line.startsWith(code, start)) {
+            return usual;
+        }
+        return Currency.getInstance(line.substring(start, end));
+    }
+
+    /**
+     * Reads a yyyy-MM-dd date without going through the formatter.
+     */
+    private static LocalDate parseDate(String line, int start, int end) {
+        if (end - start == 10 && line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-') {
+            int year = digits(line, start, start + 4);
+            int month = digits(line, start + 5, start + 7);
+            int day = digits(line, start + 8, start + 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return SharedValues.date(year, month, day);
+            }
+        }
+        return LocalDate.parse(line.substring(start, end), DATE_FORMATTER); // throws with the usual message
+    }
+
+    /**
+     * @return true if {@code line[start, end)} has the shape of a yyyy-MM-dd date.
+     */
+    private static boolean looksLikeDate(String line, int start, int end) {
+        return end - start == 10 && line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-'
+                && digits(line, start, start + 4) >= 0 && digits(line, start + 5, start + 7) >= 0
+                && digits(line, start + 8, start + 10) >= 0;
+    }
+
+    private static int digits(String line, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static TransactionType parseType(String line, int start, int end) {
+        for (TransactionType type : TRANSACTION_TYPES) {
+            if (type.name().length() == end - start && line.startsWith(type.name(), start)) {
+                return type;
+            }
+        }
+        return TransactionType.valueOf(line.substring(start, end)); // throws with the usual message
+    }
+
+    // --- File state tracking ---
+
+    private FileState captureStat() throws IOException {
+        Path path = getFilePath();
+        if (!Files.exists(path)) {
+            return FileState.ABSENT;
+        }
+        return new FileState(Files.size(path), Files.getLastModifiedTime(path).toMillis(), 0);
+    }
+
+    private FileState captureState() throws IOException {
+        Path path = getFilePath();
+        if (!Files.exists(path)) {
+            return FileState.ABSENT;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            return new FileState(size, Files.getLastModifiedTime(path).toMillis(), tailHash(channel, size));
+        }
+    }
+
+    private static boolean sameSizeAndTime(FileState actual, FileState known) {
+        return actual.size() == known.size() && actual.modifiedMillis() == known.modifiedMillis();
+    }
+
+    private static boolean endsWithLineBreak(FileChannel channel, long end) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, end - 1) == 1 && last.get(0) == '\n';
+    }
+
+    /**
+     * Hashes the {@value #TAIL_WINDOW} bytes before {@code end}.
+     */
+    private static long tailHash(FileChannel channel, long end) throws IOException {
+        int length = (int) Math.min(TAIL_WINDOW, end);
+        ByteBuffer window = ByteBuffer.allocate(length);
+        long start = end - length;
+        while (window.hasRemaining() && channel.read(window, start + window.position()) >= 0) {
+            // keep reading until the window is full
+        }
+        return Hashing.hash64(window.array(), 0, window.position());
+    }
+}
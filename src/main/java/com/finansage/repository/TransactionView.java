@@ -0,0 +1,125 @@
+package com.finansage.repository;
+
+import com.finansage.model.CategoryDictionary;
+import com.finansage.model.SharedValues;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionId;
+import com.finansage.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Currency;
+
+/**
+ * A reusable cursor over one record of an {@link OffHeapTransactionStore}. Moving it to another row is
+ * free, and the numeric accessors read straight from the buffer, so scanning millions of rows allocates
+ * nothing. Only {@link #description()}, {@link #amount()} and {@link #toTransaction()} create objects.
+ */
+public final class TransactionView {
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final OffHeapTransactionStore store;
+    private ByteBuffer segment;
+    private int base;
+    private int row = -1;
+
+    TransactionView(OffHeapTransactionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Points this view at another row.
+     * @return This view, for chaining.
+     */
+    public TransactionView moveTo(int row) {
+        if (row < 0 || row >= store.rowCount()) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + store.rowCount());
+        }
+        this.row = row;
+        this.segment = store.recordSegment(row);
+        this.base = OffHeapTransactionStore.recordBase(row);
+        return this;
+    }
+
+    public int row() {
+        return row;
+    }
+
+    public boolean isDeleted() {
+        return (segment.get(base + OffHeapTransactionStore.FLAGS) & OffHeapTransactionStore.DELETED) != 0;
+    }
+
+    public long epochDay() {
+        return segment.getInt(base + OffHeapTransactionStore.EPOCH_DAY);
+    }
+
+    public LocalDate date() {
+        return SharedValues.dateOfEpochDay(epochDay());
+    }
+
+    public TransactionType type() {
+        return TYPES[segment.get(base + OffHeapTransactionStore.TYPE)];
+    }
+
+    public long unscaledAmount() {
+        return segment.getLong(base + OffHeapTransactionStore.AMOUNT);
+    }
+
+    public int amountScale() {
+        return segment.get(base + OffHeapTransactionStore.SCALE);
+    }
+
+    public BigDecimal amount() {
+        return BigDecimal.valueOf(unscaledAmount(), amountScale());
+    }
+
+    public int categoryId() {
+        return segment.getInt(base + OffHeapTransactionStore.CATEGORY);
+    }
+
+    public String category() {
+        return CategoryDictionary.nameOf(categoryId());
+    }
+
+    public Currency currency() {
+        return store.currencyOf(segment.get(base + OffHeapTransactionStore.CURRENCY));
+    }
+
+    public String description() {
+        return SharedValues.description(store.readString(
+                segment.getLong(base + OffHeapTransactionStore.DESCRIPTION_OFFSET),
+                segment.getInt(base + OffHeapTransactionStore.DESCRIPTION_LENGTH)));
+    }
+
+    public TransactionId transactionId() {
+        long high = segment.getLong(base + OffHeapTransactionStore.ID_HIGH);
+        long low = segment.getLong(base + OffHeapTransactionStore.ID_LOW);
+        if (isLegacyId()) {
+            return TransactionId.of(store.readString(high, (int) low));
+        }
+        return high == 0 && low == 0 ? null : new TransactionId(high, low);
+    }
+
+    /**
+     * Compares the ID without building a TransactionId for UUID IDs.
+     */
+    public boolean hasId(TransactionId id) {
+        if (isLegacyId() || id.isLegacy()) {
+            return id.equals(transactionId());
+        }
+        return segment.getLong(base + OffHeapTransactionStore.ID_HIGH) == id.getMostSignificantBits()
+                && segment.getLong(base + OffHeapTransactionStore.ID_LOW) == id.getLeastSignificantBits();
+    }
+
+    /**
+     * @return A regular heap object with this row's values.
+     */
+    public Transaction toTransaction() {
+        return Transaction.withId(transactionId(), date(), description(), amount(), type(), category(), currency());
+    }
+
+    private boolean isLegacyId() {
+        return (segment.get(base + OffHeapTransactionStore.FLAGS) & OffHeapTransactionStore.LEGACY_ID) != 0;
+    }
+}
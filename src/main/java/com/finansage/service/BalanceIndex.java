@@ -0,0 +1,156 @@
+package com.finansage.service;
+
+import com.finansage.model.ArchiveSegment;
+import com.finansage.model.BalancePoint;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+import com.finansage.util.FenwickTree;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Running balances keyed by epoch-day.
+ * Net amounts per day are kept in a Fenwick tree, so a mutation and a point-in-time balance query
+ * each cost O(log d), where d is the number of days covered. The covered window grows (doubling)
+ * when a transaction falls outside it.
+ */
+class BalanceIndex {
+    private static final int INITIAL_DAYS = 1024;
+
+    private long firstDay;
+    private BigDecimal[] dailyNet = new BigDecimal[0];
+    private int[] dailyCount = new int[0];
+    private FenwickTree tree = new FenwickTree(0);
+
+    void add(Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    void remove(Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    /**
+     * @return The balance at the end of {@code date}.
+     */
+    BigDecimal balanceAt(LocalDate date) {
+        long day = date.toEpochDay();
+        if (dailyNet.length == 0 || day < firstDay) {
+            return BigDecimal.ZERO;
+        }
+        return tree.prefixSum((int) Math.min(day - firstDay, dailyNet.length - 1));
+    }
+
+    /**
+     * @return The net change over {@code from..to} inclusive.
+     */
+    BigDecimal netBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return BigDecimal.ZERO;
+        }
+        return balanceAt(to).subtract(balanceAt(from.minusDays(1)));
+    }
+
+    /**
+     * @return One point per day in {@code from..to} inclusive. Costs O(log d) plus O(1) per day returned.
+     */
+    List<BalancePoint> dailyBalances(LocalDate from, LocalDate to) {
+        List<BalancePoint> points = new ArrayList<>();
+        if (to.isBefore(from)) {
+            return points;
+        }
+        BigDecimal balance = balanceAt(from);
+        points.add(new BalancePoint(from, balance));
+        for (LocalDate date = from.plusDays(1); !date.isAfter(to); date = date.plusDays(1)) {
+            long offset = date.toEpochDay() - firstDay;
+            if (offset >= 0 && offset < dailyNet.length) {
+                balance = balance.add(dailyNet[(int) offset]);
+            }
+            points.add(new BalancePoint(date, balance));
+        }
+        return points;
+    }
+
+    Optional<LocalDate> earliestDate() {
+        for (int i = 0; i < dailyCount.length; i++) {
+            if (dailyCount[i] > 0) {
+                return Optional.of(LocalDate.ofEpochDay(firstDay + i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    Optional<LocalDate> latestDate() {
+        for (int i = dailyCount.length - 1; i >= 0; i--) {
+            if (dailyCount[i] > 0) {
+                return Optional.of(LocalDate.ofEpochDay(firstDay + i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds (sign 1) or takes back (sign -1) an archived year's daily net amounts.
+     */
+    void applyArchived(ArchiveSegment segment, int sign) {
+        for (ArchiveSegment.DayTotal day : segment.days()) {
+            apply(day.date().toEpochDay(), day.net(), day.count(), sign);
+        }
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        apply(transaction.getDate().toEpochDay(), signedAmount(transaction), 1, sign);
+    }
+
+    private void apply(long day, BigDecimal net, int count, int sign) {
+        ensureCovers(day);
+        int offset = (int) (day - firstDay);
+        BigDecimal delta = sign < 0 ? net.negate() : net;
+        dailyNet[offset] = dailyNet[offset].add(delta);
+        dailyCount[offset] += sign * count;
+        tree.add(offset, delta);
+    }
+
+    private void ensureCovers(long day) {
+        if (dailyNet.length == 0) {
+            firstDay = day - INITIAL_DAYS / 2;
+            dailyNet = new BigDecimal[INITIAL_DAYS];
+            Arrays.fill(dailyNet, BigDecimal.ZERO);
+            dailyCount = new int[INITIAL_DAYS];
+            tree = new FenwickTree(INITIAL_DAYS);
+            return;
+        }
+        long lastDay = firstDay + dailyNet.length - 1;
+        if (day >= firstDay && day <= lastDay) {
+            return;
+        }
+
+        // Grow towards the missing side, at least doubling so repeated growth stays amortized O(1)
+        long needed = Math.max(lastDay, day) - Math.min(firstDay, day) + 1;
+        int newLength = (int) Math.max(needed, (long) dailyNet.length * 2);
+        long newFirstDay = day < firstDay ? lastDay - newLength + 1 : firstDay;
+
+        BigDecimal[] newNet = new BigDecimal[newLength];
+        Arrays.fill(newNet, BigDecimal.ZERO);
+        int[] newCount = new int[newLength];
+        int shift = (int) (firstDay - newFirstDay);
+        System.arraycopy(dailyNet, 0, newNet, shift, dailyNet.length);
+        System.arraycopy(dailyCount, 0, newCount, shift, dailyCount.length);
+
+        firstDay = newFirstDay;
+        dailyNet = newNet;
+        dailyCount = newCount;
+        tree = FenwickTree.of(newNet);
+    }
+
+    static BigDecimal signedAmount(Transaction transaction) {
+        return transaction.getType() == TransactionType.INCOME
+                ? transaction.getAmount()
+                : transaction.getAmount().negate();
+    }
+}
@@ -0,0 +1,129 @@
+package com.finansage.service;
+
+import com.finansage.model.Budget;
+import com.finansage.model.BudgetPeriod;
+import com.finansage.model.BudgetStatus;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps per-category spending counters for every budget period, updated incrementally on each
+ * mutation. Counters exist for all categories whether or not a budget is defined, so adding a
+ * budget later never needs a rescan, and every limit check is a handful of hash lookups.
+ * <p>
+ * Limits are in the {@link Transaction#getDefaultCurrency() default currency}. Spending is counted per
+ * currency and converted when a status is asked for, so a new rate table needs no recount either.
+ */
+class BudgetTracker {
+
+    private record BudgetKey(String category, BudgetPeriod period) {
+    }
+
+    private record SpendKey(String category, BudgetPeriod period, long periodStartDay) {
+    }
+
+    private final Map<BudgetKey, Budget> budgets = new LinkedHashMap<>();
+    private final Map<SpendKey, Map<Currency, BigDecimal>> spend = new HashMap<>();
+
+    void add(Transaction transaction) {
+        apply(transaction, transaction.getAmount());
+    }
+
+    void remove(Transaction transaction) {
+        apply(transaction, transaction.getAmount().negate());
+    }
+
+    void setBudget(Budget budget) {
+        budgets.put(new BudgetKey(key(budget.category()), budget.period()), budget);
+    }
+
+    boolean removeBudget(String category, BudgetPeriod period) {
+        return budgets.remove(new BudgetKey(key(category), period)) != null;
+    }
+
+    List<Budget> budgets() {
+        return new ArrayList<>(budgets.values());
+    }
+
+    /**
+     * @return The status of every budget for the periods containing {@code date}, converted at that day's rates.
+     */
+    List<BudgetStatus> statusesAt(LocalDate date, ExchangeRateIndex rates) {
+        List<BudgetStatus> statuses = new ArrayList<>();
+        for (Budget budget : budgets.values()) {
+            statuses.add(status(budget, date, rates));
+        }
+        return statuses;
+    }
+
+    /**
+     * @return The status of each budget covering the transaction's category, for the periods containing its date.
+     */
+    List<BudgetStatus> statusesFor(Transaction transaction, ExchangeRateIndex rates) {
+        List<BudgetStatus> statuses = new ArrayList<>();
+        if (transaction.getType() != TransactionType.EXPENSE) {
+            return statuses;
+        }
+        String category = key(transaction.getCategory());
+        for (BudgetPeriod period : BudgetPeriod.values()) {
+            Budget budget = budgets.get(new BudgetKey(category, period));
+            if (budget != null) {
+                statuses.add(status(budget, transaction.getDate(), rates));
+            }
+        }
+        return statuses;
+    }
+
+    private BudgetStatus status(Budget budget, LocalDate date, ExchangeRateIndex rates) {
+        LocalDate periodStart = budget.period().startOf(date);
+        Map<Currency, BigDecimal> byCurrency = spend.getOrDefault(
+                new SpendKey(key(budget.category()), budget.period(), periodStart.toEpochDay()), Map.of());
+        Currency limitCurrency = Transaction.getDefaultCurrency();
+        BigDecimal spent = BigDecimal.ZERO;
+        Map<Currency, BigDecimal> unconverted = new TreeMap<>(Comparator.comparing(Currency::getCurrencyCode));
+        for (Map.Entry<Currency, BigDecimal> amount : byCurrency.entrySet()) {
+            if (rates.canConvert(amount.getKey(), limitCurrency)) {
+                spent = spent.add(rates.convert(amount.getValue(), amount.getKey(), limitCurrency, date));
+            } else {
+                unconverted.put(amount.getKey(), amount.getValue());
+            }
+        }
+        return new BudgetStatus(budget, periodStart, spent, unconverted);
+    }
+
+    private void apply(Transaction transaction, BigDecimal delta) {
+        if (transaction.getType() != TransactionType.EXPENSE) {
+            return;
+        }
+        String category = key(transaction.getCategory());
+        for (BudgetPeriod period : BudgetPeriod.values()) {
+            SpendKey spendKey = new SpendKey(category, period, period.startOf(transaction.getDate()).toEpochDay());
+            Map<Currency, BigDecimal> byCurrency = spend.computeIfAbsent(spendKey, k -> new HashMap<>(2));
+            BigDecimal total = byCurrency.getOrDefault(transaction.getCurrency(), BigDecimal.ZERO).add(delta);
+            if (total.signum() != 0) {
+                byCurrency.put(transaction.getCurrency(), total);
+            } else {
+                byCurrency.remove(transaction.getCurrency());
+                if (byCurrency.isEmpty()) {
+                    spend.remove(spendKey);
+                }
+            }
+        }
+    }
+
+    private static String key(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+}
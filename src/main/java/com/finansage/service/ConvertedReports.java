@@ -0,0 +1,64 @@
+package com.finansage.service;
+
+import com.finansage.model.Transaction;
+
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Report totals with every transaction converted to one target currency at the rate of its own date,
+ * kept per target currency that has been asked for. A target's totals are built with one pass over the
+ * ledger the first time they are needed and then follow each change incrementally, so repeated reports
+ * cost what the unconverted ones do. A new rate table invalidates all of them.
+ */
+class ConvertedReports {
+
+    private final Map<Currency, ReportIndex> byTarget = new HashMap<>();
+
+    /**
+     * @return The totals in the target currency, if they are cached.
+     */
+    Optional<ReportIndex> cached(Currency target) {
+        return Optional.ofNullable(byTarget.get(target));
+    }
+
+    /**
+     * Converts every transaction and caches the result. Nothing is cached if a conversion fails.
+     * @throws IllegalStateException If the rate table cannot convert one of the ledger's currencies.
+     */
+    ReportIndex build(Currency target, ExchangeRateIndex rates, Iterable<Transaction> ledger) {
+        ReportIndex totals = new ReportIndex();
+        for (Transaction transaction : ledger) {
+            totals.apply(transaction, rates.convert(transaction.getAmount(), transaction.getCurrency(), target,
+                    transaction.getDate()), 1);
+        }
+        byTarget.put(target, totals);
+        return totals;
+    }
+
+    void add(Transaction transaction, ExchangeRateIndex rates) {
+        apply(transaction, rates, 1);
+    }
+
+    void remove(Transaction transaction, ExchangeRateIndex rates) {
+        apply(transaction, rates, -1);
+    }
+
+    void clear() {
+        byTarget.clear();
+    }
+
+    private void apply(Transaction transaction, ExchangeRateIndex rates, int sign) {
+        // Conversions round to the target's minor unit, so taking a row back subtracts exactly what adding it added
+        byTarget.entrySet().removeIf(target -> {
+            if (!rates.canConvert(transaction.getCurrency(), target.getKey())) {
+                return true; // The next report for this target rebuilds and says which rate is missing
+            }
+            target.getValue().apply(transaction, rates.convert(transaction.getAmount(), transaction.getCurrency(),
+                    target.getKey(), transaction.getDate()), sign);
+            return false;
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.finansage.service;
+
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionFingerprint;
+import com.finansage.util.BloomFilter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Detects duplicate transactions by fingerprint in O(1) per lookup.
+ * A Bloom filter answers the common "never seen" case without touching the exact set;
+ * only possible hits are confirmed against the hash map, which also remembers the matching transaction.
+ */
+class DuplicateDetector {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final BloomFilter filter;
+    private final Map<TransactionFingerprint, Transaction> seen;
+
+    /**
+     * @param ledger The current ledger. Each transaction is registered under its fingerprint.
+     * @param expectedAdditional How many more transactions may be registered (sizes the filter).
+     */
+    DuplicateDetector(LedgerSnapshot ledger, int expectedAdditional) {
+        int capacity = ledger.size() + expectedAdditional;
+        this.filter = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        this.seen = new HashMap<>(Math.max(16, (int) (capacity / 0.75f) + 1));
+        for (Transaction transaction : ledger.asList()) {
+            register(TransactionFingerprint.of(transaction), transaction);
+        }
+    }
+
+    /**
+     * @return The registered transaction with the same fingerprint, or null if there is none.
+     */
+    Transaction findDuplicate(TransactionFingerprint fingerprint) {
+        if (!filter.mightContain(fingerprint.hash64())) {
+            return null;
+        }
+        return seen.get(fingerprint);
+    }
+
+    void register(TransactionFingerprint fingerprint, Transaction transaction) {
+        filter.put(fingerprint.hash64());
+        seen.putIfAbsent(fingerprint, transaction);
+    }
+
+    /**
+     * Points a fingerprint at a newer version of the transaction (after a merge). The fingerprint need not
+     * have been registered before, since a row merged by ID can have a different one.
+     */
+    void replace(TransactionFingerprint fingerprint, Transaction transaction) {
+        filter.put(fingerprint.hash64());
+        seen.put(fingerprint, transaction);
+    }
+}
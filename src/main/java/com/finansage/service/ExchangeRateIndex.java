@@ -0,0 +1,163 @@
+package com.finansage.service;
+
+import com.finansage.model.ExchangeRate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The exchange-rate table as one array per currency with an entry for every day from the earliest rate
+ * to the latest, so a conversion is two array reads and at most two multiplications, with no map lookups
+ * per row. Currencies find their array through their ISO 4217 number.
+ * <p>
+ * Days without a rate of their own (weekends, holidays) use the previous rate; days before a currency's
+ * first rate use that first rate, and days after the table ends use the last. Immutable; a changed table
+ * is a new index.
+ */
+class ExchangeRateIndex {
+
+    private static final int NUMERIC_CODES = 1000;
+
+    private final List<ExchangeRate> rates;
+    private final Currency base;
+    private final long firstDay;
+    private final int days;
+    private final Currency[] currencies; // by slot; slot 0 is the base
+    private final int[] slotByNumericCode = new int[NUMERIC_CODES]; // slot + 1, 0 if none
+    private final BigDecimal[][] perBase; // [slot][day]: units of the currency one unit of the base buys
+    private final BigDecimal[][] inBase; // [slot][day]: units of the base one unit of the currency buys
+
+    /**
+     * @param rates Rates that all share one base currency, in any order.
+     * @throws IllegalArgumentException If the rates have different bases.
+     */
+    ExchangeRateIndex(List<ExchangeRate> rates) {
+        List<ExchangeRate> sorted = new ArrayList<>(rates);
+        sorted.sort(Comparator.comparing(ExchangeRate::date));
+        this.rates = List.copyOf(sorted);
+        this.base = sorted.isEmpty() ? null : sorted.getFirst().base();
+        this.firstDay = sorted.isEmpty() ? 0 : sorted.getFirst().date().toEpochDay();
+        this.days = sorted.isEmpty() ? 0 : (int) (sorted.getLast().date().toEpochDay() - firstDay + 1);
+
+        Map<Currency, List<ExchangeRate>> byQuote = new LinkedHashMap<>();
+        for (ExchangeRate rate : sorted) {
+            if (!rate.base().equals(base)) {
+                throw new IllegalArgumentException("Every rate must have the base " + base + ", not " + rate.base());
+            }
+            byQuote.computeIfAbsent(rate.quote(), q -> new ArrayList<>()).add(rate);
+        }
+
+        int slots = base == null ? 0 : byQuote.size() + 1;
+        this.currencies = new Currency[slots];
+        this.perBase = new BigDecimal[slots][];
+        this.inBase = new BigDecimal[slots][];
+        if (base != null) {
+            register(0, base); // The base converts at 1, so it needs no arrays
+        }
+        int slot = 1;
+        for (Map.Entry<Currency, List<ExchangeRate>> quote : byQuote.entrySet()) {
+            register(slot, quote.getKey());
+            fill(slot++, quote.getValue());
+        }
+    }
+
+    List<ExchangeRate> rates() {
+        return rates;
+    }
+
+    /**
+     * @return The currency every rate is quoted against, or empty if there are no rates.
+     */
+    Optional<Currency> base() {
+        return Optional.ofNullable(base);
+    }
+
+    /**
+     * @return true if an amount in {@code from} can be converted to {@code to}.
+     */
+    boolean canConvert(Currency from, Currency to) {
+        return from.equals(to) || (slot(from) >= 0 && slot(to) >= 0);
+    }
+
+    /**
+     * Converts an amount at the rates in effect on the given day, rounded half-even to the minor unit
+     * of the target currency (cents for most).
+     * @throws IllegalStateException If the table has no rates for one of the currencies.
+     */
+    BigDecimal convert(BigDecimal amount, Currency from, Currency to, LocalDate date) {
+        if (from.equals(to)) {
+            return amount;
+        }
+        int fromSlot = slot(from);
+        int toSlot = slot(to);
+        if (fromSlot < 0 || toSlot < 0) {
+            throw new IllegalStateException("No exchange rate for " + (fromSlot < 0 ? from : to));
+        }
+        int day = Math.clamp(date.toEpochDay() - firstDay, 0, days - 1);
+        BigDecimal value = amount;
+        if (inBase[fromSlot] != null) {
+            value = value.multiply(inBase[fromSlot][day]);
+        }
+        if (perBase[toSlot] != null) {
+            value = value.multiply(perBase[toSlot][day]);
+        }
+        int digits = to.getDefaultFractionDigits();
+        return value.setScale(digits >= 0 ? digits : amount.scale(), RoundingMode.HALF_EVEN);
+    }
+
+    private void register(int slot, Currency currency) {
+        currencies[slot] = currency;
+        int code = currency.getNumericCode();
+        if (code >= 0 && code < NUMERIC_CODES && slotByNumericCode[code] == 0) {
+            slotByNumericCode[code] = slot + 1;
+        }
+    }
+
+    private int slot(Currency currency) {
+        int code = currency.getNumericCode();
+        if (code >= 0 && code < NUMERIC_CODES) {
+            int slot = slotByNumericCode[code] - 1;
+            if (slot >= 0 && currencies[slot] == currency) {
+                return slot;
+            }
+        }
+        // A few historic currencies share a number; those fall back to a scan of the handful of slots
+        for (int slot = 0; slot < currencies.length; slot++) {
+            if (currencies[slot] == currency) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Spreads a currency's rates over every day of the table, sharing one BigDecimal per rate.
+     * @param quotes The currency's rates in date order.
+     */
+    private void fill(int slot, List<ExchangeRate> quotes) {
+        BigDecimal[] forward = new BigDecimal[days];
+        BigDecimal[] inverse = new BigDecimal[days];
+        int next = 0;
+        BigDecimal rate = quotes.getFirst().rate();
+        BigDecimal inverted = BigDecimal.ONE.divide(rate, MathContext.DECIMAL64);
+        for (int day = 0; day < days; day++) {
+            while (next < quotes.size() && quotes.get(next).date().toEpochDay() - firstDay <= day) {
+                rate = quotes.get(next++).rate();
+                inverted = BigDecimal.ONE.divide(rate, MathContext.DECIMAL64);
+            }
+            forward[day] = rate;
+            inverse[day] = inverted;
+        }
+        perBase[slot] = forward;
+        inBase[slot] = inverse;
+    }
+}
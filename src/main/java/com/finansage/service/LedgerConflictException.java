@@ -0,0 +1,26 @@
+package com.finansage.service;
+
+import com.finansage.model.ExternalChange;
+
+/**
+ * Thrown by a change to the ledger that could not be saved because another program rewrote the ledger
+ * file first. Unlike a plain {@link LedgerSaveException} the change is no longer in the ledger: the file's
+ * version was loaded in its place, and undo brings the change back.
+ */
+public class LedgerConflictException extends LedgerSaveException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient ExternalChange change;
+
+    public LedgerConflictException(String message, ExternalChange change) {
+        super(message);
+        this.change = change;
+    }
+
+    /**
+     * @return What loading the file's version changed in the ledger.
+     */
+    public ExternalChange getChange() {
+        return change;
+    }
+}
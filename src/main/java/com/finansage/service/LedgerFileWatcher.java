@@ -0,0 +1,73 @@
+package com.finansage.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches one file with a {@link WatchService} and runs a callback on a virtual thread whenever it is
+ * created or modified. Bursts of events (e.g. a program appending many rows) are coalesced into one
+ * callback once the file has been quiet for {@value #QUIET_PERIOD_MILLIS} ms.
+ * <p>
+ * Changes this program makes itself also trigger the callback, so it must be cheap when nothing
+ * changed externally.
+ */
+class LedgerFileWatcher implements AutoCloseable {
+
+    private static final long QUIET_PERIOD_MILLIS = 100;
+
+    private final WatchService watchService;
+    private final Path fileName;
+    private final Runnable onChange;
+
+    LedgerFileWatcher(Path file, Runnable onChange) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        this.fileName = absolute.getFileName();
+        this.onChange = onChange;
+        this.watchService = absolute.getFileSystem().newWatchService();
+        absolute.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread.ofVirtual().name("ledger-watcher-" + fileName).start(this::run);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!isRelevant(watchService.take())) {
+                    continue;
+                }
+                // Wait for the writer to go quiet before reading
+                WatchKey more;
+                while ((more = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isRelevant(more);
+                }
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error reloading " + fileName + ": " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed: stop watching
+        }
+    }
+
+    private boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return relevant;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
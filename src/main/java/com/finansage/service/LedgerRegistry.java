@@ -0,0 +1,139 @@
+package com.finansage.service;
+
+import com.finansage.model.CategoryReport;
+import com.finansage.model.FinancialSummary;
+import com.finansage.repository.ArchiveRepository;
+import com.finansage.repository.BudgetRepository;
+import com.finansage.repository.ExchangeRateRepository;
+import com.finansage.repository.RecurringRuleRepository;
+import com.finansage.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Holds several independent ledgers (one CSV file and one TransactionService each), for users who
+ * track more than one account. Ledger files are loaded concurrently, and aggregations are fanned out
+ * across the ledgers in parallel and merged into consolidated results.
+ */
+public class LedgerRegistry implements AutoCloseable {
+
+    private final Map<String, TransactionService> ledgers = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Opens the given ledger files, loading them in parallel.
+     * Each ledger is registered under its file name; budgets and archived years are read from the companion
+     * file and directory next to it.
+     */
+    public void openAll(List<String> fileNames) {
+        List<CompletableFuture<TransactionService>> loads = new ArrayList<>();
+        for (String fileName : fileNames) {
+            loads.add(CompletableFuture.supplyAsync(() -> new TransactionService(
+                    new TransactionRepository(fileName), BudgetRepository.forLedger(fileName),
+                    ArchiveRepository.forLedger(fileName), RecurringRuleRepository.forLedger(fileName),
+                    ExchangeRateRepository.forLedger(fileName)), executor));
+        }
+        // Register in the order given, regardless of which load finished first
+        for (int i = 0; i < fileNames.size(); i++) {
+            ledgers.put(fileNames.get(i), loads.get(i).join());
+        }
+    }
+
+    /**
+     * Registers an already constructed ledger under the given name.
+     */
+    public void register(String name, TransactionService ledger) {
+        ledgers.put(name, ledger);
+    }
+
+    public TransactionService getLedger(String name) {
+        TransactionService ledger = ledgers.get(name);
+        if (ledger == null) {
+            throw new IllegalArgumentException("No ledger named " + name);
+        }
+        return ledger;
+    }
+
+    public Set<String> getLedgerNames() {
+        synchronized (ledgers) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(ledgers.keySet()));
+        }
+    }
+
+    /**
+     * @return The summary of each ledger, keyed by ledger name, in the default currency (see
+     * {@link TransactionService#getFinancialSummaryInDefaultCurrency()}), so the ledgers can be added up.
+     * @throws IllegalStateException If a ledger has amounts its rate table cannot convert.
+     */
+    public Map<String, FinancialSummary> getSummaries() {
+        return fanOut(TransactionService::getFinancialSummaryInDefaultCurrency);
+    }
+
+    /**
+     * @return One summary covering every registered ledger, in the default currency.
+     * @throws IllegalStateException If a ledger has amounts its rate table cannot convert.
+     */
+    public FinancialSummary getConsolidatedSummary() {
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        for (FinancialSummary summary : getSummaries().values()) {
+            income = income.add(summary.totalIncome());
+            expenses = expenses.add(summary.totalExpenses());
+        }
+        return new FinancialSummary(income, expenses, income.subtract(expenses));
+    }
+
+    /**
+     * @return The category report of each ledger, keyed by ledger name, in the default currency.
+     * @throws IllegalStateException If a ledger has amounts its rate table cannot convert.
+     */
+    public Map<String, CategoryReport> getCategoryReports() {
+        return fanOut(TransactionService::getCategoryReportInDefaultCurrency);
+    }
+
+    /**
+     * @return One category report covering every registered ledger, in the default currency.
+     * @throws IllegalStateException If a ledger has amounts its rate table cannot convert.
+     */
+    public CategoryReport getConsolidatedCategoryReport() {
+        return getCategoryReports().values().stream()
+                .reduce(CategoryReport.empty(), CategoryReport::merge);
+    }
+
+    /**
+     * Runs {@code query} against every ledger in parallel and collects the results in registration order.
+     */
+    private <T> Map<String, T> fanOut(Function<TransactionService, T> query) {
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        synchronized (ledgers) {
+            ledgers.forEach((name, ledger) -> futures.put(name, CompletableFuture.supplyAsync(() -> query.apply(ledger), executor)));
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        futures.forEach((name, future) -> {
+            try {
+                results.put(name, future.join());
+            } catch (CompletionException e) {
+                // Rethrow what the ledger threw, as calling it directly would have
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        });
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
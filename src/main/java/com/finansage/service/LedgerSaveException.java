@@ -0,0 +1,13 @@
+package com.finansage.service;
+
+/**
+ * Thrown by a change to the ledger that was made in memory but could not be saved to the ledger file,
+ * e.g. because the disk is full. The change stays in the ledger and is saved along with the next one.
+ */
+public class LedgerSaveException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LedgerSaveException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,136 @@
+package com.finansage.service;
+
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionId;
+import com.finansage.util.PersistentTreeMap;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable version of a ledger. Transactions are held in persistent trees (in insertion order,
+ * and by their compact ID), so producing the next version after a change costs O(log n) and shares everything else
+ * with the previous version. Handing a snapshot to a reader is O(1) and it never changes underneath them.
+ */
+public final class LedgerSnapshot {
+
+    private static final LedgerSnapshot EMPTY =
+            new LedgerSnapshot(PersistentTreeMap.empty(), PersistentTreeMap.empty(), 0, 0);
+
+    private final PersistentTreeMap<Long, Transaction> rows;
+    private final PersistentTreeMap<TransactionId, Long> sequenceById;
+    private final long nextSequence;
+    private final long version;
+
+    private LedgerSnapshot(PersistentTreeMap<Long, Transaction> rows, PersistentTreeMap<TransactionId, Long> sequenceById,
+                           long nextSequence, long version) {
+        this.rows = rows;
+        this.sequenceById = sequenceById;
+        this.nextSequence = nextSequence;
+        this.version = version;
+    }
+
+    static LedgerSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return A number that increases with every change to the ledger.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * Looks up a transaction in O(log n).
+     */
+    public Optional<Transaction> findById(String id) {
+        return findById(TransactionId.of(id));
+    }
+
+    public Optional<Transaction> findById(TransactionId id) {
+        Long sequence = id == null ? null : sequenceById.get(id);
+        return sequence == null ? Optional.empty() : Optional.ofNullable(rows.get(sequence));
+    }
+
+    /**
+     * @return A read-only list view of the transactions in insertion order. Creating the view is O(1);
+     * {@code get(i)} is O(log n) and iteration is O(1) per element.
+     */
+    public List<Transaction> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Transaction get(int index) {
+                return rows.getByIndex(index);
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+
+            @Override
+            public Iterator<Transaction> iterator() {
+                return rows.iterator();
+            }
+        };
+    }
+
+    public Stream<Transaction> stream() {
+        return StreamSupport.stream(rows.spliterator(), false);
+    }
+
+    // --- Producing new versions ---
+
+    /**
+     * Appends a transaction.
+     * @throws IllegalArgumentException If the ledger already has a transaction with the same ID; adding it
+     * would leave the older row counted in totals but unreachable by ID.
+     */
+    LedgerSnapshot add(Transaction transaction) {
+        if (transaction.getTransactionId() != null && sequenceById.containsKey(transaction.getTransactionId())) {
+            throw new IllegalArgumentException("A transaction with ID " + transaction.getId() + " already exists");
+        }
+        long sequence = nextSequence;
+        return new LedgerSnapshot(rows.put(sequence, transaction),
+                sequenceById.put(transaction.getTransactionId(), sequence), nextSequence + 1, version + 1);
+    }
+
+    /**
+     * Replaces the transaction with the same ID, keeping its position.
+     */
+    LedgerSnapshot replace(Transaction transaction) {
+        Long sequence = sequenceById.get(transaction.getTransactionId());
+        if (sequence == null) {
+            throw new IllegalArgumentException("No transaction with ID " + transaction.getId());
+        }
+        return new LedgerSnapshot(rows.put(sequence, transaction), sequenceById, nextSequence, version + 1);
+    }
+
+    /**
+     * @return This ledger's contents under a different version number (used when undo/redo restores an older version).
+     */
+    LedgerSnapshot withVersion(long newVersion) {
+        return new LedgerSnapshot(rows, sequenceById, nextSequence, newVersion);
+    }
+
+    LedgerSnapshot remove(TransactionId id) {
+        Long sequence = id == null ? null : sequenceById.get(id);
+        if (sequence == null) {
+            return this;
+        }
+        return new LedgerSnapshot(rows.remove(sequence), sequenceById.remove(id), nextSequence, version + 1);
+    }
+}
@@ -0,0 +1,264 @@
+package com.finansage.service;
+
+import com.finansage.model.CategoryDictionary;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.ExportFormat;
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionFilter;
+import com.finansage.model.TransactionId;
+import com.finansage.model.TransactionType;
+import com.finansage.repository.OffHeapTransactionStore;
+import com.finansage.repository.TransactionExporter;
+import com.finansage.repository.TransactionRepository;
+import com.finansage.repository.TransactionView;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The off-heap storage mode for ledgers too large for {@link TransactionService}: rows are kept in an
+ * {@link OffHeapTransactionStore}, so the heap stays small however many rows there are, and scans read
+ * records through a single flyweight instead of objects.
+ * <p>
+ * It supports lookups, adding, updating and deleting rows, filtered scans, reports and export. Undo,
+ * change events, balance and budget indexes are only available in the regular mode, because they keep
+ * per-transaction state on the heap. Changes are written to the ledger file by {@link #save()} rather
+ * than after every mutation. All methods are thread-safe.
+ */
+public final class OffHeapLedger implements AutoCloseable {
+
+    private final TransactionRepository transactionRepository;
+    private final OffHeapTransactionStore store;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TransactionExporter transactionExporter = new TransactionExporter();
+
+    private OffHeapLedger(TransactionRepository transactionRepository, OffHeapTransactionStore store) {
+        this.transactionRepository = transactionRepository;
+        this.store = store;
+        transactionRepository.loadInto(store);
+    }
+
+    /**
+     * Loads the ledger into direct memory.
+     */
+    public static OffHeapLedger open(TransactionRepository transactionRepository) {
+        return new OffHeapLedger(transactionRepository, new OffHeapTransactionStore());
+    }
+
+    /**
+     * Loads the ledger into memory-mapped files in {@code storageDirectory}, for ledgers larger than RAM.
+     */
+    public static OffHeapLedger open(TransactionRepository transactionRepository, Path storageDirectory) throws IOException {
+        return new OffHeapLedger(transactionRepository, new OffHeapTransactionStore(storageDirectory));
+    }
+
+    public int size() {
+        return read(store::size);
+    }
+
+    public Optional<Transaction> findTransactionById(String id) {
+        return read(() -> {
+            int row = store.findRow(TransactionId.of(id));
+            return row < 0 ? Optional.empty() : Optional.of(store.view().moveTo(row).toTransaction());
+        });
+    }
+
+    /**
+     * @throws IllegalArgumentException If the ledger already has a transaction with the same ID.
+     */
+    public void addTransaction(Transaction transaction) {
+        write(() -> {
+            if (store.findRow(transaction.getTransactionId()) >= 0) {
+                throw new IllegalArgumentException("Transaction already in the ledger: " + transaction.getId());
+            }
+            return store.append(transaction);
+        });
+    }
+
+    public boolean updateTransaction(Transaction transaction) {
+        return write(() -> {
+            int row = store.findRow(transaction.getTransactionId());
+            if (row < 0) {
+                return false;
+            }
+            store.update(row, transaction);
+            return true;
+        });
+    }
+
+    public boolean deleteTransaction(String id) {
+        return write(() -> {
+            int row = store.findRow(TransactionId.of(id));
+            if (row < 0) {
+                return false;
+            }
+            store.delete(row);
+            return true;
+        });
+    }
+
+    /**
+     * Writes all live rows to the ledger file, streaming them from off-heap storage.
+     * @return false if the file could not be written (see {@link TransactionRepository#saveTransactions}).
+     */
+    public boolean save() {
+        return read(() -> transactionRepository.saveTransactions(() -> transactions(TransactionFilter.ALL).iterator()));
+    }
+
+    /**
+     * Visits every live row matching the filter. The view passed to {@code action} is reused between
+     * rows, so it must not be kept; call {@link TransactionView#toTransaction()} to keep a row.
+     */
+    public void forEach(TransactionFilter filter, Consumer<TransactionView> action) {
+        read(() -> {
+            TransactionView view = store.view();
+            for (int row = 0; row < store.rowCount(); row++) {
+                view.moveTo(row);
+                if (!view.isDeleted() && matches(filter, view)) {
+                    action.accept(view);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return Income and expense totals across the ledger. Amounts in different currencies are added up
+     * unconverted, as this mode has no rate table; see {@link #getFinancialSummariesByCurrency()}.
+     */
+    public FinancialSummary getFinancialSummary() {
+        AmountSum income = new AmountSum();
+        AmountSum expenses = new AmountSum();
+        forEach(TransactionFilter.ALL, view -> (view.type() == TransactionType.INCOME ? income : expenses).add(view));
+        return new FinancialSummary(income.total(), expenses.total(), income.total().subtract(expenses.total()));
+    }
+
+    /**
+     * @return Income and expense totals for each currency the ledger's amounts are in, by currency code.
+     */
+    public Map<Currency, FinancialSummary> getFinancialSummariesByCurrency() {
+        Map<Currency, AmountSum[]> sums = new HashMap<>();
+        forEach(TransactionFilter.ALL, view -> sums.computeIfAbsent(view.currency(), c -> new AmountSum[]{new AmountSum(), new AmountSum()})
+                [view.type() == TransactionType.INCOME ? 0 : 1].add(view));
+        Map<Currency, FinancialSummary> summaries = new TreeMap<>(Comparator.comparing(Currency::getCurrencyCode));
+        sums.forEach((currency, sum) -> summaries.put(currency,
+                new FinancialSummary(sum[0].total(), sum[1].total(), sum[0].total().subtract(sum[1].total()))));
+        return summaries;
+    }
+
+    /**
+     * @return Income and expense totals per category, unconverted like {@link #getFinancialSummary()}.
+     */
+    public CategoryReport getCategoryReport() {
+        Map<Integer, AmountSum> income = new HashMap<>();
+        Map<Integer, AmountSum> expenses = new HashMap<>();
+        forEach(TransactionFilter.ALL, view ->
+                (view.type() == TransactionType.INCOME ? income : expenses).computeIfAbsent(view.categoryId(), id -> new AmountSum()).add(view));
+        CategoryReport report = CategoryReport.empty();
+        income.forEach((id, sum) -> report.incomeByCategory().put(CategoryDictionary.nameOf(id), sum.total()));
+        expenses.forEach((id, sum) -> report.expensesByCategory().put(CategoryDictionary.nameOf(id), sum.total()));
+        return report;
+    }
+
+    /**
+     * Streams the matching rows to a file; see {@link TransactionService#exportTransactions}.
+     */
+    public long exportTransactions(TransactionFilter filter, ExportFormat format, Path target) throws IOException {
+        lock.readLock().lock();
+        try {
+            return transactionExporter.export(() -> transactions(filter), format, target);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            store.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Materializes matching rows one at a time, so only the row being processed is on the heap.
+     */
+    private Stream<Transaction> transactions(TransactionFilter filter) {
+        TransactionView view = store.view();
+        return IntStream.range(0, store.rowCount())
+                .mapToObj(view::moveTo)
+                .filter(row -> !row.isDeleted() && matches(filter, row))
+                .map(TransactionView::toTransaction);
+    }
+
+    private static boolean matches(TransactionFilter filter, TransactionView view) {
+        return (filter.from() == null || view.epochDay() >= filter.from().toEpochDay())
+                && (filter.to() == null || view.epochDay() <= filter.to().toEpochDay())
+                && (filter.category() == null || filter.category().equalsIgnoreCase(view.category()))
+                && (filter.type() == null || filter.type() == view.type());
+    }
+
+    /**
+     * Sums amounts as longs per scale, folding a running sum into BigDecimal only when it would
+     * overflow, so summing millions of rows allocates almost nothing.
+     */
+    private static final class AmountSum {
+        private final Map<Integer, long[]> byScale = new HashMap<>(4);
+        private BigDecimal overflow = BigDecimal.ZERO;
+
+        void add(TransactionView view) {
+            int scale = view.amountScale();
+            long[] sum = byScale.computeIfAbsent(scale, s -> new long[1]);
+            long value = view.unscaledAmount();
+            long result = sum[0] + value;
+            if (((sum[0] ^ result) & (value ^ result)) < 0) {
+                overflow = overflow.add(BigDecimal.valueOf(sum[0], scale));
+                result = value;
+            }
+            sum[0] = result;
+        }
+
+        BigDecimal total() {
+            BigDecimal total = overflow;
+            for (Map.Entry<Integer, long[]> entry : byScale.entrySet()) {
+                total = total.add(BigDecimal.valueOf(entry.getValue()[0], entry.getKey()));
+            }
+            return total;
+        }
+    }
+
+    // --- Locking ---
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
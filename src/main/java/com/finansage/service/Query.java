@@ -0,0 +1,264 @@
+package com.finansage.service;
+
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionId;
+import com.finansage.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A parsed and compiled ledger query, such as {@code category=Food and amount>50 and date>=2025-01}.
+ * <p>
+ * Grammar (keywords are case-insensitive):
+ * <pre>
+ *   query      := or
+ *   or         := and ("or" and)*
+ *   and        := unary ("and" unary)*
+ *   unary      := "not" unary | "(" or ")" | comparison
+ *   comparison := field op value
+ *   field      := date | amount | category | description | type | id
+ *   op         := "=" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=" | "~" (contains, case-insensitive)
+ *   value      := word | "quoted string"
+ * </pre>
+ * Dates may be a day ({@code 2025-01-15}), a month ({@code 2025-01}) or a year ({@code 2025}); a month or
+ * year stands for all its days, so {@code date=2025-01} is all of January and {@code date>2025-01} starts
+ * in February. Text comparisons ignore case. An empty query matches everything.
+ * <p>
+ * Each comparison is compiled once into a predicate specialized for its field and operator (dates become
+ * epoch-day bounds, amounts a BigDecimal, text a case-insensitive region match), so matching does no parsing.
+ */
+public final class Query {
+
+    enum Field {
+        DATE, AMOUNT, CATEGORY, DESCRIPTION, TYPE, ID
+    }
+
+    enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">="), CONTAINS("~");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * The syntax tree. Planning looks at the top-level conjunction; matching uses the compiled predicate.
+     */
+    sealed interface Node {
+    }
+
+    record And(List<Node> terms) implements Node {
+    }
+
+    record Or(List<Node> terms) implements Node {
+    }
+
+    record Not(Node term) implements Node {
+    }
+
+    /**
+     * @param low  For DATE: the first epoch day the value covers. Unused otherwise.
+     * @param high For DATE: the last epoch day the value covers. Unused otherwise.
+     */
+    record Comparison(Field field, Op op, String value, long low, long high) implements Node {
+    }
+
+    private static final Query ALL = new Query(null, transaction -> true);
+
+    private final Node root; // null for the empty query
+    private final Predicate<Transaction> predicate;
+
+    private Query(Node root, Predicate<Transaction> predicate) {
+        this.root = root;
+        this.predicate = predicate;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the query is not valid; the message gives the position and the problem.
+     */
+    public static Query parse(String text) {
+        if (text == null || text.isBlank()) {
+            return ALL;
+        }
+        Node root = new QueryParser(text).parse();
+        return new Query(root, compile(root));
+    }
+
+    public boolean matches(Transaction transaction) {
+        return predicate.test(transaction);
+    }
+
+    /**
+     * @return The comparisons that every match must satisfy (the terms of a top-level "and"), which is
+     * what the planner can serve from an index. Empty for the empty query or a top-level "or".
+     */
+    List<Comparison> requiredComparisons() {
+        if (root instanceof Comparison comparison) {
+            return List.of(comparison);
+        }
+        if (root instanceof And and) {
+            return and.terms().stream()
+                    .filter(Comparison.class::isInstance)
+                    .map(Comparison.class::cast)
+                    .toList();
+        }
+        return List.of();
+    }
+
+    /**
+     * @return true for the empty query, which matches everything.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public String toString() {
+        return root == null ? "(all)" : describe(root);
+    }
+
+    static String describe(Node node) {
+        return switch (node) {
+            case And and -> String.join(" and ", and.terms().stream().map(Query::describeNested).toList());
+            case Or or -> String.join(" or ", or.terms().stream().map(Query::describeNested).toList());
+            case Not not -> "not " + describeNested(not.term());
+            case Comparison c -> c.field().name().toLowerCase(Locale.ROOT) + " " + c.op().symbol + " "
+                    + (c.field() == Field.AMOUNT || c.field() == Field.DATE ? c.value() : "'" + c.value() + "'");
+        };
+    }
+
+    private static String describeNested(Node node) {
+        return node instanceof Comparison || node instanceof Not ? describe(node) : "(" + describe(node) + ")";
+    }
+
+    // --- Compilation ---
+
+    private static Predicate<Transaction> compile(Node node) {
+        return switch (node) {
+            case And and -> {
+                List<Predicate<Transaction>> terms = and.terms().stream().map(Query::compile).toList();
+                yield transaction -> {
+                    for (Predicate<Transaction> term : terms) {
+                        if (!term.test(transaction)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+            }
+            case Or or -> {
+                List<Predicate<Transaction>> terms = or.terms().stream().map(Query::compile).toList();
+                yield transaction -> {
+                    for (Predicate<Transaction> term : terms) {
+                        if (term.test(transaction)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            }
+            case Not not -> compile(not.term()).negate();
+            case Comparison comparison -> compile(comparison);
+        };
+    }
+
+    private static Predicate<Transaction> compile(Comparison c) {
+        return switch (c.field()) {
+            case DATE -> {
+                long low = c.low();
+                long high = c.high();
+                yield switch (c.op()) {
+                    case EQ -> t -> t.getDate().toEpochDay() >= low && t.getDate().toEpochDay() <= high;
+                    case NE -> t -> t.getDate().toEpochDay() < low || t.getDate().toEpochDay() > high;
+                    case LT -> t -> t.getDate().toEpochDay() < low;
+                    case LE -> t -> t.getDate().toEpochDay() <= high;
+                    case GT -> t -> t.getDate().toEpochDay() > high;
+                    case GE -> t -> t.getDate().toEpochDay() >= low;
+                    case CONTAINS -> throw new IllegalStateException();
+                };
+            }
+            case AMOUNT -> {
+                BigDecimal value = new BigDecimal(c.value());
+                yield switch (c.op()) {
+                    case EQ -> t -> t.getAmount().compareTo(value) == 0;
+                    case NE -> t -> t.getAmount().compareTo(value) != 0;
+                    case LT -> t -> t.getAmount().compareTo(value) < 0;
+                    case LE -> t -> t.getAmount().compareTo(value) <= 0;
+                    case GT -> t -> t.getAmount().compareTo(value) > 0;
+                    case GE -> t -> t.getAmount().compareTo(value) >= 0;
+                    case CONTAINS -> throw new IllegalStateException();
+                };
+            }
+            case CATEGORY -> text(c.op(), c.value(), Transaction::getCategory);
+            case DESCRIPTION -> text(c.op(), c.value(), Transaction::getDescription);
+            case TYPE -> {
+                TransactionType type = TransactionType.valueOf(c.value().toUpperCase(Locale.ROOT));
+                yield c.op() == Op.EQ ? t -> t.getType() == type : t -> t.getType() != type;
+            }
+            case ID -> {
+                TransactionId id = TransactionId.of(c.value());
+                yield c.op() == Op.EQ ? t -> id.equals(t.getTransactionId()) : t -> !id.equals(t.getTransactionId());
+            }
+        };
+    }
+
+    private static Predicate<Transaction> text(Op op, String value, Function<Transaction, String> field) {
+        return switch (op) {
+            case EQ -> t -> value.equalsIgnoreCase(field.apply(t));
+            case NE -> t -> !value.equalsIgnoreCase(field.apply(t));
+            case CONTAINS -> t -> containsIgnoreCase(field.apply(t), value);
+            default -> throw new IllegalStateException();
+        };
+    }
+
+    /**
+     * Case-insensitive substring test without lower-casing (and so copying) the haystack.
+     */
+    private static boolean containsIgnoreCase(String haystack, String needle) {
+        if (haystack == null) {
+            return false;
+        }
+        for (int i = 0; i + needle.length() <= haystack.length(); i++) {
+            if (haystack.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves a day, month or year to the range of epoch days it covers.
+     * @return {first, last}, or null if the text is not a date.
+     */
+    static long[] dateRange(String text) {
+        try {
+            return switch (text.length()) {
+                case 4 -> {
+                    Year year = Year.parse(text);
+                    yield new long[]{year.atDay(1).toEpochDay(), year.atMonth(12).atEndOfMonth().toEpochDay()};
+                }
+                case 7 -> {
+                    YearMonth month = YearMonth.parse(text);
+                    yield new long[]{month.atDay(1).toEpochDay(), month.atEndOfMonth().toEpochDay()};
+                }
+                case 10 -> {
+                    long day = LocalDate.parse(text).toEpochDay();
+                    yield new long[]{day, day};
+                }
+                default -> null;
+            };
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
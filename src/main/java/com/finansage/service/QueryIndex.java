@@ -0,0 +1,214 @@
+package com.finansage.service;
+
+import com.finansage.model.CategoryDictionary;
+import com.finansage.model.QueryResult;
+import com.finansage.model.Transaction;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes for {@link Query}: transactions by day, and by category and day. Both are updated
+ * incrementally on each mutation, and {@link #execute} plans each query against them.
+ * <p>
+ * The planner looks at the comparisons every match must satisfy (the top-level "and"), estimates how many
+ * rows each usable access path would produce (an ID lookup, a category's days within a date range, a date
+ * range, a category, or a full scan) and takes the smallest. The full query is then evaluated on just those
+ * rows, so a plan only ever narrows the rows examined and never changes the result.
+ */
+class QueryIndex {
+
+    private static final Comparator<Transaction> BY_DATE = Comparator.comparing(Transaction::getDate);
+
+    private final TreeMap<Long, List<Transaction>> byDay = new TreeMap<>();
+    private final Map<Integer, TreeMap<Long, List<Transaction>>> byCategoryAndDay = new HashMap<>();
+    private final Map<Integer, int[]> categoryCounts = new HashMap<>();
+
+    void add(Transaction transaction) {
+        long day = transaction.getDate().toEpochDay();
+        byDay.computeIfAbsent(day, d -> new ArrayList<>(2)).add(transaction);
+        byCategoryAndDay.computeIfAbsent(transaction.getCategoryId(), id -> new TreeMap<>())
+                .computeIfAbsent(day, d -> new ArrayList<>(2)).add(transaction);
+        categoryCounts.computeIfAbsent(transaction.getCategoryId(), id -> new int[1])[0]++;
+    }
+
+    void remove(Transaction transaction) {
+        long day = transaction.getDate().toEpochDay();
+        removeFrom(byDay, day, transaction);
+        TreeMap<Long, List<Transaction>> days = byCategoryAndDay.get(transaction.getCategoryId());
+        if (days != null) {
+            removeFrom(days, day, transaction);
+            if (days.isEmpty()) {
+                byCategoryAndDay.remove(transaction.getCategoryId());
+            }
+        }
+        int[] count = categoryCounts.get(transaction.getCategoryId());
+        if (count != null && --count[0] == 0) {
+            categoryCounts.remove(transaction.getCategoryId());
+        }
+    }
+
+    private static void removeFrom(TreeMap<Long, List<Transaction>> days, long day, Transaction transaction) {
+        List<Transaction> rows = days.get(day);
+        if (rows != null) {
+            // Transactions compare by identity, and a day holds few of them
+            rows.remove(transaction);
+            if (rows.isEmpty()) {
+                days.remove(day);
+            }
+        }
+    }
+
+    // --- Planning and execution ---
+
+    /**
+     * One candidate access path and the number of rows it would produce.
+     */
+    private record Plan(String description, long estimate, Runnable collect) {
+    }
+
+    /**
+     * Plans and runs a query against the ledger these indexes describe. Must hold at least the read lock,
+     * so the snapshot and the indexes agree.
+     */
+    QueryResult execute(Query query, LedgerSnapshot snapshot) {
+        long started = System.nanoTime();
+        List<Transaction> candidates = new ArrayList<>();
+
+        String idValue = null;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        List<String> categories = new ArrayList<>();
+        for (Query.Comparison comparison : query.requiredComparisons()) {
+            switch (comparison.field()) {
+                case ID -> {
+                    if (comparison.op() == Query.Op.EQ) {
+                        idValue = comparison.value();
+                    }
+                }
+                case DATE -> {
+                    switch (comparison.op()) {
+                        case EQ -> {
+                            from = Math.max(from, comparison.low());
+                            to = Math.min(to, comparison.high());
+                        }
+                        case LT -> to = Math.min(to, comparison.low() - 1);
+                        case LE -> to = Math.min(to, comparison.high());
+                        case GT -> from = Math.max(from, comparison.high() + 1);
+                        case GE -> from = Math.max(from, comparison.low());
+                        default -> {
+                        }
+                    }
+                }
+                case CATEGORY -> {
+                    if (comparison.op() == Query.Op.EQ) {
+                        categories.add(comparison.value());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        List<Plan> plans = new ArrayList<>();
+        plans.add(new Plan("Scan: all " + snapshot.size() + " transactions", snapshot.size(),
+                () -> snapshot.stream().forEach(candidates::add)));
+        if (idValue != null) {
+            String id = idValue;
+            plans.add(new Plan("Index: id = '" + id + "'", 1,
+                    () -> snapshot.findById(id).ifPresent(candidates::add)));
+        }
+        boolean dateBounded = from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+        if (dateBounded) {
+            NavigableMap<Long, List<Transaction>> days = range(byDay, from, to);
+            plans.add(new Plan("Index: date " + describeRange(from, to), count(days),
+                    () -> days.values().forEach(candidates::addAll)));
+        }
+        if (!categories.isEmpty()) {
+            List<Integer> ids = categoryIds(categories);
+            String names = "category '" + categories.getFirst() + "'";
+            long inCategory = ids.stream().mapToLong(id -> categoryCounts.get(id)[0]).sum();
+            plans.add(new Plan("Index: " + names, inCategory,
+                    () -> ids.forEach(id -> byCategoryAndDay.get(id).values().forEach(candidates::addAll))));
+            if (dateBounded) {
+                List<NavigableMap<Long, List<Transaction>>> ranges = new ArrayList<>();
+                for (Integer id : ids) {
+                    ranges.add(range(byCategoryAndDay.get(id), from, to));
+                }
+                long estimate = ranges.stream().mapToLong(QueryIndex::count).sum();
+                plans.add(new Plan("Index: " + names + ", date " + describeRange(from, to), estimate,
+                        () -> ranges.forEach(days -> days.values().forEach(candidates::addAll))));
+            }
+        }
+
+        Plan chosen = plans.getFirst();
+        for (Plan plan : plans) {
+            if (plan.estimate() < chosen.estimate()) {
+                chosen = plan;
+            }
+        }
+        chosen.collect().run();
+
+        List<Transaction> matches = new ArrayList<>();
+        for (Transaction candidate : candidates) {
+            if (query.matches(candidate)) {
+                matches.add(candidate);
+            }
+        }
+        matches.sort(BY_DATE); // stable, and already sorted for the date-ordered index paths
+
+        String plan = chosen.description() + " (" + chosen.estimate() + " of " + snapshot.size() + " rows)"
+                + System.lineSeparator() + "Filter: " + query;
+        return new QueryResult(List.copyOf(matches), plan, candidates.size(),
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * @return The IDs of the categories present in the ledger that equal every given name, ignoring case,
+     * plus {@link CategoryDictionary#UNLISTED} if present, since its transactions can be in any category.
+     */
+    private List<Integer> categoryIds(List<String> names) {
+        List<Integer> ids = new ArrayList<>();
+        for (Integer id : byCategoryAndDay.keySet()) {
+            String category = CategoryDictionary.nameOf(id);
+            if (id == CategoryDictionary.UNLISTED
+                    || category != null && names.stream().allMatch(category::equalsIgnoreCase)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return The transactions dated in {@code from..to} inclusive, in date order.
+     */
+    List<Transaction> between(LocalDate from, LocalDate to) {
+        List<Transaction> rows = new ArrayList<>();
+        range(byDay, from.toEpochDay(), to.toEpochDay()).values().forEach(rows::addAll);
+        return rows;
+    }
+
+    private static NavigableMap<Long, List<Transaction>> range(TreeMap<Long, List<Transaction>> days, long from, long to) {
+        return from > to ? new TreeMap<>() : days.subMap(from, true, to, true);
+    }
+
+    private static long count(NavigableMap<Long, List<Transaction>> days) {
+        long count = 0;
+        for (List<Transaction> rows : days.values()) {
+            count += rows.size();
+        }
+        return count;
+    }
+
+    private static String describeRange(long from, long to) {
+        return (from == Long.MIN_VALUE ? "..." : LocalDate.ofEpochDay(from).toString())
+                + " to " + (to == Long.MAX_VALUE ? "..." : LocalDate.ofEpochDay(to).toString());
+    }
+}
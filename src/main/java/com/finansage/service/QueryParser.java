@@ -0,0 +1,223 @@
+package com.finansage.service;
+
+import com.finansage.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A recursive-descent parser for the {@link Query} language. Values are validated while parsing, so a
+ * query that parses always compiles.
+ */
+class QueryParser {
+    private final String text;
+    private int position;
+
+    QueryParser(String text) {
+        this.text = text;
+    }
+
+    Query.Node parse() {
+        Query.Node node = parseOr();
+        skipSpaces();
+        if (position < text.length()) {
+            throw error("Unexpected '" + text.substring(position) + "'");
+        }
+        return node;
+    }
+
+    private Query.Node parseOr() {
+        List<Query.Node> terms = new ArrayList<>();
+        terms.add(parseAnd());
+        while (keyword("or")) {
+            terms.add(parseAnd());
+        }
+        return terms.size() == 1 ? terms.getFirst() : new Query.Or(List.copyOf(terms));
+    }
+
+    private Query.Node parseAnd() {
+        List<Query.Node> terms = new ArrayList<>();
+        terms.add(parseUnary());
+        while (keyword("and")) {
+            terms.add(parseUnary());
+        }
+        return terms.size() == 1 ? terms.getFirst() : new Query.And(List.copyOf(terms));
+    }
+
+    private Query.Node parseUnary() {
+        if (keyword("not")) {
+            return new Query.Not(parseUnary());
+        }
+        skipSpaces();
+        if (peek() == '(') {
+            position++;
+            Query.Node inner = parseOr();
+            skipSpaces();
+            if (peek() != ')') {
+                throw error("Expected ')'");
+            }
+            position++;
+            return inner;
+        }
+        return parseComparison();
+    }
+
+    private Query.Node parseComparison() {
+        int fieldStart = skipSpaces();
+        String name = word();
+        if (name.isEmpty()) {
+            throw error("Expected a field (date, amount, category, description, type or id)");
+        }
+        Query.Field field;
+        try {
+            field = Query.Field.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            position = fieldStart;
+            throw error("Unknown field '" + name + "'");
+        }
+
+        skipSpaces();
+        Query.Op op = operator();
+        if (op == null) {
+            throw error("Expected an operator (=, !=, <, <=, >, >=, ~) after '" + name + "'");
+        }
+        int valueStart = skipSpaces();
+        String value = peek() == '"' ? quoted() : word();
+        if (value.isEmpty()) {
+            throw error("Expected a value after '" + name + " " + op.symbol + "'");
+        }
+        position = validate(field, op, value, valueStart);
+
+        long low = 0;
+        long high = 0;
+        if (field == Query.Field.DATE) {
+            long[] range = Query.dateRange(value);
+            low = range[0];
+            high = range[1];
+        }
+        return new Query.Comparison(field, op, value, low, high);
+    }
+
+    /**
+     * @return The position after the value, or throws if the value or operator does not suit the field.
+     */
+    private int validate(Query.Field field, Query.Op op, String value, int valueStart) {
+        int end = position;
+        position = valueStart;
+        boolean ordered = op != Query.Op.EQ && op != Query.Op.NE && op != Query.Op.CONTAINS;
+        switch (field) {
+            case DATE -> {
+                if (op == Query.Op.CONTAINS) {
+                    throw error("'~' only applies to category and description");
+                }
+                if (Query.dateRange(value) == null) {
+                    throw error("Invalid date '" + value + "' (use YYYY, YYYY-MM or YYYY-MM-DD)");
+                }
+            }
+            case AMOUNT -> {
+                if (op == Query.Op.CONTAINS) {
+                    throw error("'~' only applies to category and description");
+                }
+                try {
+                    new BigDecimal(value);
+                } catch (NumberFormatException e) {
+                    throw error("Invalid amount '" + value + "'");
+                }
+            }
+            case CATEGORY, DESCRIPTION -> {
+                if (ordered) {
+                    throw error("Only =, != and ~ apply to " + field.name().toLowerCase(Locale.ROOT));
+                }
+            }
+            case TYPE -> {
+                if (ordered || op == Query.Op.CONTAINS) {
+                    throw error("Only = and != apply to type");
+                }
+                try {
+                    TransactionType.valueOf(value.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw error("Invalid type '" + value + "' (use income or expense)");
+                }
+            }
+            case ID -> {
+                if (ordered || op == Query.Op.CONTAINS) {
+                    throw error("Only = and != apply to id");
+                }
+            }
+        }
+        return end;
+    }
+
+    private Query.Op operator() {
+        char first = peek();
+        char second = position + 1 < text.length() ? text.charAt(position + 1) : 0;
+        Query.Op op = switch (first) {
+            case '=' -> Query.Op.EQ;
+            case '~' -> Query.Op.CONTAINS;
+            case '!' -> second == '=' ? Query.Op.NE : null;
+            case '<' -> second == '=' ? Query.Op.LE : Query.Op.LT;
+            case '>' -> second == '=' ? Query.Op.GE : Query.Op.GT;
+            default -> null;
+        };
+        if (op != null) {
+            position += op.symbol.length();
+        }
+        return op;
+    }
+
+    private boolean keyword(String keyword) {
+        int start = skipSpaces();
+        String word = word();
+        if (word.equalsIgnoreCase(keyword)) {
+            return true;
+        }
+        position = start;
+        return false;
+    }
+
+    private String word() {
+        int start = position;
+        while (position < text.length() && isWordChar(text.charAt(position))) {
+            position++;
+        }
+        return text.substring(start, position);
+    }
+
+    private String quoted() {
+        position++; // opening quote
+        StringBuilder value = new StringBuilder();
+        while (position < text.length() && text.charAt(position) != '"') {
+            char c = text.charAt(position++);
+            if (c == '\\' && position < text.length()) {
+                c = text.charAt(position++);
+            }
+            value.append(c);
+        }
+        if (position >= text.length()) {
+            throw error("Unterminated quoted value");
+        }
+        position++; // closing quote
+        return value.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return !Character.isWhitespace(c) && "()=!<>~\"".indexOf(c) < 0;
+    }
+
+    private int skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (position + 1));
+    }
+}
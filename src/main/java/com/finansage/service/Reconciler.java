@@ -0,0 +1,210 @@
+package com.finansage.service;
+
+import com.finansage.model.ReconciliationReport;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Pairs the rows of a bank statement with ledger transactions. A statement row and a ledger transaction
+ * can pair up if they have the same type, currency and amount, are dated at most {@code windowDays} apart
+ * and have descriptions at least {@code minSimilarity} alike.
+ * <p>
+ * The ledger side is hashed once on (type, currency, amount, date bucket), with buckets
+ * {@code windowDays + 1} days wide, so each statement row probes its own bucket and the two beside it
+ * instead of scanning the ledger. The cost is O(statement + ledger) rather than O(statement * ledger).
+ * Candidate pairs are then taken best first (most alike descriptions, then closest dates, then file order),
+ * and each row on either side is used at most once.
+ */
+class Reconciler {
+
+    /**
+     * The hash join key. Amounts are stripped of trailing zeros so that 12.5 and 12.50 meet.
+     */
+    private record Key(TransactionType type, Currency currency, BigDecimal amount, long bucket) {
+    }
+
+    private record Candidate(int statementIndex, int ledgerIndex, double similarity, int dayOffset) {
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingDouble(Candidate::similarity).reversed()
+            .thenComparingInt(candidate -> Math.abs(candidate.dayOffset()))
+            .thenComparingInt(Candidate::statementIndex)
+            .thenComparingInt(Candidate::ledgerIndex);
+
+    // Ten years is wider than any statement needs, and keeps the widened period a valid date range
+    static final int MAX_WINDOW_DAYS = 3660;
+
+    private final int windowDays;
+    private final double minSimilarity;
+    // Descriptions repeat a lot on both sides, so each is broken into bigrams once
+    private final Map<String, int[]> bigramCache = new HashMap<>();
+
+    /**
+     * @throws IllegalArgumentException If the window is negative or longer than {@value #MAX_WINDOW_DAYS} days,
+     * or the similarity is not between 0 and 1.
+     */
+    Reconciler(int windowDays, double minSimilarity) {
+        if (windowDays < 0 || windowDays > MAX_WINDOW_DAYS || !(minSimilarity >= 0 && minSimilarity <= 1)) {
+            throw new IllegalArgumentException("Invalid reconciliation settings: window " + windowDays
+                    + " days, minimum similarity " + minSimilarity);
+        }
+        this.windowDays = windowDays;
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * @param statement The statement's rows.
+     * @param ledgerBetween Returns the ledger transactions dated in a range (inclusive). Called once, for the
+     *                      statement's period widened by the window on both sides.
+     */
+    ReconciliationReport reconcile(List<Transaction> statement, BiFunction<LocalDate, LocalDate, List<Transaction>> ledgerBetween) {
+        long started = System.nanoTime();
+        if (statement.isEmpty()) {
+            return new ReconciliationReport(null, null, 0, List.of(), List.of(), List.of(), Duration.ZERO);
+        }
+        LocalDate from = statement.getFirst().getDate();
+        LocalDate to = from;
+        Set<Currency> currencies = new HashSet<>();
+        for (Transaction row : statement) {
+            from = row.getDate().isBefore(from) ? row.getDate() : from;
+            to = row.getDate().isAfter(to) ? row.getDate() : to;
+            currencies.add(row.getCurrency());
+        }
+        List<Transaction> ledger = ledgerBetween.apply(from.minusDays(windowDays), to.plusDays(windowDays));
+
+        // Build: rows with the same key are chained through next[], so the table holds one entry per key
+        Map<Key, Integer> heads = new HashMap<>(Math.max(16, (int) (ledger.size() / 0.75f) + 1));
+        int[] next = new int[ledger.size()];
+        for (int i = ledger.size() - 1; i >= 0; i--) {
+            Transaction row = ledger.get(i);
+            if (currencies.contains(row.getCurrency())) {
+                Integer head = heads.put(keyOf(row, bucketOf(row.getDate())), i);
+                next[i] = head == null ? -1 : head;
+            }
+        }
+
+        // Probe: the partner of a row can only be in its own bucket or the one on either side
+        List<Candidate> candidates = new ArrayList<>();
+        for (int s = 0; s < statement.size(); s++) {
+            Transaction row = statement.get(s);
+            long bucket = bucketOf(row.getDate());
+            BigDecimal amount = row.getAmount().stripTrailingZeros();
+            for (long nearby = bucket - 1; nearby <= bucket + 1; nearby++) {
+                Integer head = heads.get(new Key(row.getType(), row.getCurrency(), amount, nearby));
+                for (int l = head == null ? -1 : head; l != -1; l = next[l]) {
+                    Transaction candidate = ledger.get(l);
+                    int dayOffset = (int) (candidate.getDate().toEpochDay() - row.getDate().toEpochDay());
+                    if (Math.abs(dayOffset) > windowDays) {
+                        continue;
+                    }
+                    double similarity = similarity(row.getDescription(), candidate.getDescription());
+                    if (similarity >= minSimilarity) {
+                        candidates.add(new Candidate(s, l, similarity, dayOffset));
+                    }
+                }
+            }
+        }
+
+        candidates.sort(BEST_FIRST);
+        ReconciliationReport.Match[] matchOf = new ReconciliationReport.Match[statement.size()];
+        boolean[] ledgerUsed = new boolean[ledger.size()];
+        for (Candidate candidate : candidates) {
+            if (matchOf[candidate.statementIndex()] == null && !ledgerUsed[candidate.ledgerIndex()]) {
+                ledgerUsed[candidate.ledgerIndex()] = true;
+                matchOf[candidate.statementIndex()] = new ReconciliationReport.Match(statement.get(candidate.statementIndex()),
+                        ledger.get(candidate.ledgerIndex()), candidate.similarity(), candidate.dayOffset());
+            }
+        }
+
+        List<ReconciliationReport.Match> matched = new ArrayList<>();
+        List<Transaction> missing = new ArrayList<>();
+        for (int s = 0; s < statement.size(); s++) {
+            if (matchOf[s] != null) {
+                matched.add(matchOf[s]);
+            } else {
+                missing.add(statement.get(s));
+            }
+        }
+        List<Transaction> extra = new ArrayList<>();
+        for (int l = 0; l < ledger.size(); l++) {
+            Transaction row = ledger.get(l);
+            if (!ledgerUsed[l] && currencies.contains(row.getCurrency())
+                    && !row.getDate().isBefore(from) && !row.getDate().isAfter(to)) {
+                extra.add(row);
+            }
+        }
+        return new ReconciliationReport(from, to, statement.size(), List.copyOf(matched), List.copyOf(missing),
+                List.copyOf(extra), Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private long bucketOf(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay(), windowDays + 1L);
+    }
+
+    private static Key keyOf(Transaction transaction, long bucket) {
+        return new Key(transaction.getType(), transaction.getCurrency(), transaction.getAmount().stripTrailingZeros(), bucket);
+    }
+
+    /**
+     * Compares descriptions by the letter pairs they contain, ignoring case, digits and punctuation, so
+     * "POS 4411 CORNER MARKET LDN" and "Corner Market" are close. The score is the mean of the Dice
+     * coefficient (shared pairs over all pairs) and the overlap coefficient (shared pairs over the shorter
+     * description's pairs); the latter keeps the extra words banks add from sinking a match.
+     * @return A score from 0 to 1.
+     */
+    private double similarity(String statementDescription, String ledgerDescription) {
+        int[] a = bigramCache.computeIfAbsent(statementDescription, Reconciler::bigrams);
+        int[] b = bigramCache.computeIfAbsent(ledgerDescription, Reconciler::bigrams);
+        if (a.length == 0 || b.length == 0) {
+            // Nothing to compare letter by letter, e.g. only a reference number
+            return statementDescription.equalsIgnoreCase(ledgerDescription) ? 1 : 0;
+        }
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        double dice = 2.0 * common / (a.length + b.length);
+        double overlap = (double) common / Math.min(a.length, b.length);
+        return (dice + overlap) / 2;
+    }
+
+    /**
+     * @return The distinct pairs of adjacent letters in the description, lower-cased and sorted.
+     */
+    private static int[] bigrams(String description) {
+        String text = description.toLowerCase(Locale.ROOT);
+        int[] pairs = new int[Math.max(text.length() - 1, 0)];
+        int count = 0;
+        for (int i = 0; i + 1 < text.length(); i++) {
+            char first = text.charAt(i);
+            char second = text.charAt(i + 1);
+            if (Character.isLetter(first) && Character.isLetter(second)) {
+                pairs[count++] = first << 16 | second;
+            }
+        }
+        return Arrays.stream(pairs, 0, count).sorted().distinct().toArray();
+    }
+}
@@ -0,0 +1,69 @@
+package com.finansage.service;
+
+import com.finansage.model.RecurringOccurrence;
+import com.finansage.model.RecurringRule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+/**
+ * The recurring rules of a ledger. Nothing is stored per occurrence: the occurrences in a window are
+ * computed from the rules when asked for, and an occurrence counts as confirmed when the ledger holds a
+ * transaction with its {@link RecurringRule#occurrenceId(LocalDate) ID}. Undoing or deleting that
+ * transaction therefore makes the occurrence pending again without any bookkeeping here.
+ */
+class RecurringSchedule {
+
+    private final Map<String, RecurringRule> rules = new LinkedHashMap<>();
+
+    void put(RecurringRule rule) {
+        rules.put(rule.id(), rule);
+    }
+
+    boolean remove(String id) {
+        return rules.remove(id) != null;
+    }
+
+    Optional<RecurringRule> find(String id) {
+        return Optional.ofNullable(rules.get(id));
+    }
+
+    List<RecurringRule> rules() {
+        return List.copyOf(rules.values());
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * @param archived Tells whether a year is archived; occurrences in archived years are never pending.
+     * @return The occurrences in {@code from..to} inclusive that have not been confirmed, by date, then in
+     * rule order. Costs one ID lookup per occurrence in the window.
+     */
+    List<RecurringOccurrence> pending(LocalDate from, LocalDate to, LedgerSnapshot snapshot, IntPredicate archived) {
+        List<RecurringOccurrence> pending = new ArrayList<>();
+        for (RecurringRule rule : rules.values()) {
+            for (LocalDate date : rule.occurrencesBetween(from, to)) {
+                if (!archived.test(date.getYear()) && snapshot.findById(rule.occurrenceId(date)).isEmpty()) {
+                    pending.add(new RecurringOccurrence(rule, date));
+                }
+            }
+        }
+        pending.sort(Comparator.comparing(RecurringOccurrence::date)); // Stable, so rule order breaks ties
+        return pending;
+    }
+
+    /**
+     * @return The start of the earliest rule, or empty if there are no rules.
+     */
+    Optional<LocalDate> earliestStart() {
+        return rules.values().stream().map(RecurringRule::start).min(Comparator.naturalOrder());
+    }
+}
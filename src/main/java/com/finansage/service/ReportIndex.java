@@ -0,0 +1,123 @@
+package com.finansage.service;
+
+import com.finansage.model.ArchiveSegment;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.MonthlyTotals;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running income/expense totals for the whole ledger, per month and per category, updated
+ * incrementally on each mutation. Reports read these totals instead of rescanning the ledger, so
+ * their cost depends on the number of months and categories, not on the number of transactions.
+ * Archived years contribute the totals stored with them, so reports cover them without reading their rows.
+ */
+class ReportIndex {
+
+    /**
+     * Sums and row counts for one bucket. Counts let a bucket disappear once its last row is removed.
+     */
+    private static final class Totals {
+        private BigDecimal income = BigDecimal.ZERO;
+        private BigDecimal expenses = BigDecimal.ZERO;
+        private int incomeCount;
+        private int expenseCount;
+
+        void apply(TransactionType type, BigDecimal total, int count, int sign) {
+            BigDecimal amount = sign > 0 ? total : total.negate();
+            if (type == TransactionType.INCOME) {
+                income = income.add(amount);
+                incomeCount += sign * count;
+            } else {
+                expenses = expenses.add(amount);
+                expenseCount += sign * count;
+            }
+        }
+
+        boolean isEmpty() {
+            return incomeCount == 0 && expenseCount == 0;
+        }
+    }
+
+    private final Totals overall = new Totals();
+    private final TreeMap<YearMonth, Totals> byMonth = new TreeMap<>();
+    private final Map<String, Totals> byCategory = new HashMap<>();
+
+    void add(Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    void remove(Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    /**
+     * Adds (sign 1) or takes back (sign -1) an archived year's totals, which count as the rows they sum up.
+     */
+    void applyArchived(ArchiveSegment segment, int sign) {
+        for (ArchiveSegment.MonthTotal total : segment.months()) {
+            apply(total.month(), total.category(), total.type(), total.total(), total.count(), sign);
+        }
+    }
+
+    FinancialSummary summary() {
+        return new FinancialSummary(overall.income, overall.expenses, overall.income.subtract(overall.expenses));
+    }
+
+    /**
+     * @return Totals for every month that has at least one transaction, oldest first.
+     */
+    List<MonthlyTotals> monthlyTotals() {
+        List<MonthlyTotals> months = new ArrayList<>(byMonth.size());
+        byMonth.forEach((month, totals) -> months.add(new MonthlyTotals(month, totals.income, totals.expenses)));
+        return months;
+    }
+
+    CategoryReport categoryReport() {
+        CategoryReport report = CategoryReport.empty();
+        byCategory.forEach((category, totals) -> {
+            if (totals.incomeCount > 0) {
+                report.incomeByCategory().put(category, totals.income);
+            }
+            if (totals.expenseCount > 0) {
+                report.expensesByCategory().put(category, totals.expenses);
+            }
+        });
+        return report;
+    }
+
+    /**
+     * Adds (sign 1) or takes back (sign -1) a transaction counted at another amount than its own, e.g.
+     * converted to another currency.
+     */
+    void apply(Transaction transaction, BigDecimal amount, int sign) {
+        apply(YearMonth.from(transaction.getDate()), transaction.getCategory(), transaction.getType(), amount, 1, sign);
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        apply(transaction, transaction.getAmount(), sign);
+    }
+
+    private void apply(YearMonth month, String category, TransactionType type, BigDecimal total, int count, int sign) {
+        overall.apply(type, total, count, sign);
+        update(byMonth, month, type, total, count, sign);
+        update(byCategory, category, type, total, count, sign);
+    }
+
+    private static <K> void update(Map<K, Totals> buckets, K key, TransactionType type, BigDecimal total, int count, int sign) {
+        Totals totals = buckets.computeIfAbsent(key, k -> new Totals());
+        totals.apply(type, total, count, sign);
+        if (totals.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+}
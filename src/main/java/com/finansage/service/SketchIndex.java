@@ -0,0 +1,95 @@
+package com.finansage.service;
+
+import com.finansage.model.AmountQuantiles;
+import com.finansage.model.MerchantCount;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionFingerprint;
+import com.finansage.model.TransactionType;
+import com.finansage.util.Hashing;
+import com.finansage.util.HyperLogLog;
+import com.finansage.util.QuantileSketch;
+import com.finansage.util.SpaceSaving;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fixed-size streaming sketches maintained on the mutation path, for analytics that would otherwise
+ * need a full scan and a lot of memory: per-category expense percentiles, the number of distinct
+ * merchants, and the most frequent merchants. A merchant is a transaction's normalized description.
+ */
+class SketchIndex {
+
+    static final double QUANTILE_RELATIVE_ERROR = 0.01;
+    static final int DISTINCT_PRECISION = 14;
+    static final int HEAVY_HITTER_CAPACITY = 256;
+
+    private final Map<String, QuantileSketch> expenseAmounts = new HashMap<>();
+    private final HyperLogLog merchants = new HyperLogLog(DISTINCT_PRECISION);
+    private final SpaceSaving<String> merchantFrequency = new SpaceSaving<>(HEAVY_HITTER_CAPACITY);
+
+    void add(Transaction transaction) {
+        String merchant = TransactionFingerprint.normalize(transaction.getDescription());
+        merchants.add(Hashing.hash64(merchant));
+        merchantFrequency.add(merchant);
+        if (transaction.getType() == TransactionType.EXPENSE) {
+            expenseAmounts.computeIfAbsent(categoryKey(transaction.getCategory()), k -> new QuantileSketch(QUANTILE_RELATIVE_ERROR))
+                    .add(transaction.getAmount().doubleValue());
+        }
+    }
+
+    void remove(Transaction transaction) {
+        // The distinct-merchant estimate cannot forget a merchant, so only the other sketches shrink
+        merchantFrequency.remove(TransactionFingerprint.normalize(transaction.getDescription()));
+        if (transaction.getType() == TransactionType.EXPENSE) {
+            String key = categoryKey(transaction.getCategory());
+            QuantileSketch sketch = expenseAmounts.get(key);
+            if (sketch != null) {
+                sketch.remove(transaction.getAmount().doubleValue());
+                if (sketch.isEmpty()) {
+                    expenseAmounts.remove(key);
+                }
+            }
+        }
+    }
+
+    Optional<BigDecimal> expenseQuantile(String category, double quantile) {
+        QuantileSketch sketch = expenseAmounts.get(categoryKey(category));
+        if (sketch == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toAmount(sketch.quantile(quantile)));
+    }
+
+    Optional<AmountQuantiles> expenseQuantiles(String category) {
+        QuantileSketch sketch = expenseAmounts.get(categoryKey(category));
+        if (sketch == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AmountQuantiles(category, sketch.count(),
+                toAmount(sketch.quantile(0.5)), toAmount(sketch.quantile(0.95)), QUANTILE_RELATIVE_ERROR));
+    }
+
+    long distinctMerchants() {
+        return merchants.estimate();
+    }
+
+    List<MerchantCount> topMerchants(int limit) {
+        return merchantFrequency.top(limit).stream()
+                .map(entry -> new MerchantCount(entry.item(), entry.count(), entry.error()))
+                .toList();
+    }
+
+    private static String categoryKey(String category) {
+        return category.toLowerCase(Locale.ROOT);
+    }
+
+    private static BigDecimal toAmount(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
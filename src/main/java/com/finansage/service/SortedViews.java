@@ -0,0 +1,171 @@
+package com.finansage.service;
+
+import com.finansage.model.SortKey;
+import com.finansage.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * Sorted orders of a ledger snapshot, built on demand and cached until the ledger changes.
+ * <p>
+ * Rather than sorting objects with a comparator, each row's key is reduced to a primitive and packed
+ * with the row's position into one {@code long} ({@code key << indexBits | index}), so a single
+ * {@link Arrays#parallelSort(long[])} orders the ledger and keeps ties in ledger order. Dates use their
+ * epoch day and text its rank among the distinct values. Amounts use whole cents, rounded down; rows
+ * whose cents are equal but that have finer amounts are then put in exact order among themselves. If a
+ * key does not fit, the order falls back to a parallel comparator sort.
+ */
+class SortedViews {
+
+    private record Sorted(long version, Transaction[] rows) {
+    }
+
+    private final Map<SortKey, Sorted> cache = new EnumMap<>(SortKey.class);
+
+    /**
+     * @return The snapshot's transactions in ascending {@code key} order, as a read-only list. Building
+     * it is O(n log n) in parallel; asking again for an unchanged ledger is O(1).
+     */
+    synchronized List<Transaction> sorted(LedgerSnapshot snapshot, SortKey key) {
+        Sorted cached = cache.get(key);
+        if (cached == null || cached.version() != snapshot.version()) {
+            cached = new Sorted(snapshot.version(), sort(snapshot, key));
+            cache.put(key, cached);
+        }
+        return view(cached.rows());
+    }
+
+    private static List<Transaction> view(Transaction[] rows) {
+        final class ArrayView extends AbstractList<Transaction> implements RandomAccess {
+            @Override
+            public Transaction get(int index) {
+                return rows[index];
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        }
+        return new ArrayView();
+    }
+
+    private static Transaction[] sort(LedgerSnapshot snapshot, SortKey key) {
+        Transaction[] rows = snapshot.stream().toArray(Transaction[]::new);
+        boolean[] coarse = new boolean[1];
+        long[] keys = switch (key) {
+            case DATE -> dateKeys(rows);
+            case AMOUNT -> centKeys(rows, coarse);
+            case CATEGORY -> rankKeys(rows, Transaction::getCategory);
+            case DESCRIPTION -> rankKeys(rows, Transaction::getDescription);
+        };
+        if (keys == null) {
+            // Ties keep ledger order: parallelSort on objects is stable
+            Arrays.parallelSort(rows, key.comparator());
+            return rows;
+        }
+
+        int indexBits = indexBits(rows.length);
+        long limit = 1L << (62 - indexBits);
+        long[] packed = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            if (keys[i] >= limit || keys[i] < -limit) {
+                Arrays.parallelSort(rows, key.comparator());
+                return rows;
+            }
+            packed[i] = keys[i] << indexBits | i;
+        }
+        Arrays.parallelSort(packed);
+
+        long indexMask = (1L << indexBits) - 1;
+        Transaction[] ordered = new Transaction[rows.length];
+        for (int i = 0; i < packed.length; i++) {
+            ordered[i] = rows[(int) (packed[i] & indexMask)];
+        }
+        if (coarse[0]) {
+            // Runs with the same coarse key are in ledger order; a stable sort of each run makes them exact
+            int runStart = 0;
+            for (int i = 1; i <= packed.length; i++) {
+                if (i == packed.length || packed[i] >> indexBits != packed[runStart] >> indexBits) {
+                    if (i - runStart > 1) {
+                        Arrays.sort(ordered, runStart, i, key.comparator());
+                    }
+                    runStart = i;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private static int indexBits(int rows) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, rows - 1)));
+    }
+
+    private static long[] dateKeys(Transaction[] rows) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = rows[i].getDate().toEpochDay();
+        }
+        return keys;
+    }
+
+    /**
+     * @param coarse Set to true if any amount has fractions of a cent, so equal keys are not equal amounts.
+     * @return Every amount in whole cents, rounded down, or null if one does not fit in a long.
+     */
+    private static long[] centKeys(Transaction[] rows, boolean[] coarse) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            BigDecimal amount = rows[i].getAmount();
+            int scale = amount.scale();
+            if (scale >= 0 && scale <= 2 && amount.precision() <= 15) {
+                keys[i] = amount.unscaledValue().longValue() * (scale == 2 ? 1 : scale == 1 ? 10 : 100);
+                continue;
+            }
+            coarse[0] |= scale > 2;
+            try {
+                keys[i] = amount.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Ranks the distinct values case-insensitively, so only the distinct values are sorted as strings.
+     * Missing values rank first.
+     */
+    private static long[] rankKeys(Transaction[] rows, Function<Transaction, String> field) {
+        Map<String, Integer> ranks = new HashMap<>();
+        for (Transaction row : rows) {
+            String value = field.apply(row);
+            ranks.putIfAbsent(value == null ? "" : value, 0);
+        }
+        String[] distinct = ranks.keySet().toArray(String[]::new);
+        Arrays.parallelSort(distinct, String.CASE_INSENSITIVE_ORDER);
+        int rank = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            // Values equal ignoring case share a rank, so they stay in ledger order like other ties
+            if (i > 0 && String.CASE_INSENSITIVE_ORDER.compare(distinct[i - 1], distinct[i]) != 0) {
+                rank++;
+            }
+            ranks.put(distinct[i], rank);
+        }
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            String value = field.apply(rows[i]);
+            keys[i] = ranks.get(value == null ? "" : value);
+        }
+        return keys;
+    }
+}
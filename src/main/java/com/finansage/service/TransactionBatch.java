@@ -0,0 +1,101 @@
+package com.finansage.service;
+
+import com.finansage.model.BatchReport;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A unit of work: changes are staged here and nothing touches the ledger until {@link #commit()}, which
+ * applies them all-or-nothing as one undoable step with a single index update pass and a single save.
+ * Obtain one from {@link TransactionService#newBatch()}. Operations apply in the order they were staged,
+ * so a batch may e.g. add a transaction and then recategorize it.
+ */
+public final class TransactionBatch {
+
+    /**
+     * One staged change.
+     */
+    sealed interface Operation {
+    }
+
+    record Add(Transaction transaction) implements Operation {
+    }
+
+    record Update(Transaction transaction) implements Operation {
+    }
+
+    record Delete(String id) implements Operation {
+    }
+
+    record Recategorize(String id, String category) implements Operation {
+    }
+
+    /**
+     * Recategorizes every transaction matching the filter at commit time.
+     */
+    record RecategorizeMatching(TransactionFilter filter, String category) implements Operation {
+    }
+
+    private final TransactionService transactionService;
+    private final List<Operation> operations = new ArrayList<>();
+
+    TransactionBatch(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    public TransactionBatch add(Transaction transaction) {
+        operations.add(new Add(transaction));
+        return this;
+    }
+
+    /**
+     * Replaces the transaction with the same ID.
+     */
+    public TransactionBatch update(Transaction transaction) {
+        operations.add(new Update(transaction));
+        return this;
+    }
+
+    public TransactionBatch delete(String id) {
+        operations.add(new Delete(id));
+        return this;
+    }
+
+    public TransactionBatch recategorize(String id, String category) {
+        operations.add(new Recategorize(id, category));
+        return this;
+    }
+
+    /**
+     * Moves every transaction matching the filter to a new category. The filter is evaluated when the
+     * batch is committed, against the ledger as changed by the operations staged before it.
+     */
+    public TransactionBatch recategorize(TransactionFilter filter, String category) {
+        operations.add(new RecategorizeMatching(filter, category));
+        return this;
+    }
+
+    /**
+     * @return The number of staged operations.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Applies the staged operations and clears them, so the batch can be reused.
+     * @return What was applied, or why the batch was rejected.
+     */
+    public BatchReport commit() {
+        List<Operation> staged = List.copyOf(operations);
+        operations.clear();
+        return transactionService.applyBatch(staged);
+    }
+}
@@ -0,0 +1,141 @@
+package com.finansage.service;
+
+import com.finansage.model.TransactionEvent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Delivers TransactionEvents to subscribers asynchronously, in publication order.
+ * Built on {@link SubmissionPublisher}: each subscriber has a bounded buffer and pulls events with
+ * {@code request(n)}. When a subscriber falls a full buffer behind, writers are held up in
+ * {@link #deliver} until it catches up, so a slow consumer slows writers down instead of
+ * silently losing events or growing memory without bound.
+ * <p>
+ * Events are queued while the ledger's write lock is held and delivered once it has been released.
+ * A subscriber that reads the ledger can then always catch up; delivering under the lock would
+ * deadlock as soon as its buffer filled. The queue is bounded too: a writer whose events would put
+ * it more than a buffer ahead of delivery waits before returning, whichever thread delivers them.
+ */
+class TransactionEventPublisher {
+
+    private final SubmissionPublisher<TransactionEvent> publisher =
+            new SubmissionPublisher<>(Executors.newVirtualThreadPerTaskExecutor(), Flow.defaultBufferSize());
+    // Filled under the ledger's write lock, so it holds the events in the order the changes were applied
+    private final Queue<TransactionEvent> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock delivering = new ReentrantLock();
+    // Delivery adds a permit per event submitted and the writer that queued it takes one before returning,
+    // so writers that went on can be at most a buffer's worth of events ahead of delivery
+    private final Semaphore room = new Semaphore(Flow.defaultBufferSize());
+    private int queuedByHolder; // guarded by the ledger's write lock
+
+    /**
+     * Queues the event of a change that was just applied. Call with the write lock held.
+     * <p>
+     * Queued whether or not anyone subscribed: asking the publisher waits for its lock, which a delivery
+     * blocked on a full buffer holds, and that must never happen under the write lock. Without
+     * subscribers, {@link #deliver} drops the event straight away.
+     */
+    void enqueue(TransactionEvent event) {
+        pending.add(event);
+        queuedByHolder++;
+    }
+
+    /**
+     * @return How many events were queued since the write lock was taken. Call just before releasing it.
+     */
+    int takeQueued() {
+        int queued = queuedByHolder;
+        queuedByHolder = 0;
+        return queued;
+    }
+
+    /**
+     * Delivers the queued events, then waits until the {@code queued} events this thread added fit within
+     * a buffer of delivery. Call after releasing the write lock. One thread delivers at a time so the order
+     * is kept; a thread that finds another one delivering leaves its events to that one.
+     */
+    void deliver(int queued) {
+        // Checked again after unlocking, in case events were queued while the other thread was finishing
+        while (!pending.isEmpty() && delivering.tryLock()) {
+            try {
+                for (TransactionEvent event = pending.poll(); event != null; event = pending.poll()) {
+                    publisher.submit(event);
+                    room.release();
+                }
+            } finally {
+                delivering.unlock();
+            }
+        }
+        if (queued > 0) {
+            room.acquireUninterruptibly(queued);
+        }
+    }
+
+    void subscribe(Flow.Subscriber<? super TransactionEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Subscribes a simple callback that processes one event at a time.
+     * @return A handle that cancels the subscription when closed.
+     */
+    AutoCloseable subscribe(Consumer<? super TransactionEvent> listener) {
+        ListenerSubscriber subscriber = new ListenerSubscriber(listener);
+        publisher.subscribe(subscriber);
+        return subscriber::cancel;
+    }
+
+    private static final class ListenerSubscriber implements Flow.Subscriber<TransactionEvent> {
+        private final Consumer<? super TransactionEvent> listener;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        ListenerSubscriber(Consumer<? super TransactionEvent> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(TransactionEvent event) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("Error in transaction event listener: " + e.getMessage());
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.err.println("Transaction event feed failed: " + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -1,28 +1,186 @@
 package com.finansage.service;
 
+import com.finansage.model.AmountQuantiles;
+import com.finansage.model.ArchiveSegment;
+import com.finansage.model.BalancePoint;
+import com.finansage.model.BatchReport;
+import com.finansage.model.Budget;
+import com.finansage.model.BudgetPeriod;
+import com.finansage.model.BudgetStatus;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.ExchangeRate;
+import com.finansage.model.ExportFormat;
+import com.finansage.model.ExternalChange;
 import com.finansage.model.FinancialSummary;
+import com.finansage.model.ImportMode;
+import com.finansage.model.ImportReport;
+import com.finansage.model.LoadReport;
+import com.finansage.model.MerchantCount;
+import com.finansage.model.MonthlyTotals;
+import com.finansage.model.QueryResult;
+import com.finansage.model.ReconciliationReport;
+import com.finansage.model.RecurringOccurrence;
+import com.finansage.model.RecurringRule;
+import com.finansage.model.SortKey;
 import com.finansage.model.Transaction;
+import com.finansage.model.TransactionEvent;
+import com.finansage.model.TransactionFilter;
+import com.finansage.model.TransactionFingerprint;
+import com.finansage.model.TransactionId;
+import com.finansage.model.TransactionPage;
 import com.finansage.model.TransactionType;
+import com.finansage.repository.ArchiveRepository;
+import com.finansage.repository.BudgetRepository;
+import com.finansage.repository.ExchangeRateRepository;
+import com.finansage.repository.RecurringRuleRepository;
+import com.finansage.repository.TransactionExporter;
 import com.finansage.repository.TransactionRepository;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The "brain" of the application. Handles all business logic related to transactions.
  * It uses the TransactionRepository to load and save data.
+ * <p>
+ * The ledger itself is an immutable {@link LedgerSnapshot}; every change publishes a new version, so
+ * readers get a consistent snapshot in O(1) without locking, and undo/redo just switch between versions
+ * that share almost all of their structure. Mutations and the derived indexes are guarded by a
+ * read/write lock, so all public methods are thread-safe.
+ * <p>
+ * Every change is saved to the ledger file before the method making it returns. A change that cannot be
+ * saved throws a {@link LedgerSaveException}, or a {@link LedgerConflictException} if another program
+ * rewrote the file first and its version replaced the change.
  */
 public class TransactionService {
 
+    private static final int MAX_UNDO_STEPS = 100;
+    /** How many days apart a statement row and its ledger transaction may be dated, unless told otherwise. */
+    public static final int DEFAULT_RECONCILE_WINDOW_DAYS = 3;
+    /** How alike a statement row's description and its ledger transaction's must be, unless told otherwise. */
+    public static final double DEFAULT_RECONCILE_SIMILARITY = 0.3;
+
+    /**
+     * One undoable change: the versions before and after it, and what changed in between.
+     */
+    private record HistoryStep(LedgerSnapshot before, LedgerSnapshot after, TransactionEvent change) {
+    }
+
     private final TransactionRepository transactionRepository;
-    private final List<Transaction> transactions;
+    private final BudgetRepository budgetRepository;
+    private final ArchiveRepository archiveRepository;
+    private final RecurringRuleRepository recurringRuleRepository;
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final TreeMap<Integer, ArchiveSegment> archive = new TreeMap<>(); // guarded by the lock
+    private volatile LedgerSnapshot current;
+    private final Deque<HistoryStep> undoStack = new ArrayDeque<>();
+    private final Deque<HistoryStep> redoStack = new ArrayDeque<>();
+    private final BalanceIndex balanceIndex = new BalanceIndex();
+    private final BudgetTracker budgetTracker = new BudgetTracker();
+    private final ReportIndex reportIndex = new ReportIndex();
+    private final SketchIndex sketchIndex = new SketchIndex();
+    private final QueryIndex queryIndex = new QueryIndex();
+    private final SortedViews sortedViews = new SortedViews();
+    private final RecurringSchedule recurringSchedule = new RecurringSchedule(); // guarded by the lock
+    private ExchangeRateIndex exchangeRates = new ExchangeRateIndex(List.of()); // guarded by the lock
+    private final ConvertedReports convertedReports = new ConvertedReports();
+    private final Map<Currency, int[]> currencyCounts = new HashMap<>(); // transactions per currency, guarded by the lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TransactionEventPublisher eventPublisher = new TransactionEventPublisher();
+    private final TransactionExporter transactionExporter = new TransactionExporter();
+    private final List<Consumer<? super ExternalChange>> externalChangeListeners = new CopyOnWriteArrayList<>();
+    private boolean unsaved; // guarded by the write lock
 
     public TransactionService(TransactionRepository transactionRepository) {
+        this(transactionRepository, null);
+    }
+
+    /**
+     * @param budgetRepository Where budget definitions are persisted. If null, budgets are kept in memory only.
+     */
+    public TransactionService(TransactionRepository transactionRepository, BudgetRepository budgetRepository) {
+        this(transactionRepository, budgetRepository, null);
+    }
+
+    /**
+     * @param archiveRepository Where closed years are archived. If null, the ledger cannot be archived.
+     */
+    public TransactionService(TransactionRepository transactionRepository, BudgetRepository budgetRepository,
+                              ArchiveRepository archiveRepository) {
+        this(transactionRepository, budgetRepository, archiveRepository, null);
+    }
+
+    /**
+     * @param recurringRuleRepository Where recurring rules are persisted. If null, rules are kept in memory only.
+     */
+    public TransactionService(TransactionRepository transactionRepository, BudgetRepository budgetRepository,
+                              ArchiveRepository archiveRepository, RecurringRuleRepository recurringRuleRepository) {
+        this(transactionRepository, budgetRepository, archiveRepository, recurringRuleRepository, null);
+    }
+
+    /**
+     * @param exchangeRateRepository Where the exchange-rate table is persisted. If null, rates are kept in memory only.
+     */
+    public TransactionService(TransactionRepository transactionRepository, BudgetRepository budgetRepository,
+                              ArchiveRepository archiveRepository, RecurringRuleRepository recurringRuleRepository,
+                              ExchangeRateRepository exchangeRateRepository) {
         this.transactionRepository = transactionRepository;
-        this.transactions = new ArrayList<>(this.transactionRepository.loadTransactions());
+        this.budgetRepository = budgetRepository;
+        this.archiveRepository = archiveRepository;
+        this.recurringRuleRepository = recurringRuleRepository;
+        this.exchangeRateRepository = exchangeRateRepository;
+        List<Transaction> rows = this.transactionRepository.loadTransactions();
+        int loadedRows = rows.size();
+        if (archiveRepository != null) {
+            archiveRepository.loadSegments().forEach(this::installSegment);
+            rows = withoutArchivedCopies(rows);
+        }
+        LedgerSnapshot loaded = LedgerSnapshot.empty();
+        for (Transaction transaction : rows) {
+            loaded = loaded.add(transaction);
+            indexAdd(transaction);
+        }
+        this.current = loaded;
+        if (rows.size() < loadedRows) {
+            // An earlier archive run stopped before the smaller ledger was saved; finish it
+            try {
+                persist();
+            } catch (LedgerSaveException e) {
+                System.err.println("Error: " + e.getMessage());
+            }
+        }
+        if (budgetRepository != null) {
+            budgetRepository.loadBudgets().forEach(budgetTracker::setBudget);
+        }
+        if (recurringRuleRepository != null) {
+            recurringRuleRepository.loadRules().forEach(recurringSchedule::put);
+        }
+        if (exchangeRateRepository != null) {
+            exchangeRates = new ExchangeRateIndex(exchangeRateRepository.loadRates());
+        }
     }
 
     /**
@@ -38,22 +196,386 @@ public class TransactionService {
      * Adds a pre-constructed Transaction object and saves it.
      * This is the new, preferred method for the GUI.
      * @param transaction The transaction object to add.
+     * @throws IllegalArgumentException If the ledger already has a transaction with the same ID.
      */
     public void addTransaction(Transaction transaction) {
-        this.transactions.add(transaction);
-        this.transactionRepository.saveTransactions(this.transactions);
+        write(() -> {
+            commit(current.add(transaction), new TransactionEvent.Added(transaction));
+            return null;
+        });
+    }
+
+    /**
+     * Adds many transactions at once, saving the ledger a single time. All or nothing: if one of them
+     * reuses an ID, nothing is added.
+     * @param newTransactions The transactions to add.
+     * @throws IllegalArgumentException If an ID is already in the ledger or appears twice in the list.
+     */
+    public void addTransactions(List<Transaction> newTransactions) {
+        write(() -> {
+            LedgerSnapshot next = current;
+            List<TransactionEvent> changes = new ArrayList<>();
+            for (Transaction transaction : newTransactions) {
+                next = next.add(transaction);
+                changes.add(new TransactionEvent.Added(transaction));
+            }
+            commit(next, new TransactionEvent.Batch(changes));
+            return null;
+        });
+    }
+
+    /**
+     * @return How the ledger file was last loaded in full: counts, timing and any quarantined lines.
+     * Empty if the repository has not loaded the file.
+     */
+    public Optional<LoadReport> getLoadReport() {
+        return Optional.ofNullable(transactionRepository.getLastLoadReport());
+    }
+
+    // --- Archive ---
+
+    /**
+     * Moves every transaction dated before {@code year} into the archive, one compressed segment per year,
+     * and saves the smaller ledger. Reports and balances still include the archived years through the
+     * totals stored with each segment; only {@link #getArchivedTransactions(int)} reads their rows.
+     * <p>
+     * Segments are written before the ledger is saved, so a failure in between leaves rows in both
+     * places rather than in neither; the next load drops such copies from the ledger. Archiving cannot be
+     * undone, so it also clears the undo history.
+     * @return The segments that received transactions, oldest first; empty if there was nothing to archive.
+     * @throws IllegalStateException If this ledger has no archive.
+     */
+    public List<ArchiveSegment> archiveYearsBefore(int year) {
+        return write(() -> {
+            if (archiveRepository == null) {
+                throw new IllegalStateException("This ledger has no archive");
+            }
+            // Fold in external edits first, so the smaller ledger can be saved over the file
+            syncUnlocked();
+
+            TreeMap<Integer, List<Transaction>> byYear = new TreeMap<>();
+            for (Transaction transaction : current.asList()) {
+                if (transaction.getDate().getYear() < year) {
+                    byYear.computeIfAbsent(transaction.getDate().getYear(), y -> new ArrayList<>()).add(transaction);
+                }
+            }
+
+            List<TransactionEvent> changes = new ArrayList<>();
+            List<ArchiveSegment> written = new ArrayList<>();
+            for (Map.Entry<Integer, List<Transaction>> rows : byYear.entrySet()) {
+                Optional<ArchiveSegment> segment = archiveRepository.append(rows.getKey(), rows.getValue());
+                if (segment.isEmpty()) {
+                    break; // This year and later ones stay in the ledger
+                }
+                written.add(segment.get());
+                rows.getValue().forEach(transaction -> changes.add(new TransactionEvent.Deleted(transaction)));
+            }
+            if (changes.isEmpty()) {
+                return List.<ArchiveSegment>of();
+            }
+
+            // Usually most of the ledger goes, so rebuilding from the rows that stay beats removing one by one
+            int lastArchived = written.getLast().year();
+            LedgerSnapshot next = LedgerSnapshot.empty();
+            for (Transaction transaction : current.asList()) {
+                if (transaction.getDate().getYear() > lastArchived) {
+                    next = next.add(transaction);
+                }
+            }
+            install(next.withVersion(current.version() + 1), new TransactionEvent.Batch(changes));
+            written.forEach(this::installSegment);
+            undoStack.clear();
+            redoStack.clear();
+            unsaved = true;
+            persist();
+            return List.copyOf(written);
+        });
+    }
+
+    /**
+     * @return The archived years, oldest first.
+     */
+    public List<ArchiveSegment> getArchiveSegments() {
+        return read(() -> List.copyOf(archive.values()));
+    }
+
+    /**
+     * Decompresses the rows of an archived year. They are not part of the ledger: they cannot be edited
+     * and do not appear in {@link #getAllTransactions()} or queries.
+     * @return The year's transactions, or an empty list if the year is not archived.
+     */
+    public List<Transaction> getArchivedTransactions(int year) {
+        return archiveRepository == null ? List.of() : archiveRepository.readTransactions(year);
+    }
+
+    /**
+     * Makes a segment's totals part of the reports, replacing an earlier version of the same year.
+     */
+    private void installSegment(ArchiveSegment segment) {
+        ArchiveSegment previous = archive.put(segment.year(), segment);
+        if (previous != null) {
+            reportIndex.applyArchived(previous, -1);
+            balanceIndex.applyArchived(previous, -1);
+        }
+        reportIndex.applyArchived(segment, 1);
+        balanceIndex.applyArchived(segment, 1);
+    }
+
+    /**
+     * Drops ledger rows that are already archived. Only rows dated in an archived year are checked, and
+     * there are normally none, so a year's rows are decompressed only after an interrupted archive run.
+     */
+    private List<Transaction> withoutArchivedCopies(List<Transaction> rows) {
+        Map<Integer, Set<TransactionId>> archivedIds = new HashMap<>();
+        List<Transaction> kept = new ArrayList<>(rows.size());
+        for (Transaction transaction : rows) {
+            int year = transaction.getDate().getYear();
+            if (archive.containsKey(year)) {
+                Set<TransactionId> ids = archivedIds.computeIfAbsent(year, y -> {
+                    Set<TransactionId> archived = new HashSet<>();
+                    archiveRepository.readTransactions(y).forEach(row -> archived.add(row.getTransactionId()));
+                    return archived;
+                });
+                if (ids.contains(transaction.getTransactionId())) {
+                    continue;
+                }
+            }
+            kept.add(transaction);
+        }
+        return kept;
+    }
+
+    /**
+     * Starts a unit of work. Changes staged on the batch are applied together by
+     * {@link TransactionBatch#commit()}: all or nothing, as one undoable step, saved once.
+     */
+    public TransactionBatch newBatch() {
+        return new TransactionBatch(this);
+    }
+
+    /**
+     * Applies staged batch operations to a working version and installs it only if every operation found
+     * its transaction and no add reused an ID. Each lookup is O(log n), so the batch costs O(k log n) plus one save.
+     */
+    BatchReport applyBatch(List<TransactionBatch.Operation> operations) {
+        return write(() -> {
+            LedgerSnapshot next = current;
+            List<TransactionEvent> changes = new ArrayList<>();
+            List<String> missingIds = new ArrayList<>();
+            List<String> duplicateIds = new ArrayList<>();
+            int added = 0;
+            int updated = 0;
+            int deleted = 0;
+
+            for (TransactionBatch.Operation operation : operations) {
+                switch (operation) {
+                    case TransactionBatch.Add add -> {
+                        if (next.findById(add.transaction().getTransactionId()).isPresent()) {
+                            duplicateIds.add(add.transaction().getId());
+                            continue;
+                        }
+                        next = next.add(add.transaction());
+                        changes.add(new TransactionEvent.Added(add.transaction()));
+                        added++;
+                    }
+                    case TransactionBatch.Update update -> {
+                        Optional<Transaction> previous = next.findById(update.transaction().getTransactionId());
+                        if (previous.isEmpty()) {
+                            missingIds.add(update.transaction().getId());
+                            continue;
+                        }
+                        next = next.replace(update.transaction());
+                        changes.add(new TransactionEvent.Updated(previous.get(), update.transaction()));
+                        updated++;
+                    }
+                    case TransactionBatch.Delete delete -> {
+                        Optional<Transaction> existing = next.findById(delete.id());
+                        if (existing.isEmpty()) {
+                            missingIds.add(delete.id());
+                            continue;
+                        }
+                        next = next.remove(existing.get().getTransactionId());
+                        changes.add(new TransactionEvent.Deleted(existing.get()));
+                        deleted++;
+                    }
+                    case TransactionBatch.Recategorize recategorize -> {
+                        Optional<Transaction> existing = next.findById(recategorize.id());
+                        if (existing.isEmpty()) {
+                            missingIds.add(recategorize.id());
+                            continue;
+                        }
+                        Transaction moved = withCategory(existing.get(), recategorize.category());
+                        if (moved != existing.get()) {
+                            next = next.replace(moved);
+                            changes.add(new TransactionEvent.Updated(existing.get(), moved));
+                            updated++;
+                        }
+                    }
+                    case TransactionBatch.RecategorizeMatching matching -> {
+                        List<Transaction> targets = next.stream().filter(matching.filter()::matches).toList();
+                        for (Transaction target : targets) {
+                            Transaction moved = withCategory(target, matching.category());
+                            if (moved != target) {
+                                next = next.replace(moved);
+                                changes.add(new TransactionEvent.Updated(target, moved));
+                                updated++;
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (!missingIds.isEmpty() || !duplicateIds.isEmpty()) {
+                return new BatchReport(false, 0, 0, 0, List.copyOf(missingIds), List.copyOf(duplicateIds));
+            }
+            if (!changes.isEmpty()) {
+                commit(next, new TransactionEvent.Batch(changes));
+            }
+            return new BatchReport(true, added, updated, deleted, List.of(), List.of());
+        });
+    }
+
+    /**
+     * @return The transaction moved to {@code category}, or the same instance if it is already there.
+     */
+    private static Transaction withCategory(Transaction transaction, String category) {
+        if (transaction.getCategory().equals(category)) {
+            return transaction;
+        }
+        return Transaction.withId(transaction.getTransactionId(), transaction.getDate(), transaction.getDescription(),
+                transaction.getAmount(), transaction.getType(), category, transaction.getCurrency());
     }
 
+    /**
+     * @return A read-only view of the current ledger. This is O(1): the view is backed by an immutable
+     * snapshot, so it is safe to keep and never changes.
+     */
     public List<Transaction> getAllTransactions() {
-        return new ArrayList<>(this.transactions); // Return a copy to prevent external modification
+        return current.asList();
     }
 
-    public boolean deleteTransaction(String id) {
-        boolean removed = this.transactions.removeIf(transaction -> transaction.getId().equals(id));
-        if (removed) {
-            this.transactionRepository.saveTransactions(this.transactions);
+    /**
+     * @return The current immutable version of the ledger, in O(1).
+     */
+    public LedgerSnapshot getSnapshot() {
+        return current;
+    }
+
+    /**
+     * @return The transactions matching the filter, in ledger order.
+     */
+    public List<Transaction> findTransactions(TransactionFilter filter) {
+        return current.stream().filter(filter::matches).toList();
+    }
+
+    /**
+     * @return The matches for the filter from {@code offset} on, at most {@code limit} of them, in ledger
+     * order, and how many match in all. Only the page is copied: an unfiltered page is read straight from
+     * the ledger in O(limit log n), and the matches outside the page of a filtered one are only counted.
+     * @throws IllegalArgumentException If the offset or limit is negative.
+     */
+    public TransactionPage findTransactions(TransactionFilter filter, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
         }
-        return removed;
+        List<Transaction> all = current.asList();
+        if (filter.equals(TransactionFilter.ALL)) {
+            int from = Math.min(offset, all.size());
+            int to = (int) Math.min(all.size(), (long) from + limit);
+            return new TransactionPage(List.copyOf(all.subList(from, to)), all.size());
+        }
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 1024));
+        int total = 0;
+        for (Transaction transaction : all) {
+            if (filter.matches(transaction)) {
+                if (total >= offset && page.size() < limit) {
+                    page.add(transaction);
+                }
+                total++;
+            }
+        }
+        return new TransactionPage(List.copyOf(page), total);
+    }
+
+    /**
+     * Runs a query such as {@code category=Food and amount>50 and date>=2025-01}; see {@link Query} for the
+     * language. The most selective index for the query's date range, category or ID is used before
+     * falling back to a scan, and the result says which plan was chosen and how long it took.
+     * @throws IllegalArgumentException If the query is not valid.
+     */
+    public QueryResult query(String query) {
+        return query(Query.parse(query));
+    }
+
+    public QueryResult query(Query query) {
+        return read(() -> queryIndex.execute(query, current));
+    }
+
+    /**
+     * @return The whole ledger sorted by {@code key}, as a read-only list. Ties keep ledger order (reversed
+     * when descending). The order is built once per ledger version with a parallel sort on primitive keys,
+     * so repeated listings of an unchanged ledger are O(1). It does not lock the ledger.
+     */
+    public List<Transaction> getSortedTransactions(SortKey key, boolean descending) {
+        List<Transaction> ascending = sortedViews.sorted(current, key);
+        return descending ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * Finds the {@code limit} greatest transactions by {@code key} among those matching the query, greatest
+     * first; e.g. the largest expenses of a month with {@code type=expense and date=2025-10} and AMOUNT.
+     * Matches come from the query planner, and only a heap of {@code limit} rows is kept while selecting.
+     * @throws IllegalArgumentException If the query is not valid.
+     */
+    public List<Transaction> getTopTransactions(String query, SortKey key, int limit) {
+        Query parsed = Query.parse(query);
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (parsed.isEmpty()) {
+            List<Transaction> descending = getSortedTransactions(key, true);
+            return List.copyOf(descending.subList(0, Math.min(limit, descending.size())));
+        }
+        List<Transaction> matches = query(parsed).transactions();
+        PriorityQueue<Transaction> top = new PriorityQueue<>(limit + 1, key.comparator());
+        for (Transaction match : matches) {
+            top.add(match);
+            if (top.size() > limit) {
+                top.poll(); // drop the smallest
+            }
+        }
+        List<Transaction> result = new ArrayList<>(top);
+        result.sort(key.comparator().reversed());
+        return List.copyOf(result);
+    }
+
+    /**
+     * @return The {@code limit} largest expenses in a month, largest first.
+     */
+    public List<Transaction> getLargestExpenses(YearMonth month, int limit) {
+        return getTopTransactions("type=expense and date=" + month, SortKey.AMOUNT, limit);
+    }
+
+    /**
+     * Streams the transactions matching the filter to a file. The export reads one snapshot, so it is
+     * consistent even while other threads keep changing the ledger, and it never blocks them.
+     *
+     * @return The number of transactions written.
+     */
+    public long exportTransactions(TransactionFilter filter, ExportFormat format, Path target) throws IOException {
+        LedgerSnapshot snapshot = current;
+        return transactionExporter.export(() -> snapshot.stream().filter(filter::matches), format, target);
+    }
+
+    public boolean deleteTransaction(String id) {
+        return write(() -> {
+            Optional<Transaction> existing = current.findById(id);
+            if (existing.isEmpty()) {
+                return false;
+            }
+            commit(current.remove(existing.get().getTransactionId()), new TransactionEvent.Deleted(existing.get()));
+            return true;
+        });
     }
 
     /**
@@ -62,9 +584,7 @@ public class TransactionService {
      * @return An Optional containing the transaction if found, otherwise an empty Optional.
      */
     public Optional<Transaction> findTransactionById(String id) {
-        return this.transactions.stream()
-                .filter(t -> t.getId().equals(id))
-                .findFirst();
+        return current.findById(id);
     }
 
     /**
@@ -74,20 +594,14 @@ public class TransactionService {
      * @return true if the transaction was found and updated, false otherwise.
      */
     public boolean updateTransaction(Transaction updatedTransaction) {
-        int index = -1;
-        for (int i = 0; i < transactions.size(); i++) {
-            if (transactions.get(i).getId().equals(updatedTransaction.getId())) {
-                index = i;
-                break;
+        return write(() -> {
+            Optional<Transaction> previous = current.findById(updatedTransaction.getTransactionId());
+            if (previous.isEmpty()) {
+                return false;
             }
-        }
-
-        if (index != -1) {
-            transactions.set(index, updatedTransaction);
-            transactionRepository.saveTransactions(transactions);
+            commit(current.replace(updatedTransaction), new TransactionEvent.Updated(previous.get(), updatedTransaction));
             return true;
-        }
-        return false;
+        });
     }
 
     /**
@@ -96,25 +610,874 @@ public class TransactionService {
      * @return true if the transaction was found and updated, false otherwise.
      */
     public boolean updateTransaction(String id, LocalDate date, String description, BigDecimal amount, TransactionType type, String category) {
-        Transaction updatedTransaction = new Transaction(id, date, description, amount, type, category);
+        // The CLI does not edit the currency, so the transaction keeps its own
+        Currency currency = findTransactionById(id).map(Transaction::getCurrency).orElse(null);
+        Transaction updatedTransaction = new Transaction(id, date, description, amount, type, category, currency);
         return updateTransaction(updatedTransaction);
     }
 
+    /**
+     * Imports a batch of transactions, detecting rows that duplicate the ledger or each other.
+     * A row is a duplicate if it has the same fingerprint or the same ID as a transaction already there.
+     * Duplicate checks cost O(1) per row; the ledger is saved once at the end.
+     * @param incoming The rows to import.
+     * @param mode What to do with duplicate rows.
+     * @return A report of what was imported and which duplicates were detected.
+     */
+    public ImportReport importTransactions(List<Transaction> incoming, ImportMode mode) {
+        return write(() -> importUnlocked(incoming, mode));
+    }
+
+    private ImportReport importUnlocked(List<Transaction> incoming, ImportMode mode) {
+        DuplicateDetector detector = new DuplicateDetector(current, incoming.size());
+        LedgerSnapshot next = current;
+        List<ImportReport.Duplicate> duplicates = new ArrayList<>();
+        List<TransactionEvent> changes = new ArrayList<>();
+        int imported = 0;
+
+        for (Transaction candidate : incoming) {
+            TransactionFingerprint fingerprint = TransactionFingerprint.of(candidate);
+            // A row under an ID the ledger already has (e.g. the ledger's own file imported again, or a row
+            // repeated in this import) duplicates that transaction whatever its fields say
+            Transaction sameId = next.findById(candidate.getTransactionId()).orElse(null);
+            Transaction existing = sameId != null ? sameId : detector.findDuplicate(fingerprint);
+            if (existing == null) {
+                next = next.add(candidate);
+                detector.register(fingerprint, candidate);
+                changes.add(new TransactionEvent.Added(candidate));
+                imported++;
+                continue;
+            }
+
+            duplicates.add(new ImportReport.Duplicate(candidate, existing));
+            switch (mode) {
+                case SKIP -> {
+                }
+                case FLAG -> {
+                    // Kept as a transaction of its own, so one that reuses an ID is given a fresh one
+                    Transaction flagged = sameId == null ? candidate : new Transaction(candidate.getDate(),
+                            candidate.getDescription(), candidate.getAmount(), candidate.getType(), candidate.getCategory(),
+                            candidate.getCurrency());
+                    next = next.add(flagged);
+                    changes.add(new TransactionEvent.Added(flagged));
+                    imported++;
+                }
+                case MERGE -> {
+                    Transaction merged = Transaction.withId(existing.getTransactionId(), candidate.getDate(),
+                            candidate.getDescription(), candidate.getAmount(), candidate.getType(), candidate.getCategory(),
+                            candidate.getCurrency());
+                    next = next.replace(merged);
+                    detector.replace(fingerprint, merged);
+                    changes.add(new TransactionEvent.Updated(existing, merged));
+                }
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            commit(next, new TransactionEvent.Batch(changes));
+        }
+        return new ImportReport(mode, incoming.size(), imported, duplicates);
+    }
+
+    /**
+     * Reads transactions from another CSV file (e.g. a bank export) and imports them.
+     * @see #importTransactions(List, ImportMode)
+     */
+    public ImportReport importFromFile(String fileName, ImportMode mode) {
+        return importTransactions(new TransactionRepository(fileName).loadTransactions(), mode);
+    }
+
+    // --- Reconciliation (a hash join on amount and date bucket, see Reconciler) ---
 
+    /**
+     * Matches the rows of a bank statement to ledger transactions by type, currency, amount, date and
+     * description. Only the read of the statement's period is done under the lock; matching runs outside it.
+     * Archived years are not searched, so rows from them are reported as missing.
+     * @param statement The statement's rows.
+     * @param windowDays How many days apart a statement row and its ledger transaction may be dated.
+     * @param minSimilarity How alike their descriptions must be, from 0 (any) to 1 (the same letters).
+     * @return Which rows matched, which statement rows are missing from the ledger and which ledger
+     * transactions in the period are not on the statement.
+     * @throws IllegalArgumentException If the window is negative or longer than
+     * {@value Reconciler#MAX_WINDOW_DAYS} days, or the similarity is not between 0 and 1.
+     */
+    public ReconciliationReport reconcile(List<Transaction> statement, int windowDays, double minSimilarity) {
+        return new Reconciler(windowDays, minSimilarity).reconcile(statement,
+                (from, to) -> read(() -> queryIndex.between(from, to)));
+    }
+
+    /**
+     * Reads a bank statement in the ledger's CSV format (the ID column may be left out) and reconciles it.
+     * Lines that cannot be read are left out, and nothing is written next to the statement.
+     * @throws java.io.UncheckedIOException If the statement cannot be read.
+     * @see #reconcile(List, int, double)
+     */
+    public ReconciliationReport reconcileWithFile(String fileName, int windowDays, double minSimilarity) {
+        return reconcile(TransactionRepository.readTransactions(Path.of(fileName)), windowDays, minSimilarity);
+    }
+
+    // --- Undo / redo (switching between shared-structure versions, no ledger copies) ---
+
+    public boolean canUndo() {
+        return read(() -> !undoStack.isEmpty());
+    }
+
+    public boolean canRedo() {
+        return read(() -> !redoStack.isEmpty());
+    }
+
+    /**
+     * Reverts the most recent change (add, bulk add, update, delete or import).
+     * @return true if there was a change to undo.
+     */
+    public boolean undo() {
+        return write(() -> {
+            HistoryStep step = undoStack.pollFirst();
+            if (step == null) {
+                return false;
+            }
+            apply(step.before().withVersion(current.version() + 1), invert(step.change()));
+            redoStack.push(step);
+            return true;
+        });
+    }
+
+    /**
+     * Re-applies the most recently undone change.
+     * @return true if there was a change to redo.
+     */
+    public boolean redo() {
+        return write(() -> {
+            HistoryStep step = redoStack.pollFirst();
+            if (step == null) {
+                return false;
+            }
+            apply(step.after().withVersion(current.version() + 1), step.change());
+            undoStack.push(step);
+            return true;
+        });
+    }
+
+    private static TransactionEvent invert(TransactionEvent event) {
+        return switch (event) {
+            case TransactionEvent.Added added -> new TransactionEvent.Deleted(added.transaction());
+            case TransactionEvent.Deleted deleted -> new TransactionEvent.Added(deleted.transaction());
+            case TransactionEvent.Updated updated -> new TransactionEvent.Updated(updated.current(), updated.previous());
+            case TransactionEvent.Batch batch -> new TransactionEvent.Batch(
+                    batch.events().reversed().stream().map(TransactionService::invert).toList());
+        };
+    }
+
+    /**
+     * Records a new version as an undoable step and applies it. Must hold the write lock.
+     */
+    private void commit(LedgerSnapshot next, TransactionEvent change) {
+        record(next, change);
+        apply(next, change);
+    }
+
+    private void record(LedgerSnapshot next, TransactionEvent change) {
+        undoStack.push(new HistoryStep(current, next, change));
+        if (undoStack.size() > MAX_UNDO_STEPS) {
+            undoStack.removeLast();
+        }
+        redoStack.clear();
+    }
+
+    /**
+     * Installs a version, updates the derived indexes, queues the event and persists. Must hold the write lock.
+     */
+    private void apply(LedgerSnapshot next, TransactionEvent change) {
+        install(next, change);
+        unsaved = true;
+        persist();
+    }
+
+    private void install(LedgerSnapshot next, TransactionEvent change) {
+        current = next;
+        indexApply(change);
+        eventPublisher.enqueue(change);
+    }
+
+    /**
+     * Saves the ledger. If another program changed the file since it was last read, that change is folded in
+     * rather than overwritten: rows it appended are merged and saved with ours, while a rewrite wins.
+     * @throws LedgerConflictException If a rewrite of the file replaced changes that were not saved yet.
+     * @throws LedgerSaveException If the file could not be written; the changes are saved with the next one.
+     */
+    private void persist() {
+        if (transactionRepository.saveTransactions(current.asList())) {
+            unsaved = false;
+            return;
+        }
+        if (!transactionRepository.hasExternalChanges()) {
+            throw new LedgerSaveException("The change was made but could not be saved to "
+                    + transactionRepository.getFilePath() + "; it will be saved with the next change");
+        }
+        ExternalChange change = syncUnlocked();
+        if (change.conflict()) {
+            throw new LedgerConflictException("Another program rewrote " + transactionRepository.getFilePath()
+                    + " before the change could be saved. Its version was loaded instead; undo brings the change back.", change);
+        }
+    }
+
+    /**
+     * @return Income and expense totals across the whole ledger. Amounts in different currencies are added
+     * up unconverted; {@link #getFinancialSummaryInDefaultCurrency()} converts them.
+     */
     public FinancialSummary getFinancialSummary() {
-        BigDecimal totalIncome = transactions.stream()
-                .filter(t -> t.getType() == TransactionType.INCOME)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return read(reportIndex::summary);
+    }
 
-        BigDecimal totalExpenses = transactions.stream()
-                .filter(t -> t.getType() == TransactionType.EXPENSE)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * @return Income and expense totals per category across the whole ledger, unconverted like
+     * {@link #getFinancialSummary()}.
+     */
+    public CategoryReport getCategoryReport() {
+        return read(reportIndex::categoryReport);
+    }
 
-        BigDecimal netBalance = totalIncome.subtract(totalExpenses);
+    /**
+     * @return Income and expense totals for every month that has transactions, oldest first, unconverted
+     * like {@link #getFinancialSummary()}. Maintained incrementally, so this never rescans the ledger.
+     */
+    public List<MonthlyTotals> getMonthlyTotals() {
+        return read(reportIndex::monthlyTotals);
+    }
 
-        return new FinancialSummary(totalIncome, totalExpenses, netBalance);
+    // --- External changes to the ledger file ---
+
+    /**
+     * Brings the ledger up to date with changes another program made to its file. Rows appended to the
+     * file are read on their own and added; any other change reloads the file and applies the difference.
+     * Either way the change becomes an undoable step and is published like any other.
+     * <p>
+     * If the file was rewritten while local changes could not be saved yet, the file's version wins
+     * and the result reports a conflict; undo brings the local version back.
+     */
+    public ExternalChange syncWithLedgerFile() {
+        return write(() -> {
+            ExternalChange result = syncUnlocked();
+            externalChangeListeners.forEach(listener -> listener.accept(result));
+            return result;
+        });
     }
-}
 
+    /**
+     * Watches the ledger file and syncs with it whenever another program changes it.
+     * @param listener Told about every external change that was merged, on a background thread. A change
+     *                 found while saving is reported to the caller of that change instead, by a
+     *                 {@link LedgerConflictException}.
+     * @return A handle that stops watching when closed.
+     */
+    public AutoCloseable watchLedgerFile(Consumer<? super ExternalChange> listener) throws IOException {
+        externalChangeListeners.add(listener);
+        LedgerFileWatcher watcher = new LedgerFileWatcher(transactionRepository.getFilePath(), this::syncWithLedgerFile);
+        return () -> {
+            watcher.close();
+            externalChangeListeners.remove(listener);
+        };
+    }
+
+    private ExternalChange syncUnlocked() {
+        if (!transactionRepository.hasExternalChanges()) {
+            return ExternalChange.NONE;
+        }
+        Optional<List<Transaction>> appended = transactionRepository.readAppendedTransactions();
+        boolean rewritten = appended.isEmpty();
+        List<Transaction> external = appended.orElseGet(transactionRepository::loadTransactions);
+
+        LedgerSnapshot next = current;
+        List<TransactionEvent> changes = new ArrayList<>();
+        Set<TransactionId> present = new HashSet<>();
+        int added = 0;
+        int updated = 0;
+        int removed = 0;
+        for (Transaction transaction : external) {
+            present.add(transaction.getTransactionId());
+            Optional<Transaction> existing = next.findById(transaction.getTransactionId());
+            if (existing.isEmpty()) {
+                next = next.add(transaction);
+                changes.add(new TransactionEvent.Added(transaction));
+                added++;
+            } else if (!sameContent(existing.get(), transaction)) {
+                next = next.replace(transaction);
+                changes.add(new TransactionEvent.Updated(existing.get(), transaction));
+                updated++;
+            }
+        }
+        if (rewritten) {
+            for (Transaction transaction : current.asList()) {
+                if (!present.contains(transaction.getTransactionId())) {
+                    next = next.remove(transaction.getTransactionId());
+                    changes.add(new TransactionEvent.Deleted(transaction));
+                    removed++;
+                }
+            }
+        }
+
+        boolean conflict = rewritten && unsaved && !changes.isEmpty();
+        if (!changes.isEmpty()) {
+            TransactionEvent change = new TransactionEvent.Batch(changes);
+            record(next, change);
+            install(next, change);
+        }
+        if (rewritten) {
+            // The file's version is now the ledger
+            unsaved = false;
+        } else if (unsaved) {
+            persist();
+        }
+
+        return new ExternalChange(rewritten ? ExternalChange.Kind.REWRITTEN : ExternalChange.Kind.APPENDED,
+                added, updated, removed, conflict);
+    }
+
+    private static boolean sameContent(Transaction a, Transaction b) {
+        return a.getDate().equals(b.getDate())
+                && a.getDescription().equals(b.getDescription())
+                && a.getAmount().compareTo(b.getAmount()) == 0
+                && a.getType() == b.getType()
+                && a.getCategory().equals(b.getCategory())
+                && a.getCurrency().equals(b.getCurrency());
+    }
+
+    // --- Change events ---
+
+    /**
+     * Subscribes to the change feed. Events are delivered asynchronously, in the order the changes were
+     * applied, with demand controlled by the subscriber through {@link Flow.Subscription#request(long)}.
+     * A subscriber that stops requesting eventually blocks further mutations (backpressure), so it may read
+     * the ledger but must not change it from {@code onNext}.
+     */
+    public void subscribe(Flow.Subscriber<? super TransactionEvent> subscriber) {
+        eventPublisher.subscribe(subscriber);
+    }
+
+    /**
+     * Subscribes a callback to the change feed, invoked for one event at a time on a background thread.
+     * Like any subscriber, the callback may read the ledger but must not change it.
+     * @return A handle that ends the subscription when closed.
+     */
+    public AutoCloseable subscribe(Consumer<? super TransactionEvent> listener) {
+        return eventPublisher.subscribe(listener);
+    }
+
+    // --- Point-in-time balances (maintained incrementally, no rescans) ---
+
+    /**
+     * @return The running balance (income minus expenses) at the end of the given day.
+     */
+    public BigDecimal getBalanceAt(LocalDate date) {
+        return read(() -> balanceIndex.balanceAt(date));
+    }
+
+    /**
+     * @return The net change in balance over the inclusive date range.
+     */
+    public BigDecimal getBalanceChangeBetween(LocalDate from, LocalDate to) {
+        return read(() -> balanceIndex.netBetween(from, to));
+    }
+
+    /**
+     * @return The end-of-day balance for every day in the inclusive date range.
+     */
+    public List<BalancePoint> getDailyBalances(LocalDate from, LocalDate to) {
+        return read(() -> balanceIndex.dailyBalances(from, to));
+    }
+
+    /**
+     * @return The earliest transaction date, or empty if the ledger is empty.
+     */
+    public Optional<LocalDate> getEarliestTransactionDate() {
+        return read(balanceIndex::earliestDate);
+    }
+
+    /**
+     * @return The latest transaction date, or empty if the ledger is empty.
+     */
+    public Optional<LocalDate> getLatestTransactionDate() {
+        return read(balanceIndex::latestDate);
+    }
+
+    // --- Budgets (spend counters are maintained incrementally, checks are O(1)) ---
+
+    /**
+     * Defines or replaces the budget for a category and period.
+     */
+    public void setBudget(Budget budget) {
+        write(() -> {
+            budgetTracker.setBudget(budget);
+            saveBudgets();
+            return null;
+        });
+    }
+
+    /**
+     * @return true if a budget existed for the category and period and was removed.
+     */
+    public boolean removeBudget(String category, BudgetPeriod period) {
+        return write(() -> {
+            boolean removed = budgetTracker.removeBudget(category, period);
+            if (removed) {
+                saveBudgets();
+            }
+            return removed;
+        });
+    }
+
+    public List<Budget> getBudgets() {
+        return read(budgetTracker::budgets);
+    }
+
+    /**
+     * @return The status of every budget for the periods containing the given date. Limits are in the
+     * default currency; spending in other currencies is converted at that day's rate, or listed as
+     * {@link BudgetStatus#unconverted()} if the rate table has no rate for it.
+     */
+    public List<BudgetStatus> getBudgetStatuses(LocalDate date) {
+        return read(() -> budgetTracker.statusesAt(date, exchangeRates));
+    }
+
+    /**
+     * Checks the budgets a transaction counts against, typically right after adding or updating it.
+     * Spending is converted as in {@link #getBudgetStatuses(LocalDate)}, at the rate of the transaction's date.
+     * @return The statuses of the budgets covering the transaction that are now over their limit.
+     */
+    public List<BudgetStatus> getBudgetWarnings(Transaction transaction) {
+        return read(() -> budgetTracker.statusesFor(transaction, exchangeRates).stream()
+                .filter(BudgetStatus::isExceeded)
+                .toList());
+    }
+
+    // --- Approximate analytics (streaming sketches, fixed memory, no rescans) ---
+
+    /**
+     * Estimates a percentile of EXPENSE amounts in a category (case-insensitive). The estimate is
+     * within 1% of the true amount at that rank, relative to that amount.
+     * @param quantile Between 0 and 1, e.g. 0.5 for the median or 0.95 for p95.
+     * @return The estimate, or empty if the category has no expenses.
+     */
+    public Optional<BigDecimal> getExpenseQuantile(String category, double quantile) {
+        return read(() -> sketchIndex.expenseQuantile(category, quantile));
+    }
+
+    /**
+     * @return The estimated median and p95 EXPENSE amounts in a category (case-insensitive), each within
+     * 1% of the true value, or empty if the category has no expenses.
+     */
+    public Optional<AmountQuantiles> getExpenseQuantiles(String category) {
+        return read(() -> sketchIndex.expenseQuantiles(category));
+    }
+
+    /**
+     * Estimates how many distinct merchants (normalized descriptions) the ledger has seen since it was
+     * loaded. The standard error is about 0.8%. The estimate never decreases: deleting a merchant's last
+     * transaction is only reflected after the ledger is reloaded.
+     */
+    public long getDistinctMerchantCount() {
+        return read(sketchIndex::distinctMerchants);
+    }
+
+    /**
+     * @return Up to {@code limit} of the most frequent merchants, most frequent first. Each count is at
+     * least the true count and overestimates it by at most {@link MerchantCount#maxError()}, which is
+     * bounded by the number of transactions added divided by 256. Any merchant with more than that many
+     * transactions is guaranteed to be listed.
+     */
+    public List<MerchantCount> getTopMerchants(int limit) {
+        return read(() -> sketchIndex.topMerchants(limit));
+    }
+
+    // --- Currencies (rates are array lookups, converted totals are cached per target currency) ---
+
+    /**
+     * Converts an amount at the rate in effect on the given day, rounded to the target's minor unit.
+     * Days without a rate use the latest earlier one.
+     * @throws IllegalStateException If the rate table has no rates for one of the currencies.
+     */
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to, LocalDate date) {
+        return read(() -> exchangeRates.convert(amount, from, to, date));
+    }
+
+    /**
+     * Like {@link #getFinancialSummary()}, with every transaction converted to {@code target} at the rate
+     * of its date. Archived years are not included, as their totals do not record currencies.
+     * @throws IllegalStateException If the rate table cannot convert one of the ledger's currencies.
+     */
+    public FinancialSummary getFinancialSummary(Currency target) {
+        return converted(target, ReportIndex::summary);
+    }
+
+    /**
+     * Like {@link #getCategoryReport()}, converted to {@code target}; see {@link #getFinancialSummary(Currency)}.
+     */
+    public CategoryReport getCategoryReport(Currency target) {
+        return converted(target, ReportIndex::categoryReport);
+    }
+
+    /**
+     * Like {@link #getMonthlyTotals()}, converted to {@code target}; see {@link #getFinancialSummary(Currency)}.
+     */
+    public List<MonthlyTotals> getMonthlyTotals(Currency target) {
+        return converted(target, ReportIndex::monthlyTotals);
+    }
+
+    /**
+     * Totals to show when no currency was chosen: {@link #getFinancialSummary()} while every transaction
+     * is in the {@link Transaction#getDefaultCurrency() default currency}, and otherwise
+     * {@link #getFinancialSummary(Currency) converted} to it, so currencies are never added up raw.
+     * @throws IllegalStateException If the rate table cannot convert one of the ledger's currencies.
+     */
+    public FinancialSummary getFinancialSummaryInDefaultCurrency() {
+        return hasForeignCurrencies() ? getFinancialSummary(Transaction.getDefaultCurrency()) : getFinancialSummary();
+    }
+
+    /**
+     * Like {@link #getCategoryReport()}, converted when needed; see {@link #getFinancialSummaryInDefaultCurrency()}.
+     */
+    public CategoryReport getCategoryReportInDefaultCurrency() {
+        return hasForeignCurrencies() ? getCategoryReport(Transaction.getDefaultCurrency()) : getCategoryReport();
+    }
+
+    /**
+     * Like {@link #getMonthlyTotals()}, converted when needed; see {@link #getFinancialSummaryInDefaultCurrency()}.
+     */
+    public List<MonthlyTotals> getMonthlyTotalsInDefaultCurrency() {
+        return hasForeignCurrencies() ? getMonthlyTotals(Transaction.getDefaultCurrency()) : getMonthlyTotals();
+    }
+
+    /**
+     * @return The currencies the ledger's transactions are in, by currency code.
+     */
+    public List<Currency> getCurrencies() {
+        return read(() -> currencyCounts.keySet().stream()
+                .sorted(Comparator.comparing(Currency::getCurrencyCode))
+                .toList());
+    }
+
+    /**
+     * @return true if some transactions are in a currency other than the default one, so unconverted
+     * totals and balances add up different currencies.
+     */
+    public boolean hasForeignCurrencies() {
+        Currency usual = Transaction.getDefaultCurrency();
+        return read(() -> currencyCounts.keySet().stream().anyMatch(currency -> !currency.equals(usual)));
+    }
+
+    /**
+     * @return The rate table, oldest rate first.
+     */
+    public List<ExchangeRate> getExchangeRates() {
+        return read(exchangeRates::rates);
+    }
+
+    /**
+     * Adds rates to the table, replacing any with the same date and currency pair, and saves it.
+     * Converted totals are recomputed the next time they are asked for.
+     * @throws IllegalArgumentException If a rate's base differs from the table's.
+     */
+    public void addExchangeRates(List<ExchangeRate> rates) {
+        write(() -> {
+            Map<String, ExchangeRate> merged = new LinkedHashMap<>();
+            for (ExchangeRate rate : exchangeRates.rates()) {
+                merged.put(rate.date() + rate.quote().getCurrencyCode(), rate);
+            }
+            for (ExchangeRate rate : rates) {
+                merged.put(rate.date() + rate.quote().getCurrencyCode(), rate);
+            }
+            installRates(new ExchangeRateIndex(new ArrayList<>(merged.values())));
+            if (exchangeRateRepository != null) {
+                exchangeRateRepository.saveRates(exchangeRates.rates());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reads the rate table file again, e.g. after another program updated it.
+     */
+    public void reloadExchangeRates() {
+        write(() -> {
+            if (exchangeRateRepository != null) {
+                installRates(new ExchangeRateIndex(exchangeRateRepository.loadRates()));
+            }
+            return null;
+        });
+    }
+
+    private void installRates(ExchangeRateIndex rates) {
+        exchangeRates = rates;
+        convertedReports.clear();
+    }
+
+    /**
+     * Answers from the cached totals for the target currency, building them under the write lock first
+     * if needed.
+     */
+    private <T> T converted(Currency target, Function<ReportIndex, T> report) {
+        Optional<T> cached = read(() -> convertedReports.cached(target).map(report));
+        return cached.orElseGet(() -> write(() -> report.apply(convertedReports.cached(target)
+                .orElseGet(() -> convertedReports.build(target, exchangeRates, current.asList())))));
+    }
+
+    // --- Recurring rules (occurrences are computed per window, never stored until confirmed) ---
+
+    /**
+     * Defines a recurring rule, or replaces the rule with the same ID. Occurrences that were already
+     * confirmed stay in the ledger as they are.
+     */
+    public void addRecurringRule(RecurringRule rule) {
+        write(() -> {
+            recurringSchedule.put(rule);
+            saveRecurringRules();
+            return null;
+        });
+    }
+
+    /**
+     * Stops a rule. Transactions confirmed from it stay in the ledger.
+     * @return true if the rule existed and was removed.
+     */
+    public boolean removeRecurringRule(String id) {
+        return write(() -> {
+            boolean removed = recurringSchedule.remove(id);
+            if (removed) {
+                saveRecurringRules();
+            }
+            return removed;
+        });
+    }
+
+    public List<RecurringRule> getRecurringRules() {
+        return read(recurringSchedule::rules);
+    }
+
+    /**
+     * @return The occurrences in the inclusive date range that have not been confirmed yet, by date.
+     * Occurrences in archived years are treated as settled and never returned.
+     */
+    public List<RecurringOccurrence> getPendingOccurrences(LocalDate from, LocalDate to) {
+        return read(() -> pendingUnlocked(from, to));
+    }
+
+    /**
+     * Turns one occurrence into a real transaction, as an undoable step. Undoing it makes the
+     * occurrence pending again.
+     * @return The new transaction, or empty if the rule does not exist, has no occurrence on that date,
+     * or the occurrence was already confirmed.
+     */
+    public Optional<Transaction> confirmOccurrence(String ruleId, LocalDate date) {
+        return write(() -> recurringSchedule.find(ruleId)
+                .filter(rule -> rule.occurrencesBetween(date, date).contains(date))
+                .filter(rule -> !archive.containsKey(date.getYear()))
+                .filter(rule -> current.findById(rule.occurrenceId(date)).isEmpty())
+                .map(rule -> {
+                    Transaction transaction = rule.toTransaction(date);
+                    commit(current.add(transaction), new TransactionEvent.Added(transaction));
+                    return transaction;
+                }));
+    }
+
+    /**
+     * Confirms every pending occurrence dated on or before {@code through}, e.g. everything due today,
+     * as a single undoable step that saves the ledger once.
+     * @return The new transactions, by date; empty if nothing was pending.
+     */
+    public List<Transaction> confirmOccurrencesThrough(LocalDate through) {
+        return write(() -> {
+            Optional<LocalDate> from = recurringSchedule.earliestStart();
+            if (from.isEmpty()) {
+                return List.<Transaction>of();
+            }
+            LedgerSnapshot next = current;
+            List<Transaction> confirmed = new ArrayList<>();
+            List<TransactionEvent> changes = new ArrayList<>();
+            for (RecurringOccurrence occurrence : pendingUnlocked(from.get(), through)) {
+                Transaction transaction = occurrence.rule().toTransaction(occurrence.date());
+                next = next.add(transaction);
+                confirmed.add(transaction);
+                changes.add(new TransactionEvent.Added(transaction));
+            }
+            if (!changes.isEmpty()) {
+                commit(next, new TransactionEvent.Batch(changes));
+            }
+            return List.copyOf(confirmed);
+        });
+    }
+
+    /**
+     * @return Income and expense totals over the inclusive date range: the ledger's transactions in it
+     * plus the occurrences of recurring rules that are still pending. Archived rows are not included.
+     */
+    public FinancialSummary getProjectedSummary(LocalDate from, LocalDate to) {
+        return read(() -> {
+            BigDecimal[] totals = {BigDecimal.ZERO, BigDecimal.ZERO}; // income, expenses
+            forEachProjected(from, to, (type, category, amount) -> {
+                int slot = type == TransactionType.INCOME ? 0 : 1;
+                totals[slot] = totals[slot].add(amount);
+            });
+            return new FinancialSummary(totals[0], totals[1], totals[0].subtract(totals[1]));
+        });
+    }
+
+    /**
+     * @return Income and expense totals per category over the inclusive date range, including pending
+     * occurrences of recurring rules. Archived rows are not included.
+     */
+    public CategoryReport getProjectedCategoryReport(LocalDate from, LocalDate to) {
+        return read(() -> {
+            CategoryReport report = CategoryReport.empty();
+            forEachProjected(from, to, (type, category, amount) -> (type == TransactionType.INCOME
+                    ? report.incomeByCategory() : report.expensesByCategory()).merge(category, amount, BigDecimal::add));
+            return report;
+        });
+    }
+
+    /**
+     * @return The balance at the end of the given day if every pending occurrence up to that day,
+     * overdue ones included, were confirmed.
+     */
+    public BigDecimal getProjectedBalanceAt(LocalDate date) {
+        return read(() -> balanceIndex.balanceAt(date).add(pendingNet(pendingThrough(date))));
+    }
+
+    /**
+     * @return The projected end-of-day balance for every day in the inclusive date range, as in
+     * {@link #getProjectedBalanceAt(LocalDate)}.
+     */
+    public List<BalancePoint> getProjectedDailyBalances(LocalDate from, LocalDate to) {
+        return read(() -> {
+            List<BalancePoint> actual = balanceIndex.dailyBalances(from, to);
+            List<RecurringOccurrence> pending = pendingThrough(to);
+            List<BalancePoint> projected = new ArrayList<>(actual.size());
+            BigDecimal extra = BigDecimal.ZERO;
+            int next = 0;
+            for (BalancePoint point : actual) {
+                while (next < pending.size() && !pending.get(next).date().isAfter(point.date())) {
+                    extra = extra.add(pending.get(next++).net());
+                }
+                projected.add(new BalancePoint(point.date(), point.balance().add(extra)));
+            }
+            return projected;
+        });
+    }
+
+    /**
+     * Receives the amounts {@link #forEachProjected} walks over.
+     */
+    private interface ProjectedAmountConsumer {
+        void accept(TransactionType type, String category, BigDecimal amount);
+    }
+
+    /**
+     * Feeds the ledger rows in the window and then the pending occurrences in it to the consumer. Must
+     * hold the lock.
+     */
+    private void forEachProjected(LocalDate from, LocalDate to, ProjectedAmountConsumer consumer) {
+        for (Transaction transaction : queryIndex.between(from, to)) {
+            consumer.accept(transaction.getType(), transaction.getCategory(), transaction.getAmount());
+        }
+        for (RecurringOccurrence occurrence : pendingUnlocked(from, to)) {
+            RecurringRule rule = occurrence.rule();
+            consumer.accept(rule.type(), rule.category(), rule.amount());
+        }
+    }
+
+    private List<RecurringOccurrence> pendingUnlocked(LocalDate from, LocalDate to) {
+        return recurringSchedule.pending(from, to, current, archive::containsKey);
+    }
+
+    private List<RecurringOccurrence> pendingThrough(LocalDate date) {
+        return recurringSchedule.earliestStart()
+                .map(from -> pendingUnlocked(from, date))
+                .orElse(List.of());
+    }
+
+    private static BigDecimal pendingNet(List<RecurringOccurrence> occurrences) {
+        BigDecimal net = BigDecimal.ZERO;
+        for (RecurringOccurrence occurrence : occurrences) {
+            net = net.add(occurrence.net());
+        }
+        return net;
+    }
+
+    private void saveRecurringRules() {
+        if (recurringRuleRepository != null) {
+            recurringRuleRepository.saveRules(recurringSchedule.rules());
+        }
+    }
+
+    private void saveBudgets() {
+        if (budgetRepository != null) {
+            budgetRepository.saveBudgets(budgetTracker.budgets());
+        }
+    }
+
+    // --- Locking ---
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the action under the write lock, then delivers the events of its changes once the outermost
+     * write has released the lock.
+     */
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            if (lock.getWriteHoldCount() == 1) {
+                int queued = eventPublisher.takeQueued();
+                lock.writeLock().unlock();
+                eventPublisher.deliver(queued);
+            } else {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // --- Derived index maintenance ---
+
+    private void indexApply(TransactionEvent change) {
+        switch (change) {
+            case TransactionEvent.Added added -> indexAdd(added.transaction());
+            case TransactionEvent.Deleted deleted -> indexRemove(deleted.transaction());
+            case TransactionEvent.Updated updated -> {
+                indexRemove(updated.previous());
+                indexAdd(updated.current());
+            }
+            case TransactionEvent.Batch batch -> batch.events().forEach(this::indexApply);
+        }
+    }
+
+    private void indexAdd(Transaction transaction) {
+        balanceIndex.add(transaction);
+        budgetTracker.add(transaction);
+        reportIndex.add(transaction);
+        sketchIndex.add(transaction);
+        queryIndex.add(transaction);
+        convertedReports.add(transaction, exchangeRates);
+        currencyCounts.computeIfAbsent(transaction.getCurrency(), currency -> new int[1])[0]++;
+    }
+
+    private void indexRemove(Transaction transaction) {
+        balanceIndex.remove(transaction);
+        budgetTracker.remove(transaction);
+        reportIndex.remove(transaction);
+        sketchIndex.remove(transaction);
+        queryIndex.remove(transaction);
+        convertedReports.remove(transaction, exchangeRates);
+        int[] count = currencyCounts.get(transaction.getCurrency());
+        if (count != null && --count[0] == 0) {
+            currencyCounts.remove(transaction.getCurrency());
+        }
+    }
+}
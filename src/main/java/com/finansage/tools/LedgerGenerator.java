@@ -0,0 +1,207 @@
+package com.finansage.tools;
+
+import com.finansage.model.ExportFormat;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+import com.finansage.repository.TransactionExporter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Produces synthetic ledgers of any size for load and soak testing.
+ * <p>
+ * Rows are spread evenly over the date span in date order. Expense categories are drawn from a Zipf
+ * distribution (a few categories get most rows), and so are merchants within a category, which sets the
+ * description cardinality. Each category has its own typical amount, with log-normal spread around it.
+ * The same settings and seed always give the same rows, IDs included.
+ * <p>
+ * Run from Maven with {@code mvn compile exec:exec@generate -Dgenerator.args="--rows 1000000 --out big.csv"};
+ * see {@link #main(String[])} for the options.
+ */
+public class LedgerGenerator {
+
+    private static final List<String> CATEGORY_NAMES = List.of("Groceries", "Dining", "Transport", "Shopping",
+            "Utilities", "Housing", "Health", "Entertainment", "Subscriptions", "Travel", "Insurance", "Education",
+            "Gifts", "Pets", "Fees", "Kids");
+    private static final List<String> INCOME_CATEGORIES = List.of("Salary", "Freelance", "Interest", "Refunds");
+    private static final List<String> MERCHANT_WORDS = List.of("Corner", "City", "Green", "Blue", "North", "Metro",
+            "Daily", "Prime", "Urban", "Sunny", "Royal", "Family", "Central", "Golden", "River", "Park");
+    private static final List<String> MERCHANT_KINDS = List.of("Market", "Cafe", "Store", "Shop", "Garage",
+            "Pharmacy", "Bistro", "Outlet", "Studio", "Depot", "Kitchen", "Supply");
+    private static final double AMOUNT_SPREAD = 0.6; // sigma of the log-normal amount around a category's median
+
+    /**
+     * @param rows           How many transactions to produce.
+     * @param from           The first date (inclusive).
+     * @param to             The last date (inclusive).
+     * @param categories     How many expense categories to use.
+     * @param categorySkew   The Zipf exponent for categories: 0 is uniform, above 1 is heavily skewed.
+     * @param merchants      How many distinct merchants (expense descriptions) to use across all categories.
+     * @param merchantSkew   The Zipf exponent for merchants within a category.
+     * @param incomeShare    The fraction of rows that are income, between 0 and 1.
+     * @param seed           Seeds every random choice.
+     */
+    public record Settings(long rows, LocalDate from, LocalDate to, int categories, double categorySkew,
+                           int merchants, double merchantSkew, double incomeShare, long seed) {
+
+        public static Settings defaults() {
+            return new Settings(100_000, LocalDate.of(2015, 1, 1), LocalDate.of(2024, 12, 31),
+                    CATEGORY_NAMES.size(), 1.1, 2_000, 1.0, 0.05, 42);
+        }
+
+        public Settings {
+            if (rows < 0 || categories < 1 || merchants < categories || to.isBefore(from)
+                    || incomeShare < 0 || incomeShare > 1 || categorySkew < 0 || merchantSkew < 0) {
+                throw new IllegalArgumentException("Invalid generator settings: rows " + rows + ", " + from + " to " + to
+                        + ", " + categories + " categories, " + merchants + " merchants, skews " + categorySkew + "/"
+                        + merchantSkew + ", income share " + incomeShare);
+            }
+        }
+
+        public Settings withRows(long newRows) {
+            return new Settings(newRows, from, to, categories, categorySkew, merchants, merchantSkew, incomeShare, seed);
+        }
+    }
+
+    private final Settings settings;
+    private final double[] categoryCdf;
+    private final double[] incomeCdf = zipfCdf(INCOME_CATEGORIES.size(), 1.5);
+    private final double[][] merchantCdfs; // per category, over the merchants that belong to it
+    private final BigDecimal[] categoryMedians;
+
+    public LedgerGenerator(Settings settings) {
+        this.settings = settings;
+        this.categoryCdf = zipfCdf(settings.categories(), settings.categorySkew());
+        this.merchantCdfs = new double[settings.categories()][];
+        this.categoryMedians = new BigDecimal[settings.categories()];
+        Random setup = new Random(settings.seed());
+        for (int category = 0; category < settings.categories(); category++) {
+            // Merchant m belongs to category m % categories
+            int owned = (settings.merchants() - category + settings.categories() - 1) / settings.categories();
+            merchantCdfs[category] = zipfCdf(owned, settings.merchantSkew());
+            // Typical amounts from a few units to a few hundred, fixed per category
+            categoryMedians[category] = BigDecimal.valueOf(Math.exp(1 + setup.nextDouble() * 5)).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * @return The rows, generated lazily in date order; each call starts over and yields the same rows.
+     */
+    public Stream<Transaction> stream() {
+        Random random = new Random(settings.seed() + 1);
+        long days = ChronoUnit.DAYS.between(settings.from(), settings.to()) + 1;
+        long rows = settings.rows();
+        return LongStream.range(0, rows).mapToObj(i -> next(random, settings.from().plusDays(i * days / Math.max(rows, 1))));
+    }
+
+    /**
+     * Writes the rows as a ledger CSV file.
+     * @return The number of rows written.
+     */
+    public long writeTo(Path target) throws IOException {
+        return new TransactionExporter().export(this::stream, ExportFormat.CSV, target);
+    }
+
+    private Transaction next(Random random, LocalDate date) {
+        String id = timeOrderedId(random, date);
+        if (random.nextDouble() < settings.incomeShare()) {
+            String category = INCOME_CATEGORIES.get(sample(random, incomeCdf));
+            BigDecimal amount = logNormal(random, category.equals("Salary") ? new BigDecimal("2500.00") : new BigDecimal("150.00"));
+            return new Transaction(id, date, category + " payment", amount, TransactionType.INCOME, category);
+        }
+        int category = sample(random, categoryCdf);
+        int merchant = category + sample(random, merchantCdfs[category]) * settings.categories();
+        return new Transaction(id, date, merchantName(merchant), logNormal(random, categoryMedians[category]),
+                TransactionType.EXPENSE, categoryName(category));
+    }
+
+    /**
+     * A UUIDv7-style ID stamped with the transaction date, so generated IDs sort like real ones.
+     */
+    private static String timeOrderedId(Random random, LocalDate date) {
+        long millis = date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli() + random.nextInt(86_400_000);
+        long msb = (millis << 16) | 0x7000L | random.nextInt(0x1000);
+        long lsb = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static BigDecimal logNormal(Random random, BigDecimal median) {
+        double amount = median.doubleValue() * Math.exp(random.nextGaussian() * AMOUNT_SPREAD);
+        return BigDecimal.valueOf(Math.max(amount, 0.01)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static String categoryName(int category) {
+        return category < CATEGORY_NAMES.size() ? CATEGORY_NAMES.get(category) : "Category " + (category + 1);
+    }
+
+    /**
+     * Names merchant {@code merchant} uniquely. Indexes are shuffled within each block of word/kind pairs
+     * so that merchants of one category (every n-th index) do not all share a word.
+     */
+    static String merchantName(int merchant) {
+        int pairs = MERCHANT_WORDS.size() * MERCHANT_KINDS.size();
+        int pair = (int) (((merchant % pairs) * 77L + 5) % pairs); // 77 is coprime to the pair count, so this is a bijection
+        String name = MERCHANT_WORDS.get(pair / MERCHANT_KINDS.size()) + " " + MERCHANT_KINDS.get(pair % MERCHANT_KINDS.size());
+        int branch = merchant / pairs;
+        return branch == 0 ? name : name + " " + (branch + 1);
+    }
+
+    /**
+     * @return The cumulative probabilities of ranks 1..n under Zipf's law with exponent {@code skew}.
+     */
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1 / Math.pow(rank, skew);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int sample(Random random, double[] cdf) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    /**
+     * Options, all optional: {@code --rows N --from YYYY-MM-DD --to YYYY-MM-DD --categories N
+     * --category-skew S --merchants N --merchant-skew S --income-share F --seed N --out FILE}
+     * (default {@code generated.csv}).
+     */
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args);
+        Settings defaults = Settings.defaults();
+        Settings settings = new Settings(
+                options.getLong("rows", defaults.rows()),
+                options.getDate("from", defaults.from()),
+                options.getDate("to", defaults.to()),
+                (int) options.getLong("categories", defaults.categories()),
+                options.getDouble("category-skew", defaults.categorySkew()),
+                (int) options.getLong("merchants", defaults.merchants()),
+                options.getDouble("merchant-skew", defaults.merchantSkew()),
+                options.getDouble("income-share", defaults.incomeShare()),
+                options.getLong("seed", defaults.seed()));
+        Path target = Path.of(options.getString("out", "generated.csv"));
+        options.rejectUnused();
+
+        long started = System.nanoTime();
+        long written = new LedgerGenerator(settings).writeTo(target);
+        System.out.printf("Wrote %,d transactions to %s in %.1f s%n", written, target, (System.nanoTime() - started) / 1e9);
+    }
+}
@@ -0,0 +1,109 @@
+package com.finansage.tools;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command-line options of the form {@code --name value} for the tools in this package.
+ */
+final class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    private Options() {
+    }
+
+    /**
+     * @throws IllegalArgumentException If an argument is not a {@code --name value} pair.
+     */
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].isBlank()) {
+                continue; // An empty property expands to an empty argument when run from Maven
+            }
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value but found '" + args[i] + "'");
+            }
+            options.values.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    String getString(String name, String defaultValue) {
+        String value = values.remove(name);
+        return value == null ? defaultValue : value;
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.remove(name);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.remove(name);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    LocalDate getDate(String name, LocalDate defaultValue) {
+        String value = values.remove(name);
+        try {
+            return value == null ? defaultValue : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    /**
+     * Accepts a number with a unit ({@code 500ms}, {@code 30s}, {@code 5m}, {@code 2h}) or an ISO-8601 duration.
+     */
+    Duration getDuration(String name, Duration defaultValue) {
+        String value = values.remove(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        String text = value.toLowerCase(Locale.ROOT);
+        try {
+            if (text.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+            }
+            long amount = Long.parseLong(text.substring(0, text.length() - 1));
+            return switch (text.charAt(text.length() - 1)) {
+                case 's' -> Duration.ofSeconds(amount);
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> throw invalid(name, value);
+            };
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            try {
+                return Duration.parse(value);
+            } catch (DateTimeParseException notIso) {
+                throw invalid(name, value);
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If an option was given that no getter asked for, e.g. a typo.
+     */
+    void rejectUnused() {
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown option(s): --" + String.join(", --", values.keySet()));
+        }
+    }
+
+    private static IllegalArgumentException invalid(String name, String value) {
+        return new IllegalArgumentException("Invalid value for --" + name + ": '" + value + "'");
+    }
+}
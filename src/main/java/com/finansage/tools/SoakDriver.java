@@ -0,0 +1,403 @@
+package com.finansage.tools;
+
+import com.finansage.model.SortKey;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+import com.finansage.repository.TransactionRepository;
+import com.finansage.service.TransactionService;
+import com.finansage.util.QuantileSketch;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Hammers a {@link TransactionService} with a mix of reads and writes from several threads for a set
+ * time, then reports throughput and latency percentiles per operation, heap use, allocation and GC.
+ * <p>
+ * The driver works on a copy of the ledger in a temporary directory (or on a generated ledger if none is
+ * given), so the original file is never changed. Writes go through the service as usual and so each
+ * one saves the ledger, which is part of what is measured.
+ * <p>
+ * Run from Maven with {@code mvn compile exec:exec@soak -Dsoak.args="--duration 5m --threads 8"};
+ * {@code -Dsoak.heap=512m} and {@code -Dsoak.gc=Parallel} choose the heap size and collector of the
+ * forked JVM. See {@link #main(String[])} for the options.
+ */
+public class SoakDriver {
+
+    private static final double LATENCY_ACCURACY = 0.01;
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * The operations in the mix and their relative weights within the reads or within the writes.
+     */
+    enum Operation {
+        SUMMARY(false, 15), CATEGORY_REPORT(false, 10), MONTHLY_TOTALS(false, 10), BALANCE(false, 20),
+        QUERY(false, 20), TOP_N(false, 10), FIND_BY_ID(false, 15),
+        ADD(true, 50), UPDATE(true, 30), DELETE(true, 20);
+
+        final boolean write;
+        final int weight;
+
+        Operation(boolean write, int weight) {
+            this.write = write;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param ledger         The ledger to copy, or null to generate one.
+     * @param generatedRows  How many rows to generate when no ledger is given.
+     * @param duration       How long to run.
+     * @param threads        How many threads issue operations.
+     * @param writeShare     The fraction of operations that are writes, between 0 and 1.
+     * @param reportInterval How often to print progress; zero for none.
+     * @param seed           Seeds the operation mix.
+     */
+    public record Settings(Path ledger, long generatedRows, Duration duration, int threads, double writeShare,
+                           Duration reportInterval, long seed) {
+
+        public Settings {
+            if (threads < 1 || writeShare < 0 || writeShare > 1 || duration.isNegative()) {
+                throw new IllegalArgumentException("Invalid soak settings: " + threads + " threads, write share "
+                        + writeShare + ", duration " + duration);
+            }
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     * @param operations The number of operations completed.
+     * @param errors     The number of operations that threw.
+     * @param elapsed    How long the run took.
+     */
+    public record Result(long operations, long errors, Duration elapsed) {
+
+        public double operationsPerSecond() {
+            return elapsed.isZero() ? 0 : operations / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    /**
+     * Latencies and counts seen by one worker, merged once the run is over.
+     */
+    private static final class Stats {
+        final Map<Operation, QuantileSketch> latencies = new EnumMap<>(Operation.class);
+        final long[] errors = new long[Operation.values().length];
+        final long[] maxNanos = new long[Operation.values().length];
+        long allocatedBytes;
+
+        Stats() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new QuantileSketch(LATENCY_ACCURACY));
+            }
+        }
+
+        void record(Operation operation, long nanos) {
+            latencies.get(operation).add(nanos / 1e6);
+            maxNanos[operation.ordinal()] = Math.max(maxNanos[operation.ordinal()], nanos);
+        }
+
+        void merge(Stats other) {
+            for (Operation operation : Operation.values()) {
+                latencies.get(operation).merge(other.latencies.get(operation));
+                errors[operation.ordinal()] += other.errors[operation.ordinal()];
+                maxNanos[operation.ordinal()] = Math.max(maxNanos[operation.ordinal()], other.maxNanos[operation.ordinal()]);
+            }
+            allocatedBytes += other.allocatedBytes;
+        }
+    }
+
+    private final Settings settings;
+    private final PrintStream out;
+    private final LongAdder completed = new LongAdder();
+    private final ConcurrentLinkedQueue<String> addedIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong longestCollectionMillis = new AtomicLong();
+    private TransactionService service;
+    private List<String> categories;
+    private LocalDate firstDay;
+    private int dayCount;
+
+    public SoakDriver(Settings settings, PrintStream out) {
+        this.settings = settings;
+        this.out = out;
+    }
+
+    public Result run() throws IOException {
+        Path workDirectory = Files.createTempDirectory("finansage-soak");
+        try {
+            Path ledger = workDirectory.resolve("ledger.csv");
+            if (settings.ledger() != null) {
+                Files.copy(settings.ledger(), ledger, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                new LedgerGenerator(LedgerGenerator.Settings.defaults().withRows(settings.generatedRows())).writeTo(ledger);
+            }
+            return soak(ledger);
+        } finally {
+            try (Stream<Path> files = Files.walk(workDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private Result soak(Path ledger) {
+        long loadStarted = System.nanoTime();
+        service = new TransactionService(new TransactionRepository(ledger.toString()));
+        int rows = service.getAllTransactions().size();
+        out.printf("Loaded %,d transactions in %.2f s%n", rows, (System.nanoTime() - loadStarted) / 1e9);
+        categories = List.copyOf(service.getCategoryReport().expensesByCategory().keySet());
+        firstDay = service.getEarliestTransactionDate().orElse(LocalDate.now());
+        dayCount = (int) (service.getLatestTransactionDate().orElse(firstDay).toEpochDay() - firstDay.toEpochDay() + 1);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        System.gc();
+        long retainedBefore = memory.getHeapMemoryUsage().getUsed();
+        long[] collectionsBefore = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).toArray();
+        long[] collectionMillisBefore = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).toArray();
+        NotificationListener collectionListener = (notification, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                long millis = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo().getDuration();
+                longestCollectionMillis.accumulateAndGet(millis, Math::max);
+            }
+        };
+        collectors.forEach(collector -> ((NotificationEmitter) collector).addNotificationListener(collectionListener, null, null));
+
+        out.printf("Running %d threads for %s, %.0f%% writes%n", settings.threads(), settings.duration(), settings.writeShare() * 100);
+        AtomicLong peakHeap = new AtomicLong();
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        monitor.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 100, TimeUnit.MILLISECONDS);
+        long started = System.nanoTime();
+        if (!settings.reportInterval().isZero()) {
+            long intervalMillis = settings.reportInterval().toMillis();
+            long[] last = {0, started};
+            monitor.scheduleAtFixedRate(() -> {
+                long now = System.nanoTime();
+                long total = completed.sum();
+                out.printf("  %6.0f s  %,12d ops  %,10.0f ops/s  heap %,6d MB%n", (now - started) / 1e9, total,
+                        (total - last[0]) / ((now - last[1]) / 1e9), memory.getHeapMemoryUsage().getUsed() / MB);
+                last[0] = total;
+                last[1] = now;
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        long deadline = started + settings.duration().toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.threads());
+        List<Future<Stats>> results = new ArrayList<>();
+        for (int i = 0; i < settings.threads(); i++) {
+            long seed = settings.seed() + i;
+            results.add(workers.submit(() -> work(new Random(seed), deadline)));
+        }
+        Stats stats = new Stats();
+        for (Future<Stats> result : results) {
+            try {
+                stats.merge(result.get());
+            } catch (Exception e) {
+                throw new IllegalStateException("Soak worker failed", e);
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        long[] collections = new long[collectors.size()];
+        long[] collectionMillis = new long[collectors.size()];
+        for (int i = 0; i < collectors.size(); i++) {
+            collections[i] = collectors.get(i).getCollectionCount() - collectionsBefore[i];
+            collectionMillis[i] = collectors.get(i).getCollectionTime() - collectionMillisBefore[i];
+        }
+        workers.shutdown();
+        monitor.shutdownNow();
+        collectors.forEach(collector -> {
+            try {
+                ((NotificationEmitter) collector).removeNotificationListener(collectionListener);
+            } catch (ListenerNotFoundException ignored) {
+                // Already gone
+            }
+        });
+
+        System.gc();
+        long retainedAfter = memory.getHeapMemoryUsage().getUsed();
+        Result result = report(stats, elapsed);
+        out.printf("Heap: max %,d MB, peak used %,d MB; retained after GC %,d MB before, %,d MB after (%+,d MB)%n",
+                memory.getHeapMemoryUsage().getMax() / MB, peakHeap.get() / MB,
+                retainedBefore / MB, retainedAfter / MB, (retainedAfter - retainedBefore) / MB);
+        if (stats.allocatedBytes > 0) {
+            out.printf("Allocated by workers: %,d MB (%,.0f MB/s)%n", stats.allocatedBytes / MB,
+                    stats.allocatedBytes / (double) MB / (elapsed.toNanos() / 1e9));
+        }
+        long totalCollectionMillis = 0;
+        for (int i = 0; i < collectors.size(); i++) {
+            totalCollectionMillis += collectionMillis[i];
+            out.printf("GC %-24s %,8d collections %,10d ms%n", collectors.get(i).getName() + ":", collections[i], collectionMillis[i]);
+        }
+        out.printf("GC time: %.1f%% of wall clock, longest collection %,d ms%n",
+                100.0 * totalCollectionMillis / Math.max(elapsed.toMillis(), 1), longestCollectionMillis.get());
+        return result;
+    }
+
+    private Stats work(Random random, long deadline) {
+        Stats stats = new Stats();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean countAllocations = threads instanceof com.sun.management.ThreadMXBean;
+        long allocatedBefore = countAllocations ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() : 0;
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(random);
+            long started = System.nanoTime();
+            try {
+                perform(operation, random);
+            } catch (RuntimeException e) {
+                stats.errors[operation.ordinal()]++;
+            }
+            stats.record(operation, System.nanoTime() - started);
+            completed.increment();
+        }
+        if (countAllocations) {
+            stats.allocatedBytes = ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        return stats;
+    }
+
+    private Operation pick(Random random) {
+        boolean write = random.nextDouble() < settings.writeShare();
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += operation.write == write ? operation.weight : 0;
+        }
+        int choice = random.nextInt(total);
+        for (Operation operation : Operation.values()) {
+            if (operation.write == write) {
+                choice -= operation.weight;
+                if (choice < 0) {
+                    return operation;
+                }
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void perform(Operation operation, Random random) {
+        switch (operation) {
+            case SUMMARY -> service.getFinancialSummary();
+            case CATEGORY_REPORT -> service.getCategoryReport();
+            case MONTHLY_TOTALS -> service.getMonthlyTotals();
+            case BALANCE -> service.getBalanceAt(randomDay(random));
+            case QUERY -> service.query("category=\"" + randomCategory(random) + "\" and date=" + randomDay(random).toString().substring(0, 7));
+            case TOP_N -> service.getTopTransactions("date=" + randomDay(random).getYear(), SortKey.AMOUNT, 10);
+            case FIND_BY_ID -> randomTransaction(random).ifPresent(transaction -> service.findTransactionById(transaction.getId()));
+            case ADD -> add(random);
+            case UPDATE -> randomTransaction(random).ifPresent(transaction -> service.updateTransaction(transaction.getId(),
+                    transaction.getDate(), transaction.getDescription(), transaction.getAmount().add(BigDecimal.ONE),
+                    transaction.getType(), transaction.getCategory()));
+            case DELETE -> {
+                // Only remove rows this run added, so the ledger keeps its size
+                String id = addedIds.poll();
+                if (id == null) {
+                    add(random);
+                } else {
+                    service.deleteTransaction(id);
+                }
+            }
+        }
+    }
+
+    private void add(Random random) {
+        Transaction transaction = new Transaction(randomDay(random), "Soak " + random.nextInt(1_000),
+                BigDecimal.valueOf(1 + random.nextInt(50_000), 2), TransactionType.EXPENSE, randomCategory(random));
+        service.addTransaction(transaction);
+        addedIds.add(transaction.getId());
+    }
+
+    private LocalDate randomDay(Random random) {
+        return firstDay.plusDays(random.nextInt(Math.max(dayCount, 1)));
+    }
+
+    private String randomCategory(Random random) {
+        return categories.isEmpty() ? "Misc" : categories.get(random.nextInt(categories.size()));
+    }
+
+    private Optional<Transaction> randomTransaction(Random random) {
+        List<Transaction> rows = service.getAllTransactions();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(random.nextInt(rows.size())));
+    }
+
+    private Result report(Stats stats, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        out.printf("%n%-16s %10s %10s %9s %9s %9s %9s %9s %7s%n",
+                "Operation", "Count", "Ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "Errors");
+        long operations = 0;
+        long errors = 0;
+        QuantileSketch all = new QuantileSketch(LATENCY_ACCURACY);
+        long maxNanos = 0;
+        for (Operation operation : Operation.values()) {
+            QuantileSketch latency = stats.latencies.get(operation);
+            operations += latency.count();
+            errors += stats.errors[operation.ordinal()];
+            all.merge(latency);
+            maxNanos = Math.max(maxNanos, stats.maxNanos[operation.ordinal()]);
+            printRow(operation.name().toLowerCase(Locale.ROOT).replace('_', ' '), latency, seconds,
+                    stats.maxNanos[operation.ordinal()], stats.errors[operation.ordinal()]);
+        }
+        printRow("total", all, seconds, maxNanos, errors);
+        out.println();
+        return new Result(operations, errors, elapsed);
+    }
+
+    private void printRow(String name, QuantileSketch latency, double seconds, long maxNanos, long errors) {
+        if (latency.isEmpty()) {
+            return;
+        }
+        out.printf("%-16s %,10d %,10.0f %9.3f %9.3f %9.3f %9.3f %9.3f %7d%n", name, latency.count(),
+                latency.count() / seconds, latency.quantile(0.5), latency.quantile(0.9), latency.quantile(0.99),
+                latency.quantile(0.999), maxNanos / 1e6, errors);
+    }
+
+    /**
+     * Options, all optional: {@code --ledger FILE} (default: generate {@code --rows N} rows, 100,000),
+     * {@code --duration 60s}, {@code --threads N} (default: available processors, at least 2),
+     * {@code --write-share F} (default 0.05), {@code --report-every 10s}, {@code --seed N}.
+     */
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args);
+        String ledger = options.getString("ledger", null);
+        Settings settings = new Settings(
+                ledger == null ? null : Path.of(ledger),
+                options.getLong("rows", 100_000),
+                options.getDuration("duration", Duration.ofSeconds(60)),
+                (int) options.getLong("threads", Math.max(2, Runtime.getRuntime().availableProcessors())),
+                options.getDouble("write-share", 0.05),
+                options.getDuration("report-every", Duration.ofSeconds(10)),
+                options.getLong("seed", 1));
+        options.rejectUnused();
+        new SoakDriver(settings, System.out).run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.finansage.util;
+
+/**
+ * A simple Bloom filter over pre-computed 64-bit hashes.
+ * It answers "definitely not seen" or "possibly seen" in constant time, so it can sit
+ * in front of a more expensive exact lookup. False positives are possible, false negatives are not.
+ */
+public final class BloomFilter {
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions The number of elements the filter is sized for.
+     * @param falsePositiveRate  The target false positive probability, e.g. 0.01.
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+        }
+        int n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.bits = new long[(bitCount + 63) >>> 6];
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(long hash) {
+        long h1 = hash;
+        long h2 = Hashing.mix64(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = Hashing.mix64(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package com.finansage.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * A Fenwick (binary indexed) tree of exact decimal values.
+ * Point updates and prefix sums both run in O(log n).
+ */
+public final class FenwickTree {
+    private final BigDecimal[] tree; // 1-based
+
+    public FenwickTree(int size) {
+        this.tree = new BigDecimal[size + 1];
+        Arrays.fill(tree, BigDecimal.ZERO);
+    }
+
+    /**
+     * Builds a tree over existing point values in O(n).
+     */
+    public static FenwickTree of(BigDecimal[] values) {
+        FenwickTree fenwick = new FenwickTree(values.length);
+        BigDecimal[] tree = fenwick.tree;
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] = tree[i].add(values[i - 1]);
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] = tree[parent].add(tree[i]);
+            }
+        }
+        return fenwick;
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Adds {@code delta} to the value at the zero-based {@code index}.
+     */
+    public void add(int index, BigDecimal delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] = tree[i].add(delta);
+        }
+    }
+
+    /**
+     * @return The sum of the values at zero-based positions {@code 0..index} inclusive.
+     */
+    public BigDecimal prefixSum(int index) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum = sum.add(tree[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * @return The sum of the values at zero-based positions {@code from..to} inclusive.
+     */
+    public BigDecimal rangeSum(int from, int to) {
+        if (to < from) {
+            return BigDecimal.ZERO;
+        }
+        return from == 0 ? prefixSum(to) : prefixSum(to).subtract(prefixSum(from - 1));
+    }
+}
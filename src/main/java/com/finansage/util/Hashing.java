@@ -0,0 +1,52 @@
+package com.finansage.util;
+
+/**
+ * Small, allocation-free 64-bit hashing helpers shared by the probabilistic data structures.
+ */
+public final class Hashing {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * The SplitMix64 finalizer. Spreads the bits of a weak hash across the whole word.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Hashes a string into 64 bits (FNV-1a over UTF-16 chars followed by a mixing step).
+     */
+    public static long hash64(CharSequence value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Hashes a range of bytes into 64 bits (FNV-1a followed by a mixing step).
+     */
+    public static long hash64(byte[] bytes, int offset, int length) {
+        long h = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= bytes[i] & 0xff;
+            h *= FNV_PRIME;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Combines an accumulated hash with another value.
+     */
+    public static long combine(long seed, long value) {
+        return mix64(seed * 31 + value);
+    }
+}
@@ -0,0 +1,62 @@
+package com.finansage.util;
+
+/**
+ * A HyperLogLog distinct-count estimator over pre-computed 64-bit hashes.
+ * With {@code 2^precision} registers the standard error of the estimate is about
+ * {@code 1.04 / sqrt(2^precision)}; precision 14 uses 16 KB and gives roughly 0.8%.
+ * Small cardinalities use linear counting, which is close to exact.
+ * <p>
+ * Like every HyperLogLog, it only grows: elements cannot be removed.
+ */
+public final class HyperLogLog {
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision The number of hash bits used to pick a register, between 4 and 18.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18.");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits; the sentinel bit caps it
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct hashes added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * The relative standard error of {@link #estimate()}.
+     */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+}
@@ -0,0 +1,129 @@
+package com.finansage.util;
+
+import java.util.Arrays;
+
+/**
+ * A relative-error quantile sketch over non-negative values (the DDSketch bucketing scheme).
+ * Values are counted in logarithmic buckets whose bounds grow by a factor of
+ * {@code (1 + alpha) / (1 - alpha)}, so any quantile estimate is within {@code alpha} of the true
+ * value at that rank, relative to that value. Because each value only bumps a bucket counter,
+ * values can be removed as cheaply and exactly as they are added.
+ * <p>
+ * Memory grows with the logarithm of the value range, not with the number of values: at 1% error,
+ * amounts from 0.01 to 1,000,000,000 need about 1,300 buckets.
+ */
+public final class QuantileSketch {
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private final double gamma;
+    private final double logGamma;
+    private long[] counts = new long[0];
+    private int minIndex;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy The maximum relative error of a quantile estimate, e.g. 0.01.
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1.");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Records a value. Values at or below zero are counted as zero.
+     */
+    public void add(double value) {
+        update(value, 1);
+    }
+
+    /**
+     * Forgets one occurrence of a value previously passed to {@link #add(double)}.
+     */
+    public void remove(double value) {
+        update(value, -1);
+    }
+
+    /**
+     * Adds every value counted by another sketch of the same accuracy, e.g. to combine per-thread sketches.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.gamma != gamma) {
+            throw new IllegalArgumentException("Sketches must have the same accuracy.");
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int index = other.minIndex + i;
+                ensureCovers(index);
+                counts[index - minIndex] += other.counts[i];
+            }
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @param quantile The quantile to estimate, between 0 and 1 (0.5 is the median).
+     * @return The estimated value at that quantile, or NaN if the sketch is empty.
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                return 2 * Math.pow(gamma, minIndex + i) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, minIndex + counts.length - 1) / (gamma + 1);
+    }
+
+    private void update(double value, int delta) {
+        count += delta;
+        if (value <= MIN_INDEXABLE_VALUE) {
+            zeroCount += delta;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureCovers(index);
+        counts[index - minIndex] += delta;
+    }
+
+    private void ensureCovers(int index) {
+        if (counts.length == 0) {
+            counts = new long[8];
+            minIndex = index - 4;
+            return;
+        }
+        if (index < minIndex) {
+            int grow = Math.max(minIndex - index, counts.length / 2);
+            long[] grown = new long[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            minIndex -= grow;
+        } else if (index >= minIndex + counts.length) {
+            int needed = index - minIndex + 1;
+            counts = Arrays.copyOf(counts, Math.max(needed, counts.length + counts.length / 2));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.finansage.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the most frequent items of a stream in fixed memory (the Space-Saving algorithm).
+ * At most {@code capacity} items are tracked; when a new item arrives and the table is full, it takes
+ * over the slot of the least frequent tracked item and inherits its count as possible error.
+ * <p>
+ * Every reported count is at least the true count and overestimates it by at most the reported
+ * error, which never exceeds {@code added / capacity}. Any item occurring more than
+ * {@code added / capacity} times is guaranteed to be tracked. Removals decrement a tracked
+ * item's count; removals of untracked items are ignored, which only ever loosens the bound.
+ */
+public final class SpaceSaving<T> {
+
+    /**
+     * A tracked item with its estimated count and the most that estimate may be too high.
+     */
+    public record Entry<T>(T item, long count, long error) {
+    }
+
+    private static final class Counter {
+        private long count;
+        private long error;
+    }
+
+    private final int capacity;
+    private final Map<T, Counter> counters = new HashMap<>();
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(T item) {
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            counter = new Counter();
+            if (counters.size() >= capacity) {
+                Map.Entry<T, Counter> smallest = null;
+                for (Map.Entry<T, Counter> entry : counters.entrySet()) {
+                    if (smallest == null || entry.getValue().count < smallest.getValue().count) {
+                        smallest = entry;
+                    }
+                }
+                counters.remove(smallest.getKey());
+                counter.count = smallest.getValue().count;
+                counter.error = smallest.getValue().count;
+            }
+            counters.put(item, counter);
+        }
+        counter.count++;
+    }
+
+    public void remove(T item) {
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            return;
+        }
+        counter.count--;
+        if (counter.count <= 0) {
+            counters.remove(item);
+        } else if (counter.error > counter.count) {
+            counter.error = counter.count;
+        }
+    }
+
+    /**
+     * @return Up to {@code limit} tracked items, most frequent first.
+     */
+    public List<Entry<T>> top(int limit) {
+        List<Entry<T>> entries = new ArrayList<>(counters.size());
+        counters.forEach((item, counter) -> entries.add(new Entry<>(item, counter.count, counter.error)));
+        entries.sort(Comparator.comparingLong((Entry<T> entry) -> entry.count()).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+}
@@ -0,0 +1,66 @@
+package com.finansage.util;
+
+/**
+ * A fixed-size, lossy string intern table. Equal strings looked up through the pool come back as one
+ * shared instance, so heavily repeated values (like merchant names) are stored once. Each slot holds a
+ * single string; a colliding newcomer simply replaces it, so memory stays fixed no matter how many
+ * distinct values pass through, at the cost of occasionally keeping a duplicate.
+ * <p>
+ * Thread-safe without locking: slots are written racily, which is harmless because strings are immutable
+ * and a lost write only costs a missed share.
+ */
+public final class StringPool {
+    private final String[] slots;
+    private final int mask;
+
+    /**
+     * @param capacity The number of slots, rounded up to a power of two.
+     */
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int slot = value.hashCode() & mask;
+        String pooled = slots[slot];
+        if (pooled != null && pooled.equals(value)) {
+            return pooled;
+        }
+        slots[slot] = value;
+        return value;
+    }
+
+    /**
+     * Interns {@code source[start, end)} and only creates a new string if the pool has no equal one,
+     * so parsing repeated values out of a larger line allocates nothing.
+     */
+    public String intern(CharSequence source, int start, int end) {
+        // Same hash as String.hashCode() for Latin-1 and UTF-16 content alike
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int slot = hash & mask;
+        String pooled = slots[slot];
+        if (pooled != null && pooled.length() == end - start && regionEquals(pooled, source, start)) {
+            return pooled;
+        }
+        String value = source.subSequence(start, end).toString();
+        slots[slot] = value;
+        return value;
+    }
+
+    private static boolean regionEquals(String pooled, CharSequence source, int start) {
+        for (int i = 0; i < pooled.length(); i++) {
+            if (pooled.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
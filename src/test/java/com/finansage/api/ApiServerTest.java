@@ -0,0 +1,166 @@
+package com.finansage.api;
+
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+import com.finansage.repository.TransactionRepository;
+import com.finansage.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TransactionService transactionService;
+    private ApiServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        transactionService = new TransactionService(new TransactionRepository(tempDir.resolve("ledger.csv").toString()));
+        server = new ApiServer(transactionService, 0);
+        server.start();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void crudEndpoints_shouldRoundTripTransactionsAsJson() throws Exception {
+        // Add
+        HttpResponse<String> created = send("POST", "/api/transactions",
+                "{\"date\":\"2025-02-01\",\"description\":\"Rent\",\"amount\":900.50,\"type\":\"EXPENSE\",\"category\":\"Housing\"}");
+        assertEquals(201, created.statusCode());
+        String id = (String) ((Map<?, ?>) Json.parse(created.body())).get("id");
+
+        // Bulk add
+        HttpResponse<String> bulk = send("POST", "/api/transactions/bulk",
+                "[{\"date\":\"2025-02-02\",\"description\":\"Salary\",\"amount\":\"3000\",\"type\":\"income\",\"category\":\"Work\"},"
+                        + "{\"date\":\"2025-03-01\",\"description\":\"Rent\",\"amount\":900.50,\"type\":\"EXPENSE\",\"category\":\"Housing\"}]");
+        assertEquals(201, bulk.statusCode());
+
+        // List with filter and paging
+        Map<?, ?> page = (Map<?, ?>) Json.parse(send("GET", "/api/transactions?category=housing&limit=1", null).body());
+        assertEquals(new BigDecimal("2"), page.get("total"));
+        assertEquals(1, ((List<?>) page.get("items")).size());
+
+        // Update and get
+        assertEquals(200, send("PUT", "/api/transactions/" + id,
+                "{\"date\":\"2025-02-01\",\"description\":\"Rent\",\"amount\":950,\"type\":\"EXPENSE\",\"category\":\"Housing\"}").statusCode());
+        Map<?, ?> fetched = (Map<?, ?>) Json.parse(send("GET", "/api/transactions/" + id, null).body());
+        assertEquals(new BigDecimal("950"), fetched.get("amount"));
+
+        // Summary and report
+        Map<?, ?> summary = (Map<?, ?>) Json.parse(send("GET", "/api/summary", null).body());
+        assertEquals(0, new BigDecimal("1149.50").compareTo((BigDecimal) summary.get("netBalance")));
+        assertEquals(Transaction.getDefaultCurrency().getCurrencyCode(), summary.get("currency"));
+        Map<?, ?> report = (Map<?, ?>) Json.parse(send("GET", "/api/reports/categories", null).body());
+        assertEquals(0, new BigDecimal("1850.50").compareTo((BigDecimal) ((Map<?, ?>) report.get("expensesByCategory")).get("Housing")));
+
+        // Delete and errors
+        assertEquals(204, send("DELETE", "/api/transactions/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/api/transactions/" + id, null).statusCode());
+        assertEquals(400, send("POST", "/api/transactions", "{\"date\":\"not-a-date\"}").statusCode());
+        assertEquals(400, send("POST", "/api/transactions",
+                "{\"date\":\"2025-02-01\",\"description\":\"Rent\\n2025-02-01\",\"amount\":1,\"type\":\"EXPENSE\",\"category\":\"Housing\"}").statusCode());
+        assertEquals(400, send("POST", "/api/transactions",
+                "{\"date\":\"2025-02-01\",\"description\":\"Rent\",\"amount\":1,\"type\":\"EXPENSE\",\"category\":\"Hou\\u0000sing\"}").statusCode());
+    }
+
+    @Test
+    void changes_shouldBeAnsweredWithAConflict_whenAnotherProgramRewroteTheLedger() throws Exception {
+        // Arrange
+        Transaction rent = new Transaction(LocalDate.of(2025, 2, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        transactionService.addTransaction(rent);
+        Files.writeString(tempDir.resolve("ledger.csv"), "ID,Date,Description,Amount,Type,Category\n"
+                + rent.getId() + ",2025-02-01,Rent,950,EXPENSE,Housing\n");
+
+        // Act
+        HttpResponse<String> response = send("POST", "/api/transactions",
+                "{\"date\":\"2025-02-02\",\"description\":\"Lunch\",\"amount\":11,\"type\":\"EXPENSE\",\"category\":\"Food\"}");
+
+        // Assert: the file's version is the ledger now, and the client is told its row is not in it
+        assertEquals(409, response.statusCode());
+        assertEquals(1, transactionService.getAllTransactions().size());
+    }
+
+    /**
+     * A local load test: thousands of concurrent clients, mostly readers with some writers,
+     * against one in-memory service. Every request must succeed and no write may be lost.
+     */
+    @Test
+    void server_shouldSustainThousandsOfConcurrentRequests() throws Exception {
+        List<Transaction> seed = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            seed.add(new Transaction(LocalDate.of(2025, 1, 1).plusDays(i % 365), "Item " + i,
+                    BigDecimal.valueOf(i % 97 + 1), i % 5 == 0 ? TransactionType.INCOME : TransactionType.EXPENSE, "Cat" + (i % 12)));
+        }
+        transactionService.addTransactions(seed);
+
+        final int requests = 4_000;
+        final int writes = requests / 20;
+        AtomicInteger failures = new AtomicInteger();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                final int n = i;
+                futures.add(clients.submit(() -> {
+                    HttpResponse<String> response = switch (n % 20) {
+                        case 0 -> send("POST", "/api/transactions",
+                                "{\"date\":\"2025-06-01\",\"description\":\"Load " + n + "\",\"amount\":1,\"type\":\"EXPENSE\",\"category\":\"Load\"}");
+                        case 1, 2, 3 -> send("GET", "/api/summary", null);
+                        case 4, 5 -> send("GET", "/api/reports/categories", null);
+                        default -> send("GET", "/api/transactions?category=Cat" + (n % 12) + "&offset=10&limit=20", null);
+                    };
+                    if (response.statusCode() >= 300) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(seed.size() + writes, transactionService.getAllTransactions().size());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .timeout(Duration.ofSeconds(60))
+                .method(method, publisher)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
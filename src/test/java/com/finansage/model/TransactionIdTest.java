@@ -0,0 +1,51 @@
+package com.finansage.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdTest {
+
+    @Test
+    void of_shouldRoundTripExistingRandomUuids() {
+        String stored = "ecfc575c-d369-40fb-a523-1a7f1399bfb1";
+
+        TransactionId id = TransactionId.of(stored);
+
+        assertEquals(stored, id.toString());
+        UUID uuid = UUID.fromString(stored);
+        assertEquals(uuid.getMostSignificantBits(), id.getMostSignificantBits());
+        assertEquals(uuid.getLeastSignificantBits(), id.getLeastSignificantBits());
+        assertEquals(id, TransactionId.of(stored.toUpperCase()));
+        assertEquals(-1, id.timestampMillis());
+    }
+
+    @Test
+    void of_shouldKeepNonUuidIdsVerbatim() {
+        TransactionId id = TransactionId.of("legacy-42");
+
+        assertEquals("legacy-42", id.toString());
+        assertEquals(id, TransactionId.of("legacy-42"));
+        assertNotEquals(id, TransactionId.of("legacy-43"));
+    }
+
+    @Test
+    void uuidV7_shouldProduceStrictlyIncreasingParseableIds() {
+        IdGenerator generator = IdGenerator.uuidV7();
+        long before = System.currentTimeMillis();
+
+        TransactionId previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            TransactionId next = generator.nextId();
+            assertTrue(next.compareTo(previous) > 0, "IDs must be time-ordered");
+            previous = next;
+        }
+
+        assertEquals(7, UUID.fromString(previous.toString()).version());
+        assertEquals(2, UUID.fromString(previous.toString()).variant());
+        assertEquals(previous, TransactionId.of(previous.toString()));
+        assertTrue(previous.timestampMillis() >= before);
+    }
+}
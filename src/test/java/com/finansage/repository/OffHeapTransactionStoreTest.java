@@ -0,0 +1,133 @@
+package com.finansage.repository;
+
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionId;
+import com.finansage.model.TransactionType;
+import com.finansage.service.OffHeapLedger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapTransactionStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendUpdateDelete_ShouldBeVisibleThroughViewAndIdIndex() throws IOException {
+        // Arrange
+        Transaction salary = new Transaction(LocalDate.of(2024, 1, 15), "Salary", new BigDecimal("5000.00"), TransactionType.INCOME, "Work");
+        Transaction legacy = new Transaction("tx-42", LocalDate.of(2024, 1, 16), "Groceries", new BigDecimal("150.75"), TransactionType.EXPENSE, "Food");
+
+        try (OffHeapTransactionStore store = new OffHeapTransactionStore()) {
+            // Act
+            int salaryRow = store.append(salary);
+            int legacyRow = store.append(legacy);
+            store.update(legacyRow, new Transaction("tx-42", legacy.getDate(), "Groceries (corrected)", new BigDecimal("149.99"), TransactionType.EXPENSE, "Food"));
+            store.delete(salaryRow);
+
+            // Assert
+            assertEquals(2, store.rowCount());
+            assertEquals(1, store.size());
+            assertEquals(-1, store.findRow(salary.getTransactionId()), "Deleted rows should leave the ID index.");
+            assertEquals(legacyRow, store.findRow(TransactionId.of("tx-42")));
+
+            Transaction loaded = store.view().moveTo(legacyRow).toTransaction();
+            assertEquals("tx-42", loaded.getId());
+            assertEquals("Groceries (corrected)", loaded.getDescription());
+            assertEquals(0, new BigDecimal("149.99").compareTo(loaded.getAmount()));
+            assertEquals("Food", loaded.getCategory());
+            assertTrue(store.view().moveTo(salaryRow).isDeleted());
+        }
+    }
+
+    @Test
+    void updatingADeletedRow_ShouldKeepItDeleted_AndTheLedgerShouldRejectARepeatedId() throws IOException {
+        // Arrange
+        Transaction rent = new Transaction(LocalDate.of(2024, 2, 1), "Rent", new BigDecimal("1200.00"), TransactionType.EXPENSE, "Housing");
+
+        try (OffHeapTransactionStore store = new OffHeapTransactionStore()) {
+            int row = store.append(rent);
+            store.delete(row);
+
+            // Act
+            store.update(row, new Transaction(rent.getId(), rent.getDate(), "Rent (corrected)", new BigDecimal("1250.00"), TransactionType.EXPENSE, "Housing"));
+
+            // Assert
+            assertTrue(store.view().moveTo(row).isDeleted());
+            assertEquals(0, store.size());
+            assertEquals(-1, store.findRow(rent.getTransactionId()));
+        }
+
+        TransactionRepository repository = new TransactionRepository(tempDir.resolve("ledger.csv").toString());
+        try (OffHeapLedger ledger = OffHeapLedger.open(repository)) {
+            ledger.addTransaction(rent);
+            assertThrows(IllegalArgumentException.class, () -> ledger.addTransaction(rent));
+            assertEquals(1, ledger.size());
+        }
+    }
+
+    @Test
+    void mappedStore_ShouldKeepRowsAcrossSegmentsAndIndexGrowth() throws IOException {
+        // Arrange
+        int count = 70_000;
+
+        try (OffHeapTransactionStore store = new OffHeapTransactionStore(tempDir.resolve("store"))) {
+            // Act
+            Transaction last = null;
+            for (int i = 0; i < count; i++) {
+                last = new Transaction(LocalDate.of(2024, 1, 1).plusDays(i % 365), "Coffee " + (i % 10), BigDecimal.valueOf(i, 2), TransactionType.EXPENSE, "Food");
+                store.append(last);
+            }
+
+            // Assert
+            assertEquals(count, store.size());
+            int row = store.findRow(last.getTransactionId());
+            assertEquals(count - 1, row);
+            TransactionView view = store.view().moveTo(row);
+            assertEquals(last.getDate(), view.date());
+            assertEquals(last.getDescription(), view.description());
+            assertEquals(0, last.getAmount().compareTo(view.amount()));
+        }
+    }
+
+    @Test
+    void offHeapLedger_ShouldSummarizeAndSaveBackToCsv() throws IOException {
+        // Arrange
+        TransactionRepository repository = new TransactionRepository(tempDir.resolve("ledger.csv").toString());
+        repository.saveTransactions(List.of(
+                new Transaction(LocalDate.of(2024, 1, 15), "Salary", new BigDecimal("5000.00"), TransactionType.INCOME, "Work"),
+                new Transaction(LocalDate.of(2024, 1, 16), "Groceries", new BigDecimal("150.75"), TransactionType.EXPENSE, "Food"),
+                new Transaction(LocalDate.of(2024, 1, 17), "Bus", new BigDecimal("2.5"), TransactionType.EXPENSE, "Transport")));
+
+        try (OffHeapLedger ledger = OffHeapLedger.open(repository)) {
+            Transaction bus = repository.loadTransactions().get(2);
+
+            // Act
+            assertTrue(ledger.deleteTransaction(bus.getId()));
+            ledger.addTransaction(new Transaction(LocalDate.of(2024, 1, 18), "Rent", new BigDecimal("1200.00"), TransactionType.EXPENSE, "Housing"));
+            FinancialSummary summary = ledger.getFinancialSummary();
+            boolean saved = ledger.save();
+
+            // Assert
+            assertTrue(saved);
+            assertEquals(0, new BigDecimal("5000.00").compareTo(summary.totalIncome()));
+            assertEquals(0, new BigDecimal("1350.75").compareTo(summary.totalExpenses()));
+            Map<String, BigDecimal> expenses = ledger.getCategoryReport().expensesByCategory();
+            assertEquals(0, new BigDecimal("1200.00").compareTo(expenses.get("Housing")));
+            assertFalse(expenses.containsKey("Transport"));
+            List<Transaction> reloaded = repository.loadTransactions();
+            assertEquals(3, reloaded.size());
+            assertTrue(reloaded.stream().noneMatch(t -> t.getId().equals(bus.getId())));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.finansage.repository;
 
+import com.finansage.model.LoadReport;
 import com.finansage.model.Transaction;
 import com.finansage.model.TransactionType;
 import org.junit.jupiter.api.AfterEach;
@@ -11,8 +12,11 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Arrays;
+import java.util.Currency;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +36,7 @@ public class TransactionRepositoryTest {
     @AfterEach
     void tearDown() throws IOException {
         Files.deleteIfExists(testFilePath);
+        Files.deleteIfExists(repository.getQuarantinePath());
     }
 
     @Test
@@ -62,4 +67,156 @@ public class TransactionRepositoryTest {
         assertNotNull(loadedTransactions, "The list should not be null even if the file doesn't exist.");
         assertTrue(loadedTransactions.isEmpty(), "The list should be empty when the file doesn't exist.");
     }
+
+    @Test
+    void readAppendedTransactions_ShouldReadOnlyCompleteNewRows_AndSaveShouldNotClobberExternalWrites() throws IOException {
+        // Arrange
+        repository.saveTransactions(List.of(new Transaction(null, LocalDate.of(2024, 2, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing")));
+        Files.writeString(testFilePath, "2024-02-02,Coffee,3.50,EXPENSE,Food\n2024-02-03,Bus", StandardOpenOption.APPEND);
+
+        // Act
+        boolean saved = repository.saveTransactions(List.of());
+        List<Transaction> appended = repository.readAppendedTransactions().orElseThrow();
+
+        // Assert
+        assertFalse(saved, "An external append must not be overwritten");
+        assertEquals(1, appended.size(), "The unfinished last row is left for later");
+        assertEquals("Coffee", appended.getFirst().getDescription());
+
+        Files.writeString(testFilePath, ",1.80,EXPENSE,Travel\n", StandardOpenOption.APPEND);
+        assertEquals("Bus", repository.readAppendedTransactions().orElseThrow().getFirst().getDescription());
+        assertFalse(repository.hasExternalChanges());
+
+        Files.writeString(testFilePath, "ID,Date,Description,Amount,Type,Category\n");
+        assertTrue(repository.hasExternalChanges());
+        assertTrue(repository.readAppendedTransactions().isEmpty(), "A rewrite is not an append");
+    }
+
+    @Test
+    void loadTransactions_ShouldShareRepeatedDescriptionsDatesAndCategories() throws IOException {
+        // Arrange
+        Files.writeString(testFilePath, """
+                ID,Date,Description,Amount,Type,Category
+                2024-03-01,Corner Cafe,3.20,EXPENSE,Food
+                2024-03-01,Corner Cafe,2.90,EXPENSE,Food
+                2024-02-29,Salary,2000,INCOME,Work
+                """);
+
+        // Act
+        List<Transaction> loaded = repository.loadTransactions();
+
+        // Assert
+        assertEquals(3, loaded.size());
+        assertSame(loaded.get(0).getDescription(), loaded.get(1).getDescription());
+        assertSame(loaded.get(0).getDate(), loaded.get(1).getDate());
+        assertSame(loaded.get(0).getCategory(), loaded.get(1).getCategory());
+        assertEquals(loaded.get(0).getCategoryId(), loaded.get(1).getCategoryId());
+        assertNotEquals(loaded.get(0).getCategoryId(), loaded.get(2).getCategoryId());
+        assertEquals(LocalDate.of(2024, 2, 29), loaded.get(2).getDate());
+        assertEquals("Work", loaded.get(2).getCategory());
+    }
+
+    @Test
+    void loadTransactions_ShouldKeepEveryGoodRow_AndQuarantineBadLinesWithReasons() throws IOException {
+        // Arrange
+        StringBuilder csv = new StringBuilder("ID,Date,Description,Amount,Type,Category\n");
+        for (int i = 0; i < 20_000; i++) {
+            switch (i) {
+                case 9 -> csv.append("2024-13-40,Bad date,1.00,EXPENSE,Food\n");
+                case 10 -> csv.append("2024-01-01,Bad amount,12,50,EXPENSE,Food,Extra\n");
+                case 11 -> csv.append("2024-01-01,Bad amount,twelve,EXPENSE,Food\n");
+                case 12 -> csv.append("\n");
+                case 15_000 -> csv.append("2024-01-01,Bad type,5.00,REFUND,Food\n");
+                default -> csv.append("2024-01-01,Row ").append(i).append(",1.00,EXPENSE,Food\n");
+            }
+        }
+        Files.writeString(testFilePath, csv);
+
+        // Act
+        List<Transaction> loaded = repository.loadTransactions();
+        LoadReport report = repository.getLastLoadReport();
+
+        // Assert
+        assertEquals(19_995, loaded.size(), "A bad row must not stop the load");
+        assertEquals("Row 0", loaded.getFirst().getDescription());
+        assertEquals("Row 13", loaded.get(9).getDescription(), "Rows keep their file order across chunks");
+        assertEquals("Row 19999", loaded.getLast().getDescription());
+
+        assertTrue(report.complete());
+        assertEquals(20_001, report.linesRead());
+        assertEquals(19_995, report.loaded());
+        assertEquals(4, report.quarantined());
+        assertEquals(List.of(11L, 12L, 13L, 15_002L), report.rejected().stream().map(LoadReport.RejectedLine::lineNumber).toList());
+        assertEquals("Invalid date '2024-13-40'", report.rejected().get(0).reason());
+        assertEquals("Invalid type 'REFUND'", report.rejected().get(3).reason());
+
+        List<String> quarantined = Files.readAllLines(repository.getQuarantinePath());
+        assertEquals(6, quarantined.size(), "A comment, a column header and the four lines");
+        assertEquals("13,Invalid amount 'twelve',2024-01-01,Bad amount,twelve,EXPENSE,Food", quarantined.get(4));
+    }
+
+    @Test
+    void loadTransactions_ShouldReadSixColumnRows_WithAnIdOrWithACurrency() throws IOException {
+        // Arrange: the ledger's own layout without a currency, and a bank export without IDs
+        String id = "0190a5b2-7c3d-7e4f-8a1b-2c3d4e5f6a7b";
+        Files.writeString(testFilePath, String.join("\n",
+                "ID,Date,Description,Amount,Type,Category",
+                id + ",2024-01-01,Rent,900.00,EXPENSE,Housing",
+                "2024-01-02,Hotel,120.00,EXPENSE,Travel,CHF") + "\n");
+
+        // Act
+        List<Transaction> loaded = repository.loadTransactions();
+
+        // Assert
+        assertEquals(0, repository.getLastLoadReport().quarantined());
+        assertEquals(id, loaded.get(0).getId());
+        assertEquals("Housing", loaded.get(0).getCategory());
+        assertEquals(LocalDate.of(2024, 1, 2), loaded.get(1).getDate());
+        assertEquals("Travel", loaded.get(1).getCategory());
+        assertEquals(Currency.getInstance("CHF"), loaded.get(1).getCurrency());
+    }
+
+    @Test
+    void loadTransactions_ShouldGiveRowsThatRepeatAnIdANewId() throws IOException {
+        // Arrange
+        String id = "0190a5b2-7c3d-7e4f-8a1b-2c3d4e5f6a7b";
+        Files.writeString(testFilePath, String.join("\n",
+                "ID,Date,Description,Amount,Type,Category",
+                id + ",2024-01-01,Rent,900.00,EXPENSE,Housing",
+                id + ",2024-01-02,Rent again,950.00,EXPENSE,Housing",
+                "2024-01-03,Coffee,3.50,EXPENSE,Food") + "\n");
+
+        // Act
+        List<Transaction> loaded = repository.loadTransactions();
+
+        // Assert: the first row keeps the ID; the repeat is kept under a new one
+        assertEquals(List.of("Rent", "Rent again", "Coffee"), loaded.stream().map(Transaction::getDescription).toList());
+        assertEquals(id, loaded.get(0).getId());
+        assertNotEquals(id, loaded.get(1).getId());
+        assertEquals(3, loaded.stream().map(Transaction::getTransactionId).distinct().count());
+        assertEquals(0, repository.getLastLoadReport().quarantined());
+    }
+
+    @Test
+    void loadTransactions_ShouldGiveRowsWithoutAnIdOrWithARepeatedIdTheSameIdOnEveryLoad() throws IOException {
+        // Arrange: identical rows without an ID, a blank ID and a repeated one
+        String id = "0190a5b2-7c3d-7e4f-8a1b-2c3d4e5f6a7b";
+        Files.writeString(testFilePath, String.join("\n",
+                "ID,Date,Description,Amount,Type,Category",
+                id + ",2024-01-01,Rent,900.00,EXPENSE,Housing",
+                id + ",2024-01-01,Rent,900.00,EXPENSE,Housing",
+                ",2024-01-02,Gym,30.00,EXPENSE,Health",
+                "2024-01-03,Coffee,3.50,EXPENSE,Food",
+                "2024-01-03,Coffee,3.50,EXPENSE,Food") + "\n");
+
+        // Act
+        List<Transaction> first = repository.loadTransactions();
+        List<Transaction> second = new TransactionRepository(testFilePath.toString()).loadTransactions();
+
+        // Assert
+        assertEquals(5, first.stream().map(Transaction::getTransactionId).distinct().count());
+        assertEquals(first.stream().map(Transaction::getId).toList(), second.stream().map(Transaction::getId).toList());
+        assertEquals(LocalDate.of(2024, 1, 3).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                first.get(4).getTransactionId().timestampMillis(), "Derived IDs are stamped with the row's date");
+    }
 }
@@ -0,0 +1,52 @@
+package com.finansage.service;
+
+import com.finansage.model.CategoryReport;
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+import com.finansage.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void openAll_shouldLoadEveryLedger_andConsolidateSummariesAndReports() {
+        // Arrange
+        String checking = tempDir.resolve("checking.csv").toString();
+        String savings = tempDir.resolve("savings.csv").toString();
+        new TransactionRepository(checking).saveTransactions(List.of(
+                new Transaction(LocalDate.of(2025, 1, 1), "Salary", new BigDecimal("2000"), TransactionType.INCOME, "Work"),
+                new Transaction(LocalDate.of(2025, 1, 2), "Groceries", new BigDecimal("150"), TransactionType.EXPENSE, "Food")));
+        new TransactionRepository(savings).saveTransactions(List.of(
+                new Transaction(LocalDate.of(2025, 1, 3), "Interest", new BigDecimal("10"), TransactionType.INCOME, "Interest"),
+                new Transaction(LocalDate.of(2025, 1, 4), "Restaurant", new BigDecimal("50"), TransactionType.EXPENSE, "Food")));
+
+        try (LedgerRegistry registry = new LedgerRegistry()) {
+            // Act
+            registry.openAll(List.of(checking, savings));
+            Map<String, FinancialSummary> summaries = registry.getSummaries();
+            FinancialSummary consolidated = registry.getConsolidatedSummary();
+            CategoryReport report = registry.getConsolidatedCategoryReport();
+
+            // Assert
+            assertEquals(List.of(checking, savings), List.copyOf(registry.getLedgerNames()));
+            assertEquals(0, new BigDecimal("1850").compareTo(summaries.get(checking).netBalance()));
+            assertEquals(0, new BigDecimal("-40").compareTo(summaries.get(savings).netBalance()));
+            assertEquals(0, new BigDecimal("2010").compareTo(consolidated.totalIncome()));
+            assertEquals(0, new BigDecimal("1810").compareTo(consolidated.netBalance()));
+            assertEquals(0, new BigDecimal("200").compareTo(report.expensesByCategory().get("Food")));
+        }
+    }
+}
@@ -1,22 +1,64 @@
 package com.finansage.service;
 
+import com.finansage.model.ArchiveSegment;
+import com.finansage.model.BalancePoint;
+import com.finansage.model.BatchReport;
+import com.finansage.model.Budget;
+import com.finansage.model.BudgetPeriod;
+import com.finansage.model.BudgetStatus;
+import com.finansage.model.CategoryReport;
+import com.finansage.model.ExchangeRate;
+import com.finansage.model.ExportFormat;
+import com.finansage.model.ExternalChange;
+import com.finansage.model.FinancialSummary;
+import com.finansage.model.ImportMode;
+import com.finansage.model.ImportReport;
+import com.finansage.model.MonthlyTotals;
+import com.finansage.model.QueryResult;
+import com.finansage.model.ReconciliationReport;
+import com.finansage.model.RecurrenceFrequency;
+import com.finansage.model.RecurringOccurrence;
+import com.finansage.model.RecurringRule;
+import com.finansage.model.SortKey;
 import com.finansage.model.Transaction;
+import com.finansage.model.TransactionEvent;
+import com.finansage.model.TransactionFilter;
+import com.finansage.model.TransactionPage;
 import com.finansage.model.TransactionType;
+import com.finansage.repository.ArchiveRepository;
+import com.finansage.repository.ExchangeRateRepository;
+import com.finansage.repository.RecurringRuleRepository;
 import com.finansage.repository.TransactionRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +78,8 @@ class TransactionServiceTest {
         closeable = MockitoAnnotations.openMocks(this);
         // Default setup: For tests that need a clean slate, the service will start with an empty list.
         when(transactionRepository.loadTransactions()).thenReturn(new ArrayList<>());
+        // Saves succeed unless a test says otherwise; not every test saves
+        lenient().when(transactionRepository.saveTransactions(any())).thenReturn(true);
         transactionService = new TransactionService(transactionRepository);
     }
 
@@ -138,5 +182,869 @@ class TransactionServiceTest {
         assertEquals(1, savedList.size());
         assertEquals(newDesc, savedList.get(0).getDescription());
     }
-}
 
+    @Test
+    void importTransactions_shouldSkipDuplicates_ignoringCaseWhitespaceAndScale() {
+        // Arrange
+        Transaction existing = new Transaction(LocalDate.of(2025, 9, 16), "Groceries", new BigDecimal("80.00"), TransactionType.EXPENSE, "Food");
+        List<Transaction> initialList = new ArrayList<>();
+        initialList.add(existing);
+        when(transactionRepository.loadTransactions()).thenReturn(initialList);
+        transactionService = new TransactionService(transactionRepository);
+
+        Transaction overlap = new Transaction(LocalDate.of(2025, 9, 16), "  GROCERIES ", new BigDecimal("80"), TransactionType.EXPENSE, "food");
+        Transaction fresh = new Transaction(LocalDate.of(2025, 9, 17), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        Transaction repeatedInBatch = new Transaction(LocalDate.of(2025, 9, 17), "Rent", new BigDecimal("900.0"), TransactionType.EXPENSE, "Housing");
+
+        // Act
+        ImportReport report = transactionService.importTransactions(List.of(overlap, fresh, repeatedInBatch), ImportMode.SKIP);
+
+        // Assert
+        assertEquals(3, report.totalRows());
+        assertEquals(1, report.imported());
+        assertEquals(2, report.duplicates().size());
+        assertEquals(existing.getId(), report.duplicates().get(0).existing().getId());
+        assertEquals(fresh.getId(), report.duplicates().get(1).existing().getId());
+        assertEquals(2, transactionService.getAllTransactions().size());
+        verify(transactionRepository, times(1)).saveTransactions(anyList());
+    }
+
+    @Test
+    void importTransactions_shouldKeepExistingId_whenMergingDuplicates() {
+        // Arrange
+        Transaction existing = new Transaction(LocalDate.of(2025, 9, 16), "Groceries", new BigDecimal("80.00"), TransactionType.EXPENSE, "Food");
+        List<Transaction> initialList = new ArrayList<>();
+        initialList.add(existing);
+        when(transactionRepository.loadTransactions()).thenReturn(initialList);
+        transactionService = new TransactionService(transactionRepository);
+
+        Transaction incoming = new Transaction(LocalDate.of(2025, 9, 16), "groceries", new BigDecimal("80"), TransactionType.EXPENSE, "Food");
+
+        // Act
+        ImportReport report = transactionService.importTransactions(List.of(incoming), ImportMode.MERGE);
+
+        // Assert
+        assertEquals(0, report.imported());
+        assertEquals(1, report.duplicates().size());
+        List<Transaction> all = transactionService.getAllTransactions();
+        assertEquals(1, all.size());
+        assertEquals(existing.getId(), all.get(0).getId());
+        assertEquals("groceries", all.get(0).getDescription());
+    }
+
+    @Test
+    void importFromFile_shouldTreatRowsWithTheLedgersOwnIdsAsDuplicates(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path ledger = tempDir.resolve("ledger.csv");
+        TransactionService service = new TransactionService(new TransactionRepository(ledger.toString()));
+        Transaction rent = new Transaction(LocalDate.of(2025, 11, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        Transaction coffee = new Transaction(LocalDate.of(2025, 11, 2), "Coffee", new BigDecimal("3.50"), TransactionType.EXPENSE, "Food");
+        service.addTransactions(List.of(rent, coffee));
+        // A copy of the ledger where one row was edited since, so only its ID still matches
+        Path copy = tempDir.resolve("copy.csv");
+        Files.writeString(copy, Files.readString(ledger).replace("Coffee,3.50", "Coffee with cake,7.00"));
+
+        // Act & Assert: skipping leaves the ledger as it was
+        ImportReport skipped = service.importFromFile(copy.toString(), ImportMode.SKIP);
+        assertEquals(0, skipped.imported());
+        assertEquals(2, skipped.duplicates().size());
+        assertEquals(coffee.getId(), skipped.duplicates().get(1).existing().getId());
+        assertEquals(2, service.getAllTransactions().size());
+
+        // Act & Assert: merging updates the row under its ID
+        ImportReport merged = service.importFromFile(copy.toString(), ImportMode.MERGE);
+        assertEquals(0, merged.imported());
+        assertEquals(2, service.getAllTransactions().size());
+        assertEquals("Coffee with cake", service.findTransactionById(coffee.getId()).orElseThrow().getDescription());
+
+        // Act & Assert: flagging keeps both copies, each under its own ID
+        ImportReport flagged = service.importFromFile(ledger.toString(), ImportMode.FLAG);
+        assertEquals(2, flagged.imported());
+        assertEquals(2, flagged.duplicates().size());
+        List<Transaction> all = service.getAllTransactions();
+        assertEquals(4, all.size());
+        assertEquals(4, all.stream().map(Transaction::getId).distinct().count());
+        for (Transaction transaction : all) {
+            assertSame(transaction, service.findTransactionById(transaction.getId()).orElseThrow());
+        }
+        assertTrue(service.deleteTransaction(rent.getId()));
+        assertEquals(3, new TransactionRepository(ledger.toString()).loadTransactions().size());
+    }
+
+    @Test
+    void findTransactions_shouldReturnOnePage_andCountEveryMatch() {
+        // Arrange
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(new Transaction(LocalDate.of(2025, 3, 1 + i), "Item " + i, new BigDecimal("5"),
+                    TransactionType.EXPENSE, i % 2 == 0 ? "Food" : "Travel"));
+        }
+        transactionService.addTransactions(rows);
+        TransactionFilter food = new TransactionFilter(null, null, "food", null);
+
+        // Act
+        TransactionPage firstPage = transactionService.findTransactions(TransactionFilter.ALL, 0, 4);
+        TransactionPage lastPage = transactionService.findTransactions(TransactionFilter.ALL, 8, 4);
+        TransactionPage foodPage = transactionService.findTransactions(food, 1, 2);
+        TransactionPage pastTheEnd = transactionService.findTransactions(food, 50, 2);
+
+        // Assert
+        assertEquals(rows.subList(0, 4), firstPage.transactions());
+        assertEquals(10, firstPage.total());
+        assertEquals(rows.subList(8, 10), lastPage.transactions());
+        assertEquals(List.of(rows.get(2), rows.get(4)), foodPage.transactions());
+        assertEquals(5, foodPage.total());
+        assertTrue(pastTheEnd.transactions().isEmpty());
+        assertEquals(5, pastTheEnd.total());
+        assertThrows(IllegalArgumentException.class, () -> transactionService.findTransactions(food, -1, 2));
+    }
+
+    @Test
+    void addTransaction_shouldRejectAnIdTheLedgerAlreadyHas() {
+        // Arrange
+        Transaction salary = new Transaction(LocalDate.of(2025, 1, 1), "Salary", new BigDecimal("1000"), TransactionType.INCOME, "Work");
+        transactionService.addTransaction(salary);
+        Transaction sameId = Transaction.withId(salary.getTransactionId(), LocalDate.of(2025, 1, 2), "Bonus",
+                new BigDecimal("200"), TransactionType.INCOME, "Work", salary.getCurrency());
+        Transaction rent = new Transaction(LocalDate.of(2025, 1, 5), "Rent", new BigDecimal("400"), TransactionType.EXPENSE, "Housing");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> transactionService.addTransaction(sameId));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.addTransactions(List.of(rent, sameId)));
+
+        // Neither call left a row behind, and deleting the ID takes the ledger back to empty
+        assertEquals(1, transactionService.getAllTransactions().size());
+        assertEquals(0, new BigDecimal("1000").compareTo(transactionService.getBalanceAt(LocalDate.of(2025, 12, 31))));
+        assertTrue(transactionService.deleteTransaction(salary.getId()));
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+    }
+
+    @Test
+    void getBalanceAt_shouldTrackAddsUpdatesAndDeletes() {
+        // Arrange
+        Transaction salary = new Transaction(LocalDate.of(2025, 1, 1), "Salary", new BigDecimal("1000"), TransactionType.INCOME, "Work");
+        Transaction rent = new Transaction(LocalDate.of(2025, 1, 5), "Rent", new BigDecimal("400"), TransactionType.EXPENSE, "Housing");
+        // Far outside the initial window, so the index has to grow in both directions
+        Transaction oldGift = new Transaction(LocalDate.of(2019, 6, 1), "Gift", new BigDecimal("50"), TransactionType.INCOME, "Other");
+        Transaction futureBill = new Transaction(LocalDate.of(2031, 6, 1), "Bill", new BigDecimal("20"), TransactionType.EXPENSE, "Utilities");
+
+        // Act
+        transactionService.addTransaction(salary);
+        transactionService.addTransaction(rent);
+        transactionService.addTransaction(oldGift);
+        transactionService.addTransaction(futureBill);
+
+        // Assert
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionService.getBalanceAt(LocalDate.of(2019, 5, 31))));
+        assertEquals(0, new BigDecimal("1050").compareTo(transactionService.getBalanceAt(LocalDate.of(2025, 1, 4))));
+        assertEquals(0, new BigDecimal("650").compareTo(transactionService.getBalanceAt(LocalDate.of(2025, 1, 5))));
+        assertEquals(0, new BigDecimal("630").compareTo(transactionService.getBalanceAt(LocalDate.of(2040, 1, 1))));
+        assertEquals(0, new BigDecimal("600").compareTo(
+                transactionService.getBalanceChangeBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31))));
+
+        transactionService.updateTransaction(rent.getId(), LocalDate.of(2025, 1, 3), "Rent", new BigDecimal("500"), TransactionType.EXPENSE, "Housing");
+        transactionService.deleteTransaction(oldGift.getId());
+
+        List<BalancePoint> daily = transactionService.getDailyBalances(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 4));
+        assertEquals(4, daily.size());
+        assertEquals(0, new BigDecimal("1000").compareTo(daily.get(1).balance()));
+        assertEquals(0, new BigDecimal("500").compareTo(daily.get(2).balance()));
+        assertEquals(LocalDate.of(2025, 1, 1), transactionService.getEarliestTransactionDate().orElseThrow());
+        assertEquals(LocalDate.of(2031, 6, 1), transactionService.getLatestTransactionDate().orElseThrow());
+    }
+
+    @Test
+    void getBudgetWarnings_shouldReportExceededBudget_andFollowUpdatesAndDeletes() {
+        // Arrange
+        transactionService.setBudget(new Budget("Food", BudgetPeriod.MONTHLY, new BigDecimal("100")));
+        Transaction lunch = new Transaction(LocalDate.of(2025, 3, 10), "Lunch", new BigDecimal("60"), TransactionType.EXPENSE, "food");
+        Transaction dinner = new Transaction(LocalDate.of(2025, 3, 20), "Dinner", new BigDecimal("50"), TransactionType.EXPENSE, "Food");
+        Transaction nextMonth = new Transaction(LocalDate.of(2025, 4, 1), "Snack", new BigDecimal("5"), TransactionType.EXPENSE, "Food");
+
+        // Act & Assert
+        transactionService.addTransaction(lunch);
+        assertTrue(transactionService.getBudgetWarnings(lunch).isEmpty());
+
+        transactionService.addTransaction(dinner);
+        List<BudgetStatus> warnings = transactionService.getBudgetWarnings(dinner);
+        assertEquals(1, warnings.size());
+        assertEquals(0, new BigDecimal("110").compareTo(warnings.get(0).spent()));
+        assertEquals(LocalDate.of(2025, 3, 1), warnings.get(0).periodStart());
+
+        transactionService.addTransaction(nextMonth);
+        assertTrue(transactionService.getBudgetWarnings(nextMonth).isEmpty());
+
+        transactionService.updateTransaction(dinner.getId(), dinner.getDate(), "Dinner", new BigDecimal("30"), TransactionType.EXPENSE, "Food");
+        assertTrue(transactionService.getBudgetWarnings(dinner).isEmpty());
+
+        transactionService.deleteTransaction(lunch.getId());
+        BudgetStatus status = transactionService.getBudgetStatuses(LocalDate.of(2025, 3, 31)).get(0);
+        assertEquals(0, new BigDecimal("30").compareTo(status.spent()));
+        assertEquals(0, new BigDecimal("70").compareTo(status.remaining()));
+    }
+
+    @Test
+    void subscribe_shouldLetListenersReadTheLedger_whileWritersRunAFullBufferAhead() throws Exception {
+        // Arrange: a listener that reads the service for every event, and holds on to the first one until
+        // the writer has filled its buffer and has to wait for it
+        int changes = 2 * Flow.defaultBufferSize();
+        AtomicInteger written = new AtomicInteger();
+        CountDownLatch delivered = new CountDownLatch(changes);
+        AutoCloseable subscription = transactionService.subscribe(event -> {
+            while (delivered.getCount() == changes && written.get() < Flow.defaultBufferSize() + 2) {
+                Thread.onSpinWait();
+            }
+            transactionService.getFinancialSummary();
+            delivered.countDown();
+        });
+
+        // Act & Assert: events were once published under the write lock, so this deadlocked
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            for (int i = 0; i < changes; i++) {
+                written.incrementAndGet();
+                transactionService.addTransaction(new Transaction(LocalDate.of(2025, 5, 1), "Coffee " + i,
+                        new BigDecimal("3"), TransactionType.EXPENSE, "Food"));
+            }
+            assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        });
+        assertEquals(changes, transactionService.getAllTransactions().size());
+
+        subscription.close();
+    }
+
+    @Test
+    void subscribe_shouldHoldUpEveryWriter_whileASubscriberIsStalled() throws Exception {
+        // Arrange: a listener that takes nothing until it is let go, then reads the ledger for every event
+        int writers = 4;
+        int changesPerWriter = Flow.defaultBufferSize();
+        CountDownLatch letGo = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(writers * changesPerWriter);
+        AutoCloseable subscription = transactionService.subscribe(event -> {
+            try {
+                letGo.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            transactionService.getFinancialSummary();
+            delivered.countDown();
+        });
+        AtomicInteger completed = new AtomicInteger();
+
+        // Act
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < changesPerWriter; i++) {
+                    transactionService.addTransaction(new Transaction(LocalDate.of(2025, 5, 1), "Writer " + writer + " #" + i,
+                            new BigDecimal("1"), TransactionType.EXPENSE, "Food"));
+                    completed.incrementAndGet();
+                }
+            }));
+        }
+        int last = -1;
+        while (last != completed.get()) {
+            last = completed.get();
+            Thread.sleep(200);
+        }
+
+        // Assert: the writers stopped about two buffers ahead (the subscriber's and the hand-off's)
+        assertTrue(completed.get() <= 2 * Flow.defaultBufferSize() + writers,
+                "Writers ran " + completed.get() + " changes ahead of a stalled subscriber");
+        letGo.countDown();
+        for (Thread thread : threads) {
+            assertTrue(thread.join(Duration.ofSeconds(20)));
+        }
+        assertTrue(delivered.await(20, TimeUnit.SECONDS));
+        assertEquals(writers * changesPerWriter, completed.get());
+
+        subscription.close();
+    }
+
+    @Test
+    void subscribe_shouldDeliverTypedEventsInOrder_includingBatches() throws Exception {
+        // Arrange
+        BlockingQueue<TransactionEvent> received = new LinkedBlockingQueue<>();
+        AutoCloseable subscription = transactionService.subscribe(received::add);
+        Transaction first = new Transaction(LocalDate.of(2025, 5, 1), "Coffee", new BigDecimal("3"), TransactionType.EXPENSE, "Food");
+        Transaction second = new Transaction(LocalDate.of(2025, 5, 2), "Tea", new BigDecimal("2"), TransactionType.EXPENSE, "Food");
+
+        // Act
+        transactionService.addTransaction(first);
+        transactionService.updateTransaction(first.getId(), first.getDate(), "Espresso", new BigDecimal("4"), TransactionType.EXPENSE, "Food");
+        transactionService.addTransactions(List.of(second));
+        transactionService.deleteTransaction(first.getId());
+
+        // Assert
+        TransactionEvent added = received.poll(5, TimeUnit.SECONDS);
+        assertSame(first, assertInstanceOf(TransactionEvent.Added.class, added).transaction());
+
+        TransactionEvent.Updated updated = assertInstanceOf(TransactionEvent.Updated.class, received.poll(5, TimeUnit.SECONDS));
+        assertSame(first, updated.previous());
+        assertEquals("Espresso", updated.current().getDescription());
+
+        TransactionEvent.Batch batch = assertInstanceOf(TransactionEvent.Batch.class, received.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, batch.events().size());
+
+        TransactionEvent.Deleted deleted = assertInstanceOf(TransactionEvent.Deleted.class, received.poll(5, TimeUnit.SECONDS));
+        assertEquals(first.getId(), deleted.transaction().getId());
+
+        subscription.close();
+        transactionService.addTransaction(new Transaction(LocalDate.of(2025, 5, 3), "Juice", BigDecimal.ONE, TransactionType.EXPENSE, "Food"));
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void undoAndRedo_shouldSwitchBetweenVersions_andKeepOldSnapshotsStable() {
+        // Arrange
+        Transaction rent = new Transaction(LocalDate.of(2025, 6, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        transactionService.addTransaction(rent);
+        transactionService.updateTransaction(rent.getId(), rent.getDate(), "Rent", new BigDecimal("950"), TransactionType.EXPENSE, "Housing");
+        List<Transaction> snapshotBeforeDelete = transactionService.getAllTransactions();
+        transactionService.deleteTransaction(rent.getId());
+
+        // Act & Assert
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+        assertEquals(1, snapshotBeforeDelete.size(), "Earlier snapshots must not change");
+
+        assertTrue(transactionService.undo()); // undo delete
+        assertEquals(0, new BigDecimal("950").compareTo(transactionService.findTransactionById(rent.getId()).orElseThrow().getAmount()));
+        assertTrue(transactionService.undo()); // undo update
+        assertEquals(0, new BigDecimal("900").compareTo(transactionService.findTransactionById(rent.getId()).orElseThrow().getAmount()));
+        assertEquals(0, new BigDecimal("-900").compareTo(transactionService.getBalanceAt(LocalDate.of(2025, 6, 30))));
+
+        assertTrue(transactionService.redo()); // redo update
+        assertEquals(0, new BigDecimal("-950").compareTo(transactionService.getBalanceAt(LocalDate.of(2025, 6, 30))));
+
+        transactionService.addTransaction(new Transaction(LocalDate.of(2025, 6, 2), "Gas", BigDecimal.TEN, TransactionType.EXPENSE, "Car"));
+        assertFalse(transactionService.canRedo(), "A new change must clear the redo history");
+        assertTrue(transactionService.undo());
+        assertTrue(transactionService.undo());
+        assertTrue(transactionService.undo());
+        assertFalse(transactionService.undo());
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+    }
+
+    @Test
+    void exportTransactions_shouldWriteOnlyMatchingRows_inEachFormat(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        transactionService.addTransaction(new Transaction(LocalDate.of(2025, 7, 1), "Salary", new BigDecimal("3000"), TransactionType.INCOME, "Work"));
+        transactionService.addTransaction(new Transaction(LocalDate.of(2025, 7, 2), "Cafe \"Blue\", Soho", new BigDecimal("4.50"), TransactionType.EXPENSE, "Food"));
+        transactionService.addTransaction(new Transaction(LocalDate.of(2025, 8, 3), "Market", new BigDecimal("61.20"), TransactionType.EXPENSE, "food"));
+        TransactionFilter julyFood = new TransactionFilter(LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 31), "Food", null);
+
+        // Act
+        long csvRows = transactionService.exportTransactions(julyFood, ExportFormat.CSV, tempDir.resolve("out.csv"));
+        long jsonRows = transactionService.exportTransactions(julyFood, ExportFormat.JSON_LINES, tempDir.resolve("out.jsonl"));
+        long columnarRows = transactionService.exportTransactions(TransactionFilter.ALL, ExportFormat.COLUMNAR, tempDir.resolve("out.fscol"));
+
+        // Assert
+        assertEquals(1, csvRows);
+        List<String> csv = Files.readAllLines(tempDir.resolve("out.csv"));
+        assertEquals("ID,Date,Description,Amount,Type,Category,Currency", csv.getFirst());
+        // Quoted as RFC 4180 has it, since the description holds quotes and a comma
+        assertTrue(csv.get(1).endsWith(",2025-07-02,\"Cafe \"\"Blue\"\", Soho\",4.50,EXPENSE,Food," + Transaction.getDefaultCurrency()));
+
+        assertEquals(1, jsonRows);
+        String json = Files.readString(tempDir.resolve("out.jsonl"));
+        assertTrue(json.contains("\"description\":\"Cafe \\\"Blue\\\", Soho\",\"amount\":4.50"));
+
+        assertEquals(3, columnarRows);
+        ByteBuffer columnar = ByteBuffer.wrap(Files.readAllBytes(tempDir.resolve("out.fscol")));
+        assertEquals('F', columnar.get(0));
+        assertEquals(3, columnar.getInt(6), "Row count follows the magic and version byte");
+        assertEquals(3, columnar.getInt(10), "Categories are dictionary-encoded exactly as stored");
+    }
+
+    @Test
+    void monthlyTotalsAndCategoryReport_shouldFollowEveryChange() {
+        // Arrange
+        Transaction salary = new Transaction(LocalDate.of(2025, 9, 1), "Salary", new BigDecimal("2000"), TransactionType.INCOME, "Work");
+        Transaction rent = new Transaction(LocalDate.of(2025, 9, 2), "Rent", new BigDecimal("800"), TransactionType.EXPENSE, "Housing");
+        Transaction lunch = new Transaction(LocalDate.of(2025, 10, 5), "Lunch", new BigDecimal("12.50"), TransactionType.EXPENSE, "Food");
+        transactionService.addTransactions(List.of(salary, rent, lunch));
+
+        // Act
+        transactionService.updateTransaction(rent.getId(), LocalDate.of(2025, 10, 2), "Rent", new BigDecimal("850"), TransactionType.EXPENSE, "Housing");
+        transactionService.deleteTransaction(lunch.getId());
+
+        // Assert
+        List<MonthlyTotals> months = transactionService.getMonthlyTotals();
+        assertEquals(2, months.size());
+        assertEquals(YearMonth.of(2025, 9), months.get(0).month());
+        assertEquals(0, new BigDecimal("2000").compareTo(months.get(0).income()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(months.get(0).expenses()));
+        assertEquals(0, new BigDecimal("850").compareTo(months.get(1).expenses()));
+
+        CategoryReport report = transactionService.getCategoryReport();
+        assertEquals(List.of("Housing"), List.copyOf(report.expensesByCategory().keySet()), "Emptied categories must disappear");
+        assertEquals(0, new BigDecimal("1150").compareTo(transactionService.getFinancialSummary().netBalance()));
+    }
+
+    @Test
+    void externalFileChanges_shouldBeMergedOnSync_andNeverOverwritten(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path ledger = tempDir.resolve("ledger.csv");
+        TransactionService service = new TransactionService(new TransactionRepository(ledger.toString()));
+        service.addTransaction(new Transaction(LocalDate.of(2025, 11, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing"));
+
+        // Act: another program appends, then we make a change before noticing
+        Files.writeString(ledger, "2025-11-02,Coffee,3.50,EXPENSE,Food\n", StandardOpenOption.APPEND);
+        service.addTransaction(new Transaction(LocalDate.of(2025, 11, 3), "Lunch", new BigDecimal("11"), TransactionType.EXPENSE, "Food"));
+
+        // Assert: the append was merged instead of overwritten, and both rows were saved
+        assertEquals(3, service.getAllTransactions().size());
+        assertEquals(3, new TransactionRepository(ledger.toString()).loadTransactions().size());
+        assertEquals(ExternalChange.Kind.NONE, service.syncWithLedgerFile().kind());
+
+        // Act: another program rewrites the file
+        Files.writeString(ledger, "ID,Date,Description,Amount,Type,Category\n"
+                + service.getAllTransactions().getFirst().getId() + ",2025-11-01,Rent,950,EXPENSE,Housing\n");
+        ExternalChange change = service.syncWithLedgerFile();
+
+        // Assert
+        assertEquals(ExternalChange.Kind.REWRITTEN, change.kind());
+        assertEquals(1, change.updated());
+        assertEquals(2, change.removed());
+        assertFalse(change.conflict());
+        assertEquals(0, new BigDecimal("-950").compareTo(service.getBalanceAt(LocalDate.of(2025, 11, 30))));
+    }
+
+    @Test
+    void rewrittenFiles_shouldKeepTheIdsOfRowsWithoutAnIdOrWithARepeatedId(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path ledger = tempDir.resolve("ledger.csv");
+        String id = "0190a5b2-7c3d-7e4f-8a1b-2c3d4e5f6a7b";
+        String rent = id + ",2025-11-01,Rent,900,EXPENSE,Housing\n";
+        String coffee = "2025-11-02,Coffee,3.50,EXPENSE,Food\n";
+        Files.writeString(ledger, "ID,Date,Description,Amount,Type,Category\n" + rent + rent + coffee);
+        TransactionService service = new TransactionService(new TransactionRepository(ledger.toString()));
+
+        // Act: another program rewrites the file with the same rows in another order
+        Files.writeString(ledger, "ID,Date,Description,Amount,Type,Category\n" + coffee + rent + rent);
+        ExternalChange change = service.syncWithLedgerFile();
+
+        // Assert: every row kept its ID, so nothing looks deleted and added again
+        assertEquals(ExternalChange.Kind.REWRITTEN, change.kind());
+        assertEquals(0, change.added());
+        assertEquals(0, change.updated());
+        assertEquals(0, change.removed());
+        assertEquals(3, service.getAllTransactions().size());
+    }
+
+    @Test
+    void changes_shouldThrow_whenTheyCannotBeSaved_andKeepTheChangeForTheNextSave() {
+        // Arrange: the disk refuses the first save, and the file was not changed by anyone else
+        when(transactionRepository.saveTransactions(any())).thenReturn(false, true);
+        Transaction rent = new Transaction(LocalDate.of(2025, 11, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        Transaction lunch = new Transaction(LocalDate.of(2025, 11, 3), "Lunch", new BigDecimal("11"), TransactionType.EXPENSE, "Food");
+
+        // Act & Assert
+        LedgerSaveException notSaved = assertThrows(LedgerSaveException.class, () -> transactionService.addTransaction(rent));
+        assertFalse(notSaved instanceof LedgerConflictException);
+        assertTrue(transactionService.findTransactionById(rent.getId()).isPresent(), "The change stays in memory");
+
+        transactionService.addTransaction(lunch);
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(2)).saveTransactions(saved.capture());
+        assertEquals(List.of(rent, lunch), List.copyOf(saved.getValue()));
+    }
+
+    @Test
+    void changes_shouldThrowAConflict_whenAnotherProgramRewroteTheFileFirst(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path ledger = tempDir.resolve("ledger.csv");
+        TransactionService service = new TransactionService(new TransactionRepository(ledger.toString()));
+        Transaction rent = new Transaction(LocalDate.of(2025, 11, 1), "Rent", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        service.addTransaction(rent);
+        Files.writeString(ledger, "ID,Date,Description,Amount,Type,Category\n"
+                + rent.getId() + ",2025-11-01,Rent,950,EXPENSE,Housing\n");
+        Transaction lunch = new Transaction(LocalDate.of(2025, 11, 3), "Lunch", new BigDecimal("11"), TransactionType.EXPENSE, "Food");
+
+        // Act
+        LedgerConflictException conflict = assertThrows(LedgerConflictException.class, () -> service.addTransaction(lunch));
+
+        // Assert: the file's version won, and undo brings the change back
+        assertTrue(conflict.getChange().conflict());
+        assertEquals(1, service.getAllTransactions().size());
+        assertEquals(0, new BigDecimal("950").compareTo(service.getAllTransactions().getFirst().getAmount()));
+        assertTrue(service.undo());
+        assertTrue(service.findTransactionById(lunch.getId()).isPresent());
+    }
+
+    @Test
+    void archive_shouldShrinkTheLedger_andKeepReportsAndBalancesWithoutReadingArchivedRows(@TempDir Path tempDir) {
+        // Arrange
+        String ledger = tempDir.resolve("ledger.csv").toString();
+        TransactionService service = new TransactionService(new TransactionRepository(ledger), null, ArchiveRepository.forLedger(ledger));
+        for (int year = 2021; year <= 2024; year++) {
+            service.addTransaction(new Transaction(LocalDate.of(year, 1, 31), "Salary", new BigDecimal("3000.00"), TransactionType.INCOME, "Work"));
+            service.addTransaction(new Transaction(LocalDate.of(year, 6, 15), "Rent", new BigDecimal("1000.50"), TransactionType.EXPENSE, "Housing"));
+        }
+        FinancialSummary summaryBefore = service.getFinancialSummary();
+        CategoryReport reportBefore = service.getCategoryReport();
+        List<MonthlyTotals> monthsBefore = service.getMonthlyTotals();
+        BigDecimal midYearBalance = service.getBalanceAt(LocalDate.of(2022, 3, 1));
+
+        // Act
+        List<ArchiveSegment> written = service.archiveYearsBefore(2023);
+        // Reopen from disk: the ledger now only holds 2023 onwards
+        TransactionService reopened = new TransactionService(new TransactionRepository(ledger), null, ArchiveRepository.forLedger(ledger));
+
+        // Assert
+        assertEquals(List.of(2021, 2022), written.stream().map(ArchiveSegment::year).toList());
+        assertFalse(service.canUndo(), "Archiving cannot be undone");
+        for (TransactionService ledgerService : List.of(service, reopened)) {
+            assertEquals(4, ledgerService.getAllTransactions().size());
+            assertEquals(0, summaryBefore.netBalance().compareTo(ledgerService.getFinancialSummary().netBalance()));
+            assertEquals(0, reportBefore.expensesByCategory().get("Housing").compareTo(ledgerService.getCategoryReport().expensesByCategory().get("Housing")));
+            assertEquals(monthsBefore.size(), ledgerService.getMonthlyTotals().size());
+            assertEquals(0, midYearBalance.compareTo(ledgerService.getBalanceAt(LocalDate.of(2022, 3, 1))));
+            assertEquals(Optional.of(LocalDate.of(2021, 1, 31)), ledgerService.getEarliestTransactionDate());
+        }
+        assertEquals(2, reopened.getArchiveSegments().getFirst().transactionCount());
+        assertEquals(0, new BigDecimal("3000.00").compareTo(reopened.getArchiveSegments().getFirst().totalIncome()));
+
+        List<Transaction> archived2022 = reopened.getArchivedTransactions(2022);
+        assertEquals(List.of("Salary", "Rent"), archived2022.stream().map(Transaction::getDescription).toList());
+        assertTrue(reopened.getArchivedTransactions(2024).isEmpty());
+
+        // Act: a late 2022 row is archived into the existing segment
+        reopened.addTransaction(new Transaction(LocalDate.of(2022, 12, 31), "Refund", new BigDecimal("20"), TransactionType.INCOME, "Misc"));
+        reopened.archiveYearsBefore(2023);
+
+        // Assert
+        assertEquals(3, reopened.getArchivedTransactions(2022).size());
+        assertEquals(0, summaryBefore.netBalance().add(new BigDecimal("20")).compareTo(reopened.getFinancialSummary().netBalance()));
+    }
+
+    @Test
+    void batch_shouldApplyAllOperationsWithOneSaveAndOneUndoStep_orNothingAtAll() {
+        // Arrange
+        Transaction coffee = new Transaction(LocalDate.of(2024, 3, 1), "Coffee", new BigDecimal("3.50"), TransactionType.EXPENSE, "Misc");
+        Transaction lunch = new Transaction(LocalDate.of(2024, 3, 2), "Lunch", new BigDecimal("12.00"), TransactionType.EXPENSE, "Misc");
+        Transaction salary = new Transaction(LocalDate.of(2024, 3, 3), "Salary", new BigDecimal("3000.00"), TransactionType.INCOME, "Work");
+        when(transactionRepository.loadTransactions()).thenReturn(new ArrayList<>(List.of(coffee, lunch, salary)));
+        when(transactionRepository.saveTransactions(any())).thenReturn(true);
+        transactionService = new TransactionService(transactionRepository);
+        Transaction rent = new Transaction(LocalDate.of(2024, 3, 4), "Rent", new BigDecimal("900.00"), TransactionType.EXPENSE, "Misc");
+
+        // Act
+        BatchReport rejected = transactionService.newBatch()
+                .delete(salary.getId())
+                .delete("no-such-id")
+                .commit();
+        Transaction coffeeAgain = Transaction.withId(coffee.getTransactionId(), coffee.getDate(), "Coffee again",
+                new BigDecimal("4.00"), TransactionType.EXPENSE, "Misc", coffee.getCurrency());
+        Transaction bonus = new Transaction(LocalDate.of(2024, 3, 5), "Bonus", new BigDecimal("100.00"), TransactionType.INCOME, "Work");
+        BatchReport reusedIds = transactionService.newBatch()
+                .add(coffeeAgain)
+                .add(bonus)
+                .add(bonus)
+                .commit();
+        BatchReport report = transactionService.newBatch()
+                .add(rent)
+                .recategorize(rent.getId(), "Housing")
+                .recategorize(new TransactionFilter(null, null, "misc", TransactionType.EXPENSE), "Food")
+                .delete(salary.getId())
+                .commit();
+
+        // Assert
+        assertFalse(rejected.applied());
+        assertEquals(List.of("no-such-id"), rejected.missingIds());
+        assertFalse(reusedIds.applied(), "An add may not reuse an ID, whether from the ledger or from the same batch");
+        assertEquals(List.of(coffee.getId(), bonus.getId()), reusedIds.duplicateIds());
+        assertTrue(transactionService.findTransactionById(bonus.getId()).isEmpty());
+
+        assertTrue(report.applied());
+        assertEquals(1, report.added());
+        assertEquals(3, report.updated(), "Rent to Housing, then Coffee and Lunch to Food.");
+        assertEquals(1, report.deleted());
+        assertEquals("Housing", transactionService.findTransactionById(rent.getId()).orElseThrow().getCategory());
+        assertEquals("Food", transactionService.findTransactionById(coffee.getId()).orElseThrow().getCategory());
+        assertTrue(transactionService.findTransactionById(salary.getId()).isEmpty());
+        assertEquals(0, new BigDecimal("15.50").compareTo(transactionService.getCategoryReport().expensesByCategory().get("Food")));
+        verify(transactionRepository, times(1)).saveTransactions(any());
+
+        assertTrue(transactionService.undo());
+        assertEquals(3, transactionService.getAllTransactions().size());
+        assertEquals("Misc", transactionService.findTransactionById(coffee.getId()).orElseThrow().getCategory());
+    }
+
+    @Test
+    void query_shouldMatchLikeAScan_andPickTheMostSelectiveIndex() {
+        // Arrange
+        List<Transaction> ledger = new ArrayList<>();
+        for (int i = 0; i < 730; i++) {
+            LocalDate date = LocalDate.of(2024, 1, 1).plusDays(i);
+            ledger.add(new Transaction(date, "Groceries " + i, BigDecimal.valueOf(20 + i % 60), TransactionType.EXPENSE, "Food"));
+            ledger.add(new Transaction(date, "Bus", new BigDecimal("2.50"), TransactionType.EXPENSE, "Transport"));
+        }
+        Transaction rent = new Transaction(LocalDate.of(2025, 1, 1), "Rent \"Flat 2\"", new BigDecimal("900"), TransactionType.EXPENSE, "Housing");
+        ledger.add(rent);
+        when(transactionRepository.loadTransactions()).thenReturn(ledger);
+        transactionService = new TransactionService(transactionRepository);
+
+        // Act
+        QueryResult food = transactionService.query("category=food and amount>50 and date>=2025-01");
+        QueryResult byMonth = transactionService.query("date=2024-02 and not (category=Transport or amount<30)");
+        QueryResult byId = transactionService.query("id=" + rent.getId());
+        QueryResult text = transactionService.query("description~\"flat 2\" or type=income");
+
+        // Assert
+        List<Transaction> expectedFood = ledger.stream()
+                .filter(t -> t.getCategory().equals("Food") && t.getAmount().compareTo(new BigDecimal("50")) > 0
+                        && !t.getDate().isBefore(LocalDate.of(2025, 1, 1)))
+                .toList();
+        assertEquals(expectedFood, food.transactions());
+        assertTrue(food.plan().startsWith("Index: category 'food', date 2025-01-01 to ..."), food.plan());
+        assertEquals(364, food.examined(), "Only the category's rows in the date range are examined");
+
+        assertTrue(byMonth.plan().startsWith("Index: date 2024-02-01 to 2024-02-29"), byMonth.plan());
+        assertEquals(58, byMonth.examined());
+        assertTrue(byMonth.transactions().stream().allMatch(t -> t.getCategory().equals("Food") && t.getDate().getMonthValue() == 2));
+
+        assertEquals(List.of(rent), byId.transactions());
+        assertEquals(1, byId.examined());
+        assertEquals(List.of(rent), text.transactions());
+        assertTrue(text.plan().startsWith("Scan: all 1461 transactions"), text.plan());
+        assertTrue(text.explain().contains("matched 1"));
+
+        transactionService.deleteTransaction(rent.getId());
+        assertTrue(transactionService.query("category=Housing").transactions().isEmpty());
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> transactionService.query("amount>>5"));
+        assertEquals("Expected a value after 'amount >' at position 8", error.getMessage());
+    }
+
+    @Test
+    void sortedViewsAndTopN_shouldOrderByValue_keepTiesInLedgerOrder_andFollowChanges() {
+        // Arrange
+        Transaction small = new Transaction(LocalDate.of(2025, 3, 5), "bakery", new BigDecimal("9.5"), TransactionType.EXPENSE, "food");
+        Transaction large = new Transaction(LocalDate.of(2025, 3, 1), "Rent", new BigDecimal("1200.00"), TransactionType.EXPENSE, "Housing");
+        Transaction medium = new Transaction(LocalDate.of(2025, 3, 9), "Apples", new BigDecimal("10.25"), TransactionType.EXPENSE, "Food");
+        Transaction tie = new Transaction(LocalDate.of(2025, 3, 1), "Zoo", new BigDecimal("10.250"), TransactionType.EXPENSE, "Fun");
+        Transaction salary = new Transaction(LocalDate.of(2025, 3, 2), "Salary", new BigDecimal("5000"), TransactionType.INCOME, "Work");
+        Transaction lastMonth = new Transaction(LocalDate.of(2025, 2, 28), "Laptop", new BigDecimal("1500"), TransactionType.EXPENSE, "Tech");
+        when(transactionRepository.loadTransactions()).thenReturn(new ArrayList<>(List.of(small, large, medium, tie, salary, lastMonth)));
+        transactionService = new TransactionService(transactionRepository);
+
+        // Act
+        List<Transaction> byAmount = transactionService.getSortedTransactions(SortKey.AMOUNT, false);
+        List<Transaction> byDate = transactionService.getSortedTransactions(SortKey.DATE, false);
+        List<Transaction> byCategory = transactionService.getSortedTransactions(SortKey.CATEGORY, false);
+        List<Transaction> byDescriptionDescending = transactionService.getSortedTransactions(SortKey.DESCRIPTION, true);
+        List<Transaction> largest = transactionService.getLargestExpenses(YearMonth.of(2025, 3), 2);
+
+        // Assert
+        assertEquals(List.of(small, medium, tie, large, lastMonth, salary), byAmount);
+        assertEquals(List.of(lastMonth, large, tie, salary, small, medium), byDate);
+        assertEquals(List.of(small, medium, tie, large, lastMonth, salary), byCategory, "food and Food tie, in ledger order");
+        assertEquals(List.of(tie, salary, large, lastMonth, small, medium), byDescriptionDescending);
+        assertEquals(List.of(large, medium), largest, "10.25 and 10.250 tie; the earlier one wins");
+        assertSame(byAmount.getFirst(), transactionService.getSortedTransactions(SortKey.AMOUNT, false).getFirst());
+
+        transactionService.deleteTransaction(large.getId());
+        assertEquals(List.of(small, medium, tie, lastMonth, salary), transactionService.getSortedTransactions(SortKey.AMOUNT, false));
+        assertEquals(List.of(salary, lastMonth), transactionService.getTopTransactions("", SortKey.AMOUNT, 2));
+    }
+
+    @Test
+    void recurringRules_shouldProjectPendingOccurrences_andMaterializeOnlyWhenConfirmed(@TempDir Path tempDir) {
+        // Arrange
+        String ledger = tempDir.resolve("ledger.csv").toString();
+        TransactionService service = new TransactionService(new TransactionRepository(ledger), null, null,
+                RecurringRuleRepository.forLedger(ledger));
+        service.addTransaction(new Transaction(LocalDate.of(2025, 1, 1), "Opening", new BigDecimal("5000.00"), TransactionType.INCOME, "Savings"));
+        RecurringRule rent = RecurringRule.of("Rent, flat 2", new BigDecimal("1200.00"), TransactionType.EXPENSE, "Housing",
+                RecurrenceFrequency.MONTHLY, 1, LocalDate.of(2025, 1, 31), null);
+        RecurringRule salary = RecurringRule.of("Salary", new BigDecimal("3000.00"), TransactionType.INCOME, "Work",
+                RecurrenceFrequency.WEEKLY, 2, LocalDate.of(2025, 1, 3), LocalDate.of(2025, 2, 28));
+        service.addRecurringRule(rent);
+        service.addRecurringRule(salary);
+
+        // Act
+        List<RecurringOccurrence> pending = service.getPendingOccurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31));
+        FinancialSummary february = service.getProjectedSummary(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28));
+
+        // Assert: occurrences are computed, not stored
+        assertEquals(List.of(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 31)),
+                rent.occurrencesBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)), "A rule on the 31st should fall on the last day of short months");
+        assertEquals(3 + 5, pending.size());
+        assertEquals(1, service.getAllTransactions().size());
+        assertEquals(0, new BigDecimal("6000.00").compareTo(february.totalIncome()));
+        assertEquals(0, new BigDecimal("1200.00").compareTo(february.totalExpenses()));
+        assertEquals(0, new BigDecimal("1200.00").compareTo(service.getProjectedCategoryReport(LocalDate.of(2025, 2, 1),
+                LocalDate.of(2025, 2, 28)).expensesByCategory().get("Housing")));
+        // 5000 + 5 salaries - 3 rents
+        assertEquals(0, new BigDecimal("16400.00").compareTo(service.getProjectedBalanceAt(LocalDate.of(2025, 3, 31))));
+        assertEquals(0, new BigDecimal("5000.00").compareTo(service.getBalanceAt(LocalDate.of(2025, 3, 31))));
+        List<BalancePoint> daily = service.getProjectedDailyBalances(LocalDate.of(2025, 1, 30), LocalDate.of(2025, 2, 1));
+        assertEquals(List.of(new BigDecimal("11000.00"), new BigDecimal("12800.00"), new BigDecimal("12800.00")),
+                daily.stream().map(BalancePoint::balance).toList());
+
+        // Act: confirm everything due by mid-February
+        List<Transaction> confirmed = service.confirmOccurrencesThrough(LocalDate.of(2025, 2, 15));
+
+        // Assert
+        assertEquals(5, confirmed.size());
+        assertEquals(6, service.getAllTransactions().size());
+        assertEquals(3, service.getPendingOccurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)).size());
+        assertEquals(0, new BigDecimal("16400.00").compareTo(service.getProjectedBalanceAt(LocalDate.of(2025, 3, 31))),
+                "Confirming should not change the projection");
+        assertTrue(service.confirmOccurrence(rent.id(), LocalDate.of(2025, 1, 31)).isEmpty(), "Already confirmed");
+        assertTrue(service.confirmOccurrence(rent.id(), LocalDate.of(2025, 2, 27)).isEmpty(), "Not an occurrence");
+        assertTrue(service.confirmOccurrence(rent.id(), LocalDate.of(2025, 2, 28)).isPresent());
+
+        // Act: undo the single confirmation, then the batch
+        service.undo();
+        service.undo();
+        TransactionService reopened = new TransactionService(new TransactionRepository(ledger), null, null,
+                RecurringRuleRepository.forLedger(ledger));
+
+        // Assert: the occurrences are pending again and the rules survive a reload
+        assertEquals(8, service.getPendingOccurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)).size());
+        assertEquals(List.of(rent, salary), reopened.getRecurringRules());
+        assertEquals(1, reopened.getAllTransactions().size());
+        assertTrue(reopened.removeRecurringRule(salary.id()));
+        assertEquals(3, reopened.getPendingOccurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)).size());
+    }
+
+    @Test
+    void defaultCurrencyTotalsAndBudgets_shouldConvertOtherCurrencies_andSetAsideThoseWithoutARate(@TempDir Path tempDir) throws IOException {
+        Currency previousDefault = Transaction.getDefaultCurrency();
+        Transaction.setDefaultCurrency(Currency.getInstance("EUR"));
+        try {
+            // Arrange
+            Currency usd = Currency.getInstance("USD");
+            Currency jpy = Currency.getInstance("JPY");
+            Path ledger = tempDir.resolve("ledger.csv");
+            Files.writeString(tempDir.resolve("ledger.rates.csv"), "Date,Base,Quote,Rate\n2025-01-01,EUR,USD,1.25\n");
+            TransactionService service = new TransactionService(new TransactionRepository(ledger.toString()), null, null, null,
+                    ExchangeRateRepository.forLedger(ledger.toString()));
+            service.setBudget(new Budget("Travel", BudgetPeriod.MONTHLY, new BigDecimal("100")));
+            service.addTransaction(new Transaction(LocalDate.of(2025, 1, 2), "Train", new BigDecimal("40.00"), TransactionType.EXPENSE, "Travel"));
+            assertFalse(service.hasForeignCurrencies());
+            Transaction hotel = new Transaction(LocalDate.of(2025, 1, 3), "Hotel", new BigDecimal("100.00"), TransactionType.EXPENSE, "Travel", usd);
+            service.addTransaction(hotel);
+
+            // Act
+            FinancialSummary summary = service.getFinancialSummaryInDefaultCurrency();
+            List<BudgetStatus> warnings = service.getBudgetWarnings(hotel);
+
+            // Assert: 100 USD is 80 EUR, which takes the budget over its limit
+            assertTrue(service.hasForeignCurrencies());
+            assertEquals(0, new BigDecimal("120.00").compareTo(summary.totalExpenses()));
+            assertEquals(0, new BigDecimal("120.00").compareTo(service.getCategoryReportInDefaultCurrency().expensesByCategory().get("Travel")));
+            assertEquals(1, warnings.size());
+            assertEquals(0, new BigDecimal("120.00").compareTo(warnings.getFirst().spent()));
+            assertTrue(warnings.getFirst().unconverted().isEmpty());
+
+            // Act: spending in a currency without a rate
+            service.addTransaction(new Transaction(LocalDate.of(2025, 1, 4), "Sushi", new BigDecimal("3000"), TransactionType.EXPENSE, "Travel", jpy));
+            BudgetStatus status = service.getBudgetStatuses(LocalDate.of(2025, 1, 31)).getFirst();
+
+            // Assert: it is neither added up raw nor dropped
+            assertThrows(IllegalStateException.class, service::getFinancialSummaryInDefaultCurrency);
+            assertEquals(0, new BigDecimal("120.00").compareTo(status.spent()));
+            assertEquals(Map.of(jpy, new BigDecimal("3000")), status.unconverted());
+        } finally {
+            Transaction.setDefaultCurrency(previousDefault);
+        }
+    }
+
+    @Test
+    void currencies_shouldRoundTripThroughTheFile_andConvertReportsAtEachDaysRate(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Currency eur = Currency.getInstance("EUR");
+        Currency usd = Currency.getInstance("USD");
+        Currency jpy = Currency.getInstance("JPY");
+        Path ledger = tempDir.resolve("ledger.csv");
+        Files.writeString(tempDir.resolve("ledger.rates.csv"), """
+                Date,Base,Quote,Rate
+                2025-01-01,EUR,USD,1.10
+                2025-01-03,EUR,USD,1.25
+                2025-01-02,EUR,GBP,0.85
+                """);
+        TransactionService service = new TransactionService(new TransactionRepository(ledger.toString()), null, null, null,
+                ExchangeRateRepository.forLedger(ledger.toString()));
+        service.addTransaction(new Transaction(LocalDate.of(2025, 1, 1), "Salary", new BigDecimal("1000.00"), TransactionType.INCOME, "Work", eur));
+        service.addTransaction(new Transaction(LocalDate.of(2025, 1, 2), "Hotel", new BigDecimal("110.00"), TransactionType.EXPENSE, "Travel", usd));
+        service.addTransaction(new Transaction(LocalDate.of(2025, 1, 4), "Taxi", new BigDecimal("25.00"), TransactionType.EXPENSE, "Travel", usd));
+
+        // Act
+        FinancialSummary inEuros = service.getFinancialSummary(eur);
+        FinancialSummary inDollars = service.getFinancialSummary(usd);
+        TransactionService reopened = new TransactionService(new TransactionRepository(ledger.toString()));
+
+        // Assert: 110 USD on Jan 2 uses Jan 1's rate, 25 USD on Jan 4 uses Jan 3's
+        assertEquals(0, new BigDecimal("120.00").compareTo(inEuros.totalExpenses()));
+        assertEquals(0, new BigDecimal("880.00").compareTo(inEuros.netBalance()));
+        assertEquals(0, new BigDecimal("1100.00").compareTo(inDollars.totalIncome()), "EUR income converts at its own day's rate");
+        assertEquals(0, new BigDecimal("120.00").compareTo(service.getCategoryReport(eur).expensesByCategory().get("Travel")));
+        assertEquals(0, new BigDecimal("0.77").compareTo(service.convert(BigDecimal.ONE, usd, Currency.getInstance("GBP"), LocalDate.of(2025, 1, 2))),
+                "Cross rates go through the base: 1 / 1.10 * 0.85");
+        assertEquals(List.of(eur, usd), service.getCurrencies());
+        assertEquals(usd, reopened.findTransactionById(service.getAllTransactions().get(1).getId()).orElseThrow().getCurrency());
+
+        // Act: the cached totals follow ledger changes, and a new rate invalidates them
+        service.addTransaction(new Transaction(LocalDate.of(2025, 1, 5), "Dinner", new BigDecimal("50.00"), TransactionType.EXPENSE, "Food", usd));
+        FinancialSummary afterAdd = service.getFinancialSummary(eur);
+        service.addExchangeRates(List.of(new ExchangeRate(LocalDate.of(2025, 1, 5), eur, usd, new BigDecimal("1.00"))));
+        FinancialSummary afterRate = service.getFinancialSummary(eur);
+
+        // Assert
+        assertEquals(0, new BigDecimal("160.00").compareTo(afterAdd.totalExpenses()));
+        assertEquals(0, new BigDecimal("170.00").compareTo(afterRate.totalExpenses()));
+        assertEquals(4, ExchangeRateRepository.forLedger(ledger.toString()).loadRates().size(), "New rates are saved");
+        service.addTransaction(new Transaction(LocalDate.of(2025, 1, 6), "Sushi", new BigDecimal("3000"), TransactionType.EXPENSE, "Food", jpy));
+        IllegalStateException missing = assertThrows(IllegalStateException.class, () -> service.getFinancialSummary(eur));
+        assertTrue(missing.getMessage().contains("JPY"));
+        assertThrows(IllegalArgumentException.class, () -> service.addExchangeRates(
+                List.of(new ExchangeRate(LocalDate.of(2025, 1, 6), usd, jpy, new BigDecimal("150")))), "The table has one base");
+    }
+
+    @Test
+    void reconcile_shouldPairRowsByAmountWithinTheWindow_preferAlikeDescriptions_andReportTheRest(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Transaction market = new Transaction(LocalDate.of(2025, 1, 10), "Corner Market", new BigDecimal("12.50"), TransactionType.EXPENSE, "Food");
+        Transaction laterMarket = new Transaction(LocalDate.of(2025, 1, 20), "Corner Market", new BigDecimal("12.50"), TransactionType.EXPENSE, "Food");
+        Transaction gym = new Transaction(LocalDate.of(2025, 1, 11), "Gym Membership", new BigDecimal("12.50"), TransactionType.EXPENSE, "Health");
+        Transaction netflix = new Transaction(LocalDate.of(2025, 1, 15), "Netflix", new BigDecimal("15.99"), TransactionType.EXPENSE, "Subscriptions");
+        Transaction salary = new Transaction(LocalDate.of(2025, 1, 1), "Salary", new BigDecimal("2000"), TransactionType.INCOME, "Work");
+        Transaction december = new Transaction(LocalDate.of(2024, 12, 1), "Cafe", new BigDecimal("4.20"), TransactionType.EXPENSE, "Food");
+        when(transactionRepository.loadTransactions()).thenReturn(new ArrayList<>(List.of(market, laterMarket, gym, netflix, salary, december)));
+        transactionService = new TransactionService(transactionRepository);
+        Path statement = tempDir.resolve("statement.csv");
+        Files.writeString(statement, String.join("\n",
+                "Date,Description,Amount,Type,Category",
+                "2025-01-11,POS 4411 CORNER MARKET LDN,12.5,EXPENSE,Bank",
+                "2025-01-21,CORNER MARKET,12.50,EXPENSE,Bank",
+                "2025-01-15,NETFLIX.COM 866-579,15.99,EXPENSE,Bank",
+                "2025-01-01,PAYROLL ACME,2000,INCOME,Bank",
+                "Closing balance,,1234.56",
+                "2025-01-18,Bookshop,30.00,EXPENSE,Bank") + "\n");
+
+        // Act
+        ReconciliationReport report = transactionService.reconcileWithFile(statement.toString(),
+                TransactionService.DEFAULT_RECONCILE_WINDOW_DAYS, TransactionService.DEFAULT_RECONCILE_SIMILARITY);
+
+        // Assert: the gym row has the same amount and an exact date, but the market row a day away is far more alike
+        assertEquals(LocalDate.of(2025, 1, 1), report.from());
+        assertEquals(LocalDate.of(2025, 1, 21), report.to());
+        assertEquals(5, report.statementRows());
+        assertEquals(List.of(market, laterMarket, netflix), report.matched().stream().map(ReconciliationReport.Match::ledger).toList());
+        assertEquals(-1, report.matched().getFirst().dayOffset());
+        assertEquals(List.of("PAYROLL ACME", "Bookshop"), report.missing().stream().map(Transaction::getDescription).toList());
+        assertEquals(List.of(salary, gym), report.extra(), "Unmatched ledger rows in the period, in date order; December is outside it");
+        assertFalse(report.balanced());
+        assertFalse(Files.exists(tempDir.resolve("statement.csv.quarantine")), "Reading a statement leaves no files behind");
+
+        // A lower bar pairs the payroll row with the salary despite the different description
+        ReconciliationReport lenient = transactionService.reconcileWithFile(statement.toString(), 3, 0);
+        assertEquals(List.of("Bookshop"), lenient.missing().stream().map(Transaction::getDescription).toList());
+        assertEquals(List.of(gym), lenient.extra());
+        assertThrows(IllegalArgumentException.class, () -> transactionService.reconcile(List.of(), -1, 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.reconcileWithFile(statement.toString(), Integer.MAX_VALUE, 0.5));
+    }
+}
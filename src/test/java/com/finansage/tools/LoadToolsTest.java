@@ -0,0 +1,73 @@
+package com.finansage.tools;
+
+import com.finansage.model.Transaction;
+import com.finansage.model.TransactionType;
+import com.finansage.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadToolsTest {
+
+    @Test
+    void generator_shouldBeRepeatable_andFollowTheRequestedShape(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        LedgerGenerator.Settings settings = new LedgerGenerator.Settings(20_000, LocalDate.of(2023, 1, 1),
+                LocalDate.of(2023, 12, 31), 8, 1.2, 200, 1.0, 0.1, 5);
+        Path file = tempDir.resolve("generated.csv");
+
+        // Act
+        long written = new LedgerGenerator(settings).writeTo(file);
+        List<Transaction> loaded = new TransactionRepository(file.toString()).loadTransactions();
+        List<Transaction> again = new LedgerGenerator(settings).stream().toList();
+
+        // Assert
+        assertEquals(20_000, written);
+        assertEquals(20_000, loaded.size());
+        assertEquals(loaded.get(123).getId(), again.get(123).getId(), "The same seed should give the same rows");
+        assertEquals(0, loaded.get(123).getAmount().compareTo(again.get(123).getAmount()));
+        assertEquals(LocalDate.of(2023, 1, 1), loaded.getFirst().getDate());
+        assertEquals(LocalDate.of(2023, 12, 31), loaded.getLast().getDate());
+        assertTrue(loaded.stream().map(Transaction::getDate).toList()
+                .equals(loaded.stream().map(Transaction::getDate).sorted().toList()), "Rows should be in date order");
+
+        List<Transaction> expenses = loaded.stream().filter(t -> t.getType() == TransactionType.EXPENSE).toList();
+        assertEquals(0.9, expenses.size() / 20_000.0, 0.02);
+        Map<String, Long> perCategory = expenses.stream().collect(Collectors.groupingBy(Transaction::getCategory, Collectors.counting()));
+        assertEquals(8, perCategory.size());
+        List<Long> counts = perCategory.values().stream().sorted(Comparator.reverseOrder()).toList();
+        assertTrue(counts.getFirst() > 4 * counts.getLast(), "Categories should be skewed: " + counts);
+        long descriptions = expenses.stream().map(Transaction::getDescription).distinct().count();
+        assertTrue(descriptions > 150 && descriptions <= 200, "Expected up to 200 merchants but found " + descriptions);
+    }
+
+    @Test
+    void soakDriver_shouldRunTheMixedWorkload_andReportWithoutErrors() throws IOException {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SoakDriver.Settings settings = new SoakDriver.Settings(null, 2_000, Duration.ofMillis(500), 2, 0.2, Duration.ZERO, 3);
+
+        // Act
+        SoakDriver.Result result = new SoakDriver(settings, new PrintStream(output, true)).run();
+
+        // Assert
+        assertTrue(result.operations() > 0);
+        assertEquals(0, result.errors(), output::toString);
+        String report = output.toString();
+        for (String line : List.of("summary", "query", "add", "total", "Heap:", "GC time:")) {
+            assertTrue(report.contains(line), "Report should mention " + line + ":\n" + report);
+        }
+    }
+}
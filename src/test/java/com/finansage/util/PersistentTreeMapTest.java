@@ -0,0 +1,50 @@
+package com.finansage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentTreeMapTest {
+
+    @Test
+    void randomOperations_shouldMatchTreeMap_andLeaveOlderVersionsUntouched() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.empty();
+
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+        }
+
+        PersistentTreeMap<Integer, String> before = map;
+        List<String> beforeValues = new ArrayList<>(expected.values());
+        PersistentTreeMap<Integer, String> after = map.put(1_000, "new").remove(expected.firstKey());
+
+        assertEquals(expected.size(), before.size());
+        List<String> iterated = new ArrayList<>();
+        before.forEach(iterated::add);
+        assertEquals(beforeValues, iterated);
+        for (int rank = 0; rank < beforeValues.size(); rank++) {
+            assertEquals(beforeValues.get(rank), before.getByIndex(rank));
+        }
+        expected.forEach((key, value) -> assertEquals(value, before.get(key)));
+
+        assertEquals(before.size(), after.size());
+        assertEquals("new", after.get(1_000));
+        assertNull(before.get(1_000));
+        assertNotNull(before.get(expected.firstKey()));
+        assertNull(after.get(expected.firstKey()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.finansage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchesTest {
+
+    @Test
+    void quantileSketch_shouldStayWithinRelativeError_includingAfterRemovals() {
+        // Arrange
+        Random random = new Random(7);
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2 + 3);
+            sketch.add(values[i]);
+        }
+        // Remove the first half again
+        for (int i = 0; i < values.length / 2; i++) {
+            sketch.remove(values[i]);
+        }
+
+        // Act
+        double[] remaining = Arrays.copyOfRange(values, values.length / 2, values.length);
+        Arrays.sort(remaining);
+
+        // Assert
+        assertEquals(remaining.length, sketch.count());
+        for (double q : new double[]{0.0, 0.25, 0.5, 0.95, 0.99, 1.0}) {
+            double exact = remaining[(int) (q * (remaining.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * 0.01 + 1e-9, "q=" + q);
+        }
+    }
+
+    @Test
+    void hyperLogLog_shouldEstimateWithinAFewStandardErrors() {
+        for (int distinct : new int[]{10, 1_000, 200_000}) {
+            // Arrange
+            HyperLogLog hll = new HyperLogLog(14);
+
+            // Act: every element added twice
+            for (int i = 0; i < distinct * 2; i++) {
+                hll.add(Hashing.hash64("merchant-" + (i % distinct)));
+            }
+
+            // Assert
+            assertEquals(distinct, hll.estimate(), distinct * hll.standardError() * 4 + 1, "distinct=" + distinct);
+        }
+    }
+
+    @Test
+    void spaceSaving_shouldFindHeavyHitters_withBoundedOverestimate() {
+        // Arrange
+        Random random = new Random(3);
+        SpaceSaving<String> sketch = new SpaceSaving<>(20);
+        int added = 0;
+
+        // Act: three heavy items among a long tail of rare ones
+        for (int i = 0; i < 10_000; i++) {
+            int pick = random.nextInt(10);
+            String item = pick < 3 ? "heavy" + pick : "rare" + random.nextInt(5_000);
+            sketch.add(item);
+            added++;
+        }
+
+        // Assert
+        List<SpaceSaving.Entry<String>> top = sketch.top(3);
+        assertEquals(3, top.size());
+        for (SpaceSaving.Entry<String> entry : top) {
+            assertTrue(entry.item().startsWith("heavy"), entry.item());
+            assertTrue(entry.error() <= added / 20);
+            assertTrue(entry.count() - entry.error() > 800, "Guaranteed count should be close to 1,000");
+        }
+    }
+}